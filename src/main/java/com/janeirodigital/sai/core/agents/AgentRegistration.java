@@ -9,10 +9,12 @@ import com.janeirodigital.sai.rdfutils.SaiRdfException;
 import com.janeirodigital.sai.rdfutils.SaiRdfNotFoundException;
 import lombok.Getter;
 import lombok.Setter;
+import org.apache.jena.rdf.model.Property;
 
 import java.net.URI;
 import java.time.OffsetDateTime;
 import java.util.Objects;
+import java.util.Set;
 import java.util.UUID;
 
 import static com.janeirodigital.sai.core.vocabularies.InteropVocabulary.*;
@@ -41,6 +43,15 @@ public abstract class AgentRegistration extends CRUDResource {
      */
     protected AgentRegistration(Builder<?> builder) throws SaiException {
         super(builder);
+        populateFromBuilder(builder);
+    }
+
+    /**
+     * Set the common fields of the {@link AgentRegistration} from a populated <code>builder</code>. Used by
+     * subclasses to refresh them after the graph of the registration has been replaced in place.
+     * @param builder {@link Builder} to set fields from
+     */
+    protected void populateFromBuilder(Builder<?> builder) {
         this.registeredBy = builder.registeredBy;
         this.registeredWith = builder.registeredWith;
         this.registeredAt = builder.registeredAt;
@@ -49,6 +60,16 @@ public abstract class AgentRegistration extends CRUDResource {
         this.accessGrantUri = builder.accessGrantUri;
     }
     
+    /**
+     * Each of the common fields of an {@link AgentRegistration} has a single value, so a value set locally replaces
+     * the current one when merging with a concurrent update
+     * @return Set of functional properties
+     */
+    @Override
+    protected Set<Property> getFunctionalProperties() {
+        return Set.of(REGISTERED_BY, REGISTERED_WITH, REGISTERED_AT, UPDATED_AT, REGISTERED_AGENT, HAS_ACCESS_GRANT);
+    }
+
     /**
      * Generates the URI for a new contained "child" resource in the {@link AgentRegistration}
      * @return Generated URI
@@ -5,7 +5,11 @@ import com.janeirodigital.sai.core.exceptions.SaiException;
 import com.janeirodigital.sai.core.exceptions.SaiRuntimeException;
 import com.janeirodigital.sai.core.resources.CRUDResource;
 import com.janeirodigital.sai.core.sessions.SaiSession;
+import com.janeirodigital.sai.core.utils.RegistrationDelta;
+import com.janeirodigital.sai.core.utils.RegistrationIndex;
 import com.janeirodigital.sai.core.utils.RegistrationList;
+import com.janeirodigital.sai.core.utils.RegistrationPages;
+import com.janeirodigital.sai.core.utils.RegistryDelta;
 import com.janeirodigital.sai.httputils.ContentType;
 import com.janeirodigital.sai.httputils.SaiHttpNotFoundException;
 import lombok.Getter;
@@ -14,8 +18,8 @@ import org.apache.jena.rdf.model.Model;
 import org.apache.jena.rdf.model.Resource;
 
 import java.net.URI;
+import java.util.Collection;
 import java.util.Iterator;
-import java.util.List;
 import java.util.Objects;
 
 import static com.janeirodigital.sai.core.vocabularies.InteropVocabulary.*;
@@ -31,6 +35,7 @@ public class AgentRegistry extends CRUDResource {
 
     private final SocialAgentRegistrationList<SocialAgentRegistration> socialAgentRegistrations;
     private final ApplicationRegistrationList<ApplicationRegistration> applicationRegistrations;
+    private RegistrationPages pages;
 
     /**
      * Construct an {@link AgentRegistry} instance from the provided {@link Builder}.
@@ -41,6 +46,7 @@ public class AgentRegistry extends CRUDResource {
         super(builder);
         this.socialAgentRegistrations = builder.socialAgentRegistrations;
         this.applicationRegistrations = builder.applicationRegistrations;
+        this.pages = builder.pages;
     }
 
     /**
@@ -79,6 +85,20 @@ public class AgentRegistry extends CRUDResource {
         return get(this.uri, this.saiSession, this.contentType);
     }
 
+    /**
+     * Reload a new instance of {@link AgentRegistry}, along with the registrations that were added and removed
+     * since this instance was loaded, so that only what changed needs to be processed
+     * @return {@link RegistryDelta} with the reloaded {@link AgentRegistry}
+     * @throws SaiHttpNotFoundException
+     * @throws SaiException
+     */
+    public RegistryDelta<AgentRegistry> reloadWithDelta() throws SaiHttpNotFoundException, SaiException {
+        AgentRegistry reloaded = reload();
+        return new RegistryDelta<>(reloaded,
+                                   RegistrationDelta.between(this.socialAgentRegistrations, reloaded.socialAgentRegistrations),
+                                   RegistrationDelta.between(this.applicationRegistrations, reloaded.applicationRegistrations));
+    }
+
     /**
      * Indicate whether the {@link AgentRegistry} has any registrations
      * @return true if there are not registrations
@@ -107,7 +127,7 @@ public class AgentRegistry extends CRUDResource {
     private void addSocialAgentRegistration(SocialAgentRegistration registration) throws SaiAlreadyExistsException {
         SocialAgentRegistration found = this.getSocialAgentRegistrations().find(registration.getRegisteredAgent());
         if (found != null) { throw new SaiAlreadyExistsException("Social agent registration already exists for " + registration.getRegisteredAgent()); }
-        this.getSocialAgentRegistrations().add(registration.getUri());
+        this.getSocialAgentRegistrations().add(registration.getUri(), registration.getRegisteredAgent());
     }
 
     /**
@@ -119,7 +139,79 @@ public class AgentRegistry extends CRUDResource {
     private void addApplicationRegistration(ApplicationRegistration registration) throws SaiAlreadyExistsException {
         ApplicationRegistration found = this.getApplicationRegistrations().find(registration.getRegisteredAgent());
         if (found != null) { throw new SaiAlreadyExistsException("Application registration already exists for " + registration.getRegisteredAgent()); }
-        this.getSocialAgentRegistrations().add(registration.getUri());
+        this.getApplicationRegistrations().add(registration.getUri(), registration.getRegisteredAgent());
+    }
+
+    /**
+     * Keep the registration links of the {@link AgentRegistry} in a chain of {@link RegistrationPages} of up to
+     * <code>pageSize</code> links each, rather than in the registry resource itself. Registrations already linked
+     * from the registry are moved to the pages on the next {@link #update()}. When the registry is already paged,
+     * only the size of pages started from now on is changed.
+     * @param pageSize Maximum number of registration links on a page
+     * @throws SaiException
+     */
+    public void enablePaging(int pageSize) throws SaiException {
+        if (this.pages != null) {
+            this.pages.setPageSize(pageSize);
+            return;
+        }
+        this.pages = new RegistrationPages(this.saiSession, this.resource, pageSize, this.contentType);
+        this.socialAgentRegistrations.setPages(this.pages);
+        this.applicationRegistrations.setPages(this.pages);
+    }
+
+    /**
+     * Check whether the registration links of the {@link AgentRegistry} are kept in {@link RegistrationPages}
+     * @return true when paged
+     */
+    public boolean isPaged() { return this.pages != null; }
+
+    /**
+     * Updates the {@link AgentRegistry} over HTTP. When paged, only the pages that have changed are written,
+     * and the registry resource itself is only written when it is new or its links have changed.
+     * @throws SaiException
+     */
+    @Override
+    public void update() throws SaiException {
+        if (this.pages == null) {
+            super.update();
+            return;
+        }
+        boolean registryChanged = this.pages.update();
+        if (registryChanged || !this.exists) { super.update(); }
+    }
+
+    /**
+     * Checkpoint the {@link AgentRegistry}, along with its pages when paged (see {@link RegistrationPages#checkpoint(Checkpoint)})
+     * @return {@link Checkpoint}
+     */
+    @Override
+    public Checkpoint checkpoint() {
+        Checkpoint checkpoint = super.checkpoint();
+        return this.pages == null ? checkpoint : this.pages.checkpoint(checkpoint);
+    }
+
+    /**
+     * Restore the {@link AgentRegistry} to <code>checkpoint</code>, along with its pages when paged. The pages are
+     * restored first, so that the registration lists are refreshed from both.
+     * @param checkpoint {@link Checkpoint} to restore
+     * @throws SaiException
+     */
+    @Override
+    public void restore(Checkpoint checkpoint) throws SaiException {
+        Objects.requireNonNull(checkpoint, "Must provide a checkpoint to restore");
+        if (this.pages != null) { this.pages.restore(checkpoint); }
+        super.restore(checkpoint);
+    }
+
+    /**
+     * Refresh the registration lists from the graph of the registry, after it has been replaced in place
+     * @throws SaiException
+     */
+    @Override
+    protected void refreshFromDataset() throws SaiException {
+        this.socialAgentRegistrations.populate();
+        this.applicationRegistrations.populate();
     }
 
     /**
@@ -139,6 +231,7 @@ public class AgentRegistry extends CRUDResource {
 
         private SocialAgentRegistrationList<SocialAgentRegistration> socialAgentRegistrations;
         private ApplicationRegistrationList<ApplicationRegistration> applicationRegistrations;
+        private RegistrationPages pages;
 
         /**
          * Initialize builder with <code>uri</code> and <code>saiSession</code>
@@ -179,6 +272,11 @@ public class AgentRegistry extends CRUDResource {
             try {
                 this.socialAgentRegistrations = new SocialAgentRegistrationList<>(this.saiSession, this.resource);
                 this.applicationRegistrations = new ApplicationRegistrationList<>(this.saiSession, this.resource);
+                if (RegistrationPages.isPaged(this.resource)) {
+                    this.pages = RegistrationPages.load(this.saiSession, this.resource, RegistrationPages.DEFAULT_PAGE_SIZE, this.contentType);
+                    this.socialAgentRegistrations.setPages(this.pages);
+                    this.applicationRegistrations.setPages(this.pages);
+                }
                 this.socialAgentRegistrations.populate();
                 this.applicationRegistrations.populate();
             } catch (SaiException ex) {
@@ -221,32 +319,48 @@ public class AgentRegistry extends CRUDResource {
 
         /**
          * Override the default find in {@link RegistrationList} to lookup based on the registeredAgent of
-         * the {@link SocialAgentRegistration}
+         * the {@link SocialAgentRegistration}. Uses the {@link RegistrationIndex} of the list, so at most one registration is
+         * fetched once the registered agent has been indexed.
          * @param agentUri URI of the registered agent
          * @return {@link SocialAgentRegistration}
          */
         @Override
-        public T find(URI agentUri) {
-            for (T registration : this) {
-                SocialAgentRegistration social = (SocialAgentRegistration) registration;
-                if (agentUri.equals(social.getRegisteredAgent())) { return registration; }
-            }
-            return null;
-        }
+        public T find(URI agentUri) { return this.findIndexed(agentUri); }
+
+        /**
+         * Index {@link SocialAgentRegistration}s by their registered agent
+         * @param registration {@link SocialAgentRegistration} to get the key for
+         * @return URI of the registered agent
+         */
+        @Override
+        protected URI getIndexKey(T registration) { return ((SocialAgentRegistration) registration).getRegisteredAgent(); }
 
         /**
          * Return an iterator for {@link SocialAgentRegistration} instances
          * @return {@link SocialAgentRegistration} Iterator
          */
         @Override
-        public Iterator<T> iterator() { return new SocialAgentRegistrationListIterator<>(this.getSaiSession(), this.getRegistrationUris()); }
+        public Iterator<T> iterator() {
+            if (this.isReadAhead()) { return this.readAheadIterator(); }
+            return new SocialAgentRegistrationListIterator<>(this.getSaiSession(), this.iterationUris());
+        }
+
+        /**
+         * Get the {@link SocialAgentRegistration} at <code>registrationUri</code>
+         * @param registrationUri URI of the {@link SocialAgentRegistration}
+         * @return {@link SocialAgentRegistration}
+         */
+        @Override
+        protected T getRegistration(URI registrationUri) throws SaiException, SaiHttpNotFoundException {
+            return (T) SocialAgentRegistration.get(registrationUri, this.getSaiSession());
+        }
 
         /**
          * Custom iterator that iterates over {@link SocialAgentRegistration} URIs and gets actual instances of them
          */
         private static class SocialAgentRegistrationListIterator<T> extends RegistrationListIterator<T> {
 
-            public SocialAgentRegistrationListIterator(SaiSession saiSession, List<URI> registrationUris) { super(saiSession, registrationUris); }
+            public SocialAgentRegistrationListIterator(SaiSession saiSession, Collection<URI> registrationUris) { super(saiSession, registrationUris); }
 
             /**
              * Get the {@link SocialAgentRegistration} for the next URI in the iterator
@@ -275,32 +389,48 @@ public class AgentRegistry extends CRUDResource {
 
         /**
          * Override the default find in {@link RegistrationList} to lookup based on the registeredAgent of
-         * the {@link ApplicationRegistration}
+         * the {@link ApplicationRegistration}. Uses the {@link RegistrationIndex} of the list, so at most one registration is
+         * fetched once the registered agent has been indexed.
          * @param agentUri URI of the registered agent
          * @return {@link ApplicationRegistration}
          */
         @Override
-        public T find(URI agentUri) {
-            for (T registration : this) {
-                ApplicationRegistration application = (ApplicationRegistration) registration;
-                if (agentUri.equals(application.getRegisteredAgent())) { return registration; }
-            }
-            return null;
-        }
+        public T find(URI agentUri) { return this.findIndexed(agentUri); }
+
+        /**
+         * Index {@link ApplicationRegistration}s by their registered agent
+         * @param registration {@link ApplicationRegistration} to get the key for
+         * @return URI of the registered agent
+         */
+        @Override
+        protected URI getIndexKey(T registration) { return ((ApplicationRegistration) registration).getRegisteredAgent(); }
 
         /**
          * Return an iterator for {@link ApplicationRegistration} instances
          * @return {@link ApplicationRegistration} Iterator
          */
         @Override
-        public Iterator<T> iterator() { return new ApplicationRegistrationListIterator<>(this.getSaiSession(), this.getRegistrationUris()); }
+        public Iterator<T> iterator() {
+            if (this.isReadAhead()) { return this.readAheadIterator(); }
+            return new ApplicationRegistrationListIterator<>(this.getSaiSession(), this.iterationUris());
+        }
+
+        /**
+         * Get the {@link ApplicationRegistration} at <code>registrationUri</code>
+         * @param registrationUri URI of the {@link ApplicationRegistration}
+         * @return {@link ApplicationRegistration}
+         */
+        @Override
+        protected T getRegistration(URI registrationUri) throws SaiException, SaiHttpNotFoundException {
+            return (T) ApplicationRegistration.get(registrationUri, this.getSaiSession());
+        }
 
         /**
          * Custom iterator that iterates over {@link ApplicationRegistration} URIs and gets actual instances of them
          */
         private static class ApplicationRegistrationListIterator<T> extends RegistrationListIterator<T> {
 
-            public ApplicationRegistrationListIterator(SaiSession saiSession, List<URI> registrationUris) { super(saiSession, registrationUris); }
+            public ApplicationRegistrationListIterator(SaiSession saiSession, Collection<URI> registrationUris) { super(saiSession, registrationUris); }
 
             /**
              * Get the {@link ApplicationRegistration} for the next URI in the iterator
@@ -58,19 +58,7 @@ public class ApplicationProfile extends CRUDResource {
      */
     private ApplicationProfile(Builder builder) throws SaiException {
         super(builder);
-        this.name = builder.name;
-        this.description = builder.description;
-        this.authorUri = builder.authorUri;
-        this.logoUri = builder.logoUri;
-        this.accessNeedGroupUris = builder.accessNeedGroupUris;
-        this.redirectUris = builder.redirectUris;
-        this.clientUri = builder.clientUri;
-        this.tosUri = builder.tosUri;
-        this.scopes = builder.scopes;
-        this.grantTypes = builder.grantTypes;
-        this.responseTypes = builder.responseTypes;
-        this.defaultMaxAge = builder.defaultMaxAge;
-        this.requireAuthTime = builder.requireAuthTime;
+        populateFromBuilder(builder);
         try { this.jsonLdContext = buildRemoteJsonLdContexts(contexts); } catch (SaiRdfException ex) {
             throw new SaiException("Failed to build remote JSON-LD context", ex);
         }
@@ -111,6 +99,35 @@ public class ApplicationProfile extends CRUDResource {
         return get(this.uri, this.saiSession, this.contentType);
     }
 
+    /**
+     * Refresh the fields of the {@link ApplicationProfile} from its graph, after it has been replaced in place
+     * @throws SaiException
+     */
+    @Override
+    protected void refreshFromDataset() throws SaiException {
+        populateFromBuilder(new Builder(this.uri, this.saiSession).setDataset(this.dataset));
+    }
+
+    /**
+     * Set the fields of the {@link ApplicationProfile} from a populated <code>builder</code>
+     * @param builder {@link Builder} to set fields from
+     */
+    private void populateFromBuilder(Builder builder) {
+        this.name = builder.name;
+        this.description = builder.description;
+        this.authorUri = builder.authorUri;
+        this.logoUri = builder.logoUri;
+        this.accessNeedGroupUris = builder.accessNeedGroupUris;
+        this.redirectUris = builder.redirectUris;
+        this.clientUri = builder.clientUri;
+        this.tosUri = builder.tosUri;
+        this.scopes = builder.scopes;
+        this.grantTypes = builder.grantTypes;
+        this.responseTypes = builder.responseTypes;
+        this.defaultMaxAge = builder.defaultMaxAge;
+        this.requireAuthTime = builder.requireAuthTime;
+    }
+
     /**
      * Builder for {@link ApplicationProfile} instances.
      */
@@ -69,6 +69,15 @@ public class ApplicationRegistration extends AgentRegistration {
         return get(this.uri, this.saiSession, this.contentType);
     }
 
+    /**
+     * Refresh the fields of the {@link ApplicationRegistration} from its graph, after it has been replaced in place
+     * @throws SaiException
+     */
+    @Override
+    protected void refreshFromDataset() throws SaiException {
+        populateFromBuilder(new Builder(this.uri, this.saiSession).setDataset(this.dataset));
+    }
+
     /**
      * Builder for {@link ApplicationRegistration} instances.
      */
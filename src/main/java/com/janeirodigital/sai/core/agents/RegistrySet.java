@@ -40,9 +40,7 @@ public class RegistrySet extends CRUDResource {
      */
     private RegistrySet(Builder builder) throws SaiException {
         super(builder);
-        this.agentRegistryUri = builder.agentRegistryUri;
-        this.authorizationRegistryUri = builder.authorizationRegistryUri;
-        this.dataRegistryUris = builder.dataRegistryUris;
+        populateFromBuilder(builder);
     }
 
     /**
@@ -81,6 +79,25 @@ public class RegistrySet extends CRUDResource {
         return get(this.uri, this.saiSession, this.contentType);
     }
 
+    /**
+     * Refresh the fields of the {@link RegistrySet} from its graph, after it has been replaced in place
+     * @throws SaiException
+     */
+    @Override
+    protected void refreshFromDataset() throws SaiException {
+        populateFromBuilder(new Builder(this.uri, this.saiSession).setDataset(this.dataset));
+    }
+
+    /**
+     * Set the fields of the {@link RegistrySet} from a populated <code>builder</code>
+     * @param builder {@link Builder} to set fields from
+     */
+    private void populateFromBuilder(Builder builder) {
+        this.agentRegistryUri = builder.agentRegistryUri;
+        this.authorizationRegistryUri = builder.authorizationRegistryUri;
+        this.dataRegistryUris = builder.dataRegistryUris;
+    }
+
     /**
      * Builder for {@link RegistrySet} instances.
      */
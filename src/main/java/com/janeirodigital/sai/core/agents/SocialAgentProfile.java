@@ -40,9 +40,7 @@ public class SocialAgentProfile extends CRUDResource {
      */
     private SocialAgentProfile(Builder builder) throws SaiException {
         super(builder);
-        this.registrySetUri = builder.registrySetUri;
-        this.authorizationAgentUri = builder.authorizationAgentUri;
-        this.oidcIssuerUris = builder.oidcIssuerUris;
+        populateFromBuilder(builder);
     }
 
     /**
@@ -81,6 +79,25 @@ public class SocialAgentProfile extends CRUDResource {
         return get(this.uri, this.saiSession, this.contentType);
     }
 
+    /**
+     * Refresh the fields of the {@link SocialAgentProfile} from its graph, after it has been replaced in place
+     * @throws SaiException
+     */
+    @Override
+    protected void refreshFromDataset() throws SaiException {
+        populateFromBuilder(new Builder(this.uri, this.saiSession).setDataset(this.dataset));
+    }
+
+    /**
+     * Set the fields of the {@link SocialAgentProfile} from a populated <code>builder</code>
+     * @param builder {@link Builder} to set fields from
+     */
+    private void populateFromBuilder(Builder builder) {
+        this.registrySetUri = builder.registrySetUri;
+        this.authorizationAgentUri = builder.authorizationAgentUri;
+        this.oidcIssuerUris = builder.oidcIssuerUris;
+    }
+
     /**
      * Builder for {@link SocialAgentProfile} instances.
      */
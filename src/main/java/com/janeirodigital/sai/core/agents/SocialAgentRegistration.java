@@ -10,9 +10,12 @@ import lombok.Getter;
 import lombok.Setter;
 import okhttp3.Response;
 import org.apache.jena.rdf.model.Model;
+import org.apache.jena.rdf.model.Property;
 
 import java.net.URI;
+import java.util.HashSet;
 import java.util.Objects;
+import java.util.Set;
 
 import static com.janeirodigital.sai.core.vocabularies.InteropVocabulary.RECIPROCAL_REGISTRATION;
 import static com.janeirodigital.sai.core.vocabularies.InteropVocabulary.SOCIAL_AGENT_REGISTRATION;
@@ -76,6 +79,28 @@ public class SocialAgentRegistration extends AgentRegistration {
         return get(this.uri, this.saiSession, this.contentType);
     }
 
+    /**
+     * Refresh the fields of the {@link SocialAgentRegistration} from its graph, after it has been replaced in place
+     * @throws SaiException
+     */
+    @Override
+    protected void refreshFromDataset() throws SaiException {
+        Builder builder = new Builder(this.uri, this.saiSession).setDataset(this.dataset);
+        populateFromBuilder(builder);
+        this.reciprocalRegistration = builder.reciprocalRegistration;
+    }
+
+    /**
+     * The reciprocal registration has a single value, along with the common fields of an {@link AgentRegistration}
+     * @return Set of functional properties
+     */
+    @Override
+    protected Set<Property> getFunctionalProperties() {
+        Set<Property> functional = new HashSet<>(super.getFunctionalProperties());
+        functional.add(RECIPROCAL_REGISTRATION);
+        return functional;
+    }
+
     /**
      * Builder for {@link SocialAgentRegistration} instances.
      */
@@ -2,26 +2,38 @@ package com.janeirodigital.sai.core.authorizations;
 
 import com.janeirodigital.sai.core.agents.AgentRegistration;
 import com.janeirodigital.sai.core.agents.AgentRegistry;
+import com.janeirodigital.sai.core.data.DataRegistration;
 import com.janeirodigital.sai.core.data.DataRegistry;
 import com.janeirodigital.sai.core.exceptions.SaiException;
 import com.janeirodigital.sai.core.resources.ImmutableResource;
 import com.janeirodigital.sai.core.sessions.SaiSession;
+import com.janeirodigital.sai.core.utils.ConcurrentFetcher;
+import com.janeirodigital.sai.core.utils.InheritanceLinker;
 import com.janeirodigital.sai.httputils.ContentType;
+import com.janeirodigital.sai.httputils.SaiHttpException;
 import com.janeirodigital.sai.httputils.SaiHttpNotFoundException;
 import com.janeirodigital.sai.rdfutils.SaiRdfException;
 import com.janeirodigital.sai.rdfutils.SaiRdfNotFoundException;
+import lombok.AllArgsConstructor;
 import lombok.Getter;
 import okhttp3.Response;
 import org.apache.jena.rdf.model.Model;
+import org.apache.jena.rdf.model.Resource;
 
 import java.net.URI;
 import java.time.OffsetDateTime;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 
 import static com.janeirodigital.sai.core.vocabularies.InteropVocabulary.*;
 import static com.janeirodigital.sai.httputils.HttpUtils.DEFAULT_RDF_CONTENT_TYPE;
+import static com.janeirodigital.sai.httputils.HttpUtils.getRdfModelFromResponse;
 import static com.janeirodigital.sai.rdfutils.RdfUtils.*;
 
 /**
@@ -83,6 +95,27 @@ public class AccessAuthorization extends ImmutableResource {
         return get(uri, saiSession, DEFAULT_RDF_CONTENT_TYPE);
     }
 
+    /**
+     * Get a {@link Summary} of the {@link AccessAuthorization} at the provided <code>uri</code>, with only its
+     * grantee and the authorization it replaces. Much cheaper than {@link #get(URI, SaiSession)} because none
+     * of the {@link DataAuthorization}s are loaded.
+     * @param uri URI of the {@link AccessAuthorization} to summarize
+     * @param saiSession {@link SaiSession} to use
+     * @return {@link Summary} of the {@link AccessAuthorization}
+     * @throws SaiException
+     * @throws SaiHttpNotFoundException
+     */
+    public static Summary getSummary(URI uri, SaiSession saiSession) throws SaiException, SaiHttpNotFoundException {
+        Objects.requireNonNull(uri, "Must provide the URI of the access authorization to summarize");
+        Objects.requireNonNull(saiSession, "Must provide a sai session to summarize the access authorization with");
+        try (Response response = read(uri, saiSession, DEFAULT_RDF_CONTENT_TYPE, false)) {
+            Resource resource = getResourceFromModel(getRdfModelFromResponse(response), uri);
+            return new Summary(uri, getRequiredUriObject(resource, GRANTEE), getUriObject(resource, REPLACES));
+        } catch (SaiHttpException | SaiRdfException | SaiRdfNotFoundException ex) {
+            throw new SaiException("Unable to summarize access authorization " + uri, ex);
+        }
+    }
+
     /**
      * Reload a new instance of {@link AccessAuthorization} using the attributes of the current instance
      * @return Reloaded {@link AccessAuthorization}
@@ -102,20 +135,215 @@ public class AccessAuthorization extends ImmutableResource {
      * @throws SaiException
      */
     public AccessGrant generateGrant(AgentRegistration granteeRegistration, AgentRegistry agentRegistry, List<DataRegistry> dataRegistries) throws SaiException, SaiHttpNotFoundException {
+        return generateGrant(granteeRegistration, agentRegistry, dataRegistries, GrantGenerationContext.sequential());
+    }
+
+    /**
+     * Generate an {@link AccessGrant} and its associated {@link DataGrant}s based on this {@link AccessAuthorization},
+     * using the execution settings of <code>context</code>. When the context is concurrent, the data grants for each
+     * primary {@link DataAuthorization} are generated concurrently, and merged in the order of the data authorizations,
+     * so the resulting {@link AccessGrant} is the same as one generated sequentially. All failures are collected
+     * before one is raised.
+     * @param granteeRegistration {@link AgentRegistration} for the grantee
+     * @param agentRegistry {@link AgentRegistry} for the social agent performing the grant
+     * @param dataRegistries List of {@link DataRegistry} instances in scope of the authorization
+     * @param context {@link GrantGenerationContext} to generate grants with
+     * @return Generated {@link AccessGrant}
+     * @throws SaiException
+     * @throws SaiHttpNotFoundException
+     */
+    public AccessGrant generateGrant(AgentRegistration granteeRegistration, AgentRegistry agentRegistry, List<DataRegistry> dataRegistries,
+                                     GrantGenerationContext context) throws SaiException, SaiHttpNotFoundException {
+        Objects.requireNonNull(granteeRegistration, "Must provide a grantee agent registration to generate an access grant");
+        Objects.requireNonNull(agentRegistry, "Must provide an agent registry to generate an access grant");
+        Objects.requireNonNull(dataRegistries, "Must provide data registries to generate an access grant");
+        Objects.requireNonNull(context, "Must provide a context to generate an access grant with");
+        List<DataGrant> dataGrants = generateDataGrants(granteeRegistration, agentRegistry, dataRegistries, context);
+        return newGrantBuilder(granteeRegistration).setDataGrants(dataGrants).build();
+    }
+
+    /**
+     * Plan the generation of an {@link AccessGrant} based on this {@link AccessAuthorization}, without fetching any
+     * remote resources, to find out how expensive generating it will be. See {@link GrantPlan}.
+     * @param granteeRegistration {@link AgentRegistration} for the grantee
+     * @param agentRegistry {@link AgentRegistry} for the social agent performing the grant
+     * @param dataRegistries List of {@link DataRegistry} instances in scope of the authorization
+     * @param context {@link GrantGenerationContext} to plan with, and to generate with when the plan is executed
+     * @return {@link GrantPlan} with the cost of each primary {@link DataAuthorization}
+     * @throws SaiException
+     */
+    public GrantPlan planGrant(AgentRegistration granteeRegistration, AgentRegistry agentRegistry, List<DataRegistry> dataRegistries,
+                               GrantGenerationContext context) throws SaiException {
+        Objects.requireNonNull(granteeRegistration, "Must provide a grantee agent registration to plan an access grant");
+        Objects.requireNonNull(agentRegistry, "Must provide an agent registry to plan an access grant");
+        Objects.requireNonNull(dataRegistries, "Must provide data registries to plan an access grant");
+        Objects.requireNonNull(context, "Must provide a context to plan an access grant with");
+        Set<URI> planned = new HashSet<>();
+        List<GrantPlan.Cost> costs = new ArrayList<>();
+        for (DataAuthorization dataAuthorization : this.dataAuthorizations) {
+            if (dataAuthorization.getScopeOfAuthorization().equals(SCOPE_INHERITED)) { continue; }
+            costs.add(dataAuthorization.plan(agentRegistry, dataRegistries, context, planned));
+        }
+        return new GrantPlan(this, granteeRegistration, agentRegistry, dataRegistries, context, costs);
+    }
+
+    /**
+     * Generate an {@link AccessGrant} and its associated {@link DataGrant}s based on this {@link AccessAuthorization}
+     * incrementally, reusing the unchanged data grants of the existing {@link AccessGrant} linked from
+     * <code>granteeRegistration</code> (if there is one). See {@link IncrementalGrant}.
+     * @param granteeRegistration {@link AgentRegistration} for the grantee
+     * @param agentRegistry {@link AgentRegistry} for the social agent performing the grant
+     * @param dataRegistries List of {@link DataRegistry} instances in scope of the authorization
+     * @param context {@link GrantGenerationContext} to generate grants with
+     * @return {@link IncrementalGrant}
+     * @throws SaiException
+     * @throws SaiHttpNotFoundException
+     */
+    public IncrementalGrant generateGrantIncrementally(AgentRegistration granteeRegistration, AgentRegistry agentRegistry, List<DataRegistry> dataRegistries,
+                                                       GrantGenerationContext context) throws SaiException, SaiHttpNotFoundException {
+        Objects.requireNonNull(granteeRegistration, "Must provide a grantee agent registration to generate an access grant");
+        AccessGrant existingGrant = null;
+        if (granteeRegistration.hasAccessGrant()) {
+            try {
+                existingGrant = AccessGrant.get(granteeRegistration.getAccessGrantUri(), this.saiSession);
+            } catch (SaiHttpNotFoundException ex) {
+                // The linked access grant is gone, so there's nothing to reuse
+            }
+        }
+        return generateGrantIncrementally(granteeRegistration, agentRegistry, dataRegistries, context, existingGrant);
+    }
+
+    /**
+     * Generate an {@link AccessGrant} and its associated {@link DataGrant}s based on this {@link AccessAuthorization}
+     * incrementally, reusing the unchanged data grants of <code>existingGrant</code>. See {@link IncrementalGrant}.
+     * @param granteeRegistration {@link AgentRegistration} for the grantee
+     * @param agentRegistry {@link AgentRegistry} for the social agent performing the grant
+     * @param dataRegistries List of {@link DataRegistry} instances in scope of the authorization
+     * @param context {@link GrantGenerationContext} to generate grants with
+     * @param existingGrant Existing {@link AccessGrant} of the grantee (may be null)
+     * @return {@link IncrementalGrant}
+     * @throws SaiException
+     * @throws SaiHttpNotFoundException
+     */
+    public IncrementalGrant generateGrantIncrementally(AgentRegistration granteeRegistration, AgentRegistry agentRegistry, List<DataRegistry> dataRegistries,
+                                                       GrantGenerationContext context, AccessGrant existingGrant) throws SaiException, SaiHttpNotFoundException {
         Objects.requireNonNull(granteeRegistration, "Must provide a grantee agent registration to generate an access grant");
         Objects.requireNonNull(agentRegistry, "Must provide an agent registry to generate an access grant");
         Objects.requireNonNull(dataRegistries, "Must provide data registries to generate an access grant");
+        Objects.requireNonNull(context, "Must provide a context to generate an access grant with");
+        List<DataGrant> dataGrants = generateDataGrants(granteeRegistration, agentRegistry, dataRegistries, context);
+        return IncrementalGrant.reconcile(dataGrants, existingGrant, newGrantBuilder(granteeRegistration));
+    }
+
+    /**
+     * Determine whether the grants generated from this {@link AccessAuthorization} would change when
+     * <code>dataRegistration</code> is added to a data registry of the social agent that granted it. That is the case
+     * when a {@link DataAuthorization} with a scope of All or AllFromRegistry covers the shape tree of the data
+     * registration (and doesn't specify a different data registration), or when a data authorization for the shape
+     * tree inherits from one of those.
+     * @param dataRegistration {@link DataRegistration} that was added
+     * @return true when grants for this authorization should be regenerated
+     */
+    public boolean isAffectedBy(DataRegistration dataRegistration) {
+        Objects.requireNonNull(dataRegistration, "Must provide the data registration that was added");
+        URI shapeTree = dataRegistration.getRegisteredShapeTree();
+        for (DataAuthorization dataAuthorization : this.dataAuthorizations) {
+            if (!shapeTree.equals(dataAuthorization.getRegisteredShapeTree())) { continue; }
+            if (dataAuthorization.getScopeOfAuthorization().equals(SCOPE_INHERITED)) {
+                DataAuthorization parent = findDataAuthorization(dataAuthorization.getInheritsFrom());
+                if (parent != null && coversAllOfRegistry(parent, null)) { return true; }
+            } else if (coversAllOfRegistry(dataAuthorization, dataRegistration.getUri())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Check whether <code>dataAuthorization</code> is shared by the data owner directly with a scope of All or
+     * AllFromRegistry, and (when <code>dataRegistrationUri</code> is provided) isn't limited to another data registration
+     */
+    private static boolean coversAllOfRegistry(DataAuthorization dataAuthorization, URI dataRegistrationUri) {
+        if (dataAuthorization.getDataOwner() != null && !dataAuthorization.getDataOwner().equals(dataAuthorization.getGrantedBy())) { return false; }
+        if (!dataAuthorization.getScopeOfAuthorization().equals(SCOPE_ALL) && !dataAuthorization.getScopeOfAuthorization().equals(SCOPE_ALL_FROM_REGISTRY)) { return false; }
+        return dataRegistrationUri == null || dataAuthorization.getDataRegistration() == null || dataAuthorization.getDataRegistration().equals(dataRegistrationUri);
+    }
+
+    private DataAuthorization findDataAuthorization(URI uri) {
+        for (DataAuthorization dataAuthorization : this.dataAuthorizations) {
+            if (dataAuthorization.getUri().equals(uri)) { return dataAuthorization; }
+        }
+        return null;
+    }
+
+    /**
+     * Generate the {@link DataGrant}s of each primary {@link DataAuthorization}, in the order of the data authorizations
+     * @return List of generated {@link DataGrant}s
+     */
+    private List<DataGrant> generateDataGrants(AgentRegistration granteeRegistration, AgentRegistry agentRegistry, List<DataRegistry> dataRegistries,
+                                               GrantGenerationContext context) throws SaiException, SaiHttpNotFoundException {
         List<DataAuthorization> primaryDataAuthorizations = new ArrayList<>();
         this.dataAuthorizations.forEach(dataAuthorization -> {
             if (!dataAuthorization.getScopeOfAuthorization().equals(SCOPE_INHERITED)) { primaryDataAuthorizations.add(dataAuthorization); }
         });
+        if (context.isConcurrent()) {
+            return generateDataGrantsConcurrently(primaryDataAuthorizations, granteeRegistration, agentRegistry, dataRegistries, context);
+        }
+        List<DataGrant> dataGrants = new ArrayList<>();
+        for (DataAuthorization dataAuthorization : primaryDataAuthorizations) { dataGrants.addAll(dataAuthorization.generateGrants(this, granteeRegistration, agentRegistry, dataRegistries, context)); }
+        return dataGrants;
+    }
+
+    /**
+     * Get a builder for a new {@link AccessGrant} for the grantee, with the attributes of this {@link AccessAuthorization}
+     */
+    private AccessGrant.Builder newGrantBuilder(AgentRegistration granteeRegistration) {
+        AccessGrant.Builder grantBuilder = new AccessGrant.Builder(granteeRegistration.generateContainedUri(), this.saiSession);
+        return grantBuilder.setGrantedBy(this.grantedBy).setGrantedAt(this.grantedAt).setGrantee(this.grantee).setAccessNeedGroup(this.accessNeedGroup);
+    }
+
+    /**
+     * Generate the data grants of each primary {@link DataAuthorization} concurrently on <code>executor</code>, and
+     * merge them in the order of <code>primaryDataAuthorizations</code>. Failures are raised with
+     * {@link GrantGenerationContext#raise(List, String)}.
+     * @return List of generated {@link DataGrant}s
+     */
+    private List<DataGrant> generateDataGrantsConcurrently(List<DataAuthorization> primaryDataAuthorizations, AgentRegistration granteeRegistration,
+                                                           AgentRegistry agentRegistry, List<DataRegistry> dataRegistries,
+                                                           GrantGenerationContext context) throws SaiException, SaiHttpNotFoundException {
+        ExecutorService executor = context.getExecutor();
+        List<Future<List<DataGrant>>> futures = new ArrayList<>();
+        for (DataAuthorization dataAuthorization : primaryDataAuthorizations) {
+            futures.add(executor.submit(() -> dataAuthorization.generateGrants(this, granteeRegistration, agentRegistry, dataRegistries, context)));
+        }
         List<DataGrant> dataGrants = new ArrayList<>();
-        for (DataAuthorization dataAuthorization : primaryDataAuthorizations) { dataGrants.addAll(dataAuthorization.generateGrants(this, granteeRegistration, agentRegistry, dataRegistries)); }
-        // TODO - If there was a prior access grant, look at reusing some data grants
-        URI accessGrantUri = granteeRegistration.generateContainedUri();
-        AccessGrant.Builder grantBuilder = new AccessGrant.Builder(accessGrantUri, this.saiSession);
-        return grantBuilder.setGrantedBy(this.grantedBy).setGrantedAt(this.grantedAt).setGrantee(this.grantee)
-                           .setAccessNeedGroup(this.accessNeedGroup).setDataGrants(dataGrants).build();
+        List<Throwable> failures = new ArrayList<>();
+        for (Future<List<DataGrant>> future : futures) {
+            try {
+                dataGrants.addAll(future.get());
+            } catch (ExecutionException ex) {
+                failures.add(ex.getCause());
+            } catch (InterruptedException ex) {
+                for (Future<List<DataGrant>> pending : futures) { pending.cancel(true); }
+                Thread.currentThread().interrupt();
+                throw new SaiException("Interrupted while generating data grants for " + this.uri, ex);
+            }
+        }
+        GrantGenerationContext.raise(failures, "Failed to generate data grants for " + failures.size() + " of " +
+                                               primaryDataAuthorizations.size() + " data authorizations of " + this.uri);
+        return dataGrants;
+    }
+
+    /**
+     * Grantee and replaced authorization of an {@link AccessAuthorization}, which is enough
+     * to determine the current authorization for a grantee. See {@link #getSummary(URI, SaiSession)}.
+     */
+    @Getter
+    @AllArgsConstructor
+    public static class Summary {
+        private final URI uri;
+        private final URI grantee;
+        private final URI replaces;
     }
 
     /**
@@ -212,17 +440,11 @@ public class AccessAuthorization extends ImmutableResource {
 
         /**
          * Populates "parent" data authorizations with the "child" data authorizations that inherit from them
+         * @throws SaiException if a child data authorization is orphaned or cyclic
          */
-        private void organizeInheritance() {
-            for (DataAuthorization dataAuthorization : this.dataAuthorizations) {
-                if (!dataAuthorization.getScopeOfAuthorization().equals(SCOPE_INHERITED)) {
-                    for (DataAuthorization childAuthorization : this.dataAuthorizations) {
-                        if (childAuthorization.getScopeOfAuthorization().equals(SCOPE_INHERITED) && childAuthorization.getInheritsFrom().equals(dataAuthorization.getUri())) {
-                            dataAuthorization.getInheritingAuthorizations().add(childAuthorization);
-                        }
-                    }
-                }
-            }
+        private void organizeInheritance() throws SaiException {
+            InheritanceLinker.link(this.dataAuthorizations, DataAuthorization::getUri, DataAuthorization::getInheritsFrom,
+                                   (parent, child) -> parent.getInheritingAuthorizations().add(child));
         }
 
         /**
@@ -238,7 +460,8 @@ public class AccessAuthorization extends ImmutableResource {
                 this.accessNeedGroup = getRequiredUriObject(this.resource, HAS_ACCESS_NEED_GROUP);
                 this.replaces = getUriObject(this.resource, REPLACES);
                 List<URI> dataAuthorizationUris = getRequiredUriObjects(this.resource, HAS_DATA_AUTHORIZATION);
-                for (URI dataAuthorizationUri : dataAuthorizationUris) { this.dataAuthorizations.add(DataAuthorization.get(dataAuthorizationUri, this.saiSession)); }
+                this.dataAuthorizations.addAll(ConcurrentFetcher.fetchAll(dataAuthorizationUris, uri -> DataAuthorization.get(uri, this.saiSession),
+                                                                          this.saiSession.getChildLoadExecutor(), this.saiSession.getMaxChildLoads()));
                 organizeInheritance();
             } catch (SaiRdfException | SaiRdfNotFoundException | SaiHttpNotFoundException ex) {
                 throw new SaiException("Unable to populate immutable access authorization resource", ex);
@@ -247,8 +470,9 @@ public class AccessAuthorization extends ImmutableResource {
 
         /**
          * Populates the Jena dataset graph with the attributes from the Builder
+         * @throws SaiException
          */
-        private void populateDataset() {
+        private void populateDataset() throws SaiException {
             this.resource = getNewResourceForType(this.uri, ACCESS_AUTHORIZATION);
             this.dataset = this.resource.getModel();
             updateObject(this.resource, GRANTED_BY, this.grantedBy);
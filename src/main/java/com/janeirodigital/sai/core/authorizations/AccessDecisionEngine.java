@@ -0,0 +1,152 @@
+package com.janeirodigital.sai.core.authorizations;
+
+import org.apache.jena.rdf.model.RDFNode;
+
+import java.net.URI;
+import java.util.*;
+
+/**
+ * Answers whether the grantee of a {@link ReadableAccessGrant} can perform an access mode on a data instance,
+ * without walking the data grants or making any requests. The data grants of the access grant are compiled once
+ * into lookup structures, keyed by data owner and shape tree:
+ * <ul>
+ *     <li>Data registration to access modes, for data grants with a scope of AllFromRegistry, and the inherited
+ *     data grants of those (which permit every instance in their own data registration)</li>
+ *     <li>Selected data instance to access modes, for data grants with a scope of SelectedFromRegistry</li>
+ *     <li>Parent data instance to access modes, for the inherited data grants of SelectedFromRegistry data grants,
+ *     which permit the child instances of the selected instances</li>
+ * </ul>
+ * The engine reflects the access grant it was compiled from. A reloaded {@link ReadableAccessGrant} compiles its own.
+ */
+public class AccessDecisionEngine {
+
+    private final Map<URI, Map<URI, Rules>> rules;
+
+    /**
+     * Compile an {@link AccessDecisionEngine} from the data grants of <code>accessGrant</code>
+     * @param accessGrant {@link ReadableAccessGrant} to compile
+     */
+    public AccessDecisionEngine(ReadableAccessGrant accessGrant) {
+        this(Objects.requireNonNull(accessGrant, "Must provide an access grant to compile").getDataGrants());
+    }
+
+    /**
+     * Compile an {@link AccessDecisionEngine} from a list of {@link ReadableDataGrant}s, with inheriting grants
+     * already linked to their parents
+     * @param dataGrants List of {@link ReadableDataGrant}s to compile
+     */
+    protected AccessDecisionEngine(List<ReadableDataGrant> dataGrants) {
+        Objects.requireNonNull(dataGrants, "Must provide data grants to compile");
+        Map<URI, Map<URI, Rules>> compiled = new HashMap<>();
+        for (ReadableDataGrant dataGrant : dataGrants) {
+            if (dataGrant instanceof AllFromRegistryDataGrant) {
+                getRules(compiled, dataGrant).permitRegistration(dataGrant.getDataRegistration(), dataGrant.getAccessModes());
+                for (InheritedDataGrant childGrant : ((AllFromRegistryDataGrant) dataGrant).getInheritingGrants()) {
+                    getRules(compiled, childGrant).permitRegistration(childGrant.getDataRegistration(), childGrant.getAccessModes());
+                }
+            } else if (dataGrant instanceof SelectedFromRegistryDataGrant) {
+                SelectedFromRegistryDataGrant selectedGrant = (SelectedFromRegistryDataGrant) dataGrant;
+                Rules selectedRules = getRules(compiled, selectedGrant);
+                for (URI instance : selectedGrant.dataInstances) { selectedRules.permitInstance(instance, selectedGrant.getAccessModes()); }
+                for (InheritedDataGrant childGrant : selectedGrant.getInheritingGrants()) {
+                    Rules childRules = getRules(compiled, childGrant);
+                    for (URI parent : selectedGrant.dataInstances) { childRules.permitChildrenOf(parent, childGrant.getAccessModes()); }
+                }
+            }
+        }
+        this.rules = compiled;
+    }
+
+    /**
+     * Get the access modes the grantee has for the data instance at <code>instance</code>
+     * @param dataOwner URI of the social agent that owns the data instance
+     * @param shapeTree URI of the shape tree the data instance is managed by
+     * @param instance URI of the data instance
+     * @param parentInstance URI of the parent data instance when <code>instance</code> is a child instance (may be null)
+     * @return Unmodifiable set of access modes (empty when none are granted)
+     */
+    public Set<RDFNode> getAccessModes(URI dataOwner, URI shapeTree, URI instance, URI parentInstance) {
+        Objects.requireNonNull(dataOwner, "Must provide the data owner of the data instance");
+        Objects.requireNonNull(shapeTree, "Must provide the shape tree of the data instance");
+        Objects.requireNonNull(instance, "Must provide the URI of the data instance");
+        Map<URI, Rules> ownerRules = this.rules.get(dataOwner);
+        if (ownerRules == null) { return Collections.emptySet(); }
+        Rules shapeTreeRules = ownerRules.get(shapeTree);
+        if (shapeTreeRules == null) { return Collections.emptySet(); }
+        return shapeTreeRules.getAccessModes(instance, parentInstance);
+    }
+
+    /**
+     * Determine whether the grantee can perform <code>accessMode</code> on the data instance at <code>instance</code>
+     * @param dataOwner URI of the social agent that owns the data instance
+     * @param shapeTree URI of the shape tree the data instance is managed by
+     * @param instance URI of the data instance
+     * @param parentInstance URI of the parent data instance when <code>instance</code> is a child instance (may be null)
+     * @param accessMode Access mode to check (e.g. acl:Read)
+     * @return true when <code>accessMode</code> is granted
+     */
+    public boolean isPermitted(URI dataOwner, URI shapeTree, URI instance, URI parentInstance, RDFNode accessMode) {
+        Objects.requireNonNull(accessMode, "Must provide an access mode to check");
+        return getAccessModes(dataOwner, shapeTree, instance, parentInstance).contains(accessMode);
+    }
+
+    /**
+     * Get the URI of the data registration that contains <code>instance</code>, which is the container it is in
+     * @param instance URI of the data instance
+     * @return URI of the data registration
+     */
+    protected static URI getDataRegistration(URI instance) {
+        String uri = instance.toString();
+        int end = uri.length();
+        int fragment = uri.indexOf('#');
+        if (fragment >= 0) { end = fragment; }
+        int query = uri.lastIndexOf('?', end - 1);
+        if (query >= 0) { end = query; }
+        if (end > 0 && uri.charAt(end - 1) == '/') { end--; }
+        int slash = uri.lastIndexOf('/', end - 1);
+        return slash < 0 ? instance : URI.create(uri.substring(0, slash + 1));
+    }
+
+    private static Rules getRules(Map<URI, Map<URI, Rules>> compiled, ReadableDataGrant dataGrant) {
+        return compiled.computeIfAbsent(dataGrant.getDataOwner(), owner -> new HashMap<>())
+                       .computeIfAbsent(dataGrant.getRegisteredShapeTree(), shapeTree -> new Rules());
+    }
+
+    /**
+     * Compiled rules for the data instances of a single data owner and shape tree
+     */
+    private static class Rules {
+
+        private final Map<URI, Set<RDFNode>> registrationModes = new HashMap<>();
+        private final Map<URI, Set<RDFNode>> instanceModes = new HashMap<>();
+        private final Map<URI, Set<RDFNode>> parentModes = new HashMap<>();
+
+        void permitRegistration(URI registration, List<RDFNode> modes) { permit(this.registrationModes, registration, modes); }
+
+        void permitInstance(URI instance, List<RDFNode> modes) { permit(this.instanceModes, instance, modes); }
+
+        void permitChildrenOf(URI parent, List<RDFNode> modes) { permit(this.parentModes, parent, modes); }
+
+        Set<RDFNode> getAccessModes(URI instance, URI parentInstance) {
+            Set<RDFNode> byRegistration = this.registrationModes.isEmpty() ? null : this.registrationModes.get(getDataRegistration(instance));
+            Set<RDFNode> byInstance = this.instanceModes.get(instance);
+            Set<RDFNode> byParent = parentInstance == null ? null : this.parentModes.get(parentInstance);
+            if (byInstance == null && byParent == null) { return byRegistration == null ? Collections.emptySet() : byRegistration; }
+            Set<RDFNode> modes = new HashSet<>();
+            if (byRegistration != null) { modes.addAll(byRegistration); }
+            if (byInstance != null) { modes.addAll(byInstance); }
+            if (byParent != null) { modes.addAll(byParent); }
+            return Collections.unmodifiableSet(modes);
+        }
+
+        private static void permit(Map<URI, Set<RDFNode>> index, URI key, List<RDFNode> modes) {
+            if (key == null || modes == null) { return; }
+            Set<RDFNode> existing = index.get(key);
+            Set<RDFNode> merged = new HashSet<>(modes);
+            if (existing != null) { merged.addAll(existing); }
+            index.put(key, Collections.unmodifiableSet(merged));
+        }
+
+    }
+
+}
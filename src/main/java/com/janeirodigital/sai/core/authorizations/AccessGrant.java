@@ -3,6 +3,8 @@ package com.janeirodigital.sai.core.authorizations;
 import com.janeirodigital.sai.core.exceptions.SaiException;
 import com.janeirodigital.sai.core.resources.ImmutableResource;
 import com.janeirodigital.sai.core.sessions.SaiSession;
+import com.janeirodigital.sai.core.utils.ConcurrentFetcher;
+import com.janeirodigital.sai.core.utils.InheritanceLinker;
 import com.janeirodigital.sai.httputils.ContentType;
 import com.janeirodigital.sai.httputils.SaiHttpNotFoundException;
 import com.janeirodigital.sai.rdfutils.SaiRdfException;
@@ -12,10 +14,10 @@ import okhttp3.Response;
 import org.apache.jena.rdf.model.Model;
 
 import java.net.URI;
+import java.time.Duration;
 import java.time.OffsetDateTime;
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Objects;
+import java.util.*;
+import java.util.concurrent.*;
 
 import static com.janeirodigital.sai.core.vocabularies.InteropVocabulary.*;
 import static com.janeirodigital.sai.httputils.HttpUtils.DEFAULT_RDF_CONTENT_TYPE;
@@ -86,6 +88,135 @@ public class AccessGrant extends ImmutableResource {
         return get(this.uri, this.saiSession, this.contentType);
     }
 
+    /**
+     * Call {@link #createAll(List, ExecutorService, int)} to create all of the data grants of the access grant
+     * @param executor ExecutorService to create data grants on (null to create them one at a time)
+     * @param maxConcurrent Maximum number of data grants being created at a time
+     * @return {@link GrantPersistence} with the time taken to create each resource
+     * @throws SaiException
+     */
+    public GrantPersistence createAll(ExecutorService executor, int maxConcurrent) throws SaiException {
+        return createAll(this.dataGrants, executor, maxConcurrent);
+    }
+
+    /**
+     * Create <code>dataGrants</code> concurrently, with at most <code>maxConcurrent</code> being created at a time,
+     * and then create the access grant once all of them have been created. Any data grants of the access grant that
+     * aren't included are expected to exist already (e.g. those reused by an {@link IncrementalGrant}).
+     * <br>
+     * When a data grant or the access grant can't be created (for any reason, including the executor rejecting work or
+     * the calling thread being interrupted), no further data grants are started, those already in progress are waited
+     * for, and every data grant that was created is deleted again, so that nothing is left behind that the access grant
+     * doesn't link to. Failures to delete are attached to the raised exception as suppressed exceptions.
+     * <br>
+     * Writes can take much longer than reads, so <code>executor</code> should not be the child loading executor of
+     * the {@link SaiSession}.
+     * @param dataGrants List of {@link DataGrant}s to create
+     * @param executor ExecutorService to create data grants on (null to create them one at a time)
+     * @param maxConcurrent Maximum number of data grants being created at a time
+     * @return {@link GrantPersistence} with the time taken to create each resource
+     * @throws SaiException
+     */
+    public GrantPersistence createAll(List<DataGrant> dataGrants, ExecutorService executor, int maxConcurrent) throws SaiException {
+        Objects.requireNonNull(dataGrants, "Must provide the data grants to create");
+        if (maxConcurrent < 1) { throw new IllegalArgumentException("Must allow at least one data grant to be created at a time"); }
+        long start = System.nanoTime();
+        Map<URI, Duration> timings = new ConcurrentHashMap<>();
+        List<DataGrant> created = Collections.synchronizedList(new ArrayList<>());
+        Throwable failure = createDataGrants(dataGrants, executor, maxConcurrent, timings, created);
+        if (failure == null) {
+            try {
+                timings.put(this.uri, timed(this::create));
+            } catch (Throwable ex) {
+                failure = ex;
+            }
+        }
+        if (failure != null) {
+            Throwable raised = failure instanceof Error ? failure : new SaiException("Failed to create access grant " + this.uri + " and its data grants", failure);
+            for (DataGrant dataGrant : created) {
+                try { dataGrant.delete(); } catch (SaiException | RuntimeException ex) { raised.addSuppressed(ex); }
+            }
+            if (raised instanceof Error) { throw (Error) raised; }
+            throw (SaiException) raised;
+        }
+        Map<URI, Duration> ordered = new LinkedHashMap<>();
+        for (DataGrant dataGrant : dataGrants) { ordered.put(dataGrant.getUri(), timings.get(dataGrant.getUri())); }
+        ordered.put(this.uri, timings.get(this.uri));
+        return new GrantPersistence(this.uri, ordered, Duration.ofNanos(System.nanoTime() - start));
+    }
+
+    /**
+     * Create each of <code>dataGrants</code>, recording how long each took in <code>timings</code>, and adding
+     * those that were created to <code>created</code>. Stops starting new data grants after the first failure, and
+     * only returns once none are in progress, so that every data grant created is in <code>created</code>. When
+     * interrupted, the interrupt is treated as a failure and restored once the data grants in progress have finished.
+     * @return The first failure, or null when all of the data grants were created
+     */
+    private static Throwable createDataGrants(List<DataGrant> dataGrants, ExecutorService executor, int maxConcurrent,
+                                              Map<URI, Duration> timings, List<DataGrant> created) {
+        if (executor == null || maxConcurrent == 1 || dataGrants.size() < 2) {
+            for (DataGrant dataGrant : dataGrants) {
+                try {
+                    timings.put(dataGrant.getUri(), timed(dataGrant::create));
+                    created.add(dataGrant);
+                } catch (Throwable ex) {
+                    return ex;
+                }
+            }
+            return null;
+        }
+        CompletionService<DataGrant> completion = new ExecutorCompletionService<>(executor);
+        Throwable failure = null;
+        boolean interrupted = false;
+        int submitted = 0;
+        int inProgress = 0;
+        while (inProgress > 0 || (failure == null && submitted < dataGrants.size())) {
+            while (failure == null && submitted < dataGrants.size() && inProgress < maxConcurrent) {
+                DataGrant dataGrant = dataGrants.get(submitted);
+                try {
+                    completion.submit(() -> {
+                        timings.put(dataGrant.getUri(), timed(dataGrant::create));
+                        created.add(dataGrant);
+                        return dataGrant;
+                    });
+                } catch (RejectedExecutionException ex) {
+                    failure = ex;
+                    break;
+                }
+                submitted++;
+                inProgress++;
+            }
+            if (inProgress == 0) { break; }
+            try {
+                completion.take().get();
+            } catch (ExecutionException ex) {
+                if (failure == null) { failure = ex.getCause(); }
+            } catch (InterruptedException ex) {
+                // Nothing was taken, so keep waiting for the data grants in progress
+                interrupted = true;
+                if (failure == null) { failure = ex; }
+                continue;
+            }
+            inProgress--;
+        }
+        if (interrupted) { Thread.currentThread().interrupt(); }
+        return failure;
+    }
+
+    /**
+     * Functional interface for a create operation that can be timed
+     */
+    @FunctionalInterface
+    private interface Creation {
+        void create() throws SaiException;
+    }
+
+    private static Duration timed(Creation creation) throws SaiException {
+        long start = System.nanoTime();
+        creation.create();
+        return Duration.ofNanos(System.nanoTime() - start);
+    }
+
     /**
      * Builder for {@link AccessGrant} instances.
      */
@@ -161,17 +292,11 @@ public class AccessGrant extends ImmutableResource {
 
         /**
          * Populates "parent" data grants with the "child" data grants that inherit from them
+         * @throws SaiException if a child data grant is orphaned or cyclic
          */
-        private void organizeInheritance() {
-            for (DataGrant dataGrant : this.dataGrants) {
-                if (!dataGrant.getScopeOfGrant().equals(SCOPE_INHERITED)) {
-                    for (DataGrant childGrant : this.dataGrants) {
-                        if (childGrant.getScopeOfGrant().equals(SCOPE_INHERITED) && childGrant.getInheritsFrom().equals(dataGrant.getUri())) {
-                            dataGrant.getInheritingGrants().add(childGrant);
-                        }
-                    }
-                }
-            }
+        private void organizeInheritance() throws SaiException {
+            InheritanceLinker.link(this.dataGrants, DataGrant::getUri, DataGrant::getInheritsFrom,
+                                   (parent, child) -> parent.getInheritingGrants().add(child));
         }
         
         /**
@@ -186,7 +311,8 @@ public class AccessGrant extends ImmutableResource {
                 this.grantee = getRequiredUriObject(this.resource, GRANTEE);
                 this.accessNeedGroup = getRequiredUriObject(this.resource, HAS_ACCESS_NEED_GROUP);
                 List<URI> dataGrantUris = getRequiredUriObjects(this.resource, HAS_DATA_GRANT);
-                for (URI uri : dataGrantUris) { this.dataGrants.add(DataGrant.get(uri, this.saiSession)); }
+                this.dataGrants.addAll(ConcurrentFetcher.fetchAll(dataGrantUris, uri -> DataGrant.get(uri, this.saiSession),
+                                                                  this.saiSession.getChildLoadExecutor(), this.saiSession.getMaxChildLoads()));
                 organizeInheritance();
             } catch (SaiRdfException | SaiRdfNotFoundException | SaiHttpNotFoundException ex) {
                 throw new SaiException("Unable to populate immutable access grant resource", ex);
@@ -1,12 +1,20 @@
 package com.janeirodigital.sai.core.authorizations;
 
+import com.janeirodigital.sai.core.agents.AgentRegistration;
+import com.janeirodigital.sai.core.agents.AgentRegistry;
 import com.janeirodigital.sai.core.agents.SocialAgentRegistration;
+import com.janeirodigital.sai.core.data.DataRegistration;
+import com.janeirodigital.sai.core.data.DataRegistry;
 import com.janeirodigital.sai.core.exceptions.SaiAlreadyExistsException;
 import com.janeirodigital.sai.core.exceptions.SaiException;
 import com.janeirodigital.sai.core.exceptions.SaiRuntimeException;
 import com.janeirodigital.sai.core.resources.CRUDResource;
 import com.janeirodigital.sai.core.sessions.SaiSession;
+import com.janeirodigital.sai.core.utils.ConcurrentFetcher;
+import com.janeirodigital.sai.core.utils.RegistrationDelta;
 import com.janeirodigital.sai.core.utils.RegistrationList;
+import com.janeirodigital.sai.core.utils.RegistrationPages;
+import com.janeirodigital.sai.core.utils.RegistryDelta;
 import com.janeirodigital.sai.httputils.ContentType;
 import com.janeirodigital.sai.httputils.SaiHttpNotFoundException;
 import lombok.Getter;
@@ -15,9 +23,9 @@ import org.apache.jena.rdf.model.Model;
 import org.apache.jena.rdf.model.Resource;
 
 import java.net.URI;
-import java.util.Iterator;
-import java.util.List;
-import java.util.Objects;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
 
 import static com.janeirodigital.sai.core.vocabularies.InteropVocabulary.AUTHORIZATION_REGISTRY;
 import static com.janeirodigital.sai.core.vocabularies.InteropVocabulary.HAS_ACCESS_AUTHORIZATION;
@@ -32,6 +40,7 @@ import static com.janeirodigital.sai.rdfutils.RdfUtils.getNewResourceForType;
 public class AuthorizationRegistry extends CRUDResource {
 
     private final AccessAuthorizationList<AccessAuthorization> accessAuthorizations;
+    private RegistrationPages pages;
 
     /**
      * Construct an {@link AuthorizationRegistry} instance from the provided {@link Builder}.
@@ -41,6 +50,7 @@ public class AuthorizationRegistry extends CRUDResource {
     private AuthorizationRegistry(Builder builder) throws SaiException {
         super(builder);
         this.accessAuthorizations = builder.accessAuthorizations;
+        this.pages = builder.pages;
     }
 
     /**
@@ -79,6 +89,18 @@ public class AuthorizationRegistry extends CRUDResource {
         return get(this.uri, this.saiSession, this.contentType);
     }
 
+    /**
+     * Reload a new instance of {@link AuthorizationRegistry}, along with the registrations that were added and removed
+     * since this instance was loaded, so that only what changed needs to be processed
+     * @return {@link RegistryDelta} with the reloaded {@link AuthorizationRegistry}
+     * @throws SaiHttpNotFoundException
+     * @throws SaiException
+     */
+    public RegistryDelta<AuthorizationRegistry> reloadWithDelta() throws SaiHttpNotFoundException, SaiException {
+        AuthorizationRegistry reloaded = reload();
+        return new RegistryDelta<>(reloaded, RegistrationDelta.between(this.accessAuthorizations, reloaded.accessAuthorizations));
+    }
+
     /**
      * Indicate whether the {@link AuthorizationRegistry} has any {@link AccessAuthorization}s
      * @return true if there are no access authorizations
@@ -103,7 +125,78 @@ public class AuthorizationRegistry extends CRUDResource {
             throw new SaiAlreadyExistsException("Access Authorization already exists for grantee " + accessAuthorization.getGrantee() +
                                                 " at " + found.getUri() + " and added authorization does not replace it");
         }
-        this.getAccessAuthorizations().add(accessAuthorization.getUri());
+        this.getAccessAuthorizations().add(accessAuthorization.getUri(), accessAuthorization.getGrantee());
+        this.getAccessAuthorizations().index(accessAuthorization);
+    }
+
+    /**
+     * Keep the registration links of the {@link AuthorizationRegistry} in a chain of {@link RegistrationPages} of up to
+     * <code>pageSize</code> links each, rather than in the registry resource itself. Registrations already linked
+     * from the registry are moved to the pages on the next {@link #update()}. When the registry is already paged,
+     * only the size of pages started from now on is changed.
+     * @param pageSize Maximum number of registration links on a page
+     * @throws SaiException
+     */
+    public void enablePaging(int pageSize) throws SaiException {
+        if (this.pages != null) {
+            this.pages.setPageSize(pageSize);
+            return;
+        }
+        this.pages = new RegistrationPages(this.saiSession, this.resource, pageSize, this.contentType);
+        this.accessAuthorizations.setPages(this.pages);
+    }
+
+    /**
+     * Check whether the registration links of the {@link AuthorizationRegistry} are kept in {@link RegistrationPages}
+     * @return true when paged
+     */
+    public boolean isPaged() { return this.pages != null; }
+
+    /**
+     * Updates the {@link AuthorizationRegistry} over HTTP. When paged, only the pages that have changed are written,
+     * and the registry resource itself is only written when it is new or its links have changed.
+     * @throws SaiException
+     */
+    @Override
+    public void update() throws SaiException {
+        if (this.pages == null) {
+            super.update();
+            return;
+        }
+        boolean registryChanged = this.pages.update();
+        if (registryChanged || !this.exists) { super.update(); }
+    }
+
+    /**
+     * Checkpoint the {@link AuthorizationRegistry}, along with its pages when paged (see {@link RegistrationPages#checkpoint(Checkpoint)})
+     * @return {@link Checkpoint}
+     */
+    @Override
+    public Checkpoint checkpoint() {
+        Checkpoint checkpoint = super.checkpoint();
+        return this.pages == null ? checkpoint : this.pages.checkpoint(checkpoint);
+    }
+
+    /**
+     * Restore the {@link AuthorizationRegistry} to <code>checkpoint</code>, along with its pages when paged. The pages are
+     * restored first, so that the registration lists are refreshed from both.
+     * @param checkpoint {@link Checkpoint} to restore
+     * @throws SaiException
+     */
+    @Override
+    public void restore(Checkpoint checkpoint) throws SaiException {
+        Objects.requireNonNull(checkpoint, "Must provide a checkpoint to restore");
+        if (this.pages != null) { this.pages.restore(checkpoint); }
+        super.restore(checkpoint);
+    }
+
+    /**
+     * Refresh the registration lists from the graph of the registry, after it has been replaced in place
+     * @throws SaiException
+     */
+    @Override
+    protected void refreshFromDataset() throws SaiException {
+        this.accessAuthorizations.populate();
     }
 
     /**
@@ -115,12 +208,90 @@ public class AuthorizationRegistry extends CRUDResource {
         this.accessAuthorizations.remove(accessAuthorization.getUri());
     }
 
+    /**
+     * Regenerate grants for only the current {@link AccessAuthorization}s affected by <code>dataRegistration</code>
+     * having been added to one of <code>dataRegistries</code> (see {@link AccessAuthorization#isAffectedBy(DataRegistration)}),
+     * rather than for every authorization in the registry. Grants for the affected authorizations are regenerated one
+     * at a time. See {@link #regrant(DataRegistration, AgentRegistry, List, GrantGenerationContext, ExecutorService, int)}.
+     * @param dataRegistration {@link DataRegistration} that was added
+     * @param agentRegistry {@link AgentRegistry} of the social agent performing the grants
+     * @param dataRegistries List of {@link DataRegistry} instances of the social agent
+     * @param context {@link GrantGenerationContext} to generate grants with
+     * @return {@link RegrantResult} with the {@link IncrementalGrant} of each affected authorization
+     * @throws SaiException
+     * @throws SaiHttpNotFoundException
+     */
+    public RegrantResult regrant(DataRegistration dataRegistration, AgentRegistry agentRegistry, List<DataRegistry> dataRegistries,
+                                 GrantGenerationContext context) throws SaiException, SaiHttpNotFoundException {
+        return regrant(dataRegistration, agentRegistry, dataRegistries, context, null, 1);
+    }
+
+    /**
+     * Regenerate grants for only the current {@link AccessAuthorization}s affected by <code>dataRegistration</code>
+     * having been added to one of <code>dataRegistries</code> (see {@link AccessAuthorization#isAffectedBy(DataRegistration)}),
+     * rather than for every authorization in the registry.
+     * <br>
+     * Only authorizations with a data authorization for the shape tree of <code>dataRegistration</code> are loaded, using
+     * the shape tree index of the registry (see {@link AccessAuthorizationList#getCurrentUris(URI)}). Authorizations
+     * that haven't been indexed yet are loaded (using the child loading executor of the {@link SaiSession}) and indexed,
+     * so that later calls don't load them again. Grants for the affected authorizations are regenerated incrementally
+     * on <code>executor</code>, which must be dedicated to it, since generation waits on the executors of the context
+     * and child loads.
+     * @param dataRegistration {@link DataRegistration} that was added
+     * @param agentRegistry {@link AgentRegistry} of the social agent performing the grants
+     * @param dataRegistries List of {@link DataRegistry} instances of the social agent
+     * @param context {@link GrantGenerationContext} to generate grants with
+     * @param executor ExecutorService to regenerate grants on (null to regenerate them one at a time)
+     * @param maxConcurrent Maximum number of grants regenerated at a time
+     * @return {@link RegrantResult} with the {@link IncrementalGrant} of each affected authorization
+     * @throws SaiException
+     * @throws SaiHttpNotFoundException
+     */
+    public RegrantResult regrant(DataRegistration dataRegistration, AgentRegistry agentRegistry, List<DataRegistry> dataRegistries,
+                                 GrantGenerationContext context, ExecutorService executor, int maxConcurrent) throws SaiException, SaiHttpNotFoundException {
+        Objects.requireNonNull(dataRegistration, "Must provide the data registration that was added");
+        Objects.requireNonNull(agentRegistry, "Must provide an agent registry to regenerate grants");
+        Objects.requireNonNull(dataRegistries, "Must provide data registries to regenerate grants");
+        Objects.requireNonNull(context, "Must provide a context to regenerate grants with");
+        if (executor != null && (executor == this.saiSession.getChildLoadExecutor() || executor == context.getExecutor() || executor == context.getFetchExecutor())) {
+            throw new IllegalArgumentException("Must provide an executor to regenerate grants on that isn't used for child loads or by the generation context");
+        }
+        List<URI> candidateUris = this.accessAuthorizations.getCurrentUris(dataRegistration.getRegisteredShapeTree());
+        List<AccessAuthorization> candidates = ConcurrentFetcher.fetchAll(candidateUris, uri -> AccessAuthorization.get(uri, this.saiSession),
+                                                                          this.saiSession.getChildLoadExecutor(), this.saiSession.getMaxChildLoads());
+        Map<URI, AccessAuthorization> affected = new LinkedHashMap<>();
+        for (AccessAuthorization accessAuthorization : candidates) {
+            this.accessAuthorizations.index(accessAuthorization);
+            if (accessAuthorization.isAffectedBy(dataRegistration)) { affected.put(accessAuthorization.getUri(), accessAuthorization); }
+        }
+        List<URI> affectedUris = new ArrayList<>(affected.keySet());
+        List<IncrementalGrant> regenerated = ConcurrentFetcher.fetchAll(affectedUris, uri -> {
+            AccessAuthorization accessAuthorization = affected.get(uri);
+            AgentRegistration granteeRegistration = findGranteeRegistration(agentRegistry, accessAuthorization.getGrantee());
+            return accessAuthorization.generateGrantIncrementally(granteeRegistration, agentRegistry, dataRegistries, context);
+        }, executor, maxConcurrent);
+        Map<URI, IncrementalGrant> grants = new LinkedHashMap<>();
+        for (int i = 0; i < affectedUris.size(); i++) { grants.put(affectedUris.get(i), regenerated.get(i)); }
+        return new RegrantResult(dataRegistration.getUri(), candidates.size(), grants);
+    }
+
+    /**
+     * Find the registration of <code>grantee</code> in <code>agentRegistry</code>, whether it is a social agent or an application
+     */
+    private static AgentRegistration findGranteeRegistration(AgentRegistry agentRegistry, URI grantee) throws SaiException {
+        AgentRegistration registration = agentRegistry.getSocialAgentRegistrations().find(grantee);
+        if (registration == null) { registration = agentRegistry.getApplicationRegistrations().find(grantee); }
+        if (registration == null) { throw new SaiException("Failed to regenerate grants - no agent registration for grantee " + grantee + " in " + agentRegistry.getUri()); }
+        return registration;
+    }
+
     /**
      * Builder for {@link AuthorizationRegistry} instances.
      */
     public static class Builder extends CRUDResource.Builder<Builder> {
 
         private AccessAuthorizationList<AccessAuthorization> accessAuthorizations;
+        private RegistrationPages pages;
 
         /**
          * Initialize builder with <code>uri</code> and <code>saiSession</code>
@@ -160,6 +331,10 @@ public class AuthorizationRegistry extends CRUDResource {
         private void populateFromDataset() throws SaiException {
             try {
                 this.accessAuthorizations = new AccessAuthorizationList<>(this.saiSession, this.resource);
+                if (RegistrationPages.isPaged(this.resource)) {
+                    this.pages = RegistrationPages.load(this.saiSession, this.resource, RegistrationPages.DEFAULT_PAGE_SIZE, this.contentType);
+                    this.accessAuthorizations.setPages(this.pages);
+                }
                 this.accessAuthorizations.populate();
             } catch (SaiException ex) {
                 throw new SaiException("Failed to load authorization registry " + this.uri, ex);
@@ -196,20 +371,164 @@ public class AuthorizationRegistry extends CRUDResource {
      */
     public static class AccessAuthorizationList<T> extends RegistrationList<T> {
 
-        public AccessAuthorizationList(SaiSession saiSession, Resource resource) { super(saiSession, resource, HAS_ACCESS_AUTHORIZATION); }
+        private final Map<URI, AccessAuthorization.Summary> summaries;
+        private final Map<URI, Set<URI>> shapeTrees;
+
+        public AccessAuthorizationList(SaiSession saiSession, Resource resource) {
+            super(saiSession, resource, HAS_ACCESS_AUTHORIZATION);
+            this.summaries = new ConcurrentHashMap<>();
+            this.shapeTrees = new ConcurrentHashMap<>();
+        }
 
         /**
-         * Override the default find in {@link RegistrationList} to lookup based on the grantee of an {@link AccessAuthorization}
+         * Override the default find in {@link RegistrationList} to lookup the current {@link AccessAuthorization}
+         * for a grantee. See {@link #findCurrent(URI)}.
          * @param granteeUri URI of the grantee to find
-         * @return {@link SocialAgentRegistration}
+         * @return {@link AccessAuthorization}
          */
         @Override
-        public T find(URI granteeUri) {
-            for (T registration : this) {
-                AccessAuthorization authorization = (AccessAuthorization) registration;
-                if (granteeUri.equals(authorization.getGrantee())) { return registration; }
+        public T find(URI granteeUri) { return findCurrent(granteeUri); }
+
+        /**
+         * Find the current {@link AccessAuthorization} for <code>granteeUri</code> - the one that isn't replaced by
+         * another authorization in the list. The grantee index of the list is used when it has an entry for the grantee,
+         * so only the current authorization is loaded. Otherwise the index is (re)built from a {@link AccessAuthorization.Summary}
+         * of each authorization that hasn't been summarized yet, which doesn't load any data authorizations.
+         * @param granteeUri URI of the grantee to find
+         * @return Current {@link AccessAuthorization} for the grantee or null if there isn't one
+         */
+        public T findCurrent(URI granteeUri) {
+            Objects.requireNonNull(granteeUri, "Must provide the URI of the grantee to find the current access authorization for");
+            try {
+                URI current = this.index.get(granteeUri);
+                if (current == null || !this.isPresent(current)) { current = indexCurrent(granteeUri); }
+                return current == null ? null : getRegistration(current);
+            } catch (SaiException | SaiHttpNotFoundException ex) {
+                throw new SaiRuntimeException("Failed to find current access authorization for " + granteeUri, ex);
+            }
+        }
+
+        /**
+         * Summarize any authorizations that haven't been summarized yet, and index the current authorization of
+         * each grantee
+         * @param granteeUri URI of the grantee being looked up
+         * @return URI of the current authorization for <code>granteeUri</code> or null if there isn't one
+         */
+        private URI indexCurrent(URI granteeUri) throws SaiException, SaiHttpNotFoundException {
+            indexAll();
+            return this.index.get(granteeUri);
+        }
+
+        /**
+         * Get the URIs of the current {@link AccessAuthorization} of each grantee, in the order they were added.
+         * Authorizations that haven't been summarized yet are summarized and indexed first (see {@link #findCurrent(URI)}).
+         * @return List of URIs of current access authorizations
+         * @throws SaiException
+         * @throws SaiHttpNotFoundException
+         */
+        public List<URI> getCurrentUris() throws SaiException, SaiHttpNotFoundException {
+            return indexAll();
+        }
+
+        /**
+         * Get the URIs of the current {@link AccessAuthorization}s that have a {@link DataAuthorization} for
+         * <code>shapeTree</code>, or that haven't been indexed by shape tree yet (see {@link #index(AccessAuthorization)}),
+         * in the order they were added. Since access authorizations are immutable, each one only needs to be indexed once.
+         * @param shapeTree URI of the registered shape tree
+         * @return List of URIs of current access authorizations
+         * @throws SaiException
+         * @throws SaiHttpNotFoundException
+         */
+        public List<URI> getCurrentUris(URI shapeTree) throws SaiException, SaiHttpNotFoundException {
+            Objects.requireNonNull(shapeTree, "Must provide the shape tree to get current access authorizations for");
+            List<URI> current = new ArrayList<>();
+            for (URI registrationUri : indexAll()) {
+                Set<URI> indexed = this.shapeTrees.get(registrationUri);
+                if (indexed == null || indexed.contains(shapeTree)) { current.add(registrationUri); }
             }
-            return null;
+            return current;
+        }
+
+        /**
+         * Index <code>accessAuthorization</code> from the instance in hand: its {@link AccessAuthorization.Summary}, and the
+         * registered shape trees of its {@link DataAuthorization}s. Neither has to be fetched afterwards, which also
+         * covers an authorization that has been added locally but not stored yet.
+         * @param accessAuthorization {@link AccessAuthorization} to index
+         */
+        public void index(AccessAuthorization accessAuthorization) {
+            Objects.requireNonNull(accessAuthorization, "Must provide an access authorization to index");
+            this.summaries.put(accessAuthorization.getUri(), new AccessAuthorization.Summary(accessAuthorization.getUri(), accessAuthorization.getGrantee(),
+                                                                                              accessAuthorization.getReplaces()));
+            Set<URI> registered = new HashSet<>();
+            for (DataAuthorization dataAuthorization : accessAuthorization.getDataAuthorizations()) { registered.add(dataAuthorization.getRegisteredShapeTree()); }
+            this.shapeTrees.put(accessAuthorization.getUri(), registered);
+        }
+
+        /**
+         * Summarize any authorizations that haven't been summarized yet (concurrently, with the child loading executor of
+         * the {@link SaiSession}), and index the current authorization of each grantee. Authorizations that don't exist
+         * are never current.
+         * @return URIs of the current authorizations
+         */
+        private List<URI> indexAll() throws SaiException, SaiHttpNotFoundException {
+            List<URI> registrationUris = new ArrayList<>(this.getRegistrationUris());
+            List<URI> unsummarized = new ArrayList<>();
+            for (URI registrationUri : registrationUris) { if (!this.summaries.containsKey(registrationUri)) { unsummarized.add(registrationUri); } }
+            List<AccessAuthorization.Summary> fetched = ConcurrentFetcher.fetchAll(unsummarized, this::getSummary, this.getSaiSession().getChildLoadExecutor(),
+                                                                                   this.getSaiSession().getMaxChildLoads());
+            for (AccessAuthorization.Summary summary : fetched) { this.summaries.put(summary.getUri(), summary); }
+            List<AccessAuthorization.Summary> existing = new ArrayList<>();
+            for (URI registrationUri : registrationUris) {
+                AccessAuthorization.Summary summary = this.summaries.get(registrationUri);
+                if (summary != null && summary.getGrantee() != null) { existing.add(summary); }
+            }
+            Set<URI> replaced = new HashSet<>();
+            for (AccessAuthorization.Summary summary : existing) { if (summary.getReplaces() != null) { replaced.add(summary.getReplaces()); } }
+            // When more than one authorization is current for a grantee, the last one added wins
+            for (AccessAuthorization.Summary summary : existing) {
+                if (!replaced.contains(summary.getUri())) { this.index.put(summary.getGrantee(), summary.getUri()); }
+            }
+            List<URI> current = new ArrayList<>();
+            for (AccessAuthorization.Summary summary : existing) {
+                if (summary.getUri().equals(this.index.get(summary.getGrantee()))) { current.add(summary.getUri()); }
+            }
+            return current;
+        }
+
+        /**
+         * Get the {@link AccessAuthorization.Summary} of the authorization at <code>registrationUri</code>. An authorization
+         * that doesn't exist is summarized without a grantee, so that it isn't fetched again or treated as current.
+         */
+        private AccessAuthorization.Summary getSummary(URI registrationUri) throws SaiException {
+            try {
+                return AccessAuthorization.getSummary(registrationUri, this.getSaiSession());
+            } catch (SaiHttpNotFoundException ex) {
+                return new AccessAuthorization.Summary(registrationUri, null, null);
+            }
+        }
+
+        /**
+         * Remove an {@link AccessAuthorization} URI, along with its summary and any index entry
+         * @param registrationUri URI of the {@link AccessAuthorization} to remove
+         */
+        @Override
+        public void remove(URI registrationUri) {
+            super.remove(registrationUri);
+            this.summaries.remove(registrationUri);
+            this.shapeTrees.remove(registrationUri);
+        }
+
+        /**
+         * Summaries are only valid for the registration URIs of the list as populated, so they are
+         * discarded (and rebuilt lazily) when the list is populated
+         * @throws SaiException
+         */
+        @Override
+        public void populate() throws SaiException {
+            super.populate();
+            this.summaries.clear();
+            this.shapeTrees.clear();
+            this.index.clear();
         }
 
         /**
@@ -217,14 +536,27 @@ public class AuthorizationRegistry extends CRUDResource {
          * @return {@link AccessAuthorization} Iterator
          */
         @Override
-        public Iterator<T> iterator() { return new AccessAuthorizationListIterator<>(this.getSaiSession(), this.getRegistrationUris()); }
+        public Iterator<T> iterator() {
+            if (this.isReadAhead()) { return this.readAheadIterator(); }
+            return new AccessAuthorizationListIterator<>(this.getSaiSession(), this.iterationUris());
+        }
+
+        /**
+         * Get the {@link AccessAuthorization} at <code>registrationUri</code>
+         * @param registrationUri URI of the {@link AccessAuthorization}
+         * @return {@link AccessAuthorization}
+         */
+        @Override
+        protected T getRegistration(URI registrationUri) throws SaiException, SaiHttpNotFoundException {
+            return (T) AccessAuthorization.get(registrationUri, this.getSaiSession());
+        }
 
         /**
          * Custom iterator that iterates over {@link AccessAuthorization} URIs and gets actual instances of them
          */
         private static class AccessAuthorizationListIterator<T> extends RegistrationListIterator<T> {
 
-            public AccessAuthorizationListIterator(SaiSession saiSession, List<URI> registrationUris) { super(saiSession, registrationUris); }
+            public AccessAuthorizationListIterator(SaiSession saiSession, Collection<URI> registrationUris) { super(saiSession, registrationUris); }
 
             /**
              * Get the {@link AccessAuthorization} for the next URI in the iterator
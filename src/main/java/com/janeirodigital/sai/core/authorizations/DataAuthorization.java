@@ -19,6 +19,9 @@ import org.apache.jena.rdf.model.RDFNode;
 
 import java.net.URI;
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeoutException;
+import java.util.stream.Collectors;
 
 import static com.janeirodigital.sai.core.vocabularies.AclVocabulary.ACL_CREATE;
 import static com.janeirodigital.sai.core.vocabularies.AclVocabulary.ACL_WRITE;
@@ -111,9 +114,28 @@ public class DataAuthorization extends ImmutableResource {
      */
     public List<DataGrant> generateGrants(AccessAuthorization accessAuthorization, AgentRegistration granteeRegistration,
                                           AgentRegistry agentRegistry, List<DataRegistry> dataRegistries) throws SaiException, SaiHttpNotFoundException {
+        return generateGrants(accessAuthorization, granteeRegistration, agentRegistry, dataRegistries, GrantGenerationContext.sequential());
+    }
+
+    /**
+     * Generate one or more {@link DataGrant}s for this {@link DataAuthorization}, using the execution settings
+     * of <code>context</code> to fetch any remote resources needed for delegated grants.
+     * @param accessAuthorization {@link AccessAuthorization} that this {@link DataAuthorization} is associated with
+     * @param granteeRegistration {@link AgentRegistration} of the grantee
+     * @param agentRegistry {@link AgentRegistry} of the social agent performing the grant
+     * @param dataRegistries List of {@link DataRegistry} instances in scope of the authorization
+     * @param context {@link GrantGenerationContext} to generate grants with
+     * @return List of generated {@link DataGrant}s
+     * @throws SaiException
+     * @throws SaiHttpNotFoundException
+     */
+    public List<DataGrant> generateGrants(AccessAuthorization accessAuthorization, AgentRegistration granteeRegistration,
+                                          AgentRegistry agentRegistry, List<DataRegistry> dataRegistries,
+                                          GrantGenerationContext context) throws SaiException, SaiHttpNotFoundException {
         Objects.requireNonNull(granteeRegistration, "Must provide a grantee agent registration to generate data grants");
         Objects.requireNonNull(agentRegistry, "Must provide an agent registry to generate data grants");
         Objects.requireNonNull(dataRegistries, "Must provide data registries to generate data grants");
+        Objects.requireNonNull(context, "Must provide a context to generate data grants with");
         if (this.getScopeOfAuthorization().equals(SCOPE_INHERITED)) { throw new SaiException("A data authorization with an inherited scope cannot generate data grants"); }
         List<DataGrant> dataGrants = new ArrayList<>();
         if (this.getDataOwner() == null || this.getDataOwner().equals(this.getGrantedBy())) {
@@ -126,11 +148,105 @@ public class DataAuthorization extends ImmutableResource {
         if (this.getDataOwner() == null || !this.getDataOwner().equals(this.getGrantedBy())) {
             // Scope: All - Data owner is sharing across their data and data shared with them (dataOwner == null)
             // Scope: AllFromAgent - Data owner sharing all data of a type shared with them (dataOwner != grantedBy)
-            dataGrants.addAll(generateDelegatedGrants(granteeRegistration, agentRegistry));
+            dataGrants.addAll(generateDelegatedGrants(granteeRegistration, agentRegistry, context));
         }
         return dataGrants;
     }
 
+    /**
+     * Plan the generation of {@link DataGrant}s for this {@link DataAuthorization} without fetching any remote
+     * resources. Delegated scopes still read every local {@link SocialAgentRegistration} in <code>agentRegistry</code>
+     * to find the candidate agents, just as generation does, and those reads are counted in the cost. See {@link GrantPlan}.
+     * @param agentRegistry {@link AgentRegistry} of the social agent performing the grant
+     * @param dataRegistries List of {@link DataRegistry} instances in scope of the authorization
+     * @param context {@link GrantGenerationContext} with any remote resources that were already fetched
+     * @param planned URIs of remote resources already counted by the plan, which aren't counted again
+     * @return {@link GrantPlan.Cost} of generating the data grants
+     * @throws SaiException
+     */
+    protected GrantPlan.Cost plan(AgentRegistry agentRegistry, List<DataRegistry> dataRegistries, GrantGenerationContext context,
+                                  Set<URI> planned) throws SaiException {
+        Objects.requireNonNull(agentRegistry, "Must provide an agent registry to plan data grants");
+        Objects.requireNonNull(dataRegistries, "Must provide data registries to plan data grants");
+        Objects.requireNonNull(context, "Must provide a context to plan data grants with");
+        Objects.requireNonNull(planned, "Must provide the remote resources already planned");
+        if (this.getScopeOfAuthorization().equals(SCOPE_INHERITED)) { throw new SaiException("A data authorization with an inherited scope cannot generate data grants"); }
+        int dataRegistrations = 0;
+        int sourceGrants = 0;
+        if (this.getDataOwner() == null || this.getDataOwner().equals(this.getGrantedBy())) {
+            if (!this.getScopeOfAuthorization().equals(SCOPE_ALL) && !this.getScopeOfAuthorization().equals(SCOPE_ALL_FROM_REGISTRY) && !this.getScopeOfAuthorization().equals(SCOPE_SELECTED_FROM_REGISTRY)) {
+                throw new SaiException("Cannot generate a regular (non-delegated) data grant for a data authorization with scope: " + this.getScopeOfAuthorization());
+            }
+            dataRegistrations = findDataRegistrations(dataRegistries).size();
+            sourceGrants = dataRegistrations * (1 + this.inheritingAuthorizations.size());
+        }
+        int candidates = 0;
+        int unresolved = 0;
+        int delegatedGrants = 0;
+        int remoteFetches = 0;
+        int fetchesSaved = 0;
+        int localRegistrationFetches = 0;
+        boolean unknownChildFetches = false;
+        if (this.getDataOwner() == null || !this.getDataOwner().equals(this.getGrantedBy())) {
+            if (!this.getScopeOfAuthorization().equals(SCOPE_ALL) && !this.getScopeOfAuthorization().equals(SCOPE_ALL_FROM_AGENT)) {
+                throw new SaiException("Cannot generate a delegated data grant for a data authorization with scope: " + this.getScopeOfAuthorization());
+            }
+            List<SocialAgentRegistration> registrations = getSocialAgentRegistrations(agentRegistry, context);
+            localRegistrationFetches = registrations.size();
+            for (SocialAgentRegistration candidate : getDelegationCandidates(registrations)) {
+                candidates++;
+                URI reciprocalUri = candidate.getReciprocalRegistration();
+                SocialAgentRegistration remoteRegistration = context.getFetched(reciprocalUri);
+                if (remoteRegistration == null) {
+                    // the reciprocal registration and the access grant it links to, plus an unknown number of data grants
+                    if (planned.add(reciprocalUri)) {
+                        remoteFetches += 2;
+                        unknownChildFetches = true;
+                    }
+                    unresolved++;
+                    continue;
+                }
+                if (planned.add(reciprocalUri)) { fetchesSaved++; }
+                URI remoteGrantUri = remoteRegistration.getAccessGrantUri();
+                if (remoteGrantUri == null) { continue; }
+                ReadableAccessGrant remoteGrant = context.getFetched(remoteGrantUri);
+                if (remoteGrant == null) {
+                    if (planned.add(remoteGrantUri)) {
+                        remoteFetches++;
+                        unknownChildFetches = true;
+                    }
+                    unresolved++;
+                    continue;
+                }
+                // the access grant and the data grants that were fetched along with it
+                if (planned.add(remoteGrantUri)) { fetchesSaved += 1 + remoteGrant.getDataGrants().size(); }
+                delegatedGrants += countDelegatedGrants(remoteGrant);
+            }
+        }
+        return new GrantPlan.Cost(this.uri, this.scopeOfAuthorization, dataRegistrations, sourceGrants, candidates, unresolved,
+                                  delegatedGrants, remoteFetches, fetchesSaved, localRegistrationFetches, unknownChildFetches);
+    }
+
+    /**
+     * Count the delegated {@link DataGrant}s (including inherited ones) that would be generated for <code>remoteGrant</code>.
+     * See {@link #generateDelegatedGrants(ReadableAccessGrant, AgentRegistration)}.
+     */
+    private int countDelegatedGrants(ReadableAccessGrant remoteGrant) {
+        int count = 0;
+        for (ReadableDataGrant remoteDataGrant : remoteGrant.getDataGrants()) {
+            if (!remoteDataGrant.getRegisteredShapeTree().equals(this.registeredShapeTree)) { continue; }
+            if (this.getDataRegistration() != null && !remoteDataGrant.getDataRegistration().equals(this.getDataRegistration())) { continue; }
+            count++;
+            if (!(remoteDataGrant instanceof InheritableDataGrant)) { continue; }
+            for (DataAuthorization childAuthorization : this.inheritingAuthorizations) {
+                for (ReadableDataGrant remoteChildGrant : ((InheritableDataGrant) remoteDataGrant).getInheritingGrants()) {
+                    if (remoteChildGrant.getRegisteredShapeTree().equals(childAuthorization.getRegisteredShapeTree())) { count++; }
+                }
+            }
+        }
+        return count;
+    }
+
     /**
      * Generate grants for a {@link DataAuthorization} where the data owner is sharing data they own directly.
      * <br>Applies to scopes: All, AllFromRegistry, SelectedFromRegistry
@@ -147,22 +263,7 @@ public class DataAuthorization extends ImmutableResource {
         if (!this.getScopeOfAuthorization().equals(SCOPE_ALL) && !this.getScopeOfAuthorization().equals(SCOPE_ALL_FROM_REGISTRY) && !this.getScopeOfAuthorization().equals(SCOPE_SELECTED_FROM_REGISTRY)) {
             throw new SaiException("Cannot generate a regular (non-delegated) data grant for a data authorization with scope: " + this.getScopeOfAuthorization());
         }
-        // get data registrations from all registries that match the registered shape tree
-        Map<DataRegistration, DataRegistry> dataRegistrations = new HashMap<>();
-        for (DataRegistry dataRegistry : dataRegistries) {
-            DataRegistration matchingRegistration = dataRegistry.getDataRegistrations().find(this.registeredShapeTree);
-            if (matchingRegistration != null) { dataRegistrations.put(matchingRegistration, dataRegistry); }
-        }
-
-        if (this.getDataRegistration() != null) {
-            // filter down to a specifically matched data registration if hasDataRegistration was set
-            Map.Entry<DataRegistration,DataRegistry> filtered = dataRegistrations.entrySet().stream()
-                                                         .filter(e -> this.getDataRegistration().equals(e.getKey().getUri()))
-                                                         .findAny().orElse(null);
-            if (filtered == null) { throw new SaiException("Data registration " + this.getDataRegistration() + "not found in data registries: " + dataRegistries); }
-            dataRegistrations.clear();
-            dataRegistrations.put(filtered.getKey(), filtered.getValue());
-        }
+        Map<DataRegistration, DataRegistry> dataRegistrations = findDataRegistrations(dataRegistries);
 
         List<DataGrant> dataGrants = new ArrayList<>();
         for (Map.Entry<DataRegistration, DataRegistry> entry : dataRegistrations.entrySet()) {
@@ -189,6 +290,28 @@ public class DataAuthorization extends ImmutableResource {
         return dataGrants;
     }
 
+    /**
+     * Get the data registrations (and the data registries they belong to) that source grants are generated for
+     * @param dataRegistries List of {@link DataRegistry} instances of the data owner
+     * @return Map of matching {@link DataRegistration}s to their {@link DataRegistry}
+     * @throws SaiException if a specified data registration isn't found
+     */
+    private Map<DataRegistration, DataRegistry> findDataRegistrations(List<DataRegistry> dataRegistries) throws SaiException {
+        // get data registrations from all registries that match the registered shape tree
+        Map<DataRegistration, DataRegistry> dataRegistrations = DataRegistry.findDataRegistrations(dataRegistries, this.registeredShapeTree);
+
+        if (this.getDataRegistration() != null) {
+            // filter down to a specifically matched data registration if hasDataRegistration was set
+            Map.Entry<DataRegistration,DataRegistry> filtered = dataRegistrations.entrySet().stream()
+                                                         .filter(e -> this.getDataRegistration().equals(e.getKey().getUri()))
+                                                         .findAny().orElse(null);
+            if (filtered == null) { throw new SaiException("Data registration " + this.getDataRegistration() + "not found in data registries: " + dataRegistries); }
+            dataRegistrations.clear();
+            dataRegistrations.put(filtered.getKey(), filtered.getValue());
+        }
+        return dataRegistrations;
+    }
+
     /**
      * Generate inherited "child" grants for a parent {@link DataGrant}, where the data being granted is
      * being shared by the data owner directly. Called from {@link #generateSourceGrants(AccessAuthorization, AgentRegistration, List)}.
@@ -234,62 +357,159 @@ public class DataAuthorization extends ImmutableResource {
      * of the original grant. A simple example of delegation is a social agent who was
      * given access to another social agent's data "delegating" access to an application
      * that they would like to use to access that data.
+     * <br>Social agents that can't have shared anything to delegate are filtered out using only the
+     * local agent registrations. The reciprocal registrations and access grants of the rest are then
+     * fetched (concurrently when <code>context</code> allows), and the delegated grants are built from them
+     * in the order of the agent registry.
      * <br>Applies to scopes: All, AllFromAgent
      * @see <a href="https://solid.github.io/data-interoperability-panel/specification/#delegated-data-grant">Delegated Data Grant</a>
      * @see <a href="https://solid.github.io/data-interoperability-panel/specification/#access-scopes">Data Access Scopes</a>
      * @param granteeRegistration {@link AgentRegistration} of the grantee receiving delegated permissions
      * @param agentRegistry {@link AgentRegistry} of the social agent delegating permission
+     * @param context {@link GrantGenerationContext} to fetch remote resources with
      * @return
      */
-    private List<DataGrant> generateDelegatedGrants(AgentRegistration granteeRegistration, AgentRegistry agentRegistry) throws SaiException, SaiHttpNotFoundException {
+    private List<DataGrant> generateDelegatedGrants(AgentRegistration granteeRegistration, AgentRegistry agentRegistry,
+                                                    GrantGenerationContext context) throws SaiException, SaiHttpNotFoundException {
         if (!this.getScopeOfAuthorization().equals(SCOPE_ALL) && !this.getScopeOfAuthorization().equals(SCOPE_ALL_FROM_AGENT)) {
             throw new SaiException("Cannot generate a delegated data grant for a data authorization with scope: " + this.getScopeOfAuthorization());
         }
-
+        List<SocialAgentRegistration> candidates = getDelegationCandidates(getSocialAgentRegistrations(agentRegistry, context));
         List<DataGrant> delegatedGrants = new ArrayList<>();
-        for (SocialAgentRegistration agentRegistration : agentRegistry.getSocialAgentRegistrations()) {
+        for (ReadableAccessGrant remoteGrant : fetchRemoteGrants(candidates, context)) {
+            // skip agents that haven't shared anything, so there's nothing to delegate
+            if (remoteGrant == null) { continue; }
+            delegatedGrants.addAll(generateDelegatedGrants(remoteGrant, granteeRegistration));
+        }
+        return delegatedGrants;
+    }
+
+    /**
+     * Get the social agents that could have shared data to delegate, using only their local agent registrations
+     * @param registrations Local {@link SocialAgentRegistration}s of the social agent delegating permission
+     * @return List of candidate {@link SocialAgentRegistration}s
+     */
+    private List<SocialAgentRegistration> getDelegationCandidates(List<SocialAgentRegistration> registrations) {
+        List<SocialAgentRegistration> candidates = new ArrayList<>();
+        for (SocialAgentRegistration agentRegistration : registrations) {
             // continue if the grantee of the data authorization is the registered agent of the agent registration (don't delegate to themselves)
             if (this.getGrantee().equals(agentRegistration.getRegisteredAgent())) { continue; }
             // Continue if the data owner is set (AllFromAgent) but the agent registration is not theirs (registeredAgent)
             if (this.getDataOwner() != null && !agentRegistration.getRegisteredAgent().equals(this.getDataOwner())) { continue; }
             // continue if there's no reciprocal registration
             if (agentRegistration.getReciprocalRegistration() == null) { continue; }
-            // Lookup the remote agent registration
-            SocialAgentRegistration remoteRegistration = SocialAgentRegistration.get(agentRegistration.getReciprocalRegistration(), this.saiSession);
-            // continue if there's no access grant iri in the reciprocal (which would mean they haven't shared anything so there's nothing to delegate)
-            if (remoteRegistration.getAccessGrantUri() == null) { continue; }
-            ReadableAccessGrant remoteGrant = ReadableAccessGrant.get(remoteRegistration.getAccessGrantUri(), this.saiSession);
-            for (ReadableDataGrant remoteDataGrant : remoteGrant.getDataGrants()) {
-                // skip data grants that don't match the shape tree of this data authorization
-                if (!remoteDataGrant.getRegisteredShapeTree().equals(this.registeredShapeTree)) { continue; }
-                // filter to a given data registration if specified
-                if (this.getDataRegistration() != null && !remoteDataGrant.getDataRegistration().equals(this.getDataRegistration())) { continue; }
-                // Build the delegated data grant based on this data authorization and the remote data grant
-                URI grantUri = granteeRegistration.generateContainedUri();
-                DataGrant.Builder grantBuilder = new DataGrant.Builder(grantUri, this.saiSession);
-                // generate child delegated data grants if necessary
-                List<DataGrant> childDataGrants = generateChildDelegatedGrants(grantUri, remoteDataGrant, granteeRegistration);
-                // build the delegated data grant
-                grantBuilder.setDataOwner(remoteDataGrant.getDataOwner());
-                grantBuilder.setGrantee(this.grantee);
-                grantBuilder.setRegisteredShapeTree(remoteDataGrant.getRegisteredShapeTree());
-                grantBuilder.setScopeOfGrant(remoteDataGrant.getScopeOfGrant());
-                grantBuilder.setAccessNeed(remoteDataGrant.getAccessNeed());
-                grantBuilder.setDelegationOf(remoteDataGrant.getUri());
-                if (!remoteDataGrant.getAccessModes().containsAll(this.accessModes)) { throw new SaiException("Data authorization issues access modes that were not granted by remote social agent"); }
-                grantBuilder.setAccessModes(this.accessModes);
-                if (this.canCreate()) {
-                    if (!remoteDataGrant.getCreatorAccessModes().containsAll(this.creatorAccessModes)) { throw new SaiException("Data authorization issues creator access modes that were not granted by remote social agent"); }
-                    grantBuilder.setCreatorAccessModes(this.creatorAccessModes);
-                }
-                grantBuilder.setDataRegistration(remoteDataGrant.getDataRegistration());
-                delegatedGrants.add(grantBuilder.build());
-                if (!childDataGrants.isEmpty()) { delegatedGrants.addAll(childDataGrants); }
+            candidates.add(agentRegistration);
+        }
+        return candidates;
+    }
+
+    /**
+     * Generate the delegated {@link DataGrant}s for the data grants of <code>remoteGrant</code> that match this {@link DataAuthorization}
+     * @param remoteGrant {@link ReadableAccessGrant} from another social agent
+     * @param granteeRegistration {@link AgentRegistration} of the grantee receiving delegated permissions
+     * @return List of delegated {@link DataGrant}s
+     * @throws SaiException
+     */
+    private List<DataGrant> generateDelegatedGrants(ReadableAccessGrant remoteGrant, AgentRegistration granteeRegistration) throws SaiException {
+        List<DataGrant> delegatedGrants = new ArrayList<>();
+        for (ReadableDataGrant remoteDataGrant : remoteGrant.getDataGrants()) {
+            // skip data grants that don't match the shape tree of this data authorization
+            if (!remoteDataGrant.getRegisteredShapeTree().equals(this.registeredShapeTree)) { continue; }
+            // filter to a given data registration if specified
+            if (this.getDataRegistration() != null && !remoteDataGrant.getDataRegistration().equals(this.getDataRegistration())) { continue; }
+            // Build the delegated data grant based on this data authorization and the remote data grant
+            URI grantUri = granteeRegistration.generateContainedUri();
+            DataGrant.Builder grantBuilder = new DataGrant.Builder(grantUri, this.saiSession);
+            // generate child delegated data grants if necessary
+            List<DataGrant> childDataGrants = generateChildDelegatedGrants(grantUri, remoteDataGrant, granteeRegistration);
+            // build the delegated data grant
+            grantBuilder.setDataOwner(remoteDataGrant.getDataOwner());
+            grantBuilder.setGrantee(this.grantee);
+            grantBuilder.setRegisteredShapeTree(remoteDataGrant.getRegisteredShapeTree());
+            grantBuilder.setScopeOfGrant(remoteDataGrant.getScopeOfGrant());
+            grantBuilder.setAccessNeed(remoteDataGrant.getAccessNeed());
+            grantBuilder.setDelegationOf(remoteDataGrant.getUri());
+            if (!remoteDataGrant.getAccessModes().containsAll(this.accessModes)) { throw new SaiException("Data authorization issues access modes that were not granted by remote social agent"); }
+            grantBuilder.setAccessModes(this.accessModes);
+            if (this.canCreate()) {
+                if (!remoteDataGrant.getCreatorAccessModes().containsAll(this.creatorAccessModes)) { throw new SaiException("Data authorization issues creator access modes that were not granted by remote social agent"); }
+                grantBuilder.setCreatorAccessModes(this.creatorAccessModes);
             }
+            grantBuilder.setDataRegistration(remoteDataGrant.getDataRegistration());
+            delegatedGrants.add(grantBuilder.build());
+            if (!childDataGrants.isEmpty()) { delegatedGrants.addAll(childDataGrants); }
         }
         return delegatedGrants;
     }
 
+    /**
+     * Get the {@link SocialAgentRegistration}s of <code>agentRegistry</code>, streaming them concurrently on the
+     * fetch executor of <code>context</code> when it has one
+     * @return List of {@link SocialAgentRegistration}s
+     */
+    private List<SocialAgentRegistration> getSocialAgentRegistrations(AgentRegistry agentRegistry, GrantGenerationContext context) {
+        if (context.isConcurrentFetching()) {
+            return agentRegistry.getSocialAgentRegistrations().prefetchingStream(context.getFetchExecutor(), context.getMaxFetchesPerHost()).collect(Collectors.toList());
+        }
+        List<SocialAgentRegistration> registrations = new ArrayList<>();
+        agentRegistry.getSocialAgentRegistrations().forEach(registrations::add);
+        return registrations;
+    }
+
+    /**
+     * Fetch the remote {@link ReadableAccessGrant} shared by each of the <code>candidates</code>. When <code>context</code>
+     * fetches concurrently, the remote resources of each agent are fetched on its fetch executor, and each agent gets
+     * its own fetch timeout, starting once its first remote resource starts being fetched. Failures are raised with {@link GrantGenerationContext#raise(List, String)}.
+     * @param candidates {@link SocialAgentRegistration}s with a reciprocal registration
+     * @param context {@link GrantGenerationContext} to fetch remote resources with
+     * @return Remote {@link ReadableAccessGrant} of each candidate in order, or null where nothing was shared
+     */
+    private List<ReadableAccessGrant> fetchRemoteGrants(List<SocialAgentRegistration> candidates, GrantGenerationContext context) throws SaiException, SaiHttpNotFoundException {
+        List<ReadableAccessGrant> remoteGrants = new ArrayList<>();
+        if (!context.isConcurrentFetching()) {
+            for (SocialAgentRegistration candidate : candidates) { remoteGrants.add(fetchRemoteGrant(candidate, context)); }
+            return remoteGrants;
+        }
+        List<GrantGenerationContext.RemoteFetch<ReadableAccessGrant>> fetches = new ArrayList<>();
+        for (SocialAgentRegistration candidate : candidates) { fetches.add(context.submit(() -> fetchRemoteGrant(candidate, context))); }
+        List<Throwable> failures = new ArrayList<>();
+        for (int i = 0; i < fetches.size(); i++) {
+            try {
+                remoteGrants.add(fetches.get(i).await());
+            } catch (ExecutionException ex) {
+                failures.add(ex.getCause());
+            } catch (TimeoutException ex) {
+                fetches.get(i).cancel();
+                failures.add(new SaiException("Timed out getting the access grant shared by " + candidates.get(i).getRegisteredAgent(), ex));
+            } catch (InterruptedException ex) {
+                for (GrantGenerationContext.RemoteFetch<ReadableAccessGrant> pending : fetches) { pending.cancel(); }
+                Thread.currentThread().interrupt();
+                throw new SaiException("Interrupted while getting access grants to delegate for " + this.uri, ex);
+            }
+        }
+        GrantGenerationContext.raise(failures, "Failed to get access grants shared by " + failures.size() + " of " +
+                                               candidates.size() + " social agents to delegate for " + this.uri);
+        return remoteGrants;
+    }
+
+    /**
+     * Fetch the remote reciprocal registration of <code>candidate</code>, and the {@link ReadableAccessGrant} it links to
+     * @param candidate {@link SocialAgentRegistration} with a reciprocal registration
+     * @param context {@link GrantGenerationContext} to fetch remote resources with
+     * @return Remote {@link ReadableAccessGrant} or null when the social agent hasn't shared anything
+     */
+    private ReadableAccessGrant fetchRemoteGrant(SocialAgentRegistration candidate, GrantGenerationContext context) throws SaiException, SaiHttpNotFoundException {
+        SocialAgentRegistration remoteRegistration = context.fetch(candidate.getReciprocalRegistration(), uri -> SocialAgentRegistration.get(uri, this.saiSession));
+        // no access grant iri in the reciprocal means they haven't shared anything, so there's nothing to delegate
+        if (remoteRegistration.getAccessGrantUri() == null) { return null; }
+        return context.fetch(remoteRegistration.getAccessGrantUri(), uri -> {
+            ReadableAccessGrant remoteGrant = ReadableAccessGrant.get(uri, this.saiSession);
+            // the data grants linked from the access grant are fetched along with it
+            context.countChildFetches(remoteGrant.getDataGrants().size());
+            return remoteGrant;
+        });
+    }
+
     /**
      * Generate inherited "child" delegated {@link DataGrant} for a parent delegated {@link DataGrant}.
      * <br>Applies to scopes: Inherited
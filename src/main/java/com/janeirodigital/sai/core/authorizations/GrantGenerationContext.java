@@ -0,0 +1,322 @@
+package com.janeirodigital.sai.core.authorizations;
+
+import com.janeirodigital.sai.core.exceptions.SaiException;
+import com.janeirodigital.sai.core.utils.RegistrationFetcher;
+import com.janeirodigital.sai.httputils.SaiHttpNotFoundException;
+import lombok.AccessLevel;
+import lombok.Getter;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Execution settings shared by everything involved in generating an {@link AccessGrant} and its
+ * {@link DataGrant}s (see {@link AccessAuthorization#generateGrant}). Without an executor, grants are
+ * generated sequentially on the calling thread. With an executor, the data grants of independent primary
+ * {@link DataAuthorization}s are generated concurrently on it, and merged in the order of the authorizations.
+ * <br>
+ * Remote resources needed for delegated grants (reciprocal registrations and the access grants they link to)
+ * are fetched sequentially, unless remote fetching is configured with {@link #setRemoteFetching(ExecutorService, int, Duration)}.
+ * Then they're fetched concurrently on a separate executor, with at most <code>maxFetchesPerHost</code> fetches
+ * from the same host at a time, and a timeout for each agent (see {@link #submit(Callable)}).
+ * <br>
+ * Remote resources are memoized for the lifetime of the context, so that each one is only fetched once no
+ * matter how many {@link DataAuthorization}s need it, even while another thread is fetching it. Use a new context
+ * for each generation, so that changes made to remote resources between generations are seen.
+ */
+@Getter
+public class GrantGenerationContext {
+
+    public static final int DEFAULT_MAX_FETCHES_PER_HOST = 4;
+    public static final Duration DEFAULT_FETCH_TIMEOUT = Duration.ofSeconds(30);
+    private static final ThreadLocal<RemoteFetch<?>> SUBMITTED = new ThreadLocal<>();
+
+    private final ExecutorService executor;
+    private ExecutorService fetchExecutor;
+    private int maxFetchesPerHost;
+    private Duration fetchTimeout;
+    private final Map<String, Semaphore> hostPermits;
+    @Getter(AccessLevel.NONE)
+    private final Map<URI, CompletableFuture<Object>> fetched;
+    private final AtomicInteger fetchCount;
+    private final AtomicInteger childFetchCount;
+    private final AtomicInteger fetchesSaved;
+
+    /**
+     * Initialize a context that generates grants on <code>executor</code>
+     * @param executor ExecutorService to generate grants on (null to generate them sequentially)
+     */
+    public GrantGenerationContext(ExecutorService executor) {
+        this.executor = executor;
+        this.maxFetchesPerHost = DEFAULT_MAX_FETCHES_PER_HOST;
+        this.fetchTimeout = DEFAULT_FETCH_TIMEOUT;
+        this.hostPermits = new ConcurrentHashMap<>();
+        this.fetched = new ConcurrentHashMap<>();
+        this.fetchCount = new AtomicInteger();
+        this.childFetchCount = new AtomicInteger();
+        this.fetchesSaved = new AtomicInteger();
+    }
+
+    /**
+     * Get a context that generates grants sequentially on the calling thread
+     * @return {@link GrantGenerationContext}
+     */
+    public static GrantGenerationContext sequential() { return new GrantGenerationContext(null); }
+
+    /**
+     * Check whether grants are generated concurrently
+     * @return true when there is an executor to generate grants on
+     */
+    public boolean isConcurrent() { return this.executor != null; }
+
+    /**
+     * Fetch remote resources for delegated grants concurrently on <code>fetchExecutor</code>. This must not be the
+     * executor grants are generated on, since generation waits for the fetches it submits.
+     * @param fetchExecutor ExecutorService to fetch remote resources on
+     * @param maxFetchesPerHost Maximum number of concurrent fetches from the same host
+     * @param fetchTimeout Longest time to wait for the remote resources of a single agent
+     * @return {@link GrantGenerationContext}
+     */
+    public GrantGenerationContext setRemoteFetching(ExecutorService fetchExecutor, int maxFetchesPerHost, Duration fetchTimeout) {
+        Objects.requireNonNull(fetchExecutor, "Must provide an executor to fetch remote resources on");
+        Objects.requireNonNull(fetchTimeout, "Must provide a timeout for fetching remote resources");
+        if (fetchExecutor == this.executor) { throw new IllegalArgumentException("Must provide an executor to fetch remote resources on that isn't used to generate grants"); }
+        if (maxFetchesPerHost < 1) { throw new IllegalArgumentException("Must allow at least one fetch per host"); }
+        if (fetchTimeout.isNegative() || fetchTimeout.isZero()) { throw new IllegalArgumentException("Must provide a positive timeout for fetching remote resources"); }
+        this.fetchExecutor = fetchExecutor;
+        this.maxFetchesPerHost = maxFetchesPerHost;
+        this.fetchTimeout = fetchTimeout;
+        return this;
+    }
+
+    /**
+     * Check whether remote resources are fetched concurrently
+     * @return true when there is an executor to fetch remote resources on
+     */
+    public boolean isConcurrentFetching() { return this.fetchExecutor != null; }
+
+    /**
+     * Run <code>task</code> on the fetch executor. The task fetches the remote resources it needs with
+     * {@link #fetch(URI, RegistrationFetcher)}, and gets <code>fetchTimeout</code> to finish from the moment the first
+     * of them actually starts being fetched, or starts waiting on another agent that is already fetching it
+     * (see {@link RemoteFetch#await()}). Time spent queued on the fetch executor,
+     * or waiting for a permit to fetch from a host, doesn't count against it.
+     * @param task Task to run
+     * @return {@link RemoteFetch} to wait for the result of the task with
+     * @param <T> Type of result of the task
+     */
+    public <T> RemoteFetch<T> submit(Callable<T> task) {
+        Objects.requireNonNull(task, "Must provide a task to fetch remote resources with");
+        if (this.fetchExecutor == null) { throw new IllegalStateException("Must configure remote fetching to submit remote fetches"); }
+        RemoteFetch<T> remoteFetch = new RemoteFetch<>(this.fetchTimeout);
+        remoteFetch.future = this.fetchExecutor.submit(() -> {
+            SUBMITTED.set(remoteFetch);
+            try {
+                return task.call();
+            } finally {
+                SUBMITTED.remove();
+            }
+        });
+        return remoteFetch;
+    }
+
+    /**
+     * Fetch the remote resource at <code>uri</code> with <code>fetcher</code>. A resource that was already fetched
+     * with this context (or is being fetched by another thread) is reused. Otherwise it is fetched once fewer than
+     * <code>maxFetchesPerHost</code> other fetches from the same host are in progress. Failed fetches aren't memoized.
+     * @param uri URI of the remote resource
+     * @param fetcher {@link RegistrationFetcher} to get the resource with
+     * @return Fetched resource
+     * @param <T> Type of resource that is fetched
+     * @throws SaiException
+     * @throws SaiHttpNotFoundException
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T fetch(URI uri, RegistrationFetcher<T> fetcher) throws SaiException, SaiHttpNotFoundException {
+        Objects.requireNonNull(uri, "Must provide the URI of the remote resource to fetch");
+        Objects.requireNonNull(fetcher, "Must provide a fetcher to get the remote resource with");
+        CompletableFuture<Object> pending = new CompletableFuture<>();
+        CompletableFuture<Object> existing = this.fetched.putIfAbsent(uri, pending);
+        if (existing != null) {
+            // Waiting on another thread's fetch counts against this agent's timeout, just like fetching it would
+            RemoteFetch<?> submitted = SUBMITTED.get();
+            if (submitted != null) { submitted.start(); }
+            T resource = (T) await(uri, existing, submitted);
+            this.fetchesSaved.incrementAndGet();
+            return resource;
+        }
+        try {
+            T resource = fetchWithPermit(uri, fetcher);
+            pending.complete(resource);
+            return resource;
+        } catch (SaiException | SaiHttpNotFoundException | RuntimeException ex) {
+            this.fetched.remove(uri, pending);
+            pending.completeExceptionally(ex);
+            throw ex;
+        }
+    }
+
+    /**
+     * Get the remote resource at <code>uri</code> if it has already been fetched with this context, without fetching it
+     * @param uri URI of the remote resource
+     * @return Fetched resource, or null when it hasn't been fetched (or is still being fetched)
+     * @param <T> Type of resource that was fetched
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T getFetched(URI uri) {
+        Objects.requireNonNull(uri, "Must provide the URI of the remote resource");
+        CompletableFuture<Object> existing = this.fetched.get(uri);
+        if (existing == null || !existing.isDone() || existing.isCompletedExceptionally()) { return null; }
+        return (T) existing.join();
+    }
+
+    /**
+     * Get the number of remote resources that were actually fetched with this context
+     * @return Number of fetches
+     */
+    public int getFetchCount() { return this.fetchCount.get(); }
+
+    /**
+     * Get the number of remote resources that were fetched while loading a resource fetched with this context,
+     * such as the data grants linked from a remote access grant
+     * @return Number of child fetches
+     */
+    public int getChildFetchCount() { return this.childFetchCount.get(); }
+
+    /**
+     * Count remote resources that were fetched while loading a resource fetched with this context
+     * @param fetches Number of child fetches
+     */
+    protected void countChildFetches(int fetches) { this.childFetchCount.addAndGet(fetches); }
+
+    /**
+     * Get the number of times a remote resource was reused rather than fetched again
+     * @return Number of fetches saved
+     */
+    public int getFetchesSaved() { return this.fetchesSaved.get(); }
+
+    /**
+     * Fetch <code>uri</code> once fewer than <code>maxFetchesPerHost</code> other fetches from the same host are in progress
+     */
+    private <T> T fetchWithPermit(URI uri, RegistrationFetcher<T> fetcher) throws SaiException, SaiHttpNotFoundException {
+        Semaphore permits = this.hostPermits.computeIfAbsent(String.valueOf(uri.getAuthority()), host -> new Semaphore(this.maxFetchesPerHost));
+        try {
+            permits.acquire();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new SaiException("Interrupted while waiting to fetch " + uri, ex);
+        }
+        try {
+            RemoteFetch<?> submitted = SUBMITTED.get();
+            if (submitted != null) { submitted.start(); }
+            this.fetchCount.incrementAndGet();
+            return fetcher.fetch(uri);
+        } finally {
+            permits.release();
+        }
+    }
+
+    /**
+     * Wait for another thread to finish fetching <code>uri</code>, raising the same failure it did. When waiting on
+     * behalf of a <code>submitted</code> agent, the wait is bounded by what's left of its fetch timeout.
+     */
+    private static Object await(URI uri, CompletableFuture<Object> pending, RemoteFetch<?> submitted) throws SaiException, SaiHttpNotFoundException {
+        try {
+            if (submitted == null) { return pending.get(); }
+            return pending.get(submitted.remaining(), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException ex) {
+            throw new SaiException("Timed out waiting for " + uri + " to be fetched", ex);
+        } catch (ExecutionException ex) {
+            raise(List.of(ex.getCause()), "Failed to fetch " + uri);
+            throw new SaiException("Failed to fetch " + uri, ex.getCause());
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new SaiException("Interrupted while waiting for " + uri + " to be fetched", ex);
+        }
+    }
+
+    /**
+     * Raise the failures of work that was done concurrently. A single failure is raised as is, so callers see the
+     * same failure they would have seen sequentially. More than one is raised as a {@link SaiException} with
+     * <code>message</code>, the first failure as its cause, and the others suppressed.
+     * @param failures Failures to raise (nothing is raised when empty)
+     * @param message Message for more than one failure
+     * @throws SaiException
+     * @throws SaiHttpNotFoundException
+     */
+    public static void raise(List<Throwable> failures, String message) throws SaiException, SaiHttpNotFoundException {
+        Objects.requireNonNull(failures, "Must provide failures to raise");
+        if (failures.isEmpty()) { return; }
+        Throwable first = failures.get(0);
+        if (failures.size() == 1) {
+            if (first instanceof SaiException) { throw (SaiException) first; }
+            if (first instanceof SaiHttpNotFoundException) { throw (SaiHttpNotFoundException) first; }
+            if (first instanceof RuntimeException) { throw (RuntimeException) first; }
+        }
+        SaiException aggregated = new SaiException(message, first);
+        for (Throwable failure : failures.subList(1, failures.size())) { aggregated.addSuppressed(failure); }
+        throw aggregated;
+    }
+
+
+    /**
+     * Remote resources being fetched on the fetch executor on behalf of a single agent (see {@link #submit(Callable)})
+     * @param <T> Type of result
+     */
+    public static class RemoteFetch<T> {
+
+        private final long timeout;
+        private final AtomicReference<Long> startedAt;
+        private Future<T> future;
+
+        private RemoteFetch(Duration timeout) {
+            this.timeout = timeout.toNanos();
+            this.startedAt = new AtomicReference<>();
+        }
+
+        /**
+         * Wait for the result, for up to the fetch timeout from the moment the first remote resource started being fetched
+         * @return Result
+         * @throws ExecutionException when the task failed
+         * @throws TimeoutException when the task didn't finish within the fetch timeout once it started fetching
+         * @throws InterruptedException
+         */
+        public T await() throws ExecutionException, TimeoutException, InterruptedException {
+            while (true) {
+                try {
+                    return this.future.get(remaining(), TimeUnit.NANOSECONDS);
+                } catch (TimeoutException ex) {
+                    // Keep waiting while nothing has started being fetched, or the timeout hasn't passed since it did
+                    Long started = this.startedAt.get();
+                    if (started != null && System.nanoTime() - started >= this.timeout) { throw ex; }
+                }
+            }
+        }
+
+        /**
+         * Cancel the task, interrupting it if it's running
+         */
+        public void cancel() { this.future.cancel(true); }
+
+        /**
+         * Start the timeout, unless it has already started
+         */
+        private void start() { this.startedAt.compareAndSet(null, System.nanoTime()); }
+
+        /**
+         * Get the time left before the timeout, which is all of it when the timeout hasn't started
+         */
+        private long remaining() {
+            Long started = this.startedAt.get();
+            return Math.max(0, started == null ? this.timeout : started + this.timeout - System.nanoTime());
+        }
+
+    }
+
+}
@@ -0,0 +1,37 @@
+package com.janeirodigital.sai.core.authorizations;
+
+import lombok.Getter;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Result of creating an {@link AccessGrant} together with its {@link DataGrant}s (see {@link AccessGrant#createAll}).
+ * Includes the time taken to create each resource, keyed by resource URI, with the data grants in the order they are
+ * linked from the access grant, followed by the access grant itself.
+ */
+@Getter
+public class GrantPersistence {
+
+    private final URI accessGrantUri;
+    private final Map<URI, Duration> timings;
+    private final Duration elapsed;
+
+    protected GrantPersistence(URI accessGrantUri, Map<URI, Duration> timings, Duration elapsed) {
+        this.accessGrantUri = accessGrantUri;
+        this.timings = Collections.unmodifiableMap(new LinkedHashMap<>(timings));
+        this.elapsed = elapsed;
+    }
+
+    /**
+     * Get the number of data grants that were created along with the access grant
+     * @return Number of data grants created
+     */
+    public int getDataGrantsCreated() {
+        return this.timings.containsKey(this.accessGrantUri) ? this.timings.size() - 1 : this.timings.size();
+    }
+
+}
@@ -0,0 +1,180 @@
+package com.janeirodigital.sai.core.authorizations;
+
+import com.janeirodigital.sai.core.agents.AgentRegistration;
+import com.janeirodigital.sai.core.agents.AgentRegistry;
+import com.janeirodigital.sai.core.data.DataRegistry;
+import com.janeirodigital.sai.core.exceptions.SaiException;
+import com.janeirodigital.sai.httputils.SaiHttpNotFoundException;
+import lombok.AccessLevel;
+import lombok.Getter;
+import org.apache.jena.rdf.model.RDFNode;
+
+import java.net.URI;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Dry run of generating an {@link AccessGrant} from an {@link AccessAuthorization} (see {@link AccessAuthorization#planGrant}),
+ * with a {@link Cost} for each primary {@link DataAuthorization}. Planning only uses data that is available locally:
+ * the data registries and agent registry of the social agent performing the grant, and remote resources already
+ * fetched with the {@link GrantGenerationContext}. Nothing is fetched from other social agents. Local resources
+ * are still read though: delegated scopes read every {@link com.janeirodigital.sai.core.agents.SocialAgentRegistration}
+ * in the agent registry to find the candidate agents (on the fetch executor when remote fetching is configured), and
+ * generation reads them again. Those reads are counted separately in {@link #getLocalRegistrationFetches()}.
+ * <br>
+ * Data grants shared directly by the data owner can always be counted. Delegated data grants can only be counted
+ * for social agents whose reciprocal registration and access grant were already fetched. Any other social agent is
+ * counted as unresolved, with an estimate of the remote fetches needed to resolve it. That estimate can't include the
+ * data grants linked from a remote access grant that hasn't been fetched, so it is a lower bound whenever
+ * {@link #isUnknownChildFetches()}. Each remote resource is only counted once across the plan, since generation with
+ * the same context only fetches it once.
+ * <br>
+ * Use {@link #execute()} to generate the planned {@link AccessGrant} with the context the plan was made with, so
+ * that remote resources it has already fetched aren't fetched again.
+ */
+@Getter
+public class GrantPlan {
+
+    @Getter(AccessLevel.NONE)
+    private final AccessAuthorization accessAuthorization;
+    @Getter(AccessLevel.NONE)
+    private final AgentRegistration granteeRegistration;
+    @Getter(AccessLevel.NONE)
+    private final AgentRegistry agentRegistry;
+    @Getter(AccessLevel.NONE)
+    private final List<DataRegistry> dataRegistries;
+    private final GrantGenerationContext context;
+    private final List<Cost> costs;
+
+    protected GrantPlan(AccessAuthorization accessAuthorization, AgentRegistration granteeRegistration, AgentRegistry agentRegistry,
+                        List<DataRegistry> dataRegistries, GrantGenerationContext context, List<Cost> costs) {
+        this.accessAuthorization = accessAuthorization;
+        this.granteeRegistration = granteeRegistration;
+        this.agentRegistry = agentRegistry;
+        this.dataRegistries = dataRegistries;
+        this.context = context;
+        this.costs = Collections.unmodifiableList(costs);
+    }
+
+    /**
+     * Get the number of data grants that will be generated, not including delegated data grants for unresolved agents
+     * @return Number of planned data grants
+     */
+    public int getPlannedDataGrants() {
+        int planned = 0;
+        for (Cost cost : this.costs) { planned += cost.getSourceDataGrants() + cost.getDelegatedDataGrants(); }
+        return planned;
+    }
+
+    /**
+     * Get the estimated number of remote resources that generation will fetch, including the data grants linked from
+     * remote access grants. This is a lower bound when {@link #isUnknownChildFetches()}.
+     * @return Estimated number of remote fetches
+     */
+    public int getRemoteFetches() {
+        int fetches = 0;
+        for (Cost cost : this.costs) { fetches += cost.getRemoteFetches(); }
+        return fetches;
+    }
+
+    /**
+     * Get the number of remote resources needed for generation that were already fetched with the context
+     * @return Number of fetches saved
+     */
+    public int getFetchesSaved() {
+        int saved = 0;
+        for (Cost cost : this.costs) { saved += cost.getFetchesSaved(); }
+        return saved;
+    }
+
+    /**
+     * Get the number of local social agent registrations read while planning, which generation reads again
+     * @return Number of local registration fetches
+     */
+    public int getLocalRegistrationFetches() {
+        int fetches = 0;
+        for (Cost cost : this.costs) { fetches += cost.getLocalRegistrationFetches(); }
+        return fetches;
+    }
+
+    /**
+     * Check whether generation will fetch data grants linked from remote access grants that haven't been fetched yet,
+     * and so couldn't be counted in {@link #getRemoteFetches()}
+     * @return true when the remote fetches are a lower bound
+     */
+    public boolean isUnknownChildFetches() {
+        for (Cost cost : this.costs) { if (cost.isUnknownChildFetches()) { return true; } }
+        return false;
+    }
+
+    /**
+     * Check whether every data grant that will be generated was counted, because there are no unresolved agents
+     * @return true when the plan is complete
+     */
+    public boolean isComplete() {
+        for (Cost cost : this.costs) { if (cost.getUnresolvedAgents() > 0) { return false; } }
+        return true;
+    }
+
+    /**
+     * Generate the planned {@link AccessGrant} with the context of the plan
+     * @return Generated {@link AccessGrant}
+     * @throws SaiException
+     * @throws SaiHttpNotFoundException
+     */
+    public AccessGrant execute() throws SaiException, SaiHttpNotFoundException {
+        return this.accessAuthorization.generateGrant(this.granteeRegistration, this.agentRegistry, this.dataRegistries, this.context);
+    }
+
+    /**
+     * Cost of generating the data grants for a single primary {@link DataAuthorization}
+     */
+    @Getter
+    public static class Cost {
+
+        private final URI dataAuthorization;
+        private final RDFNode scopeOfAuthorization;
+        private final int dataRegistrations;
+        private final int sourceDataGrants;
+        private final int candidateAgents;
+        private final int unresolvedAgents;
+        private final int delegatedDataGrants;
+        private final int remoteFetches;
+        private final int fetchesSaved;
+        private final int localRegistrationFetches;
+        private final boolean unknownChildFetches;
+
+        /**
+         * Construct a {@link Cost}
+         * @param dataAuthorization URI of the {@link DataAuthorization}
+         * @param scopeOfAuthorization Scope of the data authorization
+         * @param dataRegistrations Number of local data registrations that data grants are generated for
+         * @param sourceDataGrants Number of data grants shared directly by the data owner (including inherited ones)
+         * @param candidateAgents Number of social agents that could have shared data to delegate
+         * @param unresolvedAgents Number of candidate agents whose remote access grant hasn't been fetched
+         * @param delegatedDataGrants Number of delegated data grants for candidate agents that aren't unresolved
+         * @param remoteFetches Estimated number of remote resources to fetch
+         * @param fetchesSaved Number of remote resources already fetched with the context
+         * @param localRegistrationFetches Number of local social agent registrations read to find the candidate agents
+         * @param unknownChildFetches true when <code>remoteFetches</code> doesn't include the data grants linked from
+         *                            remote access grants that haven't been fetched
+         */
+        protected Cost(URI dataAuthorization, RDFNode scopeOfAuthorization, int dataRegistrations, int sourceDataGrants, int candidateAgents,
+                       int unresolvedAgents, int delegatedDataGrants, int remoteFetches, int fetchesSaved,
+                       int localRegistrationFetches, boolean unknownChildFetches) {
+            this.dataAuthorization = dataAuthorization;
+            this.scopeOfAuthorization = scopeOfAuthorization;
+            this.dataRegistrations = dataRegistrations;
+            this.sourceDataGrants = sourceDataGrants;
+            this.candidateAgents = candidateAgents;
+            this.unresolvedAgents = unresolvedAgents;
+            this.delegatedDataGrants = delegatedDataGrants;
+            this.remoteFetches = remoteFetches;
+            this.fetchesSaved = fetchesSaved;
+            this.localRegistrationFetches = localRegistrationFetches;
+            this.unknownChildFetches = unknownChildFetches;
+        }
+
+    }
+
+}
@@ -0,0 +1,193 @@
+package com.janeirodigital.sai.core.authorizations;
+
+import com.janeirodigital.sai.core.exceptions.SaiException;
+import com.janeirodigital.sai.core.sessions.SaiSession;
+import lombok.Getter;
+
+import java.net.URI;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Result of regenerating an {@link AccessGrant} incrementally against the existing {@link AccessGrant} of a grantee
+ * (see {@link AccessAuthorization#generateGrantIncrementally}). Newly generated {@link DataGrant}s are matched with
+ * existing ones by content rather than URI, using a signature of everything but their URI. A data grant that
+ * inherits from another is signed with the signature of its parent in place of the parent's URI, so it only matches
+ * an existing data grant when its parent does too.
+ * <br>
+ * Existing data grants that match are reused with their URIs, and only <code>createdDataGrants</code> need to be
+ * written. When nothing changed, the existing {@link AccessGrant} is reused as is, and nothing needs to be written.
+ * Otherwise a new {@link AccessGrant} linking the reused and created data grants must be created and linked from
+ * the grantee registration. Existing data grants that are no longer needed are listed in <code>obsoleteDataGrants</code>.
+ */
+@Getter
+public class IncrementalGrant {
+
+    private final AccessGrant accessGrant;
+    private final AccessGrant existingGrant;
+    private final List<DataGrant> reusedDataGrants;
+    private final List<DataGrant> createdDataGrants;
+    private final List<DataGrant> obsoleteDataGrants;
+
+    private IncrementalGrant(AccessGrant accessGrant, AccessGrant existingGrant, List<DataGrant> reusedDataGrants,
+                             List<DataGrant> createdDataGrants, List<DataGrant> obsoleteDataGrants) {
+        this.accessGrant = accessGrant;
+        this.existingGrant = existingGrant;
+        this.reusedDataGrants = Collections.unmodifiableList(reusedDataGrants);
+        this.createdDataGrants = Collections.unmodifiableList(createdDataGrants);
+        this.obsoleteDataGrants = Collections.unmodifiableList(obsoleteDataGrants);
+    }
+
+    /**
+     * Indicates whether the {@link AccessGrant} changed, and a new one must be created and linked from the grantee registration
+     * @return true when <code>accessGrant</code> is not the existing access grant
+     */
+    public boolean isChanged() {
+        return this.accessGrant != this.existingGrant;
+    }
+
+    /**
+     * Create the <code>createdDataGrants</code> and then the new {@link AccessGrant} with
+     * {@link AccessGrant#createAll(List, ExecutorService, int)}. Nothing is created when the access grant hasn't changed.
+     * @param executor ExecutorService to create data grants on (null to create them one at a time)
+     * @param maxConcurrent Maximum number of data grants being created at a time
+     * @return {@link GrantPersistence} with the time taken to create each resource, or null when nothing changed
+     * @throws SaiException
+     */
+    public GrantPersistence createAll(ExecutorService executor, int maxConcurrent) throws SaiException {
+        if (!isChanged()) { return null; }
+        return this.accessGrant.createAll(this.createdDataGrants, executor, maxConcurrent);
+    }
+
+    /**
+     * Reconcile newly generated <code>dataGrants</code> with the data grants of <code>existingGrant</code>
+     * @param dataGrants List of newly generated {@link DataGrant}s, with each parent before the data grants that inherit from it
+     * @param existingGrant Existing {@link AccessGrant} of the grantee (may be null)
+     * @param grantBuilder {@link AccessGrant.Builder} with the attributes of the access grant (other than data grants) set
+     * @return {@link IncrementalGrant}
+     * @throws SaiException
+     */
+    protected static IncrementalGrant reconcile(List<DataGrant> dataGrants, AccessGrant existingGrant, AccessGrant.Builder grantBuilder) throws SaiException {
+        Objects.requireNonNull(dataGrants, "Must provide the generated data grants to reconcile");
+        Objects.requireNonNull(grantBuilder, "Must provide a builder for a new access grant");
+        List<DataGrant> existingDataGrants = existingGrant == null ? Collections.emptyList() : existingGrant.getDataGrants();
+        Map<URI, String> existingSignatures = sign(existingDataGrants);
+        Map<String, Deque<DataGrant>> available = new HashMap<>();
+        for (DataGrant existing : existingDataGrants) {
+            available.computeIfAbsent(existingSignatures.get(existing.getUri()), signature -> new ArrayDeque<>()).add(existing);
+        }
+        Map<URI, String> signatures = sign(dataGrants);
+        // URI each generated data grant ends up with (its own, or that of the existing data grant reused in its place)
+        Map<URI, URI> resolved = new HashMap<>();
+        List<DataGrant> finalGrants = new ArrayList<>();
+        List<DataGrant> reused = new ArrayList<>();
+        List<DataGrant> created = new ArrayList<>();
+        Set<URI> reusedUris = new HashSet<>();
+        for (DataGrant dataGrant : dataGrants) {
+            URI parentUri = dataGrant.getInheritsFrom() == null ? null : resolved.getOrDefault(dataGrant.getInheritsFrom(), dataGrant.getInheritsFrom());
+            DataGrant match = take(available.get(signatures.get(dataGrant.getUri())), parentUri);
+            if (match != null) {
+                resolved.put(dataGrant.getUri(), match.getUri());
+                reusedUris.add(match.getUri());
+                reused.add(match);
+                finalGrants.add(match);
+                continue;
+            }
+            DataGrant toCreate = dataGrant;
+            if (parentUri != null && !parentUri.equals(dataGrant.getInheritsFrom())) { toCreate = withParent(dataGrant, parentUri); }
+            resolved.put(dataGrant.getUri(), toCreate.getUri());
+            created.add(toCreate);
+            finalGrants.add(toCreate);
+        }
+        List<DataGrant> obsolete = new ArrayList<>();
+        for (DataGrant existing : existingDataGrants) { if (!reusedUris.contains(existing.getUri())) { obsolete.add(existing); } }
+        AccessGrant candidate = grantBuilder.setDataGrants(finalGrants).build();
+        if (existingGrant != null && created.isEmpty() && obsolete.isEmpty() && sameAttributes(candidate, existingGrant)) {
+            return new IncrementalGrant(existingGrant, existingGrant, reused, created, obsolete);
+        }
+        return new IncrementalGrant(candidate, existingGrant, reused, created, obsolete);
+    }
+
+    /**
+     * Get the content signature of each data grant in <code>dataGrants</code>, keyed by data grant URI
+     */
+    private static Map<URI, String> sign(List<DataGrant> dataGrants) {
+        Map<URI, DataGrant> byUri = new HashMap<>();
+        for (DataGrant dataGrant : dataGrants) { byUri.put(dataGrant.getUri(), dataGrant); }
+        Map<URI, String> signatures = new HashMap<>();
+        for (DataGrant dataGrant : dataGrants) { sign(dataGrant, byUri, signatures, new HashSet<>()); }
+        return signatures;
+    }
+
+    private static String sign(DataGrant dataGrant, Map<URI, DataGrant> byUri, Map<URI, String> signatures, Set<URI> visiting) {
+        String existing = signatures.get(dataGrant.getUri());
+        if (existing != null) { return existing; }
+        String parent = null;
+        if (dataGrant.getInheritsFrom() != null) {
+            DataGrant parentGrant = byUri.get(dataGrant.getInheritsFrom());
+            // Parents outside of the access grant, or in a cycle, can only be identified by URI
+            parent = parentGrant == null || !visiting.add(dataGrant.getUri()) ? dataGrant.getInheritsFrom().toString()
+                                                                            : "[" + sign(parentGrant, byUri, signatures, visiting) + "]";
+        }
+        StringJoiner signature = new StringJoiner("|");
+        signature.add(String.valueOf(dataGrant.getDataOwner()));
+        signature.add(String.valueOf(dataGrant.getGrantee()));
+        signature.add(String.valueOf(dataGrant.getRegisteredShapeTree()));
+        signature.add(String.valueOf(dataGrant.getScopeOfGrant()));
+        signature.add(String.valueOf(dataGrant.getDataRegistration()));
+        signature.add(String.valueOf(dataGrant.getAccessNeed()));
+        signature.add(String.valueOf(dataGrant.getDelegationOf()));
+        signature.add(sorted(dataGrant.getAccessModes()));
+        signature.add(sorted(dataGrant.getCreatorAccessModes()));
+        signature.add(sorted(dataGrant.getDataInstances()));
+        signature.add(String.valueOf(parent));
+        signatures.put(dataGrant.getUri(), signature.toString());
+        return signature.toString();
+    }
+
+    private static String sorted(List<?> values) {
+        if (values == null) { return "[]"; }
+        List<String> strings = new ArrayList<>();
+        for (Object value : values) { strings.add(String.valueOf(value)); }
+        Collections.sort(strings);
+        return strings.toString();
+    }
+
+    /**
+     * Take an existing data grant from <code>candidates</code> that inherits from <code>parentUri</code>
+     */
+    private static DataGrant take(Deque<DataGrant> candidates, URI parentUri) {
+        if (candidates == null) { return null; }
+        for (Iterator<DataGrant> iterator = candidates.iterator(); iterator.hasNext(); ) {
+            DataGrant candidate = iterator.next();
+            if (Objects.equals(candidate.getInheritsFrom(), parentUri)) {
+                iterator.remove();
+                return candidate;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Rebuild <code>dataGrant</code> to inherit from <code>parentUri</code>, which is the URI of a reused parent
+     */
+    private static DataGrant withParent(DataGrant dataGrant, URI parentUri) throws SaiException {
+        SaiSession saiSession = dataGrant.getSaiSession();
+        DataGrant.Builder builder = new DataGrant.Builder(dataGrant.getUri(), saiSession);
+        builder.setDataOwner(dataGrant.getDataOwner()).setGrantee(dataGrant.getGrantee())
+               .setRegisteredShapeTree(dataGrant.getRegisteredShapeTree()).setScopeOfGrant(dataGrant.getScopeOfGrant())
+               .setDataRegistration(dataGrant.getDataRegistration()).setAccessModes(dataGrant.getAccessModes())
+               .setInheritsFrom(parentUri);
+        if (dataGrant.getCreatorAccessModes() != null) { builder.setCreatorAccessModes(dataGrant.getCreatorAccessModes()); }
+        if (dataGrant.getDataInstances() != null) { builder.setDataInstances(dataGrant.getDataInstances()); }
+        if (dataGrant.getAccessNeed() != null) { builder.setAccessNeed(dataGrant.getAccessNeed()); }
+        if (dataGrant.getDelegationOf() != null) { builder.setDelegationOf(dataGrant.getDelegationOf()); }
+        return builder.build();
+    }
+
+    private static boolean sameAttributes(AccessGrant candidate, AccessGrant existing) {
+        return Objects.equals(candidate.getGrantedBy(), existing.getGrantedBy()) && Objects.equals(candidate.getGrantee(), existing.getGrantee()) &&
+               Objects.equals(candidate.getAccessNeedGroup(), existing.getAccessNeedGroup());
+    }
+
+}
@@ -3,19 +3,20 @@ package com.janeirodigital.sai.core.authorizations;
 import com.janeirodigital.sai.core.exceptions.SaiException;
 import com.janeirodigital.sai.core.resources.ReadableResource;
 import com.janeirodigital.sai.core.sessions.SaiSession;
+import com.janeirodigital.sai.core.utils.ConcurrentFetcher;
+import com.janeirodigital.sai.core.utils.InheritanceLinker;
 import com.janeirodigital.sai.httputils.ContentType;
 import com.janeirodigital.sai.httputils.SaiHttpNotFoundException;
 import com.janeirodigital.sai.rdfutils.SaiRdfException;
 import com.janeirodigital.sai.rdfutils.SaiRdfNotFoundException;
+import lombok.AccessLevel;
 import lombok.Getter;
 import okhttp3.Response;
 import org.apache.jena.rdf.model.Model;
 
 import java.net.URI;
 import java.time.OffsetDateTime;
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Objects;
+import java.util.*;
 
 import static com.janeirodigital.sai.core.vocabularies.InteropVocabulary.*;
 import static com.janeirodigital.sai.httputils.HttpUtils.DEFAULT_RDF_CONTENT_TYPE;
@@ -33,6 +34,13 @@ public class ReadableAccessGrant extends ReadableResource {
     private final URI grantee;
     private final URI accessNeedGroup;
     private final List<ReadableDataGrant> dataGrants;
+    @Getter(AccessLevel.NONE)
+    private final Map<URI, List<ReadableDataGrant>> grantsByShapeTree;
+    @Getter(AccessLevel.NONE)
+    private final Map<URI, Map<URI, List<ReadableDataGrant>>> grantsByOwnerAndShapeTree;
+    @Getter(AccessLevel.NONE)
+    private final List<URI> dataOwners;
+    private final AccessDecisionEngine decisionEngine;
 
     /**
      * Construct a {@link ReadableAccessGrant} instance from the provided {@link Builder}.
@@ -45,7 +53,22 @@ public class ReadableAccessGrant extends ReadableResource {
         this.grantedAt = builder.grantedAt;
         this.grantee = builder.grantee;
         this.accessNeedGroup = builder.accessNeedGroup;
-        this.dataGrants = builder.dataGrants;
+        this.dataGrants = Collections.unmodifiableList(new ArrayList<>(builder.dataGrants));
+        Map<URI, List<ReadableDataGrant>> byShapeTree = new HashMap<>();
+        Map<URI, Map<URI, List<ReadableDataGrant>>> byOwnerAndShapeTree = new HashMap<>();
+        Set<URI> owners = new LinkedHashSet<>();
+        for (ReadableDataGrant dataGrant : this.dataGrants) {
+            byShapeTree.computeIfAbsent(dataGrant.getRegisteredShapeTree(), shapeTree -> new ArrayList<>()).add(dataGrant);
+            byOwnerAndShapeTree.computeIfAbsent(dataGrant.getDataOwner(), owner -> new HashMap<>())
+                               .computeIfAbsent(dataGrant.getRegisteredShapeTree(), shapeTree -> new ArrayList<>()).add(dataGrant);
+            owners.add(dataGrant.getDataOwner());
+        }
+        this.grantsByShapeTree = freeze(byShapeTree);
+        Map<URI, Map<URI, List<ReadableDataGrant>>> frozen = new HashMap<>();
+        for (Map.Entry<URI, Map<URI, List<ReadableDataGrant>>> entry : byOwnerAndShapeTree.entrySet()) { frozen.put(entry.getKey(), freeze(entry.getValue())); }
+        this.grantsByOwnerAndShapeTree = Collections.unmodifiableMap(frozen);
+        this.dataOwners = Collections.unmodifiableList(new ArrayList<>(owners));
+        this.decisionEngine = new AccessDecisionEngine(this.dataGrants);
     }
 
     /**
@@ -91,44 +114,57 @@ public class ReadableAccessGrant extends ReadableResource {
      * shape tree
      * @param dataOwnerUri URI of the data owner that granted access
      * @param shapeTreeUri URI of the shape tree associated with the data
-     * @return List of matching {@link ReadableDataGrant}
+     * @return Unmodifiable list of matching {@link ReadableDataGrant}
      */
     public List<ReadableDataGrant> findDataGrants(URI dataOwnerUri, URI shapeTreeUri) {
         Objects.requireNonNull(dataOwnerUri, "Must provide the URI of the data owner to find data grant");
         Objects.requireNonNull(shapeTreeUri, "Must provide the URI of the shape tree to find data grant");
-        List<ReadableDataGrant> dataGrants = new ArrayList<>();
-        for (ReadableDataGrant dataGrant : this.getDataGrants()) {
-            if (!dataGrant.getDataOwner().equals(dataOwnerUri)) continue;
-            if (!dataGrant.getRegisteredShapeTree().equals(shapeTreeUri)) continue;
-            dataGrants.add(dataGrant);
-        }
-        return dataGrants;
+        Map<URI, List<ReadableDataGrant>> ownerGrants = this.grantsByOwnerAndShapeTree.get(dataOwnerUri);
+        if (ownerGrants == null) { return Collections.emptyList(); }
+        return ownerGrants.getOrDefault(shapeTreeUri, Collections.emptyList());
     }
 
     /**
      * Lookup {@link ReadableDataGrant}s linked to the {@link ReadableAccessGrant} by shape tree
      * @param shapeTreeUri URI of the shape tree associated with the data
-     * @return List of matching {@link ReadableDataGrant}
+     * @return Unmodifiable list of matching {@link ReadableDataGrant}
      */
     public List<ReadableDataGrant> findDataGrants(URI shapeTreeUri) {
         Objects.requireNonNull(shapeTreeUri, "Must provide the URI of the shape tree to find data grant");
-        List<ReadableDataGrant> dataGrants = new ArrayList<>();
-        for (ReadableDataGrant dataGrant : this.getDataGrants()) {
-            if (dataGrant.getRegisteredShapeTree().equals(shapeTreeUri)) dataGrants.add(dataGrant);
-        }
-        return dataGrants;
+        return this.grantsByShapeTree.getOrDefault(shapeTreeUri, Collections.emptyList());
     }
 
     /**
-     * Lookup the data owners represented by the {@link ReadableDataGrant}s linked to the {@link ReadableAccessGrant}
-     * @return List of data owner identifiers
+     * Lookup the distinct data owners represented by the {@link ReadableDataGrant}s linked to the {@link ReadableAccessGrant},
+     * in the order they first appear
+     * @return Unmodifiable list of data owner identifiers
      */
     public List<URI> getDataOwners() {
-        List<URI> dataOwners = new ArrayList<>();
-        for (ReadableDataGrant dataGrant : this.getDataGrants()) {
-            if (!dataOwners.contains(dataGrant.getDataOwner())) dataOwners.add(dataGrant.getDataOwner());
+        return this.dataOwners;
+    }
+
+    /**
+     * Get the number of entries held by the lookup indexes of the {@link ReadableAccessGrant} (keys and
+     * references to data grants), as a measure of the memory they use beyond the data grants themselves
+     * @return Number of index entries
+     */
+    public int getIndexSize() {
+        int size = this.dataOwners.size();
+        for (List<ReadableDataGrant> grants : this.grantsByShapeTree.values()) { size += 1 + grants.size(); }
+        for (Map<URI, List<ReadableDataGrant>> ownerGrants : this.grantsByOwnerAndShapeTree.values()) {
+            size++;
+            for (List<ReadableDataGrant> grants : ownerGrants.values()) { size += 1 + grants.size(); }
         }
-        return dataOwners;
+        return size;
+    }
+
+    /**
+     * Make an index and the lists of data grants in it unmodifiable
+     */
+    private static Map<URI, List<ReadableDataGrant>> freeze(Map<URI, List<ReadableDataGrant>> index) {
+        Map<URI, List<ReadableDataGrant>> frozen = new HashMap<>();
+        for (Map.Entry<URI, List<ReadableDataGrant>> entry : index.entrySet()) { frozen.put(entry.getKey(), Collections.unmodifiableList(entry.getValue())); }
+        return Collections.unmodifiableMap(frozen);
     }
 
     /**
@@ -177,21 +213,15 @@ public class ReadableAccessGrant extends ReadableResource {
         /**
          * Populates "parent" inheritable data grants with the "child" inherited data grants
          * that inherit from them
+         * @throws SaiException if an inherited data grant is orphaned, cyclic, or inherits from a data grant that can't be inherited
          */
-        private void organizeInheritance() {
-            for (ReadableDataGrant dataGrant : this.dataGrants) {
-                if (dataGrant instanceof InheritableDataGrant) {
-                    InheritableDataGrant parentDataGrant = (InheritableDataGrant) dataGrant;
-                    for (ReadableDataGrant childGrant : this.dataGrants) {
-                        if (childGrant instanceof InheritedDataGrant) {
-                            InheritedDataGrant inheritedChildGrant = (InheritedDataGrant) childGrant;
-                            if (inheritedChildGrant.getInheritsFrom().equals(dataGrant.getUri())) {
-                                parentDataGrant.getInheritingGrants().add(inheritedChildGrant);
-                            }
-                        }
-                    }
-                }
-            }
+        private void organizeInheritance() throws SaiException {
+            InheritanceLinker.link(this.dataGrants, ReadableDataGrant::getUri,
+                                   dataGrant -> dataGrant instanceof InheritedDataGrant ? ((InheritedDataGrant) dataGrant).getInheritsFrom() : null,
+                                   (parent, child) -> {
+                if (!(parent instanceof InheritableDataGrant)) { throw new SaiException(child.getUri() + " inherits from " + parent.getUri() + " which cannot be inherited from"); }
+                ((InheritableDataGrant) parent).getInheritingGrants().add((InheritedDataGrant) child);
+            });
         }
 
         /**
@@ -206,7 +236,8 @@ public class ReadableAccessGrant extends ReadableResource {
                 this.grantee = getRequiredUriObject(this.resource, GRANTEE);
                 this.accessNeedGroup = getRequiredUriObject(this.resource, HAS_ACCESS_NEED_GROUP);
                 List<URI> dataGrantUris = getRequiredUriObjects(this.resource, HAS_DATA_GRANT);
-                for (URI uri : dataGrantUris) { this.dataGrants.add(ReadableDataGrant.get(uri, this.saiSession)); }
+                this.dataGrants.addAll(ConcurrentFetcher.fetchAll(dataGrantUris, uri -> ReadableDataGrant.get(uri, this.saiSession),
+                                                                  this.saiSession.getChildLoadExecutor(), this.saiSession.getMaxChildLoads()));
                 organizeInheritance();
             } catch (SaiHttpNotFoundException | SaiException | SaiRdfException | SaiRdfNotFoundException ex) {
                 throw new SaiException("Unable to populate immutable access grant resource", ex);
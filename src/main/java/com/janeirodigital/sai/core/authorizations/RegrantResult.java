@@ -0,0 +1,45 @@
+package com.janeirodigital.sai.core.authorizations;
+
+import lombok.Getter;
+
+import java.net.URI;
+import java.util.*;
+
+/**
+ * Result of regenerating grants for the {@link AccessAuthorization}s affected by a new data registration (see
+ * {@link AuthorizationRegistry#regrant}). Includes the {@link IncrementalGrant} of each affected authorization,
+ * keyed by the URI of the authorization, in the order of the authorization registry. Each needs to be created
+ * (see {@link IncrementalGrant#createAll}) and linked from the registration of its grantee when it has changed.
+ */
+@Getter
+public class RegrantResult {
+
+    private final URI dataRegistration;
+    private final int authorizationsChecked;
+    private final Map<URI, IncrementalGrant> grants;
+
+    protected RegrantResult(URI dataRegistration, int authorizationsChecked, Map<URI, IncrementalGrant> grants) {
+        this.dataRegistration = dataRegistration;
+        this.authorizationsChecked = authorizationsChecked;
+        this.grants = Collections.unmodifiableMap(new LinkedHashMap<>(grants));
+    }
+
+    /**
+     * Get the URIs of the {@link AccessAuthorization}s that were affected by the data registration
+     * @return List of access authorization URIs
+     */
+    public List<URI> getAffected() {
+        return new ArrayList<>(this.grants.keySet());
+    }
+
+    /**
+     * Get the {@link IncrementalGrant}s whose access grant changed, and must be created
+     * @return List of changed {@link IncrementalGrant}s
+     */
+    public List<IncrementalGrant> getChanged() {
+        List<IncrementalGrant> changed = new ArrayList<>();
+        for (IncrementalGrant grant : this.grants.values()) { if (grant.isChanged()) { changed.add(grant); } }
+        return changed;
+    }
+
+}
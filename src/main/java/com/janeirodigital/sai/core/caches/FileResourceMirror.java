@@ -0,0 +1,177 @@
+package com.janeirodigital.sai.core.caches;
+
+import com.janeirodigital.sai.core.exceptions.SaiException;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Objects;
+import java.util.Properties;
+import java.util.stream.Stream;
+
+/**
+ * {@link ResourceMirror} that keeps each mirrored resource on disk in <code>directory</code>, so that
+ * it survives restarts. Each resource is stored for each agent as a single properties file with the URI, agent,
+ * entity tag, content type, and body, named by the SHA-256 digests of the document URI and the agent. Entries are
+ * written to a temporary file and moved into place, so a crash never leaves a partial entry, and concurrent stores
+ * of the same entry never pair an entity tag with another body.
+ */
+@Slf4j
+@Getter
+public class FileResourceMirror implements ResourceMirror {
+
+    private static final String ENTRY_EXTENSION = ".properties";
+    private static final String URI_PROPERTY = "uri";
+    private static final String AGENT_PROPERTY = "agent";
+    private static final String ETAG_PROPERTY = "etag";
+    private static final String CONTENT_TYPE_PROPERTY = "contentType";
+    private static final String BODY_PROPERTY = "body";
+
+    private final Path directory;
+
+    /**
+     * Initialize a file resource mirror in <code>directory</code>, creating the directory if needed
+     * @param directory Directory to store mirrored resources in
+     * @throws SaiException
+     */
+    public FileResourceMirror(Path directory) throws SaiException {
+        Objects.requireNonNull(directory, "Must provide a directory for the resource mirror");
+        try {
+            Files.createDirectories(directory);
+        } catch (IOException ex) {
+            throw new SaiException("Failed to initialize resource mirror in " + directory, ex);
+        }
+        this.directory = directory;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public MirroredResource get(URI uri, URI agent) throws SaiException {
+        Objects.requireNonNull(uri, "Must provide the URI of the mirrored resource to get");
+        URI documentUri = ResourceMirror.getDocumentUri(uri);
+        Path entryPath = this.directory.resolve(getEntryName(documentUri, agent) + ENTRY_EXTENSION);
+        if (!Files.exists(entryPath)) { return null; }
+        Properties entry = new Properties();
+        try (Reader in = Files.newBufferedReader(entryPath, StandardCharsets.UTF_8)) {
+            entry.load(in);
+        } catch (NoSuchFileException ex) {
+            // Evicted while being read
+            return null;
+        } catch (IOException ex) {
+            throw new SaiException("Failed to read mirrored resource " + documentUri, ex);
+        }
+        // Guard against a digest collision or an entry written for another document or agent
+        if (!documentUri.toString().equals(entry.getProperty(URI_PROPERTY))) { return null; }
+        if (!getAgentValue(agent).equals(entry.getProperty(AGENT_PROPERTY))) { return null; }
+        String body = entry.getProperty(BODY_PROPERTY);
+        if (body == null) { return null; }
+        return new MirroredResource(documentUri, entry.getProperty(ETAG_PROPERTY), entry.getProperty(CONTENT_TYPE_PROPERTY), body);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void store(MirroredResource mirrored, URI agent) throws SaiException {
+        Objects.requireNonNull(mirrored, "Must provide a mirrored resource to store");
+        Objects.requireNonNull(mirrored.getUri(), "Must provide the URI of the mirrored resource to store");
+        Objects.requireNonNull(mirrored.getEtag(), "Must provide the entity tag of the mirrored resource to store");
+        Objects.requireNonNull(mirrored.getContentType(), "Must provide the content type of the mirrored resource to store");
+        Objects.requireNonNull(mirrored.getBody(), "Must provide the body of the mirrored resource to store");
+        URI documentUri = ResourceMirror.getDocumentUri(mirrored.getUri());
+        String name = getEntryName(documentUri, agent);
+        Properties entry = new Properties();
+        entry.setProperty(URI_PROPERTY, documentUri.toString());
+        entry.setProperty(AGENT_PROPERTY, getAgentValue(agent));
+        entry.setProperty(ETAG_PROPERTY, mirrored.getEtag());
+        entry.setProperty(CONTENT_TYPE_PROPERTY, mirrored.getContentType());
+        entry.setProperty(BODY_PROPERTY, mirrored.getBody());
+        try {
+            Path entryTemp = Files.createTempFile(this.directory, name, ENTRY_EXTENSION + ".tmp");
+            try (Writer out = Files.newBufferedWriter(entryTemp, StandardCharsets.UTF_8)) { entry.store(out, null); }
+            moveIntoPlace(entryTemp, this.directory.resolve(name + ENTRY_EXTENSION));
+        } catch (IOException ex) {
+            throw new SaiException("Failed to store mirrored resource " + documentUri, ex);
+        }
+        log.debug("Mirrored resource {} for {} with entity tag {}", documentUri, agent, mirrored.getEtag());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void evict(URI uri) throws SaiException {
+        Objects.requireNonNull(uri, "Must provide the URI of the mirrored resource to evict");
+        URI documentUri = ResourceMirror.getDocumentUri(uri);
+        String prefix = getDigest(documentUri.toString()) + "-";
+        try (Stream<Path> paths = Files.list(this.directory)) {
+            for (Path path : (Iterable<Path>) paths::iterator) {
+                String fileName = path.getFileName().toString();
+                if (fileName.startsWith(prefix) && fileName.endsWith(ENTRY_EXTENSION)) { Files.deleteIfExists(path); }
+            }
+        } catch (IOException ex) {
+            throw new SaiException("Failed to evict mirrored resource " + documentUri, ex);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int size() throws SaiException {
+        try (Stream<Path> paths = Files.list(this.directory)) {
+            return (int) paths.filter(path -> path.getFileName().toString().endsWith(ENTRY_EXTENSION)).count();
+        } catch (IOException ex) {
+            throw new SaiException("Failed to count mirrored resources in " + this.directory, ex);
+        }
+    }
+
+    /**
+     * Move a fully written temporary file into place, atomically where the file system supports it
+     */
+    private void moveIntoPlace(Path source, Path target) throws IOException {
+        try {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException ex) {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Get the file name (without extension) used to store the resource at <code>documentUri</code> mirrored for
+     * <code>agent</code>. Entries for the same document share a prefix, so they can be evicted together.
+     */
+    private String getEntryName(URI documentUri, URI agent) throws SaiException {
+        return getDigest(documentUri.toString()) + "-" + getDigest(getAgentValue(agent));
+    }
+
+    /**
+     * Get the hex encoded SHA-256 digest of <code>value</code>
+     */
+    private String getDigest(String value) throws SaiException {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(value.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException ex) {
+            throw new SaiException("Unable to generate digest for mirrored resource " + value, ex);
+        }
+    }
+
+    /**
+     * Get the value stored for <code>agent</code>, which is empty for unprotected reads
+     */
+    private String getAgentValue(URI agent) {
+        return agent == null ? "" : agent.toString();
+    }
+
+}
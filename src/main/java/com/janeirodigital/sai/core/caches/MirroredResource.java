@@ -0,0 +1,21 @@
+package com.janeirodigital.sai.core.caches;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.net.URI;
+
+/**
+ * A copy of a remote resource held by a {@link ResourceMirror}, along with the entity tag
+ * and content type it was served with, so that it can be revalidated rather than re-downloaded.
+ */
+@Getter
+@AllArgsConstructor
+public class MirroredResource {
+
+    private final URI uri;
+    private final String etag;
+    private final String contentType;
+    private final String body;
+
+}
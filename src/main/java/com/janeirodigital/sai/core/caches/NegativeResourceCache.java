@@ -0,0 +1,157 @@
+package com.janeirodigital.sai.core.caches;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.net.URI;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Remembers resources that were recently found not to exist (HTTP 404), per agent, for a bounded
+ * period of time. When a {@link com.janeirodigital.sai.core.sessions.SaiSession} has a negative cache,
+ * reads of a resource that was just found missing fail immediately rather than being requested again.
+ * Entries are invalidated when the resource is created or changed through the session, or when a change
+ * notification is received for it.
+ */
+@Getter
+public class NegativeResourceCache {
+
+    private final Duration ttl;
+    private final int maxEntries;
+    private final Clock clock;
+    @Getter(AccessLevel.NONE)
+    private final ConcurrentHashMap<CacheKey, Instant> missing;
+    @Getter(AccessLevel.NONE)
+    private final AtomicLong suppressed;
+    @Getter(AccessLevel.NONE)
+    private final AtomicLong recorded;
+
+    /**
+     * Initialize a negative cache where missing resources are remembered for <code>ttl</code>
+     * @param ttl How long a resource is considered missing after a 404
+     * @param maxEntries Maximum number of missing resources to remember
+     */
+    public NegativeResourceCache(Duration ttl, int maxEntries) {
+        this(ttl, maxEntries, Clock.systemUTC());
+    }
+
+    /**
+     * Initialize a negative cache where missing resources are remembered for <code>ttl</code>,
+     * as measured by the provided <code>clock</code>
+     * @param ttl How long a resource is considered missing after a 404
+     * @param maxEntries Maximum number of missing resources to remember
+     * @param clock Clock used to expire entries
+     */
+    public NegativeResourceCache(Duration ttl, int maxEntries, Clock clock) {
+        Objects.requireNonNull(ttl, "Must provide a time to live for the negative cache");
+        Objects.requireNonNull(clock, "Must provide a clock for the negative cache");
+        if (ttl.isNegative() || ttl.isZero()) { throw new IllegalArgumentException("Must provide a positive time to live for the negative cache"); }
+        if (maxEntries < 1) { throw new IllegalArgumentException("Must allow at least one entry in the negative cache"); }
+        this.ttl = ttl;
+        this.maxEntries = maxEntries;
+        this.clock = clock;
+        this.missing = new ConcurrentHashMap<>();
+        this.suppressed = new AtomicLong();
+        this.recorded = new AtomicLong();
+    }
+
+    /**
+     * Check whether the resource at <code>uri</code> was recently found missing for <code>agent</code>.
+     * Each positive answer counts as a suppressed request.
+     * @param uri URI of the resource
+     * @param agent URI of the agent reading the resource (null for unprotected reads)
+     * @return true if the resource is known to be missing
+     */
+    public boolean isMissing(URI uri, URI agent) {
+        Objects.requireNonNull(uri, "Must provide the URI of the resource to check");
+        CacheKey key = new CacheKey(ResourceMirror.getDocumentUri(uri), agent);
+        Instant expires = this.missing.get(key);
+        if (expires == null) { return false; }
+        if (!this.clock.instant().isBefore(expires)) {
+            this.missing.remove(key, expires);
+            return false;
+        }
+        this.suppressed.incrementAndGet();
+        return true;
+    }
+
+    /**
+     * Record that the resource at <code>uri</code> was found missing for <code>agent</code>
+     * @param uri URI of the resource
+     * @param agent URI of the agent reading the resource (null for unprotected reads)
+     */
+    public void record(URI uri, URI agent) {
+        Objects.requireNonNull(uri, "Must provide the URI of the missing resource to record");
+        if (this.missing.size() >= this.maxEntries) { purgeExpired(); }
+        if (this.missing.size() >= this.maxEntries) { return; }
+        this.missing.put(new CacheKey(ResourceMirror.getDocumentUri(uri), agent), this.clock.instant().plus(this.ttl));
+        this.recorded.incrementAndGet();
+    }
+
+    /**
+     * Forget that the resource at <code>uri</code> was missing, for every agent
+     * @param uri URI of the resource
+     */
+    public void invalidate(URI uri) {
+        Objects.requireNonNull(uri, "Must provide the URI of the resource to invalidate");
+        URI documentUri = ResourceMirror.getDocumentUri(uri);
+        this.missing.keySet().removeIf(key -> key.getUri().equals(documentUri));
+    }
+
+    /**
+     * Get the number of requests that weren't made because the resource was known to be missing
+     * @return Number of suppressed requests
+     */
+    public long getSuppressed() { return this.suppressed.get(); }
+
+    /**
+     * Get the number of missing resources that have been recorded
+     * @return Number of recorded 404s
+     */
+    public long getRecorded() { return this.recorded.get(); }
+
+    /**
+     * Get the number of missing resources currently remembered (including any that have expired but not yet been purged)
+     * @return Number of entries
+     */
+    public int size() { return this.missing.size(); }
+
+    /**
+     * Remove any expired entries
+     */
+    private void purgeExpired() {
+        Instant now = this.clock.instant();
+        this.missing.values().removeIf(expires -> !now.isBefore(expires));
+    }
+
+    /**
+     * Key for a resource that is missing for a given agent
+     */
+    @Getter
+    @AllArgsConstructor
+    protected static class CacheKey {
+
+        private final URI uri;
+        private final URI agent;
+
+        @Override
+        public boolean equals(Object object) {
+            if (object == this) { return true; }
+            if (!(object instanceof CacheKey)) { return false; }
+            CacheKey key = (CacheKey) object;
+            return this.uri.equals(key.getUri()) && Objects.equals(this.agent, key.getAgent());
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * this.uri.hashCode() + Objects.hashCode(this.agent);
+        }
+    }
+
+}
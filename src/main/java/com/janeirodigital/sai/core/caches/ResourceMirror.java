@@ -0,0 +1,59 @@
+package com.janeirodigital.sai.core.caches;
+
+import com.janeirodigital.sai.core.exceptions.SaiException;
+
+import java.net.URI;
+
+/**
+ * Local store of previously read resources and their entity tags. When a mirror is assigned to a
+ * {@link com.janeirodigital.sai.core.sessions.SaiSession}, reads are conditional on the mirrored
+ * entity tag, and the mirrored copy is used whenever the server confirms it hasn't changed.
+ * <br>
+ * A protected resource can look different to different agents, so copies are mirrored per agent.
+ */
+public interface ResourceMirror {
+
+    /**
+     * Get the copy of the resource at <code>uri</code> mirrored for <code>agent</code>
+     * @param uri URI of the resource
+     * @param agent URI of the agent reading the resource (null for unprotected reads)
+     * @return {@link MirroredResource} or null when the resource isn't mirrored
+     * @throws SaiException
+     */
+    MirroredResource get(URI uri, URI agent) throws SaiException;
+
+    /**
+     * Store (or replace) the copy of a resource mirrored for <code>agent</code>. The body, entity tag, and
+     * content type are stored together, so a concurrent {@link #get} never pairs an entity tag with another body.
+     * @param mirrored {@link MirroredResource} to store
+     * @param agent URI of the agent that read the resource (null for unprotected reads)
+     * @throws SaiException
+     */
+    void store(MirroredResource mirrored, URI agent) throws SaiException;
+
+    /**
+     * Remove the mirrored copies of the resource at <code>uri</code>, for every agent
+     * @param uri URI of the resource
+     * @throws SaiException
+     */
+    void evict(URI uri) throws SaiException;
+
+    /**
+     * Get the number of resources currently mirrored
+     * @return Number of mirrored resources
+     * @throws SaiException
+     */
+    int size() throws SaiException;
+
+    /**
+     * Resources are mirrored per document, so any fragment is removed from <code>uri</code>
+     * @param uri URI to get the document URI for
+     * @return URI of the document
+     */
+    static URI getDocumentUri(URI uri) {
+        if (uri.getFragment() == null) { return uri; }
+        String value = uri.toString();
+        return URI.create(value.substring(0, value.indexOf('#')));
+    }
+
+}
@@ -0,0 +1,4 @@
+/**
+ * Optional caches and local mirrors that reduce the number of requests sai-java needs to make
+ */
+package com.janeirodigital.sai.core.caches;
@@ -4,12 +4,17 @@ import com.janeirodigital.sai.core.authorizations.ReadableDataGrant;
 import com.janeirodigital.sai.core.exceptions.SaiException;
 import com.janeirodigital.sai.core.exceptions.SaiRuntimeException;
 import com.janeirodigital.sai.core.sessions.SaiSession;
+import com.janeirodigital.sai.core.utils.FetchingSpliterator;
 import com.janeirodigital.sai.httputils.SaiHttpNotFoundException;
 
 import java.net.URI;
+import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.ExecutorService;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 public class DataInstanceList implements Iterable<DataInstance> {
     
@@ -52,6 +57,39 @@ public class DataInstanceList implements Iterable<DataInstance> {
         return new DataInstanceListIterator(this.saiSession, this.dataGrant, this.dataInstanceUris);
     }
 
+    /**
+     * Get a sequential Stream of the {@link DataInstance}s in the list, which are fetched one at a time as they are
+     * reached, so short-circuiting operations stop fetching as soon as they are satisfied. See {@link FetchingSpliterator}.
+     * @return Stream of {@link DataInstance}s
+     */
+    public Stream<DataInstance> stream() {
+        return StreamSupport.stream(new FetchingSpliterator<>(new ArrayList<>(this.dataInstanceUris.keySet()), this::getDataInstance), false);
+    }
+
+    /**
+     * Get a sequential Stream of the {@link DataInstance}s in the list that are prefetched concurrently on <code>executor</code>, in
+     * batches of <code>batchSize</code>. Fetches never run on the common fork-join pool, and the stream pipeline itself
+     * runs on the calling thread. See {@link FetchingSpliterator}.
+     * @param executor ExecutorService to fetch {@link DataInstance}s on
+     * @param batchSize Number of {@link DataInstance}s to fetch together
+     * @return Stream of {@link DataInstance}s
+     */
+    public Stream<DataInstance> prefetchingStream(ExecutorService executor, int batchSize) {
+        Objects.requireNonNull(executor, "Must provide an executor to stream data instances with");
+        return StreamSupport.stream(new FetchingSpliterator<>(new ArrayList<>(this.dataInstanceUris.keySet()), this::getDataInstance, batchSize, executor), false);
+    }
+
+    /**
+     * Get the {@link DataInstance} at <code>instanceUri</code>, referencing its parent {@link DataInstance} when there is one
+     * @param instanceUri URI of the {@link DataInstance}
+     * @return {@link DataInstance} as a {@link BasicDataInstance}
+     * @throws SaiException
+     * @throws SaiHttpNotFoundException
+     */
+    private DataInstance getDataInstance(URI instanceUri) throws SaiException, SaiHttpNotFoundException {
+        return BasicDataInstance.get(instanceUri, this.saiSession, this.dataGrant, this.dataInstanceUris.get(instanceUri));
+    }
+
     /**
      * Iterator that can be used to iterate over a list of {@link DataInstance} URIs,
      * returning a {@link BasicDataInstance} for each.
@@ -43,12 +43,7 @@ public class DataRegistration extends CRUDResource {
      */
     private DataRegistration(Builder builder) throws SaiException {
         super(builder);
-        this.registeredBy = builder.registeredBy;
-        this.registeredWith = builder.registeredWith;
-        this.registeredAt = builder.registeredAt;
-        this.updatedAt = builder.updatedAt;
-        this.registeredShapeTree = builder.registeredShapeTree;
-        this.dataInstances = builder.dataInstances;
+        populateFromBuilder(builder);
     }
 
     /**
@@ -89,6 +84,28 @@ public class DataRegistration extends CRUDResource {
         return get(this.uri, this.saiSession, this.contentType);
     }
 
+    /**
+     * Refresh the fields of the {@link DataRegistration} from its graph, after it has been replaced in place
+     * @throws SaiException
+     */
+    @Override
+    protected void refreshFromDataset() throws SaiException {
+        populateFromBuilder(new Builder(this.uri, this.saiSession).setDataset(this.dataset));
+    }
+
+    /**
+     * Set the fields of the {@link DataRegistration} from a populated <code>builder</code>
+     * @param builder {@link Builder} to set fields from
+     */
+    private void populateFromBuilder(Builder builder) {
+        this.registeredBy = builder.registeredBy;
+        this.registeredWith = builder.registeredWith;
+        this.registeredAt = builder.registeredAt;
+        this.updatedAt = builder.updatedAt;
+        this.registeredShapeTree = builder.registeredShapeTree;
+        this.dataInstances = builder.dataInstances;
+    }
+
     /**
      * Builder for {@link DataRegistration} instances.
      */
@@ -5,7 +5,10 @@ import com.janeirodigital.sai.core.exceptions.SaiException;
 import com.janeirodigital.sai.core.exceptions.SaiRuntimeException;
 import com.janeirodigital.sai.core.resources.CRUDResource;
 import com.janeirodigital.sai.core.sessions.SaiSession;
+import com.janeirodigital.sai.core.utils.RegistrationDelta;
+import com.janeirodigital.sai.core.utils.RegistrationIndex;
 import com.janeirodigital.sai.core.utils.RegistrationList;
+import com.janeirodigital.sai.core.utils.RegistryDelta;
 import com.janeirodigital.sai.httputils.ContentType;
 import com.janeirodigital.sai.httputils.SaiHttpNotFoundException;
 import lombok.Getter;
@@ -14,9 +17,7 @@ import org.apache.jena.rdf.model.Model;
 import org.apache.jena.rdf.model.Resource;
 
 import java.net.URI;
-import java.util.Iterator;
-import java.util.List;
-import java.util.Objects;
+import java.util.*;
 
 import static com.janeirodigital.sai.core.vocabularies.InteropVocabulary.DATA_REGISTRY;
 import static com.janeirodigital.sai.core.vocabularies.InteropVocabulary.HAS_DATA_REGISTRATION;
@@ -78,6 +79,18 @@ public class DataRegistry extends CRUDResource {
         return get(this.uri, this.saiSession, this.contentType);
     }
 
+    /**
+     * Reload a new instance of {@link DataRegistry}, along with the registrations that were added and removed
+     * since this instance was loaded, so that only what changed needs to be processed
+     * @return {@link RegistryDelta} with the reloaded {@link DataRegistry}
+     * @throws SaiHttpNotFoundException
+     * @throws SaiException
+     */
+    public RegistryDelta<DataRegistry> reloadWithDelta() throws SaiHttpNotFoundException, SaiException {
+        DataRegistry reloaded = reload();
+        return new RegistryDelta<>(reloaded, RegistrationDelta.between(this.dataRegistrations, reloaded.dataRegistrations));
+    }
+
     /**
      * Indicate whether the {@link DataRegistry} has any {@link DataRegistration}s
      * @return true if there are no registrations
@@ -96,7 +109,26 @@ public class DataRegistry extends CRUDResource {
         Objects.requireNonNull(registration, "Cannot add a null data registration to agent registry");
         DataRegistration found = this.getDataRegistrations().find(registration.getRegisteredShapeTree());
         if (found != null) { throw new SaiAlreadyExistsException("Data registration already exists for shape tree " + registration.getRegisteredShapeTree() + " at " + found.getUri()); }
-        this.getDataRegistrations().add(registration.getUri());
+        this.getDataRegistrations().add(registration.getUri(), registration.getRegisteredShapeTree());
+    }
+
+    /**
+     * Find the {@link DataRegistration} for <code>shapeTreeUri</code> in each of the provided <code>dataRegistries</code>.
+     * Each registry is looked up through its shape tree index, so registrations are only fetched when they are
+     * the indexed match, or haven't been indexed yet.
+     * @param dataRegistries List of {@link DataRegistry}s to search
+     * @param shapeTreeUri URI of the registered shape tree to find
+     * @return Map of matching {@link DataRegistration}s to the {@link DataRegistry} they belong to, in registry order
+     */
+    public static Map<DataRegistration, DataRegistry> findDataRegistrations(List<DataRegistry> dataRegistries, URI shapeTreeUri) {
+        Objects.requireNonNull(dataRegistries, "Must provide a list of data registries to search");
+        Objects.requireNonNull(shapeTreeUri, "Must provide the URI of the shape tree to find data registrations for");
+        Map<DataRegistration, DataRegistry> found = new LinkedHashMap<>();
+        for (DataRegistry dataRegistry : dataRegistries) {
+            DataRegistration matching = dataRegistry.getDataRegistrations().find(shapeTreeUri);
+            if (matching != null) { found.put(matching, dataRegistry); }
+        }
+        return found;
     }
 
     /**
@@ -108,6 +140,15 @@ public class DataRegistry extends CRUDResource {
         this.dataRegistrations.remove(registration.getUri());
     }
     
+    /**
+     * Refresh the registration lists from the graph of the registry, after it has been replaced in place
+     * @throws SaiException
+     */
+    @Override
+    protected void refreshFromDataset() throws SaiException {
+        this.dataRegistrations.populate();
+    }
+
     /**
      * Builder for {@link DataRegistry} instances.
      */
@@ -192,31 +233,47 @@ public class DataRegistry extends CRUDResource {
 
         /**
          * Override the default find in {@link RegistrationList} to lookup based on the registered shape tree of
-         * a {@link DataRegistration}
+         * a {@link DataRegistration}. Uses the {@link RegistrationIndex} of the list, so at most one registration
+         * is fetched once the registered shape tree has been indexed.
          * @param shapeTreeUri URI of the registeredShapeTree to find
          * @return {@link DataRegistration}
          */
         @Override
-        public T find(URI shapeTreeUri) {
-            for (T registration : this) {
-                DataRegistration dataRegistration = (DataRegistration) registration;
-                if (shapeTreeUri.equals(dataRegistration.getRegisteredShapeTree())) { return registration; }
-            }
-            return null;
-        }
+        public T find(URI shapeTreeUri) { return this.findIndexed(shapeTreeUri); }
+
+        /**
+         * Index {@link DataRegistration}s by their registered shape tree
+         * @param registration {@link DataRegistration} to get the key for
+         * @return URI of the registered shape tree
+         */
+        @Override
+        protected URI getIndexKey(T registration) { return ((DataRegistration) registration).getRegisteredShapeTree(); }
 
         /**
          * Return an iterator for {@link DataRegistration} instances
          * @return {@link DataRegistration} Iterator
          */
         @Override
-        public Iterator<T> iterator() { return new DataRegistrationListIterator<>(this.getSaiSession(), this.getRegistrationUris()); }
+        public Iterator<T> iterator() {
+            if (this.isReadAhead()) { return this.readAheadIterator(); }
+            return new DataRegistrationListIterator<>(this.getSaiSession(), this.iterationUris());
+        }
+
+        /**
+         * Get the {@link DataRegistration} at <code>registrationUri</code>
+         * @param registrationUri URI of the {@link DataRegistration}
+         * @return {@link DataRegistration}
+         */
+        @Override
+        protected T getRegistration(URI registrationUri) throws SaiException, SaiHttpNotFoundException {
+            return (T) DataRegistration.get(registrationUri, this.getSaiSession());
+        }
 
         /**
          * Custom iterator that iterates over {@link DataRegistration} URIs and gets actual instances of them
          */
         private static class DataRegistrationListIterator<T> extends RegistrationListIterator<T> {
-            public DataRegistrationListIterator(SaiSession saiSession, List<URI> registrationUris) { super(saiSession, registrationUris); }
+            public DataRegistrationListIterator(SaiSession saiSession, Collection<URI> registrationUris) { super(saiSession, registrationUris); }
             /**
              * Get the {@link DataRegistration} for the next URI in the iterator
              * @return {@link DataRegistration}
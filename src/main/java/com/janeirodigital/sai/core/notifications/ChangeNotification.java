@@ -0,0 +1,22 @@
+package com.janeirodigital.sai.core.notifications;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.net.URI;
+
+/**
+ * A notification that the resource identified by <code>object</code> was changed,
+ * as delivered over a
+ * <a href="https://solidproject.org/TR/notifications-protocol">Solid Notifications</a> channel.
+ */
+@Getter
+@AllArgsConstructor
+public class ChangeNotification {
+
+    private final URI id;
+    private final String type;
+    private final URI object;
+    private final String published;
+
+}
@@ -0,0 +1,432 @@
+package com.janeirodigital.sai.core.notifications;
+
+import com.janeirodigital.sai.authentication.SaiAuthenticationException;
+import com.janeirodigital.sai.core.exceptions.SaiException;
+import com.janeirodigital.sai.core.sessions.SaiSession;
+import com.janeirodigital.sai.httputils.HttpMethod;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import okhttp3.*;
+import org.apache.jena.atlas.json.*;
+
+import java.io.IOException;
+import java.net.URI;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * Subscribes to <a href="https://solidproject.org/TR/notifications-protocol">Solid Notifications</a>
+ * channels for watched resources, and invalidates them in the {@link SaiSession} when a change
+ * notification is received, so that caches in front of them never serve stale data.
+ * <br>
+ * WebSocketChannel2023 subscriptions are received directly by the subscriber. When a web socket channel fails,
+ * the watched resource is invalidated (changes may have been missed), failure listeners are called, and the topic
+ * is resubscribed with an exponential backoff until it succeeds or the topic is unsubscribed. For WebhookChannel2023
+ * subscriptions, notifications are delivered to an endpoint of the application, which should pass each notification
+ * it receives to {@link #handleNotification(String)}.
+ */
+@Slf4j
+@Getter
+public class ChangeNotificationSubscriber {
+
+    public static final String NOTIFICATION_CONTEXT = "https://www.w3.org/ns/solid/notification/v1";
+    public static final String WEBSOCKET_CHANNEL = "http://www.w3.org/ns/solid/notifications#WebSocketChannel2023";
+    public static final String WEBHOOK_CHANNEL = "http://www.w3.org/ns/solid/notifications#WebhookChannel2023";
+    public static final Duration DEFAULT_RESUBSCRIBE_DELAY = Duration.ofSeconds(1);
+    public static final Duration DEFAULT_MAX_RESUBSCRIBE_DELAY = Duration.ofMinutes(5);
+    private static final MediaType JSON_LD = MediaType.get("application/ld+json");
+
+    private final SaiSession saiSession;
+    private final URI subscriptionService;
+    private final boolean unprotected;
+    @Getter(AccessLevel.NONE)
+    private final Map<URI, WebSocket> subscriptions;
+    @Getter(AccessLevel.NONE)
+    private final Map<URI, URI> webhookChannels;
+    @Getter(AccessLevel.NONE)
+    private final Set<URI> watched;
+    @Getter(AccessLevel.NONE)
+    private final List<Consumer<ChangeNotification>> listeners;
+    @Getter(AccessLevel.NONE)
+    private final List<BiConsumer<URI, Throwable>> failureListeners;
+    private Duration resubscribeDelay;
+    private Duration maxResubscribeDelay;
+    @Getter(AccessLevel.NONE)
+    private ScheduledExecutorService scheduler;
+
+    /**
+     * Initialize a subscriber that requests channels from the provided <code>subscriptionService</code>
+     * @param saiSession {@link SaiSession} to invalidate resources in
+     * @param subscriptionService URI of the notification subscription service
+     * @param unprotected When true, does not send authorization headers with subscription requests
+     */
+    public ChangeNotificationSubscriber(SaiSession saiSession, URI subscriptionService, boolean unprotected) {
+        Objects.requireNonNull(saiSession, "Must provide a sai session for the notification subscriber");
+        Objects.requireNonNull(subscriptionService, "Must provide a subscription service for the notification subscriber");
+        this.saiSession = saiSession;
+        this.subscriptionService = subscriptionService;
+        this.unprotected = unprotected;
+        this.subscriptions = new ConcurrentHashMap<>();
+        this.webhookChannels = new ConcurrentHashMap<>();
+        this.watched = ConcurrentHashMap.newKeySet();
+        this.listeners = new CopyOnWriteArrayList<>();
+        this.failureListeners = new CopyOnWriteArrayList<>();
+        this.resubscribeDelay = DEFAULT_RESUBSCRIBE_DELAY;
+        this.maxResubscribeDelay = DEFAULT_MAX_RESUBSCRIBE_DELAY;
+    }
+
+    /**
+     * Get the open web socket channels, by the topic they were subscribed for
+     * @return Unmodifiable view of the web socket subscriptions
+     */
+    public Map<URI, WebSocket> getSubscriptions() { return Collections.unmodifiableMap(this.subscriptions); }
+
+    /**
+     * Get the webhook channels, by the topic they were subscribed for
+     * @return Unmodifiable view of the webhook channel ids
+     */
+    public Map<URI, URI> getWebhookChannels() { return Collections.unmodifiableMap(this.webhookChannels); }
+
+    /**
+     * Add a listener that is called for each change notification after the changed resource
+     * has been invalidated. Use this to refresh anything held outside of the {@link SaiSession}.
+     * @param listener Consumer of {@link ChangeNotification}
+     */
+    public void addListener(Consumer<ChangeNotification> listener) {
+        Objects.requireNonNull(listener, "Must provide a notification listener to add");
+        this.listeners.add(listener);
+    }
+
+    /**
+     * Add a listener that is called with the watched topic and the cause whenever its web socket channel fails, or
+     * resubscribing to it fails. The topic has already been invalidated, since changes may have been missed, and
+     * will be resubscribed after a backoff. Use this to refresh anything held outside of the {@link SaiSession}.
+     * @param listener Consumer of the topic and the cause of the failure
+     */
+    public void addFailureListener(BiConsumer<URI, Throwable> listener) {
+        Objects.requireNonNull(listener, "Must provide a failure listener to add");
+        this.failureListeners.add(listener);
+    }
+
+    /**
+     * Set the backoff used to resubscribe to a topic after its web socket channel fails. The delay starts at
+     * <code>initialDelay</code>, and doubles after each failed attempt up to <code>maxDelay</code>.
+     * @param initialDelay Delay before the first attempt to resubscribe
+     * @param maxDelay Maximum delay between attempts to resubscribe
+     * @return {@link ChangeNotificationSubscriber}
+     */
+    public ChangeNotificationSubscriber setResubscribeBackoff(Duration initialDelay, Duration maxDelay) {
+        Objects.requireNonNull(initialDelay, "Must provide an initial delay to resubscribe after");
+        Objects.requireNonNull(maxDelay, "Must provide a maximum delay to resubscribe after");
+        if (initialDelay.isNegative() || maxDelay.compareTo(initialDelay) < 0) {
+            throw new IllegalArgumentException("Must provide an initial delay that isn't negative, and a maximum delay that isn't less than it");
+        }
+        this.resubscribeDelay = initialDelay;
+        this.maxResubscribeDelay = maxDelay;
+        return this;
+    }
+
+    /**
+     * Subscribe to changes of <code>topic</code> over a WebSocketChannel2023 channel. Notifications
+     * are received on a web socket that stays open until {@link #unsubscribe(URI)} or {@link #close()},
+     * and is reopened if it fails.
+     * @param topic URI of the resource to watch
+     * @throws SaiException
+     */
+    public void subscribe(URI topic) throws SaiException {
+        Objects.requireNonNull(topic, "Must provide a topic to subscribe to");
+        if (this.subscriptions.containsKey(topic)) { return; }
+        this.watched.add(topic);
+        try {
+            connect(topic, 0);
+        } catch (SaiException ex) {
+            this.watched.remove(topic);
+            throw ex;
+        }
+    }
+
+    /**
+     * Subscribe to changes of <code>topic</code> over a WebhookChannel2023 channel. Notifications are
+     * delivered to <code>sendTo</code>, which must pass them along to {@link #handleNotification(String)}.
+     * The channel is kept so that it can be removed with {@link #unsubscribe(URI)}, and any channel that
+     * was already subscribed for <code>topic</code> is removed.
+     * @param topic URI of the resource to watch
+     * @param sendTo URI of the application endpoint that notifications are delivered to
+     * @throws SaiException
+     */
+    public void subscribe(URI topic, URI sendTo) throws SaiException {
+        Objects.requireNonNull(topic, "Must provide a topic to subscribe to");
+        Objects.requireNonNull(sendTo, "Must provide an endpoint for notifications to be sent to");
+        JsonObject channel = requestChannel(topic, WEBHOOK_CHANNEL, sendTo);
+        String id = getString(channel, "id");
+        if (id == null) { throw new SaiException("Subscription to " + topic + " did not identify the channel"); }
+        URI channelUri = URI.create(id);
+        URI previous = this.webhookChannels.put(topic, channelUri);
+        if (previous != null && !previous.equals(channelUri)) { deleteChannel(topic, previous); }
+    }
+
+    /**
+     * Stop receiving notifications for <code>topic</code>, closing its web socket channel and removing
+     * its webhook channel from the subscription service
+     * @param topic URI of the watched resource
+     * @throws SaiException
+     */
+    public void unsubscribe(URI topic) throws SaiException {
+        Objects.requireNonNull(topic, "Must provide a topic to unsubscribe from");
+        this.watched.remove(topic);
+        WebSocket webSocket = this.subscriptions.remove(topic);
+        if (webSocket != null) { webSocket.close(1000, null); }
+        URI channelUri = this.webhookChannels.remove(topic);
+        if (channelUri != null) { deleteChannel(topic, channelUri); }
+    }
+
+    /**
+     * Close all web socket channels, remove all webhook channels, and stop resubscribing. Failures to remove
+     * a webhook channel are logged, so that every channel is still closed.
+     */
+    public void close() {
+        this.watched.clear();
+        Set<URI> topics = new LinkedHashSet<>(this.subscriptions.keySet());
+        topics.addAll(this.webhookChannels.keySet());
+        for (URI topic : topics) {
+            try {
+                unsubscribe(topic);
+            } catch (SaiException ex) {
+                log.error("Failed to unsubscribe from " + topic, ex);
+            }
+        }
+        synchronized (this) {
+            if (this.scheduler != null) { this.scheduler.shutdownNow(); }
+            this.scheduler = null;
+        }
+    }
+
+    /**
+     * Handle a change notification received on any channel. The changed resource is invalidated in the
+     * {@link SaiSession}, after which any registered listeners are called. A listener that fails is logged,
+     * and doesn't keep the others from being called.
+     * @param body JSON-LD body of the notification
+     * @return {@link ChangeNotification} that was handled, or null if the body isn't a notification about a resource
+     * @throws SaiException
+     */
+    public ChangeNotification handleNotification(String body) throws SaiException {
+        Objects.requireNonNull(body, "Must provide a notification body to handle");
+        JsonObject json;
+        try {
+            json = JSON.parse(body);
+        } catch (JsonException ex) {
+            throw new SaiException("Unable to parse change notification", ex);
+        }
+        String object = getString(json, "object");
+        if (object == null) {
+            log.debug("Ignoring notification without an object: {}", body);
+            return null;
+        }
+        String id = getString(json, "id");
+        ChangeNotification notification = new ChangeNotification(id == null ? null : toUri(id, "id"), getString(json, "type"), toUri(object, "object"), getString(json, "published"));
+        this.saiSession.invalidate(notification.getObject());
+        for (Consumer<ChangeNotification> listener : this.listeners) {
+            try {
+                listener.accept(notification);
+            } catch (RuntimeException ex) {
+                log.error("Notification listener failed for " + notification.getObject(), ex);
+            }
+        }
+        return notification;
+    }
+
+    /**
+     * Parse the <code>field</code> of a notification as a URI
+     */
+    private static URI toUri(String value, String field) throws SaiException {
+        try {
+            return URI.create(value);
+        } catch (IllegalArgumentException ex) {
+            throw new SaiException("Unable to parse " + field + " of change notification: " + value, ex);
+        }
+    }
+
+    /**
+     * Request a web socket channel for <code>topic</code> and open it. Failures of the channel are retried
+     * after the backoff for <code>attempt</code>.
+     */
+    private void connect(URI topic, int attempt) throws SaiException {
+        JsonObject channel = requestChannel(topic, WEBSOCKET_CHANNEL, null);
+        String receiveFrom = getString(channel, "receiveFrom");
+        if (receiveFrom == null) { throw new SaiException("Subscription to " + topic + " did not provide a channel to receive from"); }
+        Request request = new Request.Builder().url(receiveFrom).build();
+        WebSocket webSocket = this.saiSession.getHttpClient().newWebSocket(request, new ChannelListener(topic, attempt));
+        WebSocket existing = this.subscriptions.putIfAbsent(topic, webSocket);
+        if (existing != null) { webSocket.close(1000, null); }
+        // Unsubscribed while the channel was being requested
+        if (!this.watched.contains(topic) && this.subscriptions.remove(topic, webSocket)) { webSocket.close(1000, null); }
+    }
+
+    /**
+     * Resubscribe to <code>topic</code> after its channel failed, unless it was unsubscribed or has been
+     * resubscribed in the meantime
+     */
+    private void resubscribe(URI topic, int attempt) {
+        if (!this.watched.contains(topic) || this.subscriptions.containsKey(topic)) { return; }
+        try {
+            connect(topic, attempt);
+        } catch (SaiException ex) {
+            log.error("Failed to resubscribe to " + topic, ex);
+            notifyFailure(topic, ex);
+            scheduleResubscribe(topic, attempt);
+        }
+    }
+
+    /**
+     * Schedule an attempt to resubscribe to <code>topic</code>, after a delay that doubles with each failed
+     * <code>attempt</code> (up to the maximum delay)
+     */
+    private void scheduleResubscribe(URI topic, int attempt) {
+        if (!this.watched.contains(topic)) { return; }
+        long delay = Math.min(this.resubscribeDelay.toMillis() << Math.min(attempt, 20), this.maxResubscribeDelay.toMillis());
+        try {
+            getScheduler().schedule(() -> resubscribe(topic, attempt + 1), delay, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException ex) {
+            log.debug("Not resubscribing to {} after the subscriber was closed", topic);
+        }
+    }
+
+    /**
+     * Call each failure listener for <code>topic</code>
+     */
+    private void notifyFailure(URI topic, Throwable cause) {
+        for (BiConsumer<URI, Throwable> listener : this.failureListeners) {
+            try {
+                listener.accept(topic, cause);
+            } catch (RuntimeException ex) {
+                log.error("Failure listener failed for " + topic, ex);
+            }
+        }
+    }
+
+    /**
+     * Get the scheduler used to resubscribe, which is only started once a channel fails
+     */
+    private synchronized ScheduledExecutorService getScheduler() {
+        if (this.scheduler == null) {
+            this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "sai-notification-resubscribe");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        return this.scheduler;
+    }
+
+    /**
+     * Remove the webhook channel at <code>channelUri</code> for <code>topic</code> from the subscription service.
+     * A channel that no longer exists is treated as removed.
+     */
+    private void deleteChannel(URI topic, URI channelUri) throws SaiException {
+        Request.Builder requestBuilder = new Request.Builder().url(channelUri.toString()).delete();
+        try {
+            authorize(requestBuilder, HttpMethod.DELETE, channelUri);
+            try (Response response = this.saiSession.getHttpClient().newCall(requestBuilder.build()).execute()) {
+                if (!response.isSuccessful() && response.code() != 404) {
+                    throw new SaiException("Failed to unsubscribe from " + topic + ": " + response.code() + " " + response.message());
+                }
+            }
+        } catch (IOException | SaiAuthenticationException ex) {
+            throw new SaiException("Failed to unsubscribe from " + topic, ex);
+        }
+    }
+
+    /**
+     * Add authorization headers for <code>method</code> on <code>uri</code> to <code>requestBuilder</code>, unless unprotected
+     */
+    private void authorize(Request.Builder requestBuilder, HttpMethod method, URI uri) throws SaiAuthenticationException {
+        if (this.unprotected) { return; }
+        Map<String, String> authHeaders = this.saiSession.getAuthorizedSession().toHttpHeaders(method, uri);
+        for (Map.Entry<String, String> header : authHeaders.entrySet()) { requestBuilder.header(header.getKey(), header.getValue()); }
+    }
+
+    /**
+     * Request a notification channel of <code>channelType</code> for <code>topic</code> from the subscription service
+     * @return JSON description of the channel that was created
+     */
+    private JsonObject requestChannel(URI topic, String channelType, URI sendTo) throws SaiException {
+        JsonObject subscription = new JsonObject();
+        subscription.put("@context", NOTIFICATION_CONTEXT);
+        subscription.put("type", channelType);
+        subscription.put("topic", topic.toString());
+        if (sendTo != null) { subscription.put("sendTo", sendTo.toString()); }
+        Request.Builder requestBuilder = new Request.Builder().url(this.subscriptionService.toString())
+                                                              .post(RequestBody.create(subscription.toString(), JSON_LD));
+        try {
+            authorize(requestBuilder, HttpMethod.POST, this.subscriptionService);
+            try (Response response = this.saiSession.getHttpClient().newCall(requestBuilder.build()).execute()) {
+                if (!response.isSuccessful()) { throw new SaiException("Failed to subscribe to " + topic + ": " + response.code() + " " + response.message()); }
+                return JSON.parse(response.body().string());
+            }
+        } catch (IOException | JsonException | SaiAuthenticationException ex) {
+            throw new SaiException("Failed to subscribe to " + topic, ex);
+        }
+    }
+
+    /**
+     * Get a string value for <code>key</code>, which may be given as a plain string or as an object with an id
+     */
+    private static String getString(JsonObject json, String key) {
+        JsonValue value = json.get(key);
+        if (value == null) { return null; }
+        if (value.isString()) { return value.getAsString().value(); }
+        if (value.isObject()) { return getString(value.getAsObject(), "id"); }
+        return null;
+    }
+
+    /**
+     * Receives notifications on the web socket channel for a single topic
+     */
+    private class ChannelListener extends WebSocketListener {
+
+        private final URI topic;
+        private volatile int attempt;
+
+        ChannelListener(URI topic, int attempt) {
+            this.topic = topic;
+            this.attempt = attempt;
+        }
+
+        @Override
+        public void onOpen(WebSocket webSocket, Response response) {
+            // Back off from the start again if this channel fails later
+            this.attempt = 0;
+        }
+
+        @Override
+        public void onMessage(WebSocket webSocket, String text) {
+            try {
+                handleNotification(text);
+            } catch (SaiException | RuntimeException ex) {
+                // A notification that can't be handled mustn't fail the channel
+                log.error("Failed to handle notification for " + this.topic, ex);
+            }
+        }
+
+        @Override
+        public void onFailure(WebSocket webSocket, Throwable t, Response response) {
+            log.error("Notification channel for " + this.topic + " failed", t);
+            // Only the current channel of a topic is resubscribed - not one that was closed or replaced
+            boolean current = subscriptions.remove(this.topic, webSocket);
+            // Changes may have been missed while the channel was failing
+            try {
+                saiSession.invalidate(this.topic);
+            } catch (SaiException ex) {
+                log.error("Failed to invalidate " + this.topic, ex);
+            }
+            notifyFailure(this.topic, t);
+            if (current) { scheduleResubscribe(this.topic, this.attempt); }
+        }
+
+    }
+
+}
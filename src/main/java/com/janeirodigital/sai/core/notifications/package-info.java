@@ -0,0 +1,4 @@
+/**
+ * Subscriptions to Solid Notifications used to keep local caches current
+ */
+package com.janeirodigital.sai.core.notifications;
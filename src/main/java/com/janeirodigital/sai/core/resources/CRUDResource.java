@@ -4,44 +4,254 @@ import com.janeirodigital.sai.authentication.SaiAuthenticationException;
 import com.janeirodigital.sai.core.exceptions.SaiException;
 import com.janeirodigital.sai.core.sessions.SaiSession;
 import com.janeirodigital.sai.httputils.SaiHttpException;
+import com.janeirodigital.sai.httputils.SaiHttpNotFoundException;
+import lombok.AccessLevel;
 import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import okhttp3.Headers;
 import okhttp3.Response;
+import org.apache.jena.graph.Graph;
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.Triple;
+import org.apache.jena.graph.impl.WrappedGraph;
+import org.apache.jena.rdf.model.Model;
+import org.apache.jena.rdf.model.ModelFactory;
+import org.apache.jena.rdf.model.Property;
+import org.apache.jena.rdf.model.Statement;
 
 import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
 
-import static com.janeirodigital.sai.authentication.AuthorizedSessionHelper.deleteProtectedResource;
-import static com.janeirodigital.sai.authentication.AuthorizedSessionHelper.putProtectedRdfResource;
+import static com.janeirodigital.sai.authentication.AuthorizedSessionHelper.*;
 import static com.janeirodigital.sai.httputils.HttpUtils.*;
+import static com.janeirodigital.sai.rdfutils.RdfUtils.getResourceFromModel;
+import static java.net.HttpURLConnection.HTTP_PRECON_FAILED;
 
 /**
  * Represents a corresponding RDF Resource and provides create, read, update,
  * and delete capabilities.
+ * <br>When the resource was read with a strong entity tag, updates are conditional on the resource
+ * not having changed since (If-Match). If someone else has changed it in the meantime, the changes made
+ * locally since it was read are merged onto the current version of the resource, and the update is
+ * retried, up to <code>updateAttempts</code> times. Only the statements that were added or removed locally are
+ * re-applied, so values added by someone else in the meantime are kept, except for the functional properties
+ * of the resource (see {@link #getFunctionalProperties()}), which keep the local value rather than ending up with both.
+ * <br>To find the local changes, the graph of the resource is copied before it is first changed after
+ * being read or written, so resources that are only read are never copied.
  */
-@Getter
+@Getter @Slf4j
 public class CRUDResource extends ReadableResource {
 
+    public static final int DEFAULT_UPDATE_ATTEMPTS = 3;
+    protected static final String IF_MATCH = "If-Match";
+
+    @Getter(AccessLevel.NONE)
+    private Model snapshot;
+    @Getter(AccessLevel.NONE)
+    private boolean replacing;
+    @Getter(AccessLevel.NONE)
+    private final boolean conditional;
+    private int updateAttempts;
+
     /**
      * Construct a CRUD resource using the provided {@link Builder}.
      * @param builder {@link Builder} or an instance of an inheriting subclass
      */
     public CRUDResource(Builder<?> builder) throws SaiException {
         super(builder);
+        this.updateAttempts = DEFAULT_UPDATE_ATTEMPTS;
+        this.conditional = this.etag != null && this.dataset != null;
+        if (this.conditional) {
+            this.dataset = ModelFactory.createModelForGraph(new SnapshotOnWriteGraph(this.dataset.getGraph()));
+            this.resource = getResourceFromModel(this.dataset, this.uri);
+        }
+    }
+
+    /**
+     * Set the number of times a conditional update is attempted before giving up, when the resource
+     * keeps being changed by someone else
+     * @param updateAttempts Number of attempts
+     */
+    public void setUpdateAttempts(int updateAttempts) {
+        if (updateAttempts < 1) { throw new IllegalArgumentException("Must provide at least one update attempt"); }
+        this.updateAttempts = updateAttempts;
     }
 
     /**
      * Updates the corresponding resource over HTTP with the current contents of
-     * <code>dataset</code>.
+     * <code>dataset</code>. The update is conditional when the resource was read with a strong entity tag.
      * @throws SaiException
      */
     public void update() throws SaiException {
-        try {
-            if (this.isUnprotected()) { this.updateUnprotected(); } else {
-                checkResponse(putProtectedRdfResource(this.getSaiSession().getAuthorizedSession(), this.httpClient, this.uri, this.resource, this.contentType, this.jsonLdContext));
+        if (!this.conditional) {
+            try {
+                if (this.isUnprotected()) { this.updateUnprotected(); } else {
+                    checkResponse(putProtectedRdfResource(this.getSaiSession().getAuthorizedSession(), this.httpClient, this.uri, this.resource, this.contentType, this.jsonLdContext));
+                }
+            } catch (SaiHttpException | SaiAuthenticationException ex) {
+                throw new SaiException("Failed to update resource " + this.uri, ex);
             }
-        } catch (SaiHttpException | SaiAuthenticationException ex) {
-            throw new SaiException("Failed to update resource " + this.uri, ex);
+        } else {
+            updateConditionally();
         }
         this.exists = true;
+        invalidateCached();
+    }
+
+    /**
+     * Called after the graph of the resource has been replaced in place, when changes made locally have been
+     * merged onto the current version of the resource following a conflicting update, or when the graph has
+     * been restored. Overridden by sub-classes that keep state derived from the graph of the resource, so that
+     * they can refresh it.
+     * @throws SaiException
+     */
+    protected void refreshFromDataset() throws SaiException { }
+
+    /**
+     * Get the properties of the resource that have at most one value. When one of them is given a different value
+     * locally, merging replaces the current value with the local one. Any other property is merged statement by
+     * statement, which is what links to other resources (e.g. the registrations of a registry) need when they are
+     * added to by more than one writer. Overridden by sub-classes that have functional properties.
+     * @return Set of functional properties
+     */
+    protected Set<Property> getFunctionalProperties() { return Collections.emptySet(); }
+
+    /**
+     * Copy the graph of the resource, along with the state needed to update it conditionally, so that any
+     * local changes made after this point can be discarded with {@link #restore(Checkpoint)}
+     * @return {@link Checkpoint}
+     */
+    public Checkpoint checkpoint() {
+        return new Checkpoint(ModelFactory.createDefaultModel().add(this.dataset), this.snapshot, this.etag);
+    }
+
+    /**
+     * Discard the local changes made since <code>checkpoint</code> was taken, by putting the graph of the
+     * resource back the way it was in place
+     * @param checkpoint {@link Checkpoint} to restore
+     * @throws SaiException
+     */
+    public void restore(Checkpoint checkpoint) throws SaiException {
+        Objects.requireNonNull(checkpoint, "Must provide a checkpoint to restore");
+        replaceGraph(checkpoint.graph);
+        this.snapshot = checkpoint.snapshot;
+        this.etag = checkpoint.etag;
+        refreshFromDataset();
+    }
+
+    /**
+     * Put the graph of the resource back the way it was when <code>checkpoint</code> was taken, as a local change
+     * made since it was last written. Unlike {@link #restore(Checkpoint)}, the entity tag of the last write is kept,
+     * so that the next update undoes changes that have already been written since the checkpoint.
+     * @param checkpoint {@link Checkpoint} to revert to
+     * @throws SaiException
+     */
+    public void revert(Checkpoint checkpoint) throws SaiException {
+        Objects.requireNonNull(checkpoint, "Must provide a checkpoint to revert to");
+        this.dataset.removeAll();
+        this.dataset.add(checkpoint.graph);
+        refreshFromDataset();
+    }
+
+    /**
+     * Updates the resource with If-Match, merging and retrying when the precondition fails. When the entity tag
+     * of the last write isn't known, because the server didn't return one, the current version is merged first,
+     * rather than writing over changes made by someone else since.
+     */
+    private void updateConditionally() throws SaiException {
+        if (this.etag == null) { merge(); }
+        for (int attempt = 1; ; attempt++) {
+            try {
+                Headers headers = new Headers.Builder().add(IF_MATCH, this.etag).build();
+                Response response;
+                if (this.isUnprotected()) { response = putResource(this.httpClient, this.uri, headers, getBody(), this.contentType); } else {
+                    response = putProtectedResource(this.getSaiSession().getAuthorizedSession(), this.httpClient, this.uri, headers, getBody(), this.contentType);
+                }
+                if (response.code() != HTTP_PRECON_FAILED) {
+                    checkResponse(response);
+                    this.etag = getStrongEtag(response);
+                    if (this.etag == null) { log.debug("Update of resource {} returned no strong entity tag, the next update will merge first", this.uri); }
+                    this.snapshot = null;
+                    return;
+                }
+                response.close();
+            } catch (SaiHttpException | SaiAuthenticationException ex) {
+                throw new SaiException("Failed to update resource " + this.uri, ex);
+            }
+            if (attempt >= this.updateAttempts) {
+                throw new SaiException("Failed to update resource " + this.uri + " after " + attempt + " attempts because it kept being changed by someone else");
+            }
+            log.debug("Resource {} was changed by someone else, merging and retrying update", this.uri);
+            merge();
+        }
+    }
+
+    /**
+     * Replace the graph of the resource with its current version, and re-apply the statements that were
+     * added and removed locally since it was last read or written. The graph is changed in place so that
+     * anything holding on to <code>resource</code> still sees it.
+     */
+    private void merge() throws SaiException {
+        Model added = ModelFactory.createDefaultModel();
+        Model removed = ModelFactory.createDefaultModel();
+        List<Statement> replaced = new ArrayList<>();
+        if (this.snapshot != null) {
+            added = this.dataset.difference(this.snapshot);
+            removed = this.snapshot.difference(this.dataset);
+            Set<Property> functional = getFunctionalProperties();
+            for (Statement statement : added.listStatements().toList()) {
+                if (functional.contains(statement.getPredicate())) { replaced.add(statement); }
+            }
+        }
+        // The current version must not come from anything cached for the resource
+        invalidateCached();
+        Model current;
+        String currentEtag;
+        try (Response response = read(this.uri, this.saiSession, this.contentType, this.unprotected)) {
+            current = getRdfModelFromResponse(response);
+            currentEtag = getStrongEtag(response);
+        } catch (SaiHttpNotFoundException | SaiHttpException ex) {
+            throw new SaiException("Failed to get current version of resource " + this.uri + " to merge with", ex);
+        }
+        if (currentEtag == null) { throw new SaiException("Failed to merge resource " + this.uri + " because its current version has no entity tag"); }
+        replaceGraph(current);
+        this.replacing = true;
+        try {
+            this.dataset.remove(removed);
+            for (Statement statement : replaced) { this.dataset.removeAll(statement.getSubject(), statement.getPredicate(), null); }
+            this.dataset.add(added);
+        } finally {
+            this.replacing = false;
+        }
+        this.etag = currentEtag;
+        this.snapshot = current;
+        refreshFromDataset();
+    }
+
+    /**
+     * Replace the contents of the graph of the resource with <code>graph</code>, without treating it as a local change
+     * @param graph Graph to replace with
+     */
+    private void replaceGraph(Model graph) {
+        this.replacing = true;
+        try {
+            this.dataset.removeAll();
+            this.dataset.add(graph);
+        } finally {
+            this.replacing = false;
+        }
+    }
+
+    /**
+     * Serialize the graph of the resource in its content type
+     * @return Serialized graph
+     */
+    private String getBody() throws SaiException {
+        return serialize(this.contentType, this.jsonLdContext);
     }
 
     /**
@@ -57,6 +267,7 @@ public class CRUDResource extends ReadableResource {
             throw new SaiException("Failed to delete resource " + this.uri, ex);
         }
         this.exists = false;
+        invalidateCached();
     }
 
     /**
@@ -88,6 +299,65 @@ public class CRUDResource extends ReadableResource {
         return response;
     }
 
+    /**
+     * Graph of a resource that is updated conditionally, which copies itself before it is first changed after
+     * being read or written, so that the changes made locally can be found when merging
+     */
+    private class SnapshotOnWriteGraph extends WrappedGraph {
+
+        SnapshotOnWriteGraph(Graph base) { super(base); }
+
+        @Override
+        public void add(Triple triple) { beforeWrite(); super.add(triple); }
+
+        @Override
+        public void delete(Triple triple) { beforeWrite(); super.delete(triple); }
+
+        @Override
+        public void remove(Node subject, Node predicate, Node object) { beforeWrite(); super.remove(subject, predicate, object); }
+
+        @Override
+        public void clear() { beforeWrite(); super.clear(); }
+
+        @Override
+        public void performAdd(Triple triple) { beforeWrite(); super.performAdd(triple); }
+
+        @Override
+        public void performDelete(Triple triple) { beforeWrite(); super.performDelete(triple); }
+
+        private void beforeWrite() {
+            if (snapshot != null || replacing) { return; }
+            snapshot = ModelFactory.createDefaultModel().add(ModelFactory.createModelForGraph(this.base));
+        }
+
+    }
+
+    /**
+     * Copy of the graph of a {@link CRUDResource} that it can be restored to (see {@link #checkpoint()})
+     */
+    public static class Checkpoint {
+
+        private final Model graph;
+        private final Model snapshot;
+        private final String etag;
+
+        private Checkpoint(Model graph, Model snapshot, String etag) {
+            this.graph = graph;
+            this.snapshot = snapshot;
+            this.etag = etag;
+        }
+
+        /**
+         * Construct a checkpoint of the same graph as <code>checkpoint</code>, for sub-classes that keep more
+         * state alongside it
+         * @param checkpoint {@link Checkpoint} to copy
+         */
+        protected Checkpoint(Checkpoint checkpoint) {
+            this(checkpoint.graph, checkpoint.snapshot, checkpoint.etag);
+        }
+
+    }
+
     /**
      * Generic builder which is extended by CRUD resource builders. Extends and incorporates the
      * {@link ReadableResource.Builder} as a base.
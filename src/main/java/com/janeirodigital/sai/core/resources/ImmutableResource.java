@@ -3,25 +3,39 @@ package com.janeirodigital.sai.core.resources;
 import com.janeirodigital.sai.authentication.SaiAuthenticationException;
 import com.janeirodigital.sai.core.exceptions.SaiException;
 import com.janeirodigital.sai.core.sessions.SaiSession;
+import com.janeirodigital.sai.httputils.ContentType;
 import com.janeirodigital.sai.httputils.HttpHeader;
 import com.janeirodigital.sai.httputils.SaiHttpException;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
 import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
 import okhttp3.Headers;
 import okhttp3.Response;
 
 import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
 
 import static com.janeirodigital.sai.authentication.AuthorizedSessionHelper.deleteProtectedResource;
-import static com.janeirodigital.sai.authentication.AuthorizedSessionHelper.putProtectedRdfResource;
+import static com.janeirodigital.sai.authentication.AuthorizedSessionHelper.putProtectedResource;
 import static com.janeirodigital.sai.httputils.HttpUtils.*;
 
 /**
  * Represents a corresponding RDF Resource and provides create, read, and
  * delete capabilities. Immutable resources don't provide an update capability.
+ * <br>Because the graph of an immutable resource doesn't change once it has been built,
+ * serialized payloads are memoized per content type (and JSON-LD context), and
+ * reused when {@link #create()} is called again after a failed attempt, or by any other
+ * consumers of the payload.
  */
-@Getter
+@Getter @Slf4j
 public class ImmutableResource extends ReadableResource {
 
+    @Getter(AccessLevel.NONE)
+    private final ConcurrentHashMap<SerializationKey, String> serializedBodies;
+
     /**
      * Construct an Immutable resource using the provided {@link Builder}.
      * @param builder {@link Builder} or an instance of an inheriting subclass
@@ -29,6 +43,7 @@ public class ImmutableResource extends ReadableResource {
     public ImmutableResource(Builder<?> builder) throws SaiException {
         super(builder);
         this.exists = false; // assume the resource doesn't exist until it's bootstrapped
+        this.serializedBodies = new ConcurrentHashMap<>();
     }
 
     /**
@@ -39,21 +54,64 @@ public class ImmutableResource extends ReadableResource {
      */
     public void create() throws SaiException {
         Headers headers = setHttpHeader(HttpHeader.IF_NONE_MATCH, "*");
+        String body = getBody();
+        if (log.isDebugEnabled()) { log.debug("Creating immutable resource {} ({} bytes as {})", this.uri, body.getBytes(StandardCharsets.UTF_8).length, this.contentType.getValue()); }
         try {
-            if (this.isUnprotected()) { this.createUnprotected(headers); } else {
-                checkResponse(putProtectedRdfResource(this.saiSession.getAuthorizedSession(), this.httpClient, this.uri, this.resource, this.contentType, this.jsonLdContext, headers));
+            if (this.isUnprotected()) { this.createUnprotected(headers, body); } else {
+                checkResponse(putProtectedResource(this.saiSession.getAuthorizedSession(), this.httpClient, this.uri, headers, body, this.contentType));
             }
         } catch (SaiAuthenticationException | SaiHttpException ex) {
             throw new SaiException("Failed to create immutable resource " + this.uri, ex);
         }
         this.exists = true;
+        invalidateCached();
     }
 
     /**
      * Create the corresponding resource without sending any authorization headers
      */
-    private void createUnprotected(Headers headers) throws SaiHttpException {
-        checkResponse(putRdfResource(this.httpClient, this.uri, this.resource, this.contentType, this.jsonLdContext, headers));
+    private void createUnprotected(Headers headers, String body) throws SaiHttpException {
+        checkResponse(putResource(this.httpClient, this.uri, headers, body, this.contentType));
+    }
+
+    /**
+     * Get the serialized payload of the resource in its assigned content type (and JSON-LD context
+     * when applicable). See {@link #getBody(ContentType, String)}.
+     * @return Serialized payload
+     * @throws SaiException
+     */
+    public String getBody() throws SaiException {
+        return getBody(this.contentType, this.jsonLdContext);
+    }
+
+    /**
+     * Get the serialized payload of the resource in the provided <code>contentType</code>. The graph
+     * is only serialized the first time a given content type (and JSON-LD context) is requested, after
+     * which the memoized payload is returned.
+     * @param contentType {@link ContentType} to serialize as
+     * @param jsonLdContext JSON-LD context to serialize with (only considered when <code>contentType</code> is LD_JSON)
+     * @return Serialized payload
+     * @throws SaiException
+     */
+    public String getBody(ContentType contentType, String jsonLdContext) throws SaiException {
+        Objects.requireNonNull(contentType, "Must provide a content type to serialize the immutable resource with");
+        boolean jsonLd = contentType.equals(ContentType.LD_JSON);
+        if (jsonLd) { Objects.requireNonNull(jsonLdContext, "Must provide a json-ld context to serialize the immutable resource with"); }
+        SerializationKey key = new SerializationKey(contentType, jsonLd ? jsonLdContext : null);
+        String body = this.serializedBodies.get(key);
+        if (body != null) { return body; }
+        body = serialize(contentType, jsonLdContext);
+        String existing = this.serializedBodies.putIfAbsent(key, body);
+        return existing != null ? existing : body;
+    }
+
+    /**
+     * Get the size in bytes of the serialized payload of the resource in its assigned content type
+     * @return Size of the payload in bytes
+     * @throws SaiException
+     */
+    public int getPayloadSize() throws SaiException {
+        return getBody().getBytes(StandardCharsets.UTF_8).length;
     }
 
     /**
@@ -69,6 +127,7 @@ public class ImmutableResource extends ReadableResource {
             throw new SaiException("Failed to delete immutable resource " + this.uri, ex);
         }
         this.exists = false;
+        invalidateCached();
     }
 
     /**
@@ -106,4 +165,26 @@ public class ImmutableResource extends ReadableResource {
         protected Builder(URI uri, SaiSession saiSession) { super(uri, saiSession); }
 
     }
+
+    /**
+     * Internal class used to key memoized payloads by content type and JSON-LD context
+     */
+    @Getter @AllArgsConstructor
+    protected static class SerializationKey {
+        private final ContentType contentType;
+        private final String jsonLdContext;
+
+        @Override
+        public boolean equals(Object object) {
+            if (object == this) { return true; }
+            if (!(object instanceof SerializationKey)) { return false; }
+            SerializationKey key = (SerializationKey) object;
+            return this.contentType.equals(key.getContentType()) && Objects.equals(this.jsonLdContext, key.getJsonLdContext());
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * this.contentType.hashCode() + Objects.hashCode(this.jsonLdContext);
+        }
+    }
 }
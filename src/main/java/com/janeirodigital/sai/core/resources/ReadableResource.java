@@ -1,19 +1,22 @@
 package com.janeirodigital.sai.core.resources;
 
 import com.janeirodigital.sai.authentication.SaiAuthenticationException;
+import com.janeirodigital.sai.core.caches.MirroredResource;
+import com.janeirodigital.sai.core.caches.NegativeResourceCache;
+import com.janeirodigital.sai.core.caches.ResourceMirror;
 import com.janeirodigital.sai.core.exceptions.SaiException;
 import com.janeirodigital.sai.core.sessions.SaiSession;
 import com.janeirodigital.sai.httputils.ContentType;
 import com.janeirodigital.sai.httputils.HttpHeader;
 import com.janeirodigital.sai.httputils.SaiHttpException;
 import com.janeirodigital.sai.httputils.SaiHttpNotFoundException;
+import com.janeirodigital.sai.rdfutils.SaiRdfException;
 import lombok.Getter;
-import okhttp3.Headers;
-import okhttp3.OkHttpClient;
-import okhttp3.Response;
+import okhttp3.*;
 import org.apache.jena.rdf.model.Model;
 import org.apache.jena.rdf.model.Resource;
 
+import java.io.IOException;
 import java.net.URI;
 import java.util.Objects;
 
@@ -21,8 +24,10 @@ import static com.janeirodigital.sai.authentication.AuthorizedSessionHelper.getP
 import static com.janeirodigital.sai.core.contexts.InteropContext.INTEROP_CONTEXT;
 import static com.janeirodigital.sai.httputils.HttpUtils.*;
 import static com.janeirodigital.sai.rdfutils.RdfUtils.buildRemoteJsonLdContext;
+import static com.janeirodigital.sai.rdfutils.RdfUtils.getJsonLdStringFromModel;
 import static com.janeirodigital.sai.rdfutils.RdfUtils.getResourceFromModel;
-import static java.net.HttpURLConnection.HTTP_NOT_FOUND;
+import static com.janeirodigital.sai.rdfutils.RdfUtils.getStringFromRdfModel;
+import static java.net.HttpURLConnection.*;
 
 /**
  * Represents a corresponding RDF Resource and provides read-only capabilities.
@@ -30,6 +35,9 @@ import static java.net.HttpURLConnection.HTTP_NOT_FOUND;
 @Getter
 public class ReadableResource {
 
+    protected static final String ETAG = "ETag";
+    protected static final String CONTENT_TYPE = "Content-Type";
+
     protected final URI uri;
     protected final SaiSession saiSession;
     protected final OkHttpClient httpClient;
@@ -39,6 +47,7 @@ public class ReadableResource {
     protected String jsonLdContext;
     protected boolean unprotected;
     protected boolean exists;
+    protected String etag;
 
     /**
      * Construct a Readable resource using the provided {@link Builder}.
@@ -55,6 +64,7 @@ public class ReadableResource {
         this.contentType = builder.contentType;
         this.jsonLdContext = builder.jsonLdContext;
         this.exists = builder.exists;
+        this.etag = builder.etag;
     }
 
     /**
@@ -72,7 +82,14 @@ public class ReadableResource {
         Objects.requireNonNull(uri, "Must provide the URI of the readable social agent profile to get");
         Objects.requireNonNull(saiSession, "Must provide a sai session to assign to the readable social agent profile");
         Objects.requireNonNull(contentType, "Must provide a content type to assign to the readable social agent profile");
+        NegativeResourceCache negativeCache = saiSession.getNegativeCache();
+        ResourceMirror mirror = saiSession.getResourceMirror();
+        boolean cached = negativeCache != null || mirror != null;
+        URI agent = !cached || unprotected ? null : saiSession.getAuthorizedSession().getSocialAgentId();
+        if (negativeCache != null && negativeCache.isMissing(uri, agent)) { throw new SaiHttpNotFoundException("Resource " + uri + " doesn't exist (cached)"); }
         Headers headers = addHttpHeader(HttpHeader.ACCEPT, contentType.getValue());
+        MirroredResource mirrored = mirror == null ? null : getMirrored(mirror, uri, agent, contentType);
+        if (mirrored != null) { headers = addHttpHeader(HttpHeader.IF_NONE_MATCH, mirrored.getEtag(), headers); }
         Response response;
         try {
             if (unprotected) { response = getRdfResource(saiSession.getHttpClient(), uri, headers); } else {
@@ -81,7 +98,108 @@ public class ReadableResource {
         } catch (SaiHttpException | SaiAuthenticationException ex) {
             throw new SaiException("Unable to read resource " + uri, ex);
         }
-        return checkReadableResponse(response);
+        if (response.code() == HTTP_NOT_FOUND) {
+            if (negativeCache != null) { negativeCache.record(uri, agent); }
+            if (mirror != null) { mirror.evict(uri); }
+        }
+        if (mirror == null) { return checkReadableResponse(response); }
+        if (mirrored != null && response.code() == HTTP_NOT_MODIFIED) { return fromMirrored(response, mirrored); }
+        checkReadableResponse(response);
+        mirror(mirror, uri, agent, response);
+        return response;
+    }
+
+    /**
+     * Get the copy of the resource at <code>uri</code> mirrored for <code>agent</code>, as long as it was mirrored
+     * in the <code>contentType</code> being requested
+     * @param mirror {@link ResourceMirror} to lookup from
+     * @param uri URI of the resource
+     * @param agent URI of the agent reading the resource (null for unprotected reads)
+     * @param contentType {@link ContentType} being requested
+     * @return {@link MirroredResource} or null if there isn't a usable mirrored copy
+     * @throws SaiException
+     */
+    private static MirroredResource getMirrored(ResourceMirror mirror, URI uri, URI agent, ContentType contentType) throws SaiException {
+        MirroredResource mirrored = mirror.get(uri, agent);
+        if (mirrored == null) { return null; }
+        MediaType mediaType = MediaType.parse(mirrored.getContentType());
+        if (mediaType == null || !contentType.getValue().equals(mediaType.type() + "/" + mediaType.subtype())) { return null; }
+        return mirrored;
+    }
+
+    /**
+     * Mirror a successful response that was served with an entity tag, so that it can be revalidated
+     * on subsequent reads. The body is peeked so that it remains available to the caller.
+     * @param mirror {@link ResourceMirror} to store in
+     * @param uri URI of the resource
+     * @param agent URI of the agent that read the resource (null for unprotected reads)
+     * @param response Successful OkHttp Response
+     * @throws SaiException
+     */
+    private static void mirror(ResourceMirror mirror, URI uri, URI agent, Response response) throws SaiException {
+        String etag = response.header(ETAG);
+        String mediaType = response.header(CONTENT_TYPE);
+        if (etag == null || mediaType == null || etag.startsWith("W/")) { return; }
+        try {
+            mirror.store(new MirroredResource(uri, etag, mediaType, response.peekBody(Long.MAX_VALUE).string()), agent);
+        } catch (IOException ex) {
+            throw new SaiException("Unable to mirror resource " + uri, ex);
+        }
+    }
+
+    /**
+     * Build a successful response from the mirrored copy of a resource, after the server
+     * has confirmed that it hasn't changed (HTTP 304)
+     * @param response Not modified response from the server
+     * @param mirrored {@link MirroredResource} to build the response from
+     * @return OkHttp Response with the mirrored body
+     */
+    private static Response fromMirrored(Response response, MirroredResource mirrored) {
+        response.close();
+        return response.newBuilder()
+                       .code(HTTP_OK)
+                       .message("OK")
+                       .header(CONTENT_TYPE, mirrored.getContentType())
+                       .header(ETAG, mirrored.getEtag())
+                       .body(ResponseBody.create(mirrored.getBody(), MediaType.parse(mirrored.getContentType())))
+                       .build();
+    }
+
+    /**
+     * Serialize the graph of the resource in the provided <code>contentType</code>
+     * @param contentType {@link ContentType} to serialize as
+     * @param jsonLdContext JSON-LD context to serialize with (only considered when <code>contentType</code> is LD_JSON)
+     * @return Serialized graph
+     * @throws SaiException
+     */
+    protected String serialize(ContentType contentType, String jsonLdContext) throws SaiException {
+        try {
+            if (contentType.equals(ContentType.LD_JSON)) { return getJsonLdStringFromModel(this.resource.getModel(), jsonLdContext); }
+            return getStringFromRdfModel(this.resource.getModel(), getLangForContentType(contentType));
+        } catch (SaiRdfException ex) {
+            throw new SaiException("Failed to serialize resource " + this.uri + " as " + contentType.getValue(), ex);
+        }
+    }
+
+    /**
+     * Invalidate anything the {@link SaiSession} holds locally for the resource (see {@link SaiSession#invalidate(URI)}).
+     * Called after the resource has been created, changed, or removed, since anything held for it is no longer current.
+     * @throws SaiException
+     */
+    protected void invalidateCached() throws SaiException {
+        this.saiSession.invalidate(this.uri);
+    }
+
+    /**
+     * Get the entity tag of <code>response</code> when it is a strong entity tag. Weak entity tags are
+     * ignored, since they can't be used in the preconditions of a write.
+     * @param response OkHttp Response to get the entity tag from
+     * @return Strong entity tag or null
+     */
+    protected static String getStrongEtag(Response response) {
+        String etag = response.header(ETAG);
+        if (etag == null || etag.startsWith("W/")) { return null; }
+        return etag;
     }
 
     /**
@@ -115,6 +233,7 @@ public class ReadableResource {
         protected Resource resource;
         protected String jsonLdContext;
         protected boolean exists;
+        protected String etag;
 
         /**
          * Base builder for all resource types. Use setters for all further configuration
@@ -177,12 +296,14 @@ public class ReadableResource {
 
         /**
          * Extracts a Jena Model from an HTTP response and calls
-         * {@link #setDataset(Model)} after extraction
+         * {@link #setDataset(Model)} after extraction. The entity tag of the response is kept
+         * so that later writes can be made conditional on the resource being unchanged.
          * @param response OkHttp Response to extract from
          * @return {@link Builder}
          * @throws SaiException
          */
         public T setDataset(Response response) throws SaiException {
+            this.etag = getStrongEtag(response);
             try {
                 return setDataset(getRdfModelFromResponse(response));
             } catch (SaiHttpException ex) {
@@ -1,12 +1,17 @@
 package com.janeirodigital.sai.core.sessions;
 
 import com.janeirodigital.sai.authentication.AuthorizedSession;
+import com.janeirodigital.sai.core.caches.NegativeResourceCache;
+import com.janeirodigital.sai.core.caches.ResourceMirror;
 import com.janeirodigital.sai.core.exceptions.SaiException;
 import com.janeirodigital.sai.core.http.HttpClientFactory;
 import lombok.Getter;
+import lombok.Setter;
 import okhttp3.OkHttpClient;
 
+import java.net.URI;
 import java.util.Objects;
+import java.util.concurrent.ExecutorService;
 
 /**
  * Base factory providing builders for many of the core data models
@@ -18,6 +23,24 @@ public class SaiSession {
 
     private final AuthorizedSession authorizedSession;
     private final HttpClientFactory clientFactory;
+    /**
+     * Optional local mirror of resources read through this session. When set, reads are
+     * conditional on the mirrored entity tag and unchanged resources are served from the mirror.
+     */
+    @Setter
+    private ResourceMirror resourceMirror;
+    /**
+     * Optional cache of resources recently found not to exist. When set, repeated reads of a
+     * missing resource fail without a request until the entry expires or is invalidated.
+     */
+    @Setter
+    private NegativeResourceCache negativeCache;
+    /**
+     * Optional executor used to load the child resources linked from a resource concurrently, such as
+     * the data grants of an access grant. When not set, child resources are loaded one at a time.
+     */
+    private ExecutorService childLoadExecutor;
+    private int maxChildLoads;
 
     /**
      * Initialize a sai session with the provided authorized session and
@@ -30,6 +53,21 @@ public class SaiSession {
         Objects.requireNonNull(clientFactory, "Must provide a client factory to initialize sai session");
         this.authorizedSession = authorizedSession;
         this.clientFactory = clientFactory;
+        this.maxChildLoads = 1;
+    }
+
+    /**
+     * Load the child resources linked from a resource concurrently on <code>executor</code>, with at most
+     * <code>maxChildLoads</code> loads in progress for the same resource at a time. The executor should be dedicated
+     * to child loads, and must not be shared with code that submits work to it and waits for that work, since a
+     * child load is only guaranteed to make progress when the thread waiting on it is the one that submitted it.
+     * @param executor ExecutorService to load child resources on (null to load them one at a time)
+     * @param maxChildLoads Maximum number of concurrent loads for the same resource
+     */
+    public void setChildLoading(ExecutorService executor, int maxChildLoads) {
+        if (maxChildLoads < 1) { throw new IllegalArgumentException("Must allow at least one child load at a time"); }
+        this.childLoadExecutor = executor;
+        this.maxChildLoads = maxChildLoads;
     }
 
     /**
@@ -42,4 +80,17 @@ public class SaiSession {
         return this.clientFactory.get();
     }
 
+    /**
+     * Invalidate anything held locally for the resource at <code>uri</code>, so that it is read
+     * from the server the next time it is needed. Called when we know the resource has changed,
+     * such as when a change notification is received for it.
+     * @param uri URI of the resource to invalidate
+     * @throws SaiException
+     */
+    public void invalidate(URI uri) throws SaiException {
+        Objects.requireNonNull(uri, "Must provide the URI of the resource to invalidate");
+        if (this.resourceMirror != null) { this.resourceMirror.evict(uri); }
+        if (this.negativeCache != null) { this.negativeCache.invalidate(uri); }
+    }
+
 }
@@ -0,0 +1,19 @@
+package com.janeirodigital.sai.core.utils;
+
+import java.util.Iterator;
+
+/**
+ * Iterator that holds resources until it is closed, such as fetches that have been started ahead of
+ * the element being returned. Use it in a try-with-resources statement, so that those resources are
+ * released when iteration stops before the end is reached.
+ * @param <T> Type of element that is iterated over
+ */
+public interface CloseableIterator<T> extends Iterator<T>, AutoCloseable {
+
+    /**
+     * Release anything held by the iterator. No further elements are returned once closed.
+     */
+    @Override
+    void close();
+
+}
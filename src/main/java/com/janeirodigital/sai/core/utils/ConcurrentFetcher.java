@@ -0,0 +1,152 @@
+package com.janeirodigital.sai.core.utils;
+
+import com.janeirodigital.sai.core.exceptions.SaiException;
+import com.janeirodigital.sai.httputils.SaiHttpNotFoundException;
+
+import java.net.URI;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Fetches a list of resources concurrently on an executor, with at most <code>maxConcurrent</code> fetches in
+ * progress at a time. Used by builders to load the child resources they link to (e.g. the data grants of an access
+ * grant). Results are returned in the order of the URIs. The first failure cancels any fetches still in progress
+ * and is raised as is, so callers see the same failure they would have seen fetching one at a time.
+ * <br>
+ * The calling thread never waits for a fetch that no thread has started. While it waits, it runs any fetch it
+ * submitted that the executor hasn't started yet (including fetches the executor rejected) itself. Nested loads
+ * therefore always make progress, even when they reach the same executor through another one (e.g. a child load
+ * that waits on a fetch executor, whose thread loads children on the same child load executor), and even when
+ * every thread of the executor is waiting. Fetches that are themselves running on behalf of a
+ * {@link ConcurrentFetcher} fetch their own children on the calling thread, so that nested loads don't multiply.
+ */
+public class ConcurrentFetcher {
+
+    private static final ThreadLocal<Boolean> FETCHING = ThreadLocal.withInitial(() -> false);
+
+    private ConcurrentFetcher() { }
+
+    /**
+     * Fetch each resource in <code>uris</code> with <code>fetcher</code>. Without an executor, or when already running
+     * on behalf of a {@link ConcurrentFetcher}, resources are fetched one at a time on the calling thread.
+     * @param uris List of URIs to fetch
+     * @param fetcher {@link RegistrationFetcher} used to get each resource
+     * @param executor ExecutorService to fetch on (null to fetch one at a time)
+     * @param maxConcurrent Maximum number of fetches in progress at a time
+     * @param <T> Type of resource that is fetched
+     * @return List of fetched resources, in the order of <code>uris</code>
+     * @throws SaiException
+     * @throws SaiHttpNotFoundException
+     */
+    public static <T> List<T> fetchAll(List<URI> uris, RegistrationFetcher<T> fetcher, ExecutorService executor, int maxConcurrent) throws SaiException, SaiHttpNotFoundException {
+        Objects.requireNonNull(uris, "Must provide URIs to fetch");
+        Objects.requireNonNull(fetcher, "Must provide a fetcher to get resources with");
+        if (maxConcurrent < 1) { throw new IllegalArgumentException("Must allow at least one concurrent fetch"); }
+        List<T> resources = new ArrayList<>();
+        if (executor == null || maxConcurrent == 1 || uris.size() < 2 || FETCHING.get()) {
+            for (URI uri : uris) { resources.add(fetcher.fetch(uri)); }
+            return resources;
+        }
+        BlockingQueue<Fetch> finished = new LinkedBlockingQueue<>();
+        List<Fetch> inProgress = new ArrayList<>();
+        Object[] fetched = new Object[uris.size()];
+        int submitted = 0;
+        try {
+            while (submitted < uris.size() && submitted < maxConcurrent) { inProgress.add(submit(executor, finished, uris, submitted++, fetcher, fetched)); }
+            for (int completed = 0; completed < uris.size(); ) {
+                Fetch fetch = finished.poll();
+                if (fetch == null && !runUnstarted(inProgress)) { fetch = finished.take(); }
+                if (fetch == null) { continue; }
+                fetch.get();
+                inProgress.remove(fetch);
+                completed++;
+                if (submitted < uris.size()) { inProgress.add(submit(executor, finished, uris, submitted++, fetcher, fetched)); }
+            }
+        } catch (ExecutionException ex) {
+            for (Fetch fetch : inProgress) { fetch.cancel(true); }
+            Throwable cause = ex.getCause();
+            if (cause instanceof SaiException) { throw (SaiException) cause; }
+            if (cause instanceof SaiHttpNotFoundException) { throw (SaiHttpNotFoundException) cause; }
+            if (cause instanceof RuntimeException) { throw (RuntimeException) cause; }
+            throw new SaiException("Failed to fetch resources", cause);
+        } catch (InterruptedException ex) {
+            for (Fetch fetch : inProgress) { fetch.cancel(true); }
+            Thread.currentThread().interrupt();
+            throw new SaiException("Interrupted while fetching resources", ex);
+        }
+        for (Object resource : fetched) {
+            @SuppressWarnings("unchecked") T typed = (T) resource;
+            resources.add(typed);
+        }
+        return resources;
+    }
+
+    /**
+     * Submit the fetch of the resource at <code>index</code>, which stores it in <code>fetched</code> at the same index.
+     * A fetch the executor rejects is left for the calling thread to run.
+     */
+    private static <T> Fetch submit(ExecutorService executor, BlockingQueue<Fetch> finished, List<URI> uris, int index,
+                                    RegistrationFetcher<T> fetcher, Object[] fetched) {
+        URI uri = uris.get(index);
+        Fetch fetch = new Fetch(() -> {
+            boolean nested = FETCHING.get();
+            FETCHING.set(true);
+            try {
+                fetched[index] = fetcher.fetch(uri);
+                return index;
+            } finally {
+                FETCHING.set(nested);
+            }
+        }, finished);
+        try {
+            executor.execute(fetch);
+        } catch (RejectedExecutionException ex) {
+            // Nothing else will run it, so it is run by the calling thread while it waits
+        }
+        return fetch;
+    }
+
+    /**
+     * Run the first fetch in <code>inProgress</code> that no thread has started, on the calling thread
+     * @return true when a fetch was run
+     */
+    private static boolean runUnstarted(List<Fetch> inProgress) {
+        for (Fetch fetch : inProgress) { if (fetch.runIfUnstarted()) { return true; } }
+        return false;
+    }
+
+    /**
+     * A fetch that is run by whichever thread gets to it first, the executor or the calling thread, and that is
+     * added to <code>finished</code> once it is done
+     */
+    private static class Fetch extends FutureTask<Integer> {
+
+        private final AtomicBoolean started;
+        private final BlockingQueue<Fetch> finished;
+
+        Fetch(Callable<Integer> callable, BlockingQueue<Fetch> finished) {
+            super(callable);
+            this.started = new AtomicBoolean();
+            this.finished = finished;
+        }
+
+        @Override
+        public void run() { runIfUnstarted(); }
+
+        /**
+         * Run the fetch unless another thread has already started it
+         * @return true when the fetch was run by the calling thread
+         */
+        boolean runIfUnstarted() {
+            if (!this.started.compareAndSet(false, true)) { return false; }
+            super.run();
+            return true;
+        }
+
+        @Override
+        protected void done() { this.finished.add(this); }
+
+    }
+
+}
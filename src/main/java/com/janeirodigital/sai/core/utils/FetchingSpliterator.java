@@ -0,0 +1,157 @@
+package com.janeirodigital.sai.core.utils;
+
+import com.janeirodigital.sai.core.exceptions.SaiException;
+import com.janeirodigital.sai.core.exceptions.SaiRuntimeException;
+import com.janeirodigital.sai.httputils.SaiHttpNotFoundException;
+
+import java.net.URI;
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+
+/**
+ * Spliterator over a list of URIs that fetches the resource for each URI as it is reached, so that
+ * registration and data instance lists can be streamed. Without an executor, resources are fetched one at
+ * a time, so short-circuiting operations like <code>findFirst()</code> stop fetching as soon as they are satisfied.
+ * With an executor, resources are fetched concurrently on that executor in batches of <code>batchSize</code>,
+ * and at most one batch is fetched beyond what a short-circuiting operation needed. Splits are aligned to batches.
+ * Failures to fetch are raised as a {@link SaiRuntimeException} at the element that couldn't be fetched, after
+ * every element before it (including those fetched in the same batch) has been returned.
+ * @param <T> Type of resource that is fetched
+ */
+public class FetchingSpliterator<T> implements Spliterator<T> {
+
+    private final List<URI> uris;
+    private final RegistrationFetcher<T> fetcher;
+    private final int batchSize;
+    private final ExecutorService executor;
+    private final Deque<T> fetched;
+    private SaiRuntimeException failure;
+    private int origin;
+    private final int fence;
+
+    /**
+     * Construct a spliterator that fetches each resource in <code>uris</code> one at a time
+     * @param uris List of URIs to fetch
+     * @param fetcher {@link RegistrationFetcher} used to get each resource
+     */
+    public FetchingSpliterator(List<URI> uris, RegistrationFetcher<T> fetcher) {
+        this(uris, fetcher, 1, null);
+    }
+
+    /**
+     * Construct a spliterator that fetches resources in <code>uris</code> concurrently on <code>executor</code>, in
+     * batches of <code>batchSize</code>
+     * @param uris List of URIs to fetch
+     * @param fetcher {@link RegistrationFetcher} used to get each resource
+     * @param batchSize Number of resources to fetch together
+     * @param executor ExecutorService to fetch resources on (null to fetch one at a time)
+     */
+    public FetchingSpliterator(List<URI> uris, RegistrationFetcher<T> fetcher, int batchSize, ExecutorService executor) {
+        this(uris, fetcher, batchSize, executor, 0, uris.size());
+    }
+
+    private FetchingSpliterator(List<URI> uris, RegistrationFetcher<T> fetcher, int batchSize, ExecutorService executor, int origin, int fence) {
+        Objects.requireNonNull(uris, "Must provide URIs to fetch");
+        Objects.requireNonNull(fetcher, "Must provide a fetcher to get resources with");
+        if (batchSize < 1) { throw new IllegalArgumentException("Must provide a batch size of at least one"); }
+        this.uris = uris;
+        this.fetcher = fetcher;
+        this.batchSize = executor == null ? 1 : batchSize;
+        this.executor = executor;
+        this.fetched = new ArrayDeque<>();
+        this.origin = origin;
+        this.fence = fence;
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super T> action) {
+        Objects.requireNonNull(action, "Must provide an action to advance with");
+        if (this.fetched.isEmpty()) {
+            if (this.failure == null && this.origin < this.fence) { fetchBatch(); }
+            if (this.fetched.isEmpty()) {
+                raiseFailure();
+                return false;
+            }
+        }
+        action.accept(this.fetched.poll());
+        return true;
+    }
+
+    @Override
+    public Spliterator<T> trySplit() {
+        int remaining = this.fence - this.origin;
+        if (!this.fetched.isEmpty() || this.failure != null || remaining <= this.batchSize) { return null; }
+        int batches = (remaining + this.batchSize - 1) / this.batchSize;
+        int middle = this.origin + (batches / 2) * this.batchSize;
+        Spliterator<T> prefix = new FetchingSpliterator<>(this.uris, this.fetcher, this.batchSize, this.executor, this.origin, middle);
+        this.origin = middle;
+        return prefix;
+    }
+
+    @Override
+    public long estimateSize() { return (long) this.fence - this.origin + this.fetched.size(); }
+
+    @Override
+    public int characteristics() { return ORDERED | SIZED | SUBSIZED | NONNULL; }
+
+    /**
+     * Fetch the next batch of resources, in order. When a fetch in the batch fails, the resources before it are
+     * kept, the rest of the batch is cancelled, and the failure is held until the stream reaches it.
+     */
+    private void fetchBatch() {
+        int end = Math.min(this.origin + this.batchSize, this.fence);
+        if (this.executor == null) {
+            for (int i = this.origin; i < end; i++) { this.fetched.add(fetch(this.uris.get(i))); }
+            this.origin = end;
+            return;
+        }
+        List<Future<T>> futures = new ArrayList<>();
+        for (int i = this.origin; i < end; i++) {
+            URI uri = this.uris.get(i);
+            futures.add(this.executor.submit(() -> this.fetcher.fetch(uri)));
+        }
+        for (int i = 0; i < futures.size() && this.failure == null; i++) {
+            URI uri = this.uris.get(this.origin + i);
+            try {
+                this.fetched.add(futures.get(i).get());
+            } catch (ExecutionException ex) {
+                this.failure = new SaiRuntimeException("Failed to get " + uri + " while streaming list", ex.getCause());
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                this.failure = new SaiRuntimeException("Interrupted while getting " + uri + " while streaming list", ex);
+            }
+        }
+        if (this.failure != null) {
+            for (Future<T> future : futures) { future.cancel(true); }
+            this.origin = this.fence;
+            return;
+        }
+        this.origin = end;
+    }
+
+    /**
+     * Raise a failure held from the last batch, once the resources fetched before it have been returned
+     */
+    private void raiseFailure() {
+        if (this.failure == null) { return; }
+        SaiRuntimeException raised = this.failure;
+        this.failure = null;
+        throw raised;
+    }
+
+    /**
+     * Fetch a single resource on the calling thread
+     */
+    private T fetch(URI uri) {
+        try {
+            return this.fetcher.fetch(uri);
+        } catch (SaiException | SaiHttpNotFoundException ex) {
+            this.origin = this.fence;
+            throw new SaiRuntimeException("Failed to get " + uri + " while streaming list", ex);
+        }
+    }
+
+}
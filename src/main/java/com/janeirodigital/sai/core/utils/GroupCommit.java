@@ -0,0 +1,215 @@
+package com.janeirodigital.sai.core.utils;
+
+import com.janeirodigital.sai.core.exceptions.SaiAlreadyExistsException;
+import com.janeirodigital.sai.core.exceptions.SaiException;
+import com.janeirodigital.sai.core.resources.CRUDResource;
+import com.janeirodigital.sai.core.resources.CRUDResource.Checkpoint;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Coalesces concurrent changes to the same registry into a single update. Changes are submitted as
+ * {@link RegistryMutation}s, and collected until <code>window</code> has passed since the first of them was
+ * submitted, or until <code>batchSize</code> of them are waiting. The collected changes are then applied to the
+ * registry together, the registry is updated once, and the future returned for each change is completed.
+ * <br>
+ * A change that fails to apply (for example because the registration already exists) only fails its own
+ * future. Since it may have been partly applied, the registry is restored to a checkpoint taken before the
+ * batch, and the changes applied before it are applied again. Changes should therefore only change the registry.
+ * When the update itself fails, the futures of every change in the batch fail, and the registry is restored to
+ * the checkpoint, so that the changes that couldn't be written aren't written by the next batch. The checkpoint
+ * of a paged registry covers its {@link RegistrationPages} too, as long as paging isn't enabled by a change.
+ * @param <R> Type of registry that is changed
+ */
+@Slf4j
+public class GroupCommit<R extends CRUDResource> implements AutoCloseable {
+
+    @Getter
+    private final R registry;
+    @Getter
+    private final Duration window;
+    @Getter
+    private final int batchSize;
+    private final ScheduledExecutorService scheduler;
+    private final Object commitLock;
+    private List<PendingMutation<R>> pending;
+    private ScheduledFuture<?> scheduled;
+    private int commits;
+    private boolean closed;
+
+    /**
+     * Initialize a group commit for <code>registry</code>
+     * @param registry Registry to change
+     * @param window Longest time to wait for more changes after the first one is submitted
+     * @param batchSize Number of changes that are committed without waiting any longer
+     * @param scheduler ScheduledExecutorService that commits are run on
+     */
+    public GroupCommit(R registry, Duration window, int batchSize, ScheduledExecutorService scheduler) {
+        Objects.requireNonNull(registry, "Must provide a registry to commit changes to");
+        Objects.requireNonNull(window, "Must provide a window to collect changes in");
+        Objects.requireNonNull(scheduler, "Must provide a scheduler to commit changes with");
+        if (window.isNegative()) { throw new IllegalArgumentException("Must provide a window that isn't negative"); }
+        if (batchSize < 1) { throw new IllegalArgumentException("Must provide a batch size of at least one"); }
+        this.registry = registry;
+        this.window = window;
+        this.batchSize = batchSize;
+        this.scheduler = scheduler;
+        this.commitLock = new Object();
+        this.pending = new ArrayList<>();
+    }
+
+    /**
+     * Submit a change to the registry, to be committed along with other changes submitted around the same time
+     * @param mutation {@link RegistryMutation} to apply to the registry
+     * @return CompletableFuture that completes once the change has been written
+     */
+    public synchronized CompletableFuture<Void> submit(RegistryMutation<R> mutation) {
+        Objects.requireNonNull(mutation, "Must provide a change to commit to the registry");
+        if (this.closed) { throw new IllegalStateException("Cannot submit a change to a closed group commit"); }
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        this.pending.add(new PendingMutation<>(mutation, future));
+        if (this.pending.size() >= this.batchSize) {
+            cancelScheduled();
+            this.scheduler.execute(this::flush);
+        } else if (this.scheduled == null) {
+            this.scheduled = this.scheduler.schedule(this::flush, this.window.toNanos(), TimeUnit.NANOSECONDS);
+        }
+        return future;
+    }
+
+    /**
+     * Commit any changes that are waiting on the calling thread, without waiting for the window to pass
+     */
+    public void flush() {
+        List<PendingMutation<R>> batch;
+        synchronized (this) {
+            cancelScheduled();
+            if (this.pending.isEmpty()) { return; }
+            batch = this.pending;
+            this.pending = new ArrayList<>();
+        }
+        // Only one batch is applied and written at a time, so batches never interleave in the graph of the registry
+        synchronized (this.commitLock) { commit(batch); }
+    }
+
+    /**
+     * Commit any changes that are waiting, and stop accepting new ones
+     */
+    @Override
+    public void close() {
+        synchronized (this) { this.closed = true; }
+        flush();
+    }
+
+    /**
+     * Get the number of times the registry has been updated
+     * @return Number of commits
+     */
+    public synchronized int getCommits() { return this.commits; }
+
+    /**
+     * Apply each change in <code>batch</code> to the registry, then update the registry once. The registry is
+     * checkpointed first, so that it can be put back the way it was when a change or the update fails.
+     */
+    private void commit(List<PendingMutation<R>> batch) {
+        Checkpoint checkpoint = this.registry.checkpoint();
+        List<PendingMutation<R>> applied = new ArrayList<>();
+        for (int i = 0; i < batch.size(); i++) {
+            PendingMutation<R> pendingMutation = batch.get(i);
+            try {
+                pendingMutation.getMutation().apply(this.registry);
+                applied.add(pendingMutation);
+            } catch (SaiException | SaiAlreadyExistsException | RuntimeException ex) {
+                pendingMutation.getFuture().completeExceptionally(ex);
+                // The failed change may have been partly applied, so start over with the changes applied before it
+                if (!reapply(checkpoint, applied)) {
+                    SaiException failure = new SaiException("Failed to restore registry " + this.registry.getUri() + " after a change failed to apply");
+                    for (PendingMutation<R> skipped : batch.subList(i + 1, batch.size())) { skipped.getFuture().completeExceptionally(failure); }
+                    return;
+                }
+            }
+        }
+        if (applied.isEmpty()) { return; }
+        try {
+            this.registry.update();
+            synchronized (this) { this.commits++; }
+            for (PendingMutation<R> pendingMutation : applied) { pendingMutation.getFuture().complete(null); }
+        } catch (SaiException | RuntimeException ex) {
+            log.error("Failed to commit " + applied.size() + " changes to " + this.registry.getUri(), ex);
+            for (PendingMutation<R> pendingMutation : applied) { pendingMutation.getFuture().completeExceptionally(ex); }
+            restore(checkpoint);
+        }
+    }
+
+    /**
+     * Restore the registry to <code>checkpoint</code>, and apply the changes in <code>applied</code> to it again. Any
+     * change that fails to apply again fails its future, and is removed from <code>applied</code>.
+     * @return false when the registry couldn't be restored, and every change in <code>applied</code> has failed
+     */
+    private boolean reapply(Checkpoint checkpoint, List<PendingMutation<R>> applied) {
+        while (restore(checkpoint)) {
+            PendingMutation<R> failed = null;
+            for (PendingMutation<R> pendingMutation : applied) {
+                try {
+                    pendingMutation.getMutation().apply(this.registry);
+                } catch (SaiException | SaiAlreadyExistsException | RuntimeException ex) {
+                    pendingMutation.getFuture().completeExceptionally(ex);
+                    failed = pendingMutation;
+                    break;
+                }
+            }
+            if (failed == null) { return true; }
+            applied.remove(failed);
+        }
+        SaiException failure = new SaiException("Failed to restore registry " + this.registry.getUri() + " after a change failed to apply");
+        for (PendingMutation<R> pendingMutation : applied) { pendingMutation.getFuture().completeExceptionally(failure); }
+        applied.clear();
+        return false;
+    }
+
+    /**
+     * Put the registry back the way it was at <code>checkpoint</code>, so that changes that weren't written aren't
+     * written by a later batch either
+     * @return true when the registry was restored
+     */
+    private boolean restore(Checkpoint checkpoint) {
+        try {
+            this.registry.restore(checkpoint);
+            return true;
+        } catch (SaiException | RuntimeException ex) {
+            log.error("Failed to restore registry " + this.registry.getUri() + ", it should be reloaded", ex);
+            return false;
+        }
+    }
+
+    /**
+     * Cancel a scheduled commit, if there is one
+     */
+    private void cancelScheduled() {
+        if (this.scheduled != null) {
+            this.scheduled.cancel(false);
+            this.scheduled = null;
+        }
+    }
+
+    /**
+     * A change waiting to be committed, and the future of the caller that submitted it
+     */
+    @Getter
+    @AllArgsConstructor
+    private static class PendingMutation<R> {
+        private final RegistryMutation<R> mutation;
+        private final CompletableFuture<Void> future;
+    }
+
+}
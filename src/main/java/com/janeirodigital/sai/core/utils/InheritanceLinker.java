@@ -0,0 +1,100 @@
+package com.janeirodigital.sai.core.utils;
+
+import com.janeirodigital.sai.core.exceptions.SaiException;
+
+import java.net.URI;
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * Links "child" items that inherit from another item (e.g. data grants and data authorizations with a scope
+ * of interop:Inherited) to their "parent" items in a single pass. Items are indexed by URI, so each child
+ * finds its parent with one lookup on its <code>inheritsFrom</code> URI, rather than being compared against every item.
+ * <br>
+ * A child must inherit from an item in the same list that doesn't inherit from anything itself. A child whose
+ * parent isn't in the list is orphaned, and a chain of children that leads back to itself is cyclic. Both are
+ * raised as a {@link SaiException}, before any children are linked.
+ */
+public class InheritanceLinker {
+
+    private InheritanceLinker() { }
+
+    /**
+     * Links a child item to the parent item it inherits from
+     * @param <T> Type of item being linked
+     */
+    @FunctionalInterface
+    public interface Link<T> {
+
+        /**
+         * Link <code>child</code> to <code>parent</code>
+         * @param parent Item being inherited from
+         * @param child Item inheriting from <code>parent</code>
+         * @throws SaiException
+         */
+        void link(T parent, T child) throws SaiException;
+
+    }
+
+    /**
+     * Link each child in <code>items</code> to its parent with <code>link</code>. Children are linked in the order they
+     * appear in <code>items</code>.
+     * @param items Items to link
+     * @param getUri Function that gets the URI of an item
+     * @param getInheritsFrom Function that gets the URI of the item an item inherits from, or null if it doesn't inherit
+     * @param link {@link Link} that links a child to its parent
+     * @param <T> Type of item being linked
+     * @throws SaiException if any child is orphaned or cyclic, or fails to link
+     */
+    public static <T> void link(List<T> items, Function<T, URI> getUri, Function<T, URI> getInheritsFrom, Link<T> link) throws SaiException {
+        Objects.requireNonNull(items, "Must provide items to link");
+        Objects.requireNonNull(getUri, "Must provide a function to get the URI of an item");
+        Objects.requireNonNull(getInheritsFrom, "Must provide a function to get the URI an item inherits from");
+        Objects.requireNonNull(link, "Must provide a link to connect children to their parents");
+        Map<URI, T> index = new HashMap<>();
+        for (T item : items) { index.putIfAbsent(getUri.apply(item), item); }
+        List<T> parents = new ArrayList<>();
+        for (T item : items) {
+            URI inheritsFrom = getInheritsFrom.apply(item);
+            if (inheritsFrom == null) {
+                parents.add(null);
+                continue;
+            }
+            T parent = index.get(inheritsFrom);
+            if (parent == null) { throw new SaiException(getUri.apply(item) + " is orphaned - it inherits from " + inheritsFrom + " which is not present"); }
+            if (getInheritsFrom.apply(parent) != null) { throw new SaiException(describeChain(item, index, getUri, getInheritsFrom)); }
+            parents.add(parent);
+        }
+        for (int i = 0; i < items.size(); i++) {
+            if (parents.get(i) != null) { link.link(parents.get(i), items.get(i)); }
+        }
+    }
+
+    /**
+     * Describe why <code>item</code> can't inherit from its parent, which inherits from something itself
+     */
+    private static <T> String describeChain(T item, Map<URI, T> index, Function<T, URI> getUri, Function<T, URI> getInheritsFrom) {
+        List<URI> chain = new ArrayList<>();
+        Set<URI> visited = new HashSet<>();
+        T current = item;
+        while (current != null) {
+            URI uri = getUri.apply(current);
+            chain.add(uri);
+            if (!visited.add(uri)) {
+                return "Cyclic inheritance: " + join(chain);
+            }
+            URI inheritsFrom = getInheritsFrom.apply(current);
+            if (inheritsFrom == null) { break; }
+            current = index.get(inheritsFrom);
+            if (current == null) { chain.add(inheritsFrom); }
+        }
+        return getUri.apply(item) + " inherits from " + getInheritsFrom.apply(item) + " which inherits from something itself: " + join(chain);
+    }
+
+    private static String join(List<URI> chain) {
+        StringJoiner joiner = new StringJoiner(" -> ");
+        for (URI uri : chain) { joiner.add(uri.toString()); }
+        return joiner.toString();
+    }
+
+}
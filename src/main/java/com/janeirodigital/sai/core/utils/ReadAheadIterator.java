@@ -0,0 +1,115 @@
+package com.janeirodigital.sai.core.utils;
+
+import com.janeirodigital.sai.core.exceptions.SaiRuntimeException;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.net.URI;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * Iterator that fetches up to <code>window</code> resources ahead of the element being returned,
+ * concurrently on the provided <code>executor</code>. Elements are returned in the order of the
+ * underlying URIs. A failure to fetch an element is raised (as a {@link SaiRuntimeException}) when
+ * that element is reached, and not before. Outstanding fetches are cancelled when a fetch fails, or
+ * when the iterator is closed because iteration stopped early (see {@link CloseableIterator}).
+ * @param <T> Type of resource that is fetched
+ */
+public class ReadAheadIterator<T> implements CloseableIterator<T> {
+
+    private final Iterator<URI> uris;
+    private final RegistrationFetcher<T> fetcher;
+    private final int window;
+    private final ExecutorService executor;
+    private final Deque<PendingFetch<T>> pending;
+    private boolean closed;
+
+    /**
+     * Construct a read-ahead iterator
+     * @param uris Iterator of URIs to fetch
+     * @param fetcher {@link RegistrationFetcher} used to get each resource
+     * @param window Maximum number of resources to fetch ahead
+     * @param executor ExecutorService to fetch resources on
+     */
+    public ReadAheadIterator(Iterator<URI> uris, RegistrationFetcher<T> fetcher, int window, ExecutorService executor) {
+        Objects.requireNonNull(uris, "Must provide URIs to iterate over");
+        Objects.requireNonNull(fetcher, "Must provide a fetcher to get resources with");
+        Objects.requireNonNull(executor, "Must provide an executor to fetch resources on");
+        if (window < 1) { throw new IllegalArgumentException("Must provide a read-ahead window of at least one"); }
+        this.uris = uris;
+        this.fetcher = fetcher;
+        this.window = window;
+        this.executor = executor;
+        this.pending = new ArrayDeque<>();
+        this.closed = false;
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (this.closed) { return false; }
+        return !this.pending.isEmpty() || this.uris.hasNext();
+    }
+
+    @Override
+    public T next() {
+        if (!hasNext()) { throw new NoSuchElementException(); }
+        fill();
+        PendingFetch<T> next = this.pending.poll();
+        try {
+            T fetched = next.getFuture().get();
+            fill();
+            return fetched;
+        } catch (ExecutionException ex) {
+            close();
+            throw new SaiRuntimeException("Failed to get " + next.getUri() + " while iterating list", ex.getCause());
+        } catch (InterruptedException ex) {
+            close();
+            Thread.currentThread().interrupt();
+            throw new SaiRuntimeException("Interrupted while getting " + next.getUri() + " while iterating list", ex);
+        }
+    }
+
+    /**
+     * Cancel any outstanding fetches. Should be called when iteration stops before the end is reached.
+     */
+    @Override
+    public void close() {
+        this.closed = true;
+        for (PendingFetch<T> fetch : this.pending) { fetch.getFuture().cancel(true); }
+        this.pending.clear();
+    }
+
+    /**
+     * Get the number of fetches that are currently outstanding
+     * @return Number of outstanding fetches
+     */
+    public int getPending() { return this.pending.size(); }
+
+    /**
+     * Submit fetches until the window is full or there are no more URIs
+     */
+    private void fill() {
+        while (!this.closed && this.pending.size() < this.window && this.uris.hasNext()) {
+            URI uri = this.uris.next();
+            this.pending.add(new PendingFetch<>(uri, this.executor.submit(() -> this.fetcher.fetch(uri))));
+        }
+    }
+
+    /**
+     * A fetch that has been submitted, along with the URI being fetched
+     */
+    @Getter
+    @AllArgsConstructor
+    private static class PendingFetch<T> {
+        private final URI uri;
+        private final Future<T> future;
+    }
+
+}
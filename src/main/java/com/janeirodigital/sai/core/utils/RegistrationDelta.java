@@ -0,0 +1,62 @@
+package com.janeirodigital.sai.core.utils;
+
+import lombok.Getter;
+import org.apache.jena.rdf.model.Property;
+
+import java.net.URI;
+import java.util.*;
+
+/**
+ * Registrations that were added to and removed from a {@link RegistrationList} between two loads of its registry
+ */
+@Getter
+public class RegistrationDelta {
+
+    private final Property linkedVia;
+    private final List<URI> added;
+    private final List<URI> removed;
+
+    /**
+     * Construct a {@link RegistrationDelta}
+     * @param linkedVia Property linking the registry to the registrations
+     * @param added URIs of registrations that were added
+     * @param removed URIs of registrations that were removed
+     */
+    public RegistrationDelta(Property linkedVia, List<URI> added, List<URI> removed) {
+        Objects.requireNonNull(linkedVia, "Must provide the property linking the registry to the registrations");
+        Objects.requireNonNull(added, "Must provide the added registrations");
+        Objects.requireNonNull(removed, "Must provide the removed registrations");
+        this.linkedVia = linkedVia;
+        this.added = Collections.unmodifiableList(added);
+        this.removed = Collections.unmodifiableList(removed);
+    }
+
+    /**
+     * Compute the registrations that were added and removed going from <code>before</code> to <code>after</code>.
+     * Added registrations are in the order of <code>after</code>, and removed registrations in the order of <code>before</code>.
+     * @param before {@link RegistrationList} as previously loaded
+     * @param after {@link RegistrationList} as loaded since
+     * @return {@link RegistrationDelta}
+     */
+    public static RegistrationDelta between(RegistrationList<?> before, RegistrationList<?> after) {
+        Objects.requireNonNull(before, "Must provide the registration list as previously loaded");
+        Objects.requireNonNull(after, "Must provide the registration list as loaded since");
+        if (!before.getLinkedVia().equals(after.getLinkedVia())) {
+            throw new IllegalArgumentException("Cannot compare registration lists linked via " + before.getLinkedVia() + " and " + after.getLinkedVia());
+        }
+        Set<URI> beforeUris = before.loadedUris();
+        Set<URI> afterUris = after.loadedUris();
+        List<URI> added = new ArrayList<>();
+        for (URI registrationUri : afterUris) { if (!beforeUris.contains(registrationUri)) { added.add(registrationUri); } }
+        List<URI> removed = new ArrayList<>();
+        for (URI registrationUri : beforeUris) { if (!afterUris.contains(registrationUri)) { removed.add(registrationUri); } }
+        return new RegistrationDelta(after.getLinkedVia(), added, removed);
+    }
+
+    /**
+     * Check whether no registrations were added or removed
+     * @return true if nothing changed
+     */
+    public boolean isEmpty() { return this.added.isEmpty() && this.removed.isEmpty(); }
+
+}
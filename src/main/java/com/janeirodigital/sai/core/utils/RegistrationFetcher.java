@@ -0,0 +1,25 @@
+package com.janeirodigital.sai.core.utils;
+
+import com.janeirodigital.sai.core.exceptions.SaiException;
+import com.janeirodigital.sai.httputils.SaiHttpNotFoundException;
+
+import java.net.URI;
+
+/**
+ * Gets an instance of a registration (or other resource) from its URI. Used by {@link ReadAheadIterator}
+ * and other helpers that fetch several resources on behalf of a list.
+ * @param <T> Type of resource that is fetched
+ */
+@FunctionalInterface
+public interface RegistrationFetcher<T> {
+
+    /**
+     * Get the resource at <code>uri</code>
+     * @param uri URI of the resource to get
+     * @return Resource instance
+     * @throws SaiException
+     * @throws SaiHttpNotFoundException
+     */
+    T fetch(URI uri) throws SaiException, SaiHttpNotFoundException;
+
+}
@@ -0,0 +1,144 @@
+package com.janeirodigital.sai.core.utils;
+
+import com.janeirodigital.sai.core.exceptions.SaiException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.util.*;
+
+/**
+ * Index from a key (such as the registered agent or registered shape tree) to the URI of the registration
+ * in a {@link RegistrationList} that has that key. Used so that a registration can be found by key with a
+ * single lookup, rather than by fetching every registration in the list. The index is filled incrementally
+ * as registrations are loaded or added, and can be stored and loaded so that it survives restarts.
+ */
+public class RegistrationIndex {
+
+    private final Map<URI, URI> registrationsByKey;
+    private final Map<URI, URI> keysByRegistration;
+
+    /**
+     * Construct an empty {@link RegistrationIndex}
+     */
+    public RegistrationIndex() {
+        this.registrationsByKey = new HashMap<>();
+        this.keysByRegistration = new HashMap<>();
+    }
+
+    /**
+     * Index <code>registrationUri</code> by <code>key</code>, replacing anything previously indexed for either
+     * @param key Key to index the registration by
+     * @param registrationUri URI of the registration
+     */
+    public synchronized void put(URI key, URI registrationUri) {
+        Objects.requireNonNull(key, "Must provide a key to index the registration by");
+        Objects.requireNonNull(registrationUri, "Must provide the URI of the registration to index");
+        removeRegistration(registrationUri);
+        URI previous = this.registrationsByKey.put(key, registrationUri);
+        if (previous != null) { this.keysByRegistration.remove(previous); }
+        this.keysByRegistration.put(registrationUri, key);
+    }
+
+    /**
+     * Get the URI of the registration indexed by <code>key</code>
+     * @param key Key to lookup
+     * @return URI of the registration or null if nothing is indexed by <code>key</code>
+     */
+    public synchronized URI get(URI key) {
+        Objects.requireNonNull(key, "Must provide a key to lookup");
+        return this.registrationsByKey.get(key);
+    }
+
+    /**
+     * Get the key that <code>registrationUri</code> is indexed by
+     * @param registrationUri URI of the registration
+     * @return Key or null if the registration isn't indexed
+     */
+    public synchronized URI getKey(URI registrationUri) {
+        Objects.requireNonNull(registrationUri, "Must provide the URI of the registration to lookup");
+        return this.keysByRegistration.get(registrationUri);
+    }
+
+    /**
+     * Check whether <code>registrationUri</code> has been indexed
+     * @param registrationUri URI of the registration
+     * @return true if indexed
+     */
+    public synchronized boolean isIndexed(URI registrationUri) {
+        Objects.requireNonNull(registrationUri, "Must provide the URI of the registration to check");
+        return this.keysByRegistration.containsKey(registrationUri);
+    }
+
+    /**
+     * Remove <code>registrationUri</code> from the index
+     * @param registrationUri URI of the registration to remove
+     */
+    public synchronized void removeRegistration(URI registrationUri) {
+        Objects.requireNonNull(registrationUri, "Must provide the URI of the registration to remove");
+        URI key = this.keysByRegistration.remove(registrationUri);
+        if (key != null) { this.registrationsByKey.remove(key, registrationUri); }
+    }
+
+    /**
+     * Remove any indexed registrations that aren't in <code>registrationUris</code>
+     * @param registrationUris URIs of registrations to keep
+     */
+    public synchronized void retainRegistrations(Collection<URI> registrationUris) {
+        Objects.requireNonNull(registrationUris, "Must provide the URIs of the registrations to retain");
+        for (URI registrationUri : new ArrayList<>(this.keysByRegistration.keySet())) {
+            if (!registrationUris.contains(registrationUri)) { removeRegistration(registrationUri); }
+        }
+    }
+
+    /**
+     * Get the number of indexed registrations
+     * @return Number of indexed registrations
+     */
+    public synchronized int size() { return this.keysByRegistration.size(); }
+
+    /**
+     * Remove everything from the index
+     */
+    public synchronized void clear() {
+        this.registrationsByKey.clear();
+        this.keysByRegistration.clear();
+    }
+
+    /**
+     * Store the index to <code>out</code> (as properties of registration URI to key)
+     * @param out OutputStream to store to
+     * @throws SaiException
+     */
+    public synchronized void store(OutputStream out) throws SaiException {
+        Objects.requireNonNull(out, "Must provide an output stream to store the registration index to");
+        Properties properties = new Properties();
+        for (Map.Entry<URI, URI> entry : this.keysByRegistration.entrySet()) { properties.setProperty(entry.getKey().toString(), entry.getValue().toString()); }
+        try {
+            properties.store(out, null);
+        } catch (IOException ex) {
+            throw new SaiException("Failed to store registration index", ex);
+        }
+    }
+
+    /**
+     * Load entries previously stored with {@link #store(OutputStream)} from <code>in</code>, adding
+     * them to the index. Entries that are no longer accurate are corrected as they are used.
+     * @param in InputStream to load from
+     * @throws SaiException
+     */
+    public synchronized void load(InputStream in) throws SaiException {
+        Objects.requireNonNull(in, "Must provide an input stream to load the registration index from");
+        Properties properties = new Properties();
+        try {
+            properties.load(in);
+            for (String registrationUri : properties.stringPropertyNames()) {
+                put(URI.create(properties.getProperty(registrationUri)), URI.create(registrationUri));
+            }
+        } catch (IOException | IllegalArgumentException ex) {
+            throw new SaiException("Failed to load registration index", ex);
+        }
+    }
+
+}
@@ -4,33 +4,44 @@ import com.janeirodigital.sai.core.agents.AgentRegistry;
 import com.janeirodigital.sai.core.annotations.ExcludeFromGeneratedCoverage;
 import com.janeirodigital.sai.core.exceptions.SaiAlreadyExistsException;
 import com.janeirodigital.sai.core.exceptions.SaiException;
+import com.janeirodigital.sai.core.exceptions.SaiRuntimeException;
 import com.janeirodigital.sai.core.sessions.SaiSession;
+import com.janeirodigital.sai.httputils.SaiHttpNotFoundException;
 import com.janeirodigital.sai.rdfutils.SaiRdfException;
+import lombok.AccessLevel;
 import lombok.Getter;
 import org.apache.jena.rdf.model.Property;
 import org.apache.jena.rdf.model.Resource;
 
 import java.net.URI;
-import java.util.ArrayList;
-import java.util.Iterator;
-import java.util.List;
-import java.util.Objects;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 import static com.janeirodigital.sai.rdfutils.RdfUtils.getUriObjects;
-import static com.janeirodigital.sai.rdfutils.RdfUtils.updateUriObjects;
 
 /**
  * Used by Registries as a base class to model their associated registrations. For example,
  * {@link AgentRegistry} extends {@link RegistrationList} application and social agent registrations.
+ * Registration URIs are kept in insertion order in a hash-indexed set, and the graph of the registry
+ * is updated one statement at a time as registrations are added and removed.
  * @param <T>
  */
 @Getter
 public abstract class RegistrationList<T> implements Iterable<T> {
 
-    protected List<URI> registrationUris;
+    @Getter(AccessLevel.NONE)
+    protected Set<URI> registrationUris;
     protected SaiSession saiSession;
     protected Resource resource;
     protected Property linkedVia;
+    protected int readAheadWindow;
+    protected ExecutorService readAheadExecutor;
+    protected RegistrationIndex index;
+    protected RegistrationPages pages;
+    @Getter(AccessLevel.NONE)
+    protected boolean pagesPending;
 
     /**
      * Construct a {@link RegistrationList} (called by sub-classes)
@@ -45,23 +56,96 @@ public abstract class RegistrationList<T> implements Iterable<T> {
         this.saiSession = saiSession;
         this.resource = resource;
         this.linkedVia = linkedVia;
-        this.registrationUris = new ArrayList<>();
+        this.registrationUris = new LinkedHashSet<>();
+        this.index = new RegistrationIndex();
     }
 
     /**
-     * Populate the internal list of registration URIs based on links to registrations in the graph of the registry
+     * Populate the internal list of registration URIs based on links to registrations in the graph of the registry.
+     * When paged, links on pages that haven't been loaded yet are only added once they are needed (see {@link #loadedUris()}).
      * @throws SaiException
      */
     public void populate() throws SaiException {
         try {
-            this.registrationUris = getUriObjects(this.resource, this.linkedVia);
+            this.registrationUris = new LinkedHashSet<>(getUriObjects(this.resource, this.linkedVia));
+            this.pagesPending = this.pages != null && !this.pages.isLoaded();
+            if (this.pagesPending) { return; }
+            if (this.pages != null) { this.registrationUris.addAll(this.pages.getRegistrationUris(this.linkedVia)); }
+            this.index.retainRegistrations(this.registrationUris);
         } catch (SaiRdfException ex) {
             throw new SaiException("Unable to populate graph", ex);
         }
     }
 
+    /**
+     * Get the internal list of registration URIs, after adding the links on any pages that haven't been loaded yet
+     * @return Set of registration URIs
+     */
+    protected Set<URI> loadedUris() {
+        if (this.pagesPending) {
+            try {
+                this.registrationUris.addAll(this.pages.getRegistrationUris(this.linkedVia));
+            } catch (SaiException ex) {
+                throw new SaiRuntimeException("Failed to load registration pages of " + this.resource.getURI(), ex);
+            }
+            this.pagesPending = false;
+            this.index.retainRegistrations(this.registrationUris);
+        }
+        return this.registrationUris;
+    }
+
+    /**
+     * Get the registration URIs for an iterator to go through. When some pages haven't been loaded yet, each is
+     * loaded only once iteration reaches it (see {@link RegistrationPages#iterator(Property)}), so an iteration that
+     * stops early doesn't load the rest of the chain.
+     * @return Collection of registration URIs
+     */
+    protected Collection<URI> iterationUris() {
+        if (!this.pagesPending) { return getRegistrationUris(); }
+        List<URI> unpaged = new ArrayList<>(this.registrationUris);
+        return new AbstractCollection<>() {
+            @Override
+            public Iterator<URI> iterator() {
+                Iterator<URI> first = unpaged.iterator();
+                Iterator<URI> paged = pages.iterator(linkedVia);
+                return new Iterator<>() {
+                    @Override
+                    public boolean hasNext() { return first.hasNext() || paged.hasNext(); }
+                    @Override
+                    public URI next() { return first.hasNext() ? first.next() : paged.next(); }
+                };
+            }
+            @Override
+            public int size() { return loadedUris().size(); }
+        };
+    }
+
+    /**
+     * Keep the registration links of this list in <code>pages</code> rather than in the graph of the registry.
+     * Registrations already linked from the graph of the registry are moved to the pages.
+     * @param pages {@link RegistrationPages} to keep registration links in
+     * @throws SaiException
+     */
+    public void setPages(RegistrationPages pages) throws SaiException {
+        Objects.requireNonNull(pages, "Must provide registration pages to keep registration links in");
+        this.pages = pages;
+        for (URI registrationUri : this.registrationUris) {
+            if (unlinkFromRegistry(registrationUri)) {
+                this.pages.add(this.linkedVia, registrationUri);
+                this.pages.markRegistryChanged();
+            }
+        }
+    }
+
+    /**
+     * Check whether the registration links of this list are kept in {@link RegistrationPages}
+     * @return true when paged
+     */
+    public boolean isPaged() { return this.pages != null; }
+
     /**
      * Add a registration URI to the internal list of registration URIs, and add to the graph of the registry
+     * (or to its pages when paged)
      * @param registrationUri URI of the registration to add
      * @throws SaiAlreadyExistsException if the registration already exists
      */
@@ -70,8 +154,20 @@ public abstract class RegistrationList<T> implements Iterable<T> {
         if (this.isPresent(registrationUri)) {
             throw new SaiAlreadyExistsException("Cannot add " + registrationUri + "because a record already exists");
         }
-        this.registrationUris.add(registrationUri);
-        updateUriObjects(this.resource, this.linkedVia, this.registrationUris);
+        link(registrationUri);
+    }
+
+    /**
+     * Add a registration URI to the internal list of registration URIs, add to the graph of the registry,
+     * and index it by <code>indexKey</code> (see {@link #getIndexKey(Object)}).
+     * @param registrationUri URI of the registration to add
+     * @param indexKey Key to index the registration by
+     * @throws SaiAlreadyExistsException if the registration already exists
+     */
+    public void add(URI registrationUri, URI indexKey) throws SaiAlreadyExistsException {
+        Objects.requireNonNull(indexKey, "Must provide a key to index the registration by");
+        add(registrationUri);
+        this.index.put(indexKey, registrationUri);
     }
 
     /**
@@ -81,13 +177,13 @@ public abstract class RegistrationList<T> implements Iterable<T> {
      */
     public void addAll(List<URI> registrationUris) throws SaiAlreadyExistsException {
         Objects.requireNonNull(registrationUris, "Must provide a list of URIs of the registrations to add to registry");
+        Set<URI> adding = new LinkedHashSet<>();
         for (URI registrationUri: registrationUris) {
-            if (this.isPresent(registrationUri)) {
+            if (this.isPresent(registrationUri) || !adding.add(registrationUri)) {
                 throw new SaiAlreadyExistsException("Cannot add " + registrationUri + "because a record already exists");
             }
         }
-        this.registrationUris.addAll(registrationUris);
-        updateUriObjects(this.resource, this.linkedVia, this.registrationUris);
+        for (URI registrationUri : adding) { link(registrationUri); }
     }
 
     /**
@@ -97,14 +193,22 @@ public abstract class RegistrationList<T> implements Iterable<T> {
      */
     public boolean isPresent(URI checkUri) {
         Objects.requireNonNull(checkUri, "Must provide the URI of the registration to check for");
-        return this.registrationUris.contains(checkUri);
+        return loadedUris().contains(checkUri);
+    }
+
+    /**
+     * Get the URIs of the registrations in the list, in insertion order
+     * @return Unmodifiable copy of the registration URIs
+     */
+    public List<URI> getRegistrationUris() {
+        return Collections.unmodifiableList(new ArrayList<>(loadedUris()));
     }
 
     /**
      * Check if the registration list is empty
      * @return true if empty
      */
-    public boolean isEmpty() { return this.registrationUris.isEmpty(); }
+    public boolean isEmpty() { return loadedUris().isEmpty(); }
 
     /**
      * Abstract find method implemented by sub-classes
@@ -115,21 +219,204 @@ public abstract class RegistrationList<T> implements Iterable<T> {
 
     /**
      * Remove a registration from the internal list of registration URIs, and remove from the graph of the registry
+     * (or from its pages when paged)
      * @param registrationUri URI of the registration to remove
      */
     public void remove(URI registrationUri) {
         Objects.requireNonNull(registrationUri, "Must provide the URI of the registration to remove from registry");
-        this.registrationUris.remove(registrationUri);
-        updateUriObjects(this.resource, this.linkedVia, this.registrationUris);
+        this.index.removeRegistration(registrationUri);
+        if (!loadedUris().remove(registrationUri)) { return; }
+        boolean unlinked = unlinkFromRegistry(registrationUri);
+        if (this.pages == null) { return; }
+        if (unlinked) { this.pages.markRegistryChanged(); return; }
+        try {
+            this.pages.remove(this.linkedVia, registrationUri);
+        } catch (SaiException ex) {
+            throw new SaiRuntimeException("Failed to remove " + registrationUri + " from registration pages", ex);
+        }
+    }
+
+    /**
+     * Link a registration from the graph of the registry, or from its pages when paged
+     */
+    private void link(URI registrationUri) {
+        if (this.pages != null) {
+            try {
+                this.pages.add(this.linkedVia, registrationUri);
+            } catch (SaiException ex) {
+                throw new SaiRuntimeException("Failed to add " + registrationUri + " to registration pages", ex);
+            }
+        } else {
+            this.resource.addProperty(this.linkedVia, this.resource.getModel().createResource(registrationUri.toString()));
+        }
+        this.registrationUris.add(registrationUri);
+    }
+
+    /**
+     * Remove the link to a registration from the graph of the registry
+     * @return true if the graph of the registry linked to the registration
+     */
+    private boolean unlinkFromRegistry(URI registrationUri) {
+        Resource registration = this.resource.getModel().createResource(registrationUri.toString());
+        if (!this.resource.hasProperty(this.linkedVia, registration)) { return false; }
+        this.resource.getModel().remove(this.resource, this.linkedVia, registration);
+        return true;
+    }
+
+    /**
+     * Have iterators of this list fetch up to <code>window</code> registrations ahead, concurrently on
+     * <code>executor</code>, rather than one at a time as each is reached. See {@link ReadAheadIterator}.
+     * @param window Number of registrations to fetch ahead (0 to fetch one at a time)
+     * @param executor ExecutorService to fetch registrations on
+     */
+    public void setReadAhead(int window, ExecutorService executor) {
+        if (window < 0) { throw new IllegalArgumentException("Must provide a read-ahead window that isn't negative"); }
+        if (window > 0) { Objects.requireNonNull(executor, "Must provide an executor to read ahead with"); }
+        this.readAheadWindow = window;
+        this.readAheadExecutor = window > 0 ? executor : null;
+    }
+
+    /**
+     * Check whether iterators of this list read ahead
+     * @return true when read-ahead is enabled
+     */
+    public boolean isReadAhead() { return this.readAheadWindow > 0; }
+
+    /**
+     * Get the registration at <code>registrationUri</code>. Implemented by sub-classes to
+     * get the appropriate type of registration.
+     * @param registrationUri URI of the registration to get
+     * @return Registration
+     * @throws SaiException
+     * @throws SaiHttpNotFoundException
+     */
+    protected abstract T getRegistration(URI registrationUri) throws SaiException, SaiHttpNotFoundException;
+
+    /**
+     * Get the key that <code>registration</code> is indexed by in the {@link RegistrationIndex} of the list.
+     * Overridden by sub-classes that support indexed lookup with {@link #findIndexed(URI)}.
+     * @param registration Registration to get the key for
+     * @return Key of the registration, or null when the list isn't indexed
+     */
+    protected URI getIndexKey(T registration) { return null; }
+
+    /**
+     * Get the registration at <code>registrationUri</code> via {@link #getRegistration(URI)}, and
+     * index it by its key
+     * @param registrationUri URI of the registration to get
+     * @return Registration
+     * @throws SaiException
+     * @throws SaiHttpNotFoundException
+     */
+    protected T getIndexedRegistration(URI registrationUri) throws SaiException, SaiHttpNotFoundException {
+        T registration = getRegistration(registrationUri);
+        URI key = getIndexKey(registration);
+        if (key != null) { this.index.put(key, registrationUri); }
+        return registration;
+    }
+
+    /**
+     * Find the registration with the provided index <code>key</code>. When the key is indexed, only that
+     * registration is fetched (and confirmed to still have the key). Otherwise, only registrations that
+     * haven't been indexed yet are fetched, and indexed along the way, until a match is found.
+     * @param key Key to find the registration by
+     * @return Registration or null if there is no registration with <code>key</code>
+     */
+    protected T findIndexed(URI key) {
+        Objects.requireNonNull(key, "Must provide a key to find the registration by");
+        try {
+            URI indexed = this.index.get(key);
+            if (indexed != null && this.isPresent(indexed)) {
+                T registration = getIndexedRegistration(indexed);
+                if (key.equals(getIndexKey(registration))) { return registration; }
+            }
+            for (URI registrationUri : new ArrayList<>(loadedUris())) {
+                if (this.index.isIndexed(registrationUri)) { continue; }
+                T registration = getIndexedRegistration(registrationUri);
+                if (key.equals(getIndexKey(registration))) { return registration; }
+            }
+        } catch (SaiException | SaiHttpNotFoundException ex) {
+            throw new SaiRuntimeException("Failed to get registration while finding " + key, ex);
+        }
+        return null;
+    }
+
+    /**
+     * Get a sequential Stream of the registrations in the list, which are fetched one at a time as they are
+     * reached, so short-circuiting operations stop fetching as soon as they are satisfied. See {@link FetchingSpliterator}.
+     * @return Stream of registrations
+     */
+    public Stream<T> stream() {
+        return StreamSupport.stream(new FetchingSpliterator<>(new ArrayList<>(loadedUris()), this::getIndexedRegistration), false);
+    }
+
+    /**
+     * Get a sequential Stream of the registrations in the list that are prefetched concurrently on <code>executor</code>, in batches
+     * of <code>batchSize</code>. Fetches never run on the common fork-join pool, and the stream pipeline itself runs on
+     * the calling thread. See {@link FetchingSpliterator}.
+     * @param executor ExecutorService to fetch registrations on
+     * @param batchSize Number of registrations to fetch together
+     * @return Stream of registrations
+     */
+    public Stream<T> prefetchingStream(ExecutorService executor, int batchSize) {
+        Objects.requireNonNull(executor, "Must provide an executor to stream registrations with");
+        return StreamSupport.stream(new FetchingSpliterator<>(new ArrayList<>(loadedUris()), this::getIndexedRegistration, batchSize, executor), false);
+    }
+
+    /**
+     * Get a sequential Stream of the registrations in the list that are prefetched concurrently, using the executor and window provided
+     * to {@link #setReadAhead(int, ExecutorService)} as the executor and batch size. Falls back to {@link #stream()}
+     * when read-ahead isn't configured.
+     * @return Stream of registrations
+     */
+    public Stream<T> prefetchingStream() {
+        if (!this.isReadAhead()) { return stream(); }
+        return prefetchingStream(this.readAheadExecutor, this.readAheadWindow);
+    }
+
+    /**
+     * Return an iterator that reads ahead, based on the configuration provided to {@link #setReadAhead(int, ExecutorService)}
+     * @return {@link ReadAheadIterator}
+     */
+    protected ReadAheadIterator<T> readAheadIterator() {
+        return new ReadAheadIterator<>(new ArrayList<>(loadedUris()).iterator(), this::getIndexedRegistration, this.readAheadWindow, this.readAheadExecutor);
+    }
+
+    /**
+     * Return an iterator that must be closed, so that any registrations still being read ahead are cancelled when
+     * iteration stops early. Reads ahead based on the configuration provided to {@link #setReadAhead(int, ExecutorService)},
+     * and otherwise behaves like {@link #iterator()} with nothing to release on close.
+     * <pre>
+     * try (CloseableIterator&lt;T&gt; registrations = list.closeableIterator()) { ... }
+     * </pre>
+     * @return {@link CloseableIterator}
+     */
+    public CloseableIterator<T> closeableIterator() {
+        if (this.isReadAhead()) { return readAheadIterator(); }
+        Iterator<T> iterator = iterator();
+        return new CloseableIterator<>() {
+            private boolean closed;
+            @Override
+            public boolean hasNext() { return !this.closed && iterator.hasNext(); }
+            @Override
+            public T next() {
+                if (!hasNext()) { throw new NoSuchElementException(); }
+                return iterator.next();
+            }
+            @Override
+            public void close() { this.closed = true; }
+        };
     }
 
     /**
-     * Return an iterator for the {@link RegistrationList}
+     * Return an iterator for the {@link RegistrationList}. When read-ahead is enabled, up to a window of
+     * registrations are still fetched after a loop over the iterator exits early - use
+     * {@link #closeableIterator()} to cancel them instead.
      * @return
      */
     @ExcludeFromGeneratedCoverage
     public Iterator<T> iterator() {
-        return new RegistrationListIterator<>(this.saiSession, this.registrationUris);
+        return new RegistrationListIterator<>(this.saiSession, iterationUris());
     }
 
     /**
@@ -139,7 +426,7 @@ public abstract class RegistrationList<T> implements Iterable<T> {
     public static class RegistrationListIterator<T> implements Iterator<T> {
         protected Iterator<URI> current;
         protected SaiSession saiSession;
-        public RegistrationListIterator(SaiSession saiSession, List<URI> registrationUris) {
+        public RegistrationListIterator(SaiSession saiSession, Collection<URI> registrationUris) {
             this.saiSession = saiSession;
             this.current = registrationUris.iterator();
         }
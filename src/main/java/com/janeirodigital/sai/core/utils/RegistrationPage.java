@@ -0,0 +1,212 @@
+package com.janeirodigital.sai.core.utils;
+
+import com.janeirodigital.sai.core.exceptions.SaiException;
+import com.janeirodigital.sai.core.resources.CRUDResource;
+import com.janeirodigital.sai.core.sessions.SaiSession;
+import com.janeirodigital.sai.httputils.ContentType;
+import com.janeirodigital.sai.httputils.SaiHttpNotFoundException;
+import com.janeirodigital.sai.rdfutils.SaiRdfException;
+import lombok.AccessLevel;
+import lombok.Getter;
+import okhttp3.Response;
+import org.apache.jena.rdf.model.Model;
+import org.apache.jena.rdf.model.Property;
+import org.apache.jena.rdf.model.RDFNode;
+import org.apache.jena.rdf.model.Resource;
+
+import java.net.URI;
+import java.util.List;
+import java.util.Objects;
+
+import static com.janeirodigital.sai.core.vocabularies.ActivityStreamsVocabulary.AS_COLLECTION_PAGE;
+import static com.janeirodigital.sai.core.vocabularies.ActivityStreamsVocabulary.AS_NEXT;
+import static com.janeirodigital.sai.rdfutils.RdfUtils.*;
+
+/**
+ * A page of registration links for a paged registry (see {@link RegistrationPages}). Each page holds the same
+ * statements linking the registry to its registrations that an unpaged registry holds itself, and links to
+ * the next page in the chain.
+ */
+@Getter
+public class RegistrationPage extends CRUDResource {
+
+    private URI next;
+    @Getter(AccessLevel.NONE)
+    private int size;
+
+    /**
+     * Construct a {@link RegistrationPage} instance from the provided {@link Builder}.
+     * @param builder {@link Builder} to construct with
+     * @throws SaiException
+     */
+    public RegistrationPage(Builder builder) throws SaiException {
+        super(builder);
+        this.next = builder.next;
+        this.size = -1;
+    }
+
+    /**
+     * Get a {@link RegistrationPage} at the provided <code>uri</code>
+     * @param uri URI of the {@link RegistrationPage} to get
+     * @param saiSession {@link SaiSession} to assign
+     * @param contentType {@link ContentType} to use
+     * @return Retrieved {@link RegistrationPage}
+     * @throws SaiException
+     * @throws SaiHttpNotFoundException
+     */
+    public static RegistrationPage get(URI uri, SaiSession saiSession, ContentType contentType) throws SaiException, SaiHttpNotFoundException {
+        Builder builder = new Builder(uri, saiSession);
+        try (Response response = read(uri, saiSession, contentType, false)) {
+            return builder.setDataset(response).setContentType(contentType).build();
+        }
+    }
+
+    /**
+     * Link this page to the <code>next</code> page in the chain
+     * @param next URI of the next {@link RegistrationPage}
+     */
+    public void setNext(URI next) {
+        Objects.requireNonNull(next, "Must provide the URI of the next registration page");
+        this.next = next;
+        updateObject(this.resource, AS_NEXT, next);
+    }
+
+    /**
+     * Refresh the link to the next page from the graph of the page, after it has been replaced in place
+     * @throws SaiException
+     */
+    @Override
+    protected void refreshFromDataset() throws SaiException {
+        this.next = new Builder(this.uri, this.saiSession).setDataset(this.dataset).next;
+        this.size = -1;
+    }
+
+    /**
+     * Get the registrations linked from <code>registry</code> via <code>linkedVia</code> on this page
+     * @param registry Jena resource of the registry
+     * @param linkedVia Property linking the registry to its registrations
+     * @return List of registration URIs
+     * @throws SaiException
+     */
+    public List<URI> getRegistrationUris(Resource registry, Property linkedVia) throws SaiException {
+        try {
+            return getUriObjects(this.dataset.getResource(registry.getURI()), linkedVia);
+        } catch (SaiRdfException ex) {
+            throw new SaiException("Unable to get registrations from registration page " + this.uri, ex);
+        }
+    }
+
+    /**
+     * Get the number of registration links on this page. They are only counted the first time, and the count is
+     * kept as links are added and removed, until the graph of the page is replaced.
+     * @param registry Jena resource of the registry
+     * @return Number of registration links
+     */
+    public int size(Resource registry) {
+        if (this.size < 0) {
+            this.size = this.dataset.listStatements(this.dataset.getResource(registry.getURI()), null, (RDFNode) null).toList().size();
+        }
+        return this.size;
+    }
+
+    /**
+     * Link <code>registry</code> to <code>registrationUri</code> via <code>linkedVia</code> on this page
+     * @param registry Jena resource of the registry
+     * @param linkedVia Property linking the registry to its registrations
+     * @param registrationUri URI of the registration
+     */
+    public void addRegistration(Resource registry, Property linkedVia, URI registrationUri) {
+        Resource subject = this.dataset.getResource(registry.getURI());
+        Resource object = this.dataset.createResource(registrationUri.toString());
+        if (this.dataset.contains(subject, linkedVia, object)) { return; }
+        this.dataset.add(subject, linkedVia, object);
+        if (this.size >= 0) { this.size++; }
+    }
+
+    /**
+     * Remove the link from <code>registry</code> to <code>registrationUri</code> via <code>linkedVia</code> on this page
+     * @param registry Jena resource of the registry
+     * @param linkedVia Property linking the registry to its registrations
+     * @param registrationUri URI of the registration
+     * @return true if the link was on this page
+     */
+    public boolean removeRegistration(Resource registry, Property linkedVia, URI registrationUri) {
+        Resource subject = this.dataset.getResource(registry.getURI());
+        Resource object = this.dataset.createResource(registrationUri.toString());
+        if (!this.dataset.contains(subject, linkedVia, object)) { return false; }
+        this.dataset.remove(subject, linkedVia, object);
+        if (this.size >= 0) { this.size--; }
+        return true;
+    }
+
+    /**
+     * Builder for {@link RegistrationPage} instances.
+     */
+    public static class Builder extends CRUDResource.Builder<Builder> {
+
+        private URI next;
+
+        /**
+         * Initialize builder with <code>uri</code> and <code>saiSession</code>
+         * @param uri URI of the {@link RegistrationPage} to build
+         * @param saiSession {@link SaiSession} to assign
+         */
+        public Builder(URI uri, SaiSession saiSession) { super(uri, saiSession); }
+
+        /**
+         * Ensures that don't get an unchecked cast warning when returning from setters
+         * @return {@link Builder}
+         */
+        @Override
+        public Builder getThis() { return this; }
+
+        /**
+         * Set the Jena model and use it to populate attributes of the {@link Builder}. Assumption
+         * is made that the corresponding resource exists.
+         * @param dataset Jena model to populate the Builder attributes with
+         * @return {@link Builder}
+         * @throws SaiException
+         */
+        @Override
+        public Builder setDataset(Model dataset) throws SaiException {
+            super.setDataset(dataset);
+            populateFromDataset();
+            this.exists = true;
+            return this;
+        }
+
+        /**
+         * Populates the fields of the {@link RegistrationPage} based on the associated Jena resource.
+         * @throws SaiException
+         */
+        private void populateFromDataset() throws SaiException {
+            try {
+                this.next = getUriObject(this.resource, AS_NEXT);
+            } catch (SaiRdfException ex) {
+                throw new SaiException("Failed to load registration page " + this.uri, ex);
+            }
+        }
+
+        /**
+         * Populates the Jena dataset graph with the attributes from the Builder
+         */
+        private void populateDataset() {
+            this.resource = getNewResourceForType(this.uri, AS_COLLECTION_PAGE);
+            this.dataset = this.resource.getModel();
+            if (this.next != null) { updateObject(this.resource, AS_NEXT, this.next); }
+        }
+
+        /**
+         * Build the {@link RegistrationPage} using attributes from the Builder. If no Jena dataset has been
+         * provided, then the dataset will be populated using the attributes from the Builder with
+         * {@link #populateDataset()}.
+         * @return {@link RegistrationPage}
+         * @throws SaiException
+         */
+        public RegistrationPage build() throws SaiException {
+            if (this.dataset == null) { populateDataset(); }
+            return new RegistrationPage(this);
+        }
+    }
+
+}
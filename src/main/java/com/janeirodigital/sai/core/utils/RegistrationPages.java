@@ -0,0 +1,351 @@
+package com.janeirodigital.sai.core.utils;
+
+import com.janeirodigital.sai.core.exceptions.SaiException;
+import com.janeirodigital.sai.core.exceptions.SaiRuntimeException;
+import com.janeirodigital.sai.core.resources.CRUDResource.Checkpoint;
+import com.janeirodigital.sai.core.sessions.SaiSession;
+import com.janeirodigital.sai.httputils.ContentType;
+import com.janeirodigital.sai.httputils.SaiHttpNotFoundException;
+import com.janeirodigital.sai.rdfutils.SaiRdfException;
+import lombok.AccessLevel;
+import lombok.Getter;
+import org.apache.jena.rdf.model.Property;
+import org.apache.jena.rdf.model.Resource;
+
+import java.net.URI;
+import java.util.*;
+
+import static com.janeirodigital.sai.core.vocabularies.ActivityStreamsVocabulary.AS_FIRST;
+import static com.janeirodigital.sai.rdfutils.RdfUtils.getUriObject;
+import static com.janeirodigital.sai.rdfutils.RdfUtils.updateObject;
+
+/**
+ * Keeps the registration links of a very large registry in a chain of {@link RegistrationPage}s rather than
+ * in the registry resource itself. The registry links to the first page via <code>as:first</code>, and each page
+ * links to the next via <code>as:next</code>. New registrations are added to the last page until it holds
+ * <code>pageSize</code> links, at which point a new page is started. Only the pages that have changed are
+ * written by {@link #update()}, so adding or removing a registration doesn't rewrite the whole registry.
+ * <br>Pages are loaded lazily, one at a time along the chain, only once they are needed: getting the registry
+ * doesn't load any, iterating loads each page as it is reached (see {@link #iterator(Property)}), and removing
+ * stops at the page with the link. Adding needs the last page, which can only be found by following the chain,
+ * since pages only link forward. The number of links on the last page is counted once, and kept as links are
+ * added and removed.
+ * <br>A checkpoint of the registry can be extended to cover its pages (see {@link #checkpoint(Checkpoint)}), so
+ * that changes to the registration links that haven't been written can be discarded along with the registry's.
+ */
+@Getter
+public class RegistrationPages {
+
+    public static final int DEFAULT_PAGE_SIZE = 1000;
+
+    private final SaiSession saiSession;
+    private final Resource registry;
+    private final ContentType contentType;
+    private final List<RegistrationPage> pages;
+    @Getter(AccessLevel.NONE)
+    private final Set<URI> visited;
+    @Getter(AccessLevel.NONE)
+    private URI next;
+    private final Set<URI> changed;
+    @Getter(AccessLevel.NONE)
+    private final Map<URI, Integer> writes;
+    @Getter(AccessLevel.NONE)
+    private PagedCheckpoint latest;
+    private int pageSize;
+    private boolean registryChanged;
+
+    /**
+     * Initialize an empty chain of pages for <code>registry</code>
+     * @param saiSession {@link SaiSession} to assign
+     * @param registry Jena resource of the registry
+     * @param pageSize Maximum number of registration links on a page
+     * @param contentType {@link ContentType} to read and write pages with
+     */
+    public RegistrationPages(SaiSession saiSession, Resource registry, int pageSize, ContentType contentType) {
+        Objects.requireNonNull(saiSession, "Must provide a sai session for registration pages");
+        Objects.requireNonNull(registry, "Must provide a Jena resource for the registry the pages are associated with");
+        Objects.requireNonNull(contentType, "Must provide a content type for registration pages");
+        this.saiSession = saiSession;
+        this.registry = registry;
+        this.contentType = contentType;
+        this.pages = new ArrayList<>();
+        this.visited = new HashSet<>();
+        this.changed = new LinkedHashSet<>();
+        this.writes = new HashMap<>();
+        setPageSize(pageSize);
+    }
+
+    /**
+     * Get the chain of pages linked from <code>registry</code>, starting from its <code>as:first</code> page. No
+     * pages are loaded until they are needed.
+     * @param saiSession {@link SaiSession} to assign
+     * @param registry Jena resource of the registry
+     * @param pageSize Maximum number of registration links on a page
+     * @param contentType {@link ContentType} to read and write pages with
+     * @return {@link RegistrationPages}
+     * @throws SaiException
+     */
+    public static RegistrationPages load(SaiSession saiSession, Resource registry, int pageSize, ContentType contentType) throws SaiException {
+        RegistrationPages registrationPages = new RegistrationPages(saiSession, registry, pageSize, contentType);
+        registrationPages.next = getFirst(registry);
+        return registrationPages;
+    }
+
+    /**
+     * Check whether every page in the chain has been loaded
+     * @return true when there are no more pages to load
+     */
+    public boolean isLoaded() { return this.next == null; }
+
+    /**
+     * Check whether <code>registry</code> keeps its registration links in pages
+     * @param registry Jena resource of the registry
+     * @return true when the registry links to a first page
+     * @throws SaiException
+     */
+    public static boolean isPaged(Resource registry) throws SaiException {
+        return getFirst(registry) != null;
+    }
+
+    /**
+     * Set the maximum number of registration links on a page. Applies to pages started after it is set.
+     * @param pageSize Maximum number of registration links on a page
+     */
+    public void setPageSize(int pageSize) {
+        if (pageSize < 1) { throw new IllegalArgumentException("Must provide a page size of at least one"); }
+        this.pageSize = pageSize;
+    }
+
+    /**
+     * Get the registrations linked via <code>linkedVia</code> across all pages, in page order. Any pages that
+     * haven't been loaded yet are loaded first.
+     * @param linkedVia Property linking the registry to its registrations
+     * @return List of registration URIs
+     * @throws SaiException
+     */
+    public List<URI> getRegistrationUris(Property linkedVia) throws SaiException {
+        while (loadNext()) { /* Load the rest of the chain */ }
+        List<URI> registrationUris = new ArrayList<>();
+        for (RegistrationPage page : this.pages) { registrationUris.addAll(page.getRegistrationUris(this.registry, linkedVia)); }
+        return registrationUris;
+    }
+
+    /**
+     * Get an iterator over the registrations linked via <code>linkedVia</code>, in page order, that only loads each
+     * page once it is reached. Failing to load a page is raised as a {@link SaiRuntimeException}.
+     * @param linkedVia Property linking the registry to its registrations
+     * @return Iterator of registration URIs
+     */
+    public Iterator<URI> iterator(Property linkedVia) {
+        return new Iterator<>() {
+            private int index;
+            private Iterator<URI> current = Collections.emptyIterator();
+            @Override
+            public boolean hasNext() {
+                try {
+                    while (!this.current.hasNext()) {
+                        if (this.index >= pages.size() && !loadNext()) { return false; }
+                        this.current = pages.get(this.index++).getRegistrationUris(registry, linkedVia).iterator();
+                    }
+                    return true;
+                } catch (SaiException ex) {
+                    throw new SaiRuntimeException("Failed to iterate registration pages of " + registry.getURI(), ex);
+                }
+            }
+            @Override
+            public URI next() {
+                if (!hasNext()) { throw new NoSuchElementException(); }
+                return this.current.next();
+            }
+        };
+    }
+
+    /**
+     * Link <code>registrationUri</code> via <code>linkedVia</code> on the last page, starting a new page when the
+     * last one is full
+     * @param linkedVia Property linking the registry to its registrations
+     * @param registrationUri URI of the registration to add
+     * @throws SaiException
+     */
+    public void add(Property linkedVia, URI registrationUri) throws SaiException {
+        Objects.requireNonNull(registrationUri, "Must provide the URI of the registration to add to registration pages");
+        while (loadNext()) { /* Only the last page is added to, and it is only linked from the page before it */ }
+        RegistrationPage last = this.pages.isEmpty() ? null : this.pages.get(this.pages.size() - 1);
+        if (last == null || last.size(this.registry) >= this.pageSize) { last = startPage(last); }
+        last.addRegistration(this.registry, linkedVia, registrationUri);
+        this.changed.add(last.getUri());
+    }
+
+    /**
+     * Remove the link to <code>registrationUri</code> via <code>linkedVia</code> from the page that has it. Emptied
+     * pages are kept in the chain, and are filled again only if they are the last page.
+     * @param linkedVia Property linking the registry to its registrations
+     * @param registrationUri URI of the registration to remove
+     * @return true if a page linked to the registration
+     * @throws SaiException
+     */
+    public boolean remove(Property linkedVia, URI registrationUri) throws SaiException {
+        Objects.requireNonNull(registrationUri, "Must provide the URI of the registration to remove from registration pages");
+        int index = 0;
+        while (index < this.pages.size() || loadNext()) {
+            RegistrationPage page = this.pages.get(index++);
+            if (page.removeRegistration(this.registry, linkedVia, registrationUri)) {
+                this.changed.add(page.getUri());
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Record that the registry resource itself has changed and must be written along with the pages
+     */
+    public void markRegistryChanged() { this.registryChanged = true; }
+
+    /**
+     * Check whether any pages have changed since they were loaded or last updated
+     * @return true if there are changed pages
+     */
+    public boolean isDirty() { return !this.changed.isEmpty(); }
+
+    /**
+     * Write the pages that have changed. Pages are written from the end of the chain back to the start, so a
+     * page is never linked to before it exists.
+     * @return true when the registry resource itself has changed and must also be updated
+     * @throws SaiException
+     */
+    public boolean update() throws SaiException {
+        for (int i = this.pages.size() - 1; i >= 0; i--) {
+            RegistrationPage page = this.pages.get(i);
+            if (this.changed.contains(page.getUri())) {
+                page.update();
+                this.changed.remove(page.getUri());
+                this.writes.merge(page.getUri(), 1, Integer::sum);
+            }
+        }
+        boolean updateRegistry = this.registryChanged;
+        this.registryChanged = false;
+        return updateRegistry;
+    }
+
+    /**
+     * Extend <code>registry</code>, a checkpoint of the registry these pages belong to, with a checkpoint of each
+     * page, so that the registry and its pages can be restored together (see {@link #restore(Checkpoint)}). Only the
+     * latest checkpoint can be restored, and pages loaded after it was taken are added to it as they are loaded.
+     * @param registry {@link Checkpoint} of the registry
+     * @return {@link PagedCheckpoint} of the registry and its pages
+     */
+    public PagedCheckpoint checkpoint(Checkpoint registry) {
+        Objects.requireNonNull(registry, "Must provide a checkpoint of the registry to extend");
+        List<Checkpoint> pageCheckpoints = new ArrayList<>();
+        for (RegistrationPage page : this.pages) { pageCheckpoints.add(page.checkpoint()); }
+        this.latest = new PagedCheckpoint(registry, new ArrayList<>(this.pages), pageCheckpoints, new HashMap<>(this.writes),
+                                          new LinkedHashSet<>(this.changed), this.registryChanged);
+        return this.latest;
+    }
+
+    /**
+     * Put the pages back the way they were when <code>checkpoint</code> was taken. Pages started since are dropped,
+     * while pages loaded since are kept, and restored to the way they were loaded. A page that has been written since is reverted rather than restored (see {@link RegistrationPage#revert(Checkpoint)}),
+     * and written again by the next {@link #update()}, so that the links written since are removed from it.
+     * @param checkpoint {@link Checkpoint} of the registry, taken with {@link #checkpoint(Checkpoint)}
+     * @throws SaiException if the checkpoint isn't the latest one taken of these pages
+     */
+    public void restore(Checkpoint checkpoint) throws SaiException {
+        Objects.requireNonNull(checkpoint, "Must provide a checkpoint to restore registration pages to");
+        if (checkpoint != this.latest) {
+            throw new SaiException("Failed to restore registration pages of " + this.registry.getURI() + " from a checkpoint other than their latest one");
+        }
+        PagedCheckpoint paged = (PagedCheckpoint) checkpoint;
+        this.pages.clear();
+        this.pages.addAll(paged.pages);
+        this.changed.clear();
+        this.changed.addAll(paged.changed);
+        this.registryChanged = paged.registryChanged;
+        for (int i = 0; i < paged.pages.size(); i++) {
+            RegistrationPage page = paged.pages.get(i);
+            if (Objects.equals(this.writes.get(page.getUri()), paged.writes.get(page.getUri()))) {
+                page.restore(paged.pageCheckpoints.get(i));
+            } else {
+                page.revert(paged.pageCheckpoints.get(i));
+                this.changed.add(page.getUri());
+            }
+        }
+    }
+
+    /**
+     * Load the next page in the chain, if there is one
+     * @return true when a page was loaded
+     */
+    private boolean loadNext() throws SaiException {
+        if (this.next == null) { return false; }
+        URI pageUri = this.next;
+        if (!this.visited.add(pageUri)) { throw new SaiException("Registration pages of " + this.registry.getURI() + " link back to " + pageUri); }
+        try {
+            RegistrationPage page = RegistrationPage.get(pageUri, this.saiSession, this.contentType);
+            this.pages.add(page);
+            if (this.latest != null) {
+                this.latest.pages.add(page);
+                this.latest.pageCheckpoints.add(page.checkpoint());
+            }
+            this.next = page.getNext();
+            return true;
+        } catch (SaiHttpNotFoundException ex) {
+            throw new SaiException("Failed to load registration page " + pageUri + " of " + this.registry.getURI(), ex);
+        }
+    }
+
+    /**
+     * Start a new page after <code>last</code>, or the first page when there isn't one yet
+     */
+    private RegistrationPage startPage(RegistrationPage last) throws SaiException {
+        URI registryUri = URI.create(this.registry.getURI());
+        URI pageUri = registryUri.resolve("page-" + UUID.randomUUID());
+        RegistrationPage.Builder builder = new RegistrationPage.Builder(pageUri, this.saiSession);
+        RegistrationPage page = builder.setContentType(this.contentType).build();
+        if (last == null) {
+            updateObject(this.registry, AS_FIRST, pageUri);
+            this.registryChanged = true;
+        } else {
+            last.setNext(pageUri);
+            this.changed.add(last.getUri());
+        }
+        this.pages.add(page);
+        return page;
+    }
+
+    /**
+     * Get the URI of the first page linked from <code>registry</code>
+     */
+    private static URI getFirst(Resource registry) throws SaiException {
+        try {
+            return getUriObject(registry, AS_FIRST);
+        } catch (SaiRdfException ex) {
+            throw new SaiException("Unable to get first registration page of " + registry.getURI(), ex);
+        }
+    }
+
+    /**
+     * {@link Checkpoint} of a paged registry, along with a checkpoint of each of its pages
+     */
+    public static class PagedCheckpoint extends Checkpoint {
+
+        private final List<RegistrationPage> pages;
+        private final List<Checkpoint> pageCheckpoints;
+        private final Map<URI, Integer> writes;
+        private final Set<URI> changed;
+        private final boolean registryChanged;
+
+        private PagedCheckpoint(Checkpoint registry, List<RegistrationPage> pages, List<Checkpoint> pageCheckpoints,
+                                Map<URI, Integer> writes, Set<URI> changed, boolean registryChanged) {
+            super(registry);
+            this.pages = pages;
+            this.pageCheckpoints = pageCheckpoints;
+            this.writes = writes;
+            this.changed = changed;
+            this.registryChanged = registryChanged;
+        }
+
+    }
+
+}
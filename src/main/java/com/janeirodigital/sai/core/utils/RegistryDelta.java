@@ -0,0 +1,74 @@
+package com.janeirodigital.sai.core.utils;
+
+import lombok.Getter;
+import org.apache.jena.rdf.model.Property;
+
+import java.net.URI;
+import java.util.*;
+
+/**
+ * A freshly loaded registry, along with the {@link RegistrationDelta} of each of its registration lists
+ * compared to the instance it was reloaded from
+ * @param <R> Type of registry
+ */
+@Getter
+public class RegistryDelta<R> {
+
+    private final R registry;
+    private final Map<Property, RegistrationDelta> deltas;
+
+    /**
+     * Construct a {@link RegistryDelta}
+     * @param registry Freshly loaded registry
+     * @param deltas {@link RegistrationDelta} for each registration list of the registry
+     */
+    public RegistryDelta(R registry, RegistrationDelta... deltas) {
+        Objects.requireNonNull(registry, "Must provide the freshly loaded registry");
+        this.registry = registry;
+        Map<Property, RegistrationDelta> byLinkedVia = new LinkedHashMap<>();
+        for (RegistrationDelta delta : deltas) { byLinkedVia.put(delta.getLinkedVia(), delta); }
+        this.deltas = Collections.unmodifiableMap(byLinkedVia);
+    }
+
+    /**
+     * Get the {@link RegistrationDelta} of registrations linked via <code>linkedVia</code>
+     * @param linkedVia Property linking the registry to the registrations
+     * @return {@link RegistrationDelta}
+     */
+    public RegistrationDelta getDelta(Property linkedVia) {
+        Objects.requireNonNull(linkedVia, "Must provide the property linking the registry to the registrations");
+        RegistrationDelta delta = this.deltas.get(linkedVia);
+        if (delta == null) { throw new IllegalArgumentException("Registry has no registrations linked via " + linkedVia); }
+        return delta;
+    }
+
+    /**
+     * Get the registrations that were added across all registration lists of the registry
+     * @return URIs of added registrations
+     */
+    public List<URI> getAdded() {
+        List<URI> added = new ArrayList<>();
+        for (RegistrationDelta delta : this.deltas.values()) { added.addAll(delta.getAdded()); }
+        return added;
+    }
+
+    /**
+     * Get the registrations that were removed across all registration lists of the registry
+     * @return URIs of removed registrations
+     */
+    public List<URI> getRemoved() {
+        List<URI> removed = new ArrayList<>();
+        for (RegistrationDelta delta : this.deltas.values()) { removed.addAll(delta.getRemoved()); }
+        return removed;
+    }
+
+    /**
+     * Check whether no registrations were added or removed in any registration list of the registry
+     * @return true if nothing changed
+     */
+    public boolean isEmpty() {
+        for (RegistrationDelta delta : this.deltas.values()) { if (!delta.isEmpty()) { return false; } }
+        return true;
+    }
+
+}
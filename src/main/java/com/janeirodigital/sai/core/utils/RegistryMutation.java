@@ -0,0 +1,22 @@
+package com.janeirodigital.sai.core.utils;
+
+import com.janeirodigital.sai.core.exceptions.SaiAlreadyExistsException;
+import com.janeirodigital.sai.core.exceptions.SaiException;
+
+/**
+ * A change to the graph of a registry, such as adding or removing a registration, that is applied
+ * by a {@link GroupCommit} along with other changes to the same registry
+ * @param <R> Type of registry that is changed
+ */
+@FunctionalInterface
+public interface RegistryMutation<R> {
+
+    /**
+     * Apply the change to <code>registry</code>, without updating it over HTTP
+     * @param registry Registry to change
+     * @throws SaiException
+     * @throws SaiAlreadyExistsException
+     */
+    void apply(R registry) throws SaiException, SaiAlreadyExistsException;
+
+}
@@ -0,0 +1,28 @@
+package com.janeirodigital.sai.core.vocabularies;
+
+import org.apache.jena.rdf.model.Model;
+import org.apache.jena.rdf.model.ModelFactory;
+import org.apache.jena.rdf.model.Property;
+import org.apache.jena.rdf.model.RDFNode;
+import org.apache.jena.rdf.model.Resource;
+
+/**
+ * Properties and classes of the
+ * <a href="https://www.w3.org/ns/activitystreams">Activity Streams vocabulary</a>
+ */
+public final class ActivityStreamsVocabulary {
+
+    private ActivityStreamsVocabulary() { }
+
+    private static Model model = ModelFactory.createDefaultModel();
+
+    // Namespace
+    public static final String AS_NS = "https://www.w3.org/ns/activitystreams#";
+    public static final Resource NAMESPACE = model.createResource(AS_NS);
+
+    // Properties and Classes
+    public static final RDFNode AS_COLLECTION_PAGE = model.getResource(AS_NS + "CollectionPage");
+    public static final Property AS_FIRST = model.createProperty(AS_NS + "first");
+    public static final Property AS_NEXT = model.createProperty(AS_NS + "next");
+
+}
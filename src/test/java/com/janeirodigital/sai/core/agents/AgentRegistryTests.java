@@ -7,6 +7,8 @@ import com.janeirodigital.sai.core.exceptions.SaiException;
 import com.janeirodigital.sai.core.exceptions.SaiRuntimeException;
 import com.janeirodigital.sai.core.http.HttpClientFactory;
 import com.janeirodigital.sai.core.sessions.SaiSession;
+import com.janeirodigital.sai.core.utils.RegistrationDelta;
+import com.janeirodigital.sai.core.utils.RegistryDelta;
 import com.janeirodigital.sai.httputils.SaiHttpNotFoundException;
 import okhttp3.mockwebserver.MockWebServer;
 import org.junit.jupiter.api.BeforeAll;
@@ -14,12 +16,19 @@ import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 
 import java.net.URI;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
 
 import static com.janeirodigital.mockwebserver.DispatcherHelper.*;
 import static com.janeirodigital.mockwebserver.MockWebServerHelper.toMockUri;
+import static com.janeirodigital.sai.core.vocabularies.InteropVocabulary.HAS_APPLICATION_REGISTRATION;
+import static com.janeirodigital.sai.core.vocabularies.InteropVocabulary.HAS_SOCIAL_AGENT_REGISTRATION;
 import static com.janeirodigital.sai.httputils.ContentType.LD_JSON;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.mock;
@@ -120,6 +129,27 @@ class AgentRegistryTests {
         checkRegistry(reloaded, false);
     }
 
+    @Test
+    @DisplayName("Reload agent registry with the registrations that changed")
+    void reloadAgentRegistryWithDelta() throws SaiException, SaiHttpNotFoundException, SaiAlreadyExistsException {
+        URI uri = toMockUri(server, "/ttl/agents/");
+        AgentRegistry agentRegistry = AgentRegistry.get(uri, saiSession);
+        assertTrue(agentRegistry.reloadWithDelta().isEmpty());
+        // Diverge the local instance from the registry as stored, so the reload brings back the difference
+        URI stale = toMockUri(server, "/ttl/agents/sa-99/");
+        agentRegistry.getSocialAgentRegistrations().remove(toMockUri(server, "/ttl/agents/sa-2/"));
+        agentRegistry.getSocialAgentRegistrations().add(stale);
+        RegistryDelta<AgentRegistry> delta = agentRegistry.reloadWithDelta();
+        assertFalse(delta.isEmpty());
+        checkRegistry(delta.getRegistry(), false);
+        RegistrationDelta socialDelta = delta.getDelta(HAS_SOCIAL_AGENT_REGISTRATION);
+        assertEquals(List.of(toMockUri(server, "/ttl/agents/sa-2/")), socialDelta.getAdded());
+        assertEquals(List.of(stale), socialDelta.getRemoved());
+        assertTrue(delta.getDelta(HAS_APPLICATION_REGISTRATION).isEmpty());
+        assertEquals(socialDelta.getAdded(), delta.getAdded());
+        assertEquals(socialDelta.getRemoved(), delta.getRemoved());
+    }
+
     @Test
     @DisplayName("Find a social agent registration")
     void findSocialAgentRegistration() throws SaiException, SaiHttpNotFoundException {
@@ -142,6 +172,55 @@ class AgentRegistryTests {
         assertThrows(SaiRuntimeException.class, () -> iterator.next());
     }
 
+    @Test
+    @DisplayName("Iterate social agent registrations with read-ahead")
+    void iterateSocialAgentRegistrationsReadAhead() throws SaiException, SaiHttpNotFoundException {
+        URI uri = toMockUri(server, "/ttl/agents/");
+        AgentRegistry agentRegistry = AgentRegistry.get(uri, saiSession);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            agentRegistry.getSocialAgentRegistrations().setReadAhead(2, executor);
+            List<URI> iterated = new ArrayList<>();
+            for (SocialAgentRegistration registration : agentRegistry.getSocialAgentRegistrations()) { iterated.add(registration.getUri()); }
+            assertEquals(new ArrayList<>(agentRegistry.getSocialAgentRegistrations().getRegistrationUris()), iterated);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    @DisplayName("Stream social agent registrations")
+    void streamSocialAgentRegistrations() throws SaiException, SaiHttpNotFoundException {
+        URI uri = toMockUri(server, "/ttl/agents/");
+        URI toFind = URI.create("https://bob.example/id#me");
+        AgentRegistry agentRegistry = AgentRegistry.get(uri, saiSession);
+        Optional<SocialAgentRegistration> found = agentRegistry.getSocialAgentRegistrations().stream()
+                                                               .filter(registration -> toFind.equals(registration.getRegisteredAgent())).findFirst();
+        assertTrue(found.isPresent());
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            List<URI> streamed = agentRegistry.getSocialAgentRegistrations().prefetchingStream(executor, 2).map(SocialAgentRegistration::getUri).collect(Collectors.toList());
+            assertEquals(new ArrayList<>(agentRegistry.getSocialAgentRegistrations().getRegistrationUris()), streamed);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    @DisplayName("Fail to iterate social agent registrations with read-ahead - missing registration")
+    void failToIterateSocialAgentRegistrationsReadAhead() throws SaiException, SaiHttpNotFoundException {
+        URI uri = toMockUri(server, "/missing-registrations/ttl/agents/");
+        AgentRegistry agentRegistry = AgentRegistry.get(uri, saiSession);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            agentRegistry.getSocialAgentRegistrations().setReadAhead(2, executor);
+            Iterator<SocialAgentRegistration> iterator = agentRegistry.getSocialAgentRegistrations().iterator();
+            assertThrows(SaiRuntimeException.class, () -> iterator.next());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
     @Test
     @DisplayName("Find an application registration")
     void findApplicationRegistration() throws SaiException, SaiHttpNotFoundException {
@@ -221,6 +300,29 @@ class AgentRegistryTests {
         when(app.getUri()).thenReturn(appUri);
         when(app.getRegisteredAgent()).thenReturn(appAgent);
         assertDoesNotThrow(() -> agentRegistry.add(app));
+        assertTrue(agentRegistry.getApplicationRegistrations().isPresent(appUri));
+        assertFalse(agentRegistry.getSocialAgentRegistrations().isPresent(appUri));
+        assertEquals(saUri, agentRegistry.getSocialAgentRegistrations().getIndex().get(saAgent));
+        assertEquals(appUri, agentRegistry.getApplicationRegistrations().getIndex().get(appAgent));
+    }
+
+    @Test
+    @DisplayName("Find a social agent registration by indexed registered agent")
+    void findIndexedSocialAgentRegistration() throws SaiException, SaiHttpNotFoundException {
+        URI uri = toMockUri(server, "/ttl/agents/");
+        URI toFind = URI.create("https://bob.example/id#me");
+        AgentRegistry agentRegistry = AgentRegistry.get(uri, saiSession);
+        SocialAgentRegistration found = agentRegistry.getSocialAgentRegistrations().find(toFind);
+        assertEquals(found.getUri(), agentRegistry.getSocialAgentRegistrations().getIndex().get(toFind));
+        // Once indexed, a find only fetches the matching registration
+        int requests = server.getRequestCount();
+        SocialAgentRegistration again = agentRegistry.getSocialAgentRegistrations().find(toFind);
+        assertEquals(found.getUri(), again.getUri());
+        assertEquals(requests + 1, server.getRequestCount());
+        // Removing the registration removes it from the index
+        agentRegistry.remove(found);
+        assertNull(agentRegistry.getSocialAgentRegistrations().getIndex().get(toFind));
+        assertNull(agentRegistry.getSocialAgentRegistrations().find(toFind));
     }
 
     @Test
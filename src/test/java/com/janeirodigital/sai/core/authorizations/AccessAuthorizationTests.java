@@ -4,6 +4,7 @@ import com.janeirodigital.mockwebserver.RequestMatchingFixtureDispatcher;
 import com.janeirodigital.sai.authentication.AuthorizedSession;
 import com.janeirodigital.sai.core.agents.AgentRegistry;
 import com.janeirodigital.sai.core.agents.ApplicationRegistration;
+import com.janeirodigital.sai.core.data.DataRegistration;
 import com.janeirodigital.sai.core.data.DataRegistry;
 import com.janeirodigital.sai.core.exceptions.SaiException;
 import com.janeirodigital.sai.core.http.HttpClientFactory;
@@ -19,10 +20,14 @@ import org.mockito.Mockito;
 import org.mockito.junit.MockitoJUnitRunner;
 
 import java.net.URI;
+import java.time.Duration;
 import java.time.OffsetDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import static com.janeirodigital.mockwebserver.DispatcherHelper.mockOnGet;
 import static com.janeirodigital.mockwebserver.DispatcherHelper.mockOnPut;
@@ -100,6 +105,7 @@ class AccessAuthorizationTests {
         mockOnGet(dispatcher, "/authorization/registry-1-milestone", "authorization/all-from-registry/registry-1-milestone-ttl");
         mockOnGet(dispatcher, "/authorization/registry-1-task", "authorization/all-from-registry/registry-1-task-ttl");
         mockOnGet(dispatcher, "/authorization/registry-1-issue", "authorization/all-from-registry/registry-1-issue-ttl");
+        mockOnGet(dispatcher, "/regrant/authorization/", "authorization/authorization-registry-regrant-ttl");
         mockOnGet(dispatcher, "/registry-1-agents/", "agents/alice/projectron-all-from-registry/registry-1-agent-registry-ttl");
         mockOnGet(dispatcher, "/registry-1-agents/registry-1-projectron/", "agents/alice/projectron-all-from-registry/registry-1-projectron-registration-ttl");
         mockOnGet(dispatcher, "/registry-1-agents/registry-1-projectron/registry-1-grant", "agents/alice/projectron-all-from-registry/registry-1-grant-ttl");
@@ -269,6 +275,107 @@ class AccessAuthorizationTests {
         checkAccessGrantAll(accessGrant);
     }
 
+    @Test
+    @DisplayName("Generate access grant and associated data grants concurrently - Scope: All")
+    void testGenerateAccessGrantAllConcurrently() throws SaiHttpNotFoundException, SaiException {
+        URI accessUri = toMockUri(server, "/authorization/all-1");
+        URI agentRegistryUri = toMockUri(server, "/all-1-agents/");
+        URI personalDataUri = toMockUri(server, "/personal/data/");
+        URI workDataUri = toMockUri(server, "/personal/data/");
+        URI registrationUri = toMockUri(server, "/all-1-agents/all-1-projectron/");
+        AgentRegistry agentRegistry = AgentRegistry.get(agentRegistryUri, saiSession);
+        ApplicationRegistration registration = ApplicationRegistration.get(registrationUri, saiSession);
+        DataRegistry personalData = DataRegistry.get(personalDataUri, saiSession);
+        DataRegistry workData = DataRegistry.get(workDataUri, saiSession);
+        AccessAuthorization accessAuthorization = AccessAuthorization.get(accessUri, saiSession);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            AccessGrant sequential = accessAuthorization.generateGrant(registration, agentRegistry, Arrays.asList(personalData, workData));
+            AccessGrant concurrent = accessAuthorization.generateGrant(registration, agentRegistry, Arrays.asList(personalData, workData), new GrantGenerationContext(executor));
+            checkAccessGrantAll(concurrent);
+            // Data grants are merged in the same order as sequential generation
+            assertEquals(sequential.getDataGrants().size(), concurrent.getDataGrants().size());
+            for (int i = 0; i < sequential.getDataGrants().size(); i++) {
+                DataGrant expected = sequential.getDataGrants().get(i);
+                DataGrant actual = concurrent.getDataGrants().get(i);
+                assertEquals(expected.getRegisteredShapeTree(), actual.getRegisteredShapeTree());
+                assertEquals(expected.getScopeOfGrant(), actual.getScopeOfGrant());
+                assertEquals(expected.getDataOwner(), actual.getDataOwner());
+                assertEquals(expected.getDataRegistration(), actual.getDataRegistration());
+                assertEquals(expected.getDelegationOf(), actual.getDelegationOf());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    @DisplayName("Generate access grant and associated data grants - Scope: All - Reuse remote resources fetched by the context")
+    void testGenerateAccessGrantAllMemoized() throws SaiHttpNotFoundException, SaiException {
+        URI accessUri = toMockUri(server, "/authorization/all-1");
+        URI agentRegistryUri = toMockUri(server, "/all-1-agents/");
+        URI personalDataUri = toMockUri(server, "/personal/data/");
+        URI workDataUri = toMockUri(server, "/personal/data/");
+        URI registrationUri = toMockUri(server, "/all-1-agents/all-1-projectron/");
+        AgentRegistry agentRegistry = AgentRegistry.get(agentRegistryUri, saiSession);
+        ApplicationRegistration registration = ApplicationRegistration.get(registrationUri, saiSession);
+        DataRegistry personalData = DataRegistry.get(personalDataUri, saiSession);
+        DataRegistry workData = DataRegistry.get(workDataUri, saiSession);
+        AccessAuthorization accessAuthorization = AccessAuthorization.get(accessUri, saiSession);
+        GrantGenerationContext context = GrantGenerationContext.sequential();
+        checkAccessGrantAll(accessAuthorization.generateGrant(registration, agentRegistry, Arrays.asList(personalData, workData), context));
+        // Bob's reciprocal registration and the access grant it links to
+        assertEquals(2, context.getFetchCount());
+        assertEquals(0, context.getFetchesSaved());
+        checkAccessGrantAll(accessAuthorization.generateGrant(registration, agentRegistry, Arrays.asList(personalData, workData), context));
+        assertEquals(2, context.getFetchCount());
+        assertEquals(2, context.getFetchesSaved());
+    }
+
+    @Test
+    @DisplayName("Generate access grant incrementally - Scope: All")
+    void testGenerateAccessGrantAllIncrementally() throws SaiHttpNotFoundException, SaiException {
+        URI accessUri = toMockUri(server, "/authorization/all-1");
+        URI agentRegistryUri = toMockUri(server, "/all-1-agents/");
+        URI personalDataUri = toMockUri(server, "/personal/data/");
+        URI registrationUri = toMockUri(server, "/all-1-agents/all-1-projectron/");
+        AgentRegistry agentRegistry = AgentRegistry.get(agentRegistryUri, saiSession);
+        ApplicationRegistration registration = ApplicationRegistration.get(registrationUri, saiSession);
+        List<DataRegistry> dataRegistries = Arrays.asList(DataRegistry.get(personalDataUri, saiSession));
+        AccessAuthorization accessAuthorization = AccessAuthorization.get(accessUri, saiSession);
+        AccessGrant existing = accessAuthorization.generateGrant(registration, agentRegistry, dataRegistries);
+
+        // Nothing changed, so the existing access grant and all of its data grants are reused
+        IncrementalGrant unchanged = accessAuthorization.generateGrantIncrementally(registration, agentRegistry, dataRegistries, GrantGenerationContext.sequential(), existing);
+        assertFalse(unchanged.isChanged());
+        assertSame(existing, unchanged.getAccessGrant());
+        assertTrue(unchanged.getCreatedDataGrants().isEmpty());
+        assertTrue(unchanged.getObsoleteDataGrants().isEmpty());
+        assertEquals(existing.getDataGrants().size(), unchanged.getReusedDataGrants().size());
+
+        // Drop a parent data grant and its inheriting data grants, so that only those are created again
+        DataGrant dropped = existing.getDataGrants().get(0);
+        List<DataGrant> remaining = new ArrayList<>();
+        for (DataGrant dataGrant : existing.getDataGrants()) {
+            if (dataGrant != dropped && !dropped.getUri().equals(dataGrant.getInheritsFrom())) { remaining.add(dataGrant); }
+        }
+        AccessGrant partial = new AccessGrant.Builder(registration.generateContainedUri(), saiSession).setGrantedBy(ALICE_ID).setGrantedAt(GRANT_TIME)
+                                                                                                     .setGrantee(PROJECTRON_ID).setAccessNeedGroup(PROJECTRON_NEED_GROUP)
+                                                                                                     .setDataGrants(remaining).build();
+        IncrementalGrant changed = accessAuthorization.generateGrantIncrementally(registration, agentRegistry, dataRegistries, GrantGenerationContext.sequential(), partial);
+        assertTrue(changed.isChanged());
+        assertEquals(existing.getDataGrants().size() - remaining.size(), changed.getCreatedDataGrants().size());
+        assertEquals(remaining.size(), changed.getReusedDataGrants().size());
+        assertTrue(changed.getObsoleteDataGrants().isEmpty());
+        checkAccessGrantAll(changed.getAccessGrant());
+        List<URI> grantUris = new ArrayList<>();
+        for (DataGrant dataGrant : changed.getAccessGrant().getDataGrants()) { grantUris.add(dataGrant.getUri()); }
+        for (DataGrant dataGrant : remaining) { assertTrue(grantUris.contains(dataGrant.getUri())); }
+        for (DataGrant dataGrant : changed.getAccessGrant().getDataGrants()) {
+            if (dataGrant.getInheritsFrom() != null) { assertTrue(grantUris.contains(dataGrant.getInheritsFrom())); }
+        }
+    }
+
     @Test
     @DisplayName("Generate access grant and associated data grants - Scope: AllFromRegistry")
     void testGenerateAccessGrantAllFromRegistry() throws SaiHttpNotFoundException, SaiException {
@@ -286,6 +393,44 @@ class AccessAuthorizationTests {
         checkAccessGrantAllFromRegistry(accessGrant);
     }
 
+    @Test
+    @DisplayName("Determine access authorizations affected by an added data registration")
+    void testAffectedByDataRegistration() throws SaiHttpNotFoundException, SaiException {
+        DataRegistration projects = DataRegistration.get(toMockUri(server, "/personal/data/projects/"), saiSession);
+        DataRegistration milestones = DataRegistration.get(toMockUri(server, "/personal/data/milestones/"), saiSession);
+        DataRegistration calendars = DataRegistration.get(toMockUri(server, "/personal/data/calendars/"), saiSession);
+        AccessAuthorization allFromRegistry = AccessAuthorization.get(toMockUri(server, "/authorization/registry-1"), saiSession);
+        AccessAuthorization selectedFromRegistry = AccessAuthorization.get(toMockUri(server, "/authorization/selected-1"), saiSession);
+        assertTrue(allFromRegistry.isAffectedBy(projects));
+        // Inherits from an AllFromRegistry data authorization
+        assertTrue(allFromRegistry.isAffectedBy(milestones));
+        assertFalse(allFromRegistry.isAffectedBy(calendars));
+        assertFalse(selectedFromRegistry.isAffectedBy(projects));
+        assertFalse(selectedFromRegistry.isAffectedBy(milestones));
+    }
+
+    @Test
+    @DisplayName("Regenerate grants for access authorizations affected by an added data registration")
+    void testRegrantAffectedByDataRegistration() throws SaiHttpNotFoundException, SaiException {
+        AuthorizationRegistry authorizationRegistry = AuthorizationRegistry.get(toMockUri(server, "/regrant/authorization/"), saiSession);
+        AgentRegistry agentRegistry = AgentRegistry.get(toMockUri(server, "/registry-1-agents/"), saiSession);
+        List<DataRegistry> dataRegistries = Arrays.asList(DataRegistry.get(toMockUri(server, "/personal/data/"), saiSession));
+        DataRegistration projects = DataRegistration.get(toMockUri(server, "/personal/data/projects/"), saiSession);
+        DataRegistration calendars = DataRegistration.get(toMockUri(server, "/personal/data/calendars/"), saiSession);
+
+        RegrantResult result = authorizationRegistry.regrant(projects, agentRegistry, dataRegistries, GrantGenerationContext.sequential());
+        assertEquals(projects.getUri(), result.getDataRegistration());
+        assertEquals(1, result.getAuthorizationsChecked());
+        assertEquals(Arrays.asList(toMockUri(server, "/authorization/registry-1")), result.getAffected());
+        checkAccessGrantAllFromRegistry(result.getGrants().get(toMockUri(server, "/authorization/registry-1")).getAccessGrant());
+
+        // The authorization was indexed by shape tree the first time, so it isn't loaded again for another shape tree
+        RegrantResult unaffected = authorizationRegistry.regrant(calendars, agentRegistry, dataRegistries, GrantGenerationContext.sequential());
+        assertEquals(0, unaffected.getAuthorizationsChecked());
+        assertTrue(unaffected.getAffected().isEmpty());
+        assertTrue(unaffected.getChanged().isEmpty());
+    }
+
     @Test
     @DisplayName("Generate access grant and associated data grants - Scope: SelectedFromRegistry")
     void testGenerateAccessGrantSelectedFromRegistry() throws SaiHttpNotFoundException, SaiException {
@@ -320,6 +465,99 @@ class AccessAuthorizationTests {
         checkAccessGrantAllFromAgent(accessGrant);
     }
 
+    @Test
+    @DisplayName("Plan access grant and associated data grants - Scope: AllFromRegistry")
+    void testPlanAccessGrantAllFromRegistry() throws SaiHttpNotFoundException, SaiException {
+        URI accessUri = toMockUri(server, "/authorization/registry-1");
+        URI agentRegistryUri = toMockUri(server, "/registry-1-agents/");
+        URI dataRegistryUri = toMockUri(server, "/personal/data/");
+        URI registrationUri = toMockUri(server, "/registry-1-agents/registry-1-projectron/");
+        AgentRegistry agentRegistry = AgentRegistry.get(agentRegistryUri, saiSession);
+        ApplicationRegistration registration = ApplicationRegistration.get(registrationUri, saiSession);
+        DataRegistry dataRegistry = DataRegistry.get(dataRegistryUri, saiSession);
+        AccessAuthorization accessAuthorization = AccessAuthorization.get(accessUri, saiSession);
+        GrantPlan plan = accessAuthorization.planGrant(registration, agentRegistry, Arrays.asList(dataRegistry), GrantGenerationContext.sequential());
+        // Only the project data authorization is primary - the others inherit from it
+        assertEquals(1, plan.getCosts().size());
+        GrantPlan.Cost cost = plan.getCosts().get(0);
+        assertEquals(SCOPE_ALL_FROM_REGISTRY, cost.getScopeOfAuthorization());
+        assertEquals(1, cost.getDataRegistrations());
+        assertEquals(4, cost.getSourceDataGrants());
+        assertEquals(0, cost.getCandidateAgents());
+        assertEquals(0, plan.getRemoteFetches());
+        assertEquals(0, plan.getLocalRegistrationFetches());
+        assertTrue(plan.isComplete());
+        AccessGrant accessGrant = plan.execute();
+        assertEquals(plan.getPlannedDataGrants(), accessGrant.getDataGrants().size());
+        checkAccessGrantAllFromRegistry(accessGrant);
+    }
+
+    @Test
+    @DisplayName("Plan access grant and associated data grants - Scope: AllFromAgent - Resolve with remote resources already fetched")
+    void testPlanAccessGrantAllFromAgent() throws SaiHttpNotFoundException, SaiException {
+        URI accessUri = toMockUri(server, "/authorization/agent-1");
+        URI agentRegistryUri = toMockUri(server, "/agent-1-agents/");
+        URI dataRegistryUri = toMockUri(server, "/personal/data/");
+        URI registrationUri = toMockUri(server, "/agent-1-agents/agent-1-projectron/");
+        AgentRegistry agentRegistry = AgentRegistry.get(agentRegistryUri, saiSession);
+        ApplicationRegistration registration = ApplicationRegistration.get(registrationUri, saiSession);
+        DataRegistry dataRegistry = DataRegistry.get(dataRegistryUri, saiSession);
+        AccessAuthorization accessAuthorization = AccessAuthorization.get(accessUri, saiSession);
+        GrantGenerationContext context = GrantGenerationContext.sequential();
+
+        // Nothing has been fetched from other social agents, so delegated grants can't be counted yet
+        GrantPlan plan = accessAuthorization.planGrant(registration, agentRegistry, Arrays.asList(dataRegistry), context);
+        assertFalse(plan.isComplete());
+        assertTrue(plan.isUnknownChildFetches());
+        assertTrue(plan.getRemoteFetches() > 0);
+        assertEquals(0, plan.getFetchesSaved());
+        assertEquals(0, context.getFetchCount());
+        // Finding the candidate agents still reads the one local social agent registration for each primary authorization
+        for (GrantPlan.Cost cost : plan.getCosts()) { assertEquals(1, cost.getLocalRegistrationFetches()); }
+        assertEquals(plan.getCosts().size(), plan.getLocalRegistrationFetches());
+        AccessGrant accessGrant = plan.execute();
+        checkAccessGrantAllFromAgent(accessGrant);
+        // The data grants linked from the remote access grants couldn't be counted, so the plan is a lower bound
+        assertTrue(context.getChildFetchCount() > 0);
+        assertEquals(plan.getRemoteFetches(), context.getFetchCount());
+        assertTrue(plan.getRemoteFetches() < context.getFetchCount() + context.getChildFetchCount());
+
+        // Planning again with the same context uses the remote resources fetched by the first generation
+        GrantPlan resolved = accessAuthorization.planGrant(registration, agentRegistry, Arrays.asList(dataRegistry), context);
+        assertTrue(resolved.isComplete());
+        assertFalse(resolved.isUnknownChildFetches());
+        assertEquals(0, resolved.getRemoteFetches());
+        assertEquals(context.getFetchCount() + context.getChildFetchCount(), resolved.getFetchesSaved());
+        assertEquals(accessGrant.getDataGrants().size(), resolved.getPlannedDataGrants());
+    }
+
+    @Test
+    @DisplayName("Generate access grant and associated data grants - Scope: AllFromAgent - Fetch remote grants concurrently")
+    void testGenerateAccessGrantAllFromAgentConcurrentFetching() throws SaiHttpNotFoundException, SaiException {
+        URI accessUri = toMockUri(server, "/authorization/agent-1");
+        URI agentRegistryUri = toMockUri(server, "/agent-1-agents/");
+        URI dataRegistryUri = toMockUri(server, "/personal/data/");
+        URI registrationUri = toMockUri(server, "/agent-1-agents/agent-1-projectron/");
+        AgentRegistry agentRegistry = AgentRegistry.get(agentRegistryUri, saiSession);
+        ApplicationRegistration registration = ApplicationRegistration.get(registrationUri, saiSession);
+        DataRegistry dataRegistry = DataRegistry.get(dataRegistryUri, saiSession);
+        AccessAuthorization accessAuthorization = AccessAuthorization.get(accessUri, saiSession);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        ExecutorService fetchExecutor = Executors.newFixedThreadPool(4);
+        try {
+            GrantGenerationContext context = new GrantGenerationContext(executor).setRemoteFetching(fetchExecutor, 2, Duration.ofSeconds(5));
+            assertTrue(context.isConcurrentFetching());
+            AccessGrant accessGrant = accessAuthorization.generateGrant(registration, agentRegistry, Arrays.asList(dataRegistry), context);
+            checkAccessGrantAllFromAgent(accessGrant);
+            // The generation executor can't also be used to fetch, since generation waits on the fetches
+            assertThrows(IllegalArgumentException.class, () -> new GrantGenerationContext(executor).setRemoteFetching(executor, 2, Duration.ofSeconds(5)));
+            assertThrows(IllegalArgumentException.class, () -> new GrantGenerationContext(null).setRemoteFetching(fetchExecutor, 0, Duration.ofSeconds(5)));
+        } finally {
+            executor.shutdownNow();
+            fetchExecutor.shutdownNow();
+        }
+    }
+
     @Test
     @DisplayName("Generate access grant and associated data grants - no matching data registrations")
     void generateDataGrantsNoMatchingRegistrations() throws SaiHttpNotFoundException, SaiException {
@@ -19,8 +19,14 @@ import org.junit.jupiter.api.Test;
 import java.net.URI;
 import java.time.OffsetDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
 
 import static com.janeirodigital.mockwebserver.DispatcherHelper.*;
 import static com.janeirodigital.mockwebserver.MockWebServerHelper.toMockUri;
@@ -64,6 +70,7 @@ class AccessGrantTests {
         mockOnPut(dispatcher, "/all-1-agents/all-1-projectron/all-1-grant", "http/201");
         mockOnGet(dispatcher, "/all-1-agents/all-1-projectron/all-1-grant-personal-project", "agents/alice/projectron-all/all-1-grant-personal-project-ttl");
         mockOnPut(dispatcher, "/all-1-agents/all-1-projectron/all-1-grant-personal-project", "http/201");
+        mockOnDelete(dispatcher, "/all-1-agents/all-1-projectron/all-1-grant-personal-project", "http/204");
         mockOnGet(dispatcher, "/all-1-agents/all-1-projectron/all-1-grant-personal-milestone", "agents/alice/projectron-all/all-1-grant-personal-milestone-ttl");
         mockOnPut(dispatcher, "/all-1-agents/all-1-projectron/all-1-grant-personal-milestone", "http/201");
         mockOnGet(dispatcher, "/all-1-agents/all-1-projectron/all-1-grant-personal-issue", "agents/alice/projectron-all/all-1-grant-personal-issue-ttl");
@@ -279,6 +286,94 @@ class AccessGrantTests {
         assertDoesNotThrow(() -> accessGrant.create());
     }
 
+    @Test
+    @DisplayName("Create new access grant and linked data grants concurrently")
+    void createAllAccessGrant() throws SaiException {
+        URI accessUri = toMockUri(server, "/all-1-agents/all-1-projectron/all-1-grant");
+        URI projectUri = toMockUri(server, "/all-1-agents/all-1-projectron/all-1-grant-personal-project");
+        URI milestoneUri = toMockUri(server, "/all-1-agents/all-1-projectron/all-1-grant-personal-milestone");
+        URI issueUri = toMockUri(server, "/all-1-agents/all-1-projectron/all-1-grant-personal-issue");
+        URI taskUri = toMockUri(server, "/all-1-agents/all-1-projectron/all-1-grant-personal-task");
+
+        List<DataGrant> dataGrants = Arrays.asList(buildDataGrant(projectUri, PROJECTS_DATA_REGISTRATION, PROJECTRON_PROJECT_NEED),
+                                                   buildDataGrant(milestoneUri, MILESTONES_DATA_REGISTRATION, PROJECTRON_MILESTONE_NEED),
+                                                   buildDataGrant(issueUri, ISSUES_DATA_REGISTRATION, PROJECTRON_ISSUE_NEED),
+                                                   buildDataGrant(taskUri, TASKS_DATA_REGISTRATION, PROJECTRON_TASK_NEED));
+
+        AccessGrant.Builder accessBuilder = new AccessGrant.Builder(accessUri, saiSession);
+        AccessGrant accessGrant = accessBuilder.setGrantedBy(ALICE_ID).setGrantedAt(GRANT_TIME)
+                                               .setGrantee(PROJECTRON_ID).setAccessNeedGroup(PROJECTRON_NEED_GROUP)
+                                               .setDataGrants(dataGrants).build();
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            GrantPersistence persistence = accessGrant.createAll(executor, 4);
+            assertEquals(accessUri, persistence.getAccessGrantUri());
+            assertEquals(4, persistence.getDataGrantsCreated());
+            assertEquals(Arrays.asList(projectUri, milestoneUri, issueUri, taskUri, accessUri), new ArrayList<>(persistence.getTimings().keySet()));
+            for (DataGrant dataGrant : dataGrants) { assertTrue(dataGrant.isExists()); }
+            assertTrue(accessGrant.isExists());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    @DisplayName("Delete created data grants when an access grant can't be fully created")
+    void failToCreateAllAccessGrant() throws SaiException {
+        URI accessUri = toMockUri(server, "/all-1-agents/all-1-projectron/all-1-grant");
+        URI projectUri = toMockUri(server, "/all-1-agents/all-1-projectron/all-1-grant-personal-project");
+        URI missingUri = toMockUri(server, "/all-1-agents/all-1-projectron/all-1-grant-personal-missing");
+
+        DataGrant projectGrant = buildDataGrant(projectUri, PROJECTS_DATA_REGISTRATION, PROJECTRON_PROJECT_NEED);
+        DataGrant missingGrant = buildDataGrant(missingUri, MILESTONES_DATA_REGISTRATION, PROJECTRON_MILESTONE_NEED);
+
+        AccessGrant.Builder accessBuilder = new AccessGrant.Builder(accessUri, saiSession);
+        AccessGrant accessGrant = accessBuilder.setGrantedBy(ALICE_ID).setGrantedAt(GRANT_TIME)
+                                               .setGrantee(PROJECTRON_ID).setAccessNeedGroup(PROJECTRON_NEED_GROUP)
+                                               .setDataGrants(Arrays.asList(projectGrant, missingGrant)).build();
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            assertThrows(SaiException.class, () -> accessGrant.createAll(executor, 2));
+            assertFalse(projectGrant.isExists());
+            assertFalse(missingGrant.isExists());
+            assertFalse(accessGrant.isExists());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    @DisplayName("Create nothing when the executor rejects data grant creation")
+    void failToCreateAllRejected() throws SaiException {
+        URI accessUri = toMockUri(server, "/all-1-agents/all-1-projectron/all-1-grant");
+        URI projectUri = toMockUri(server, "/all-1-agents/all-1-projectron/all-1-grant-personal-project");
+        URI milestoneUri = toMockUri(server, "/all-1-agents/all-1-projectron/all-1-grant-personal-milestone");
+
+        DataGrant projectGrant = buildDataGrant(projectUri, PROJECTS_DATA_REGISTRATION, PROJECTRON_PROJECT_NEED);
+        DataGrant milestoneGrant = buildDataGrant(milestoneUri, MILESTONES_DATA_REGISTRATION, PROJECTRON_MILESTONE_NEED);
+
+        AccessGrant.Builder accessBuilder = new AccessGrant.Builder(accessUri, saiSession);
+        AccessGrant accessGrant = accessBuilder.setGrantedBy(ALICE_ID).setGrantedAt(GRANT_TIME)
+                                               .setGrantee(PROJECTRON_ID).setAccessNeedGroup(PROJECTRON_NEED_GROUP)
+                                               .setDataGrants(Arrays.asList(projectGrant, milestoneGrant)).build();
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        executor.shutdownNow();
+        SaiException raised = assertThrows(SaiException.class, () -> accessGrant.createAll(executor, 2));
+        assertTrue(raised.getCause() instanceof RejectedExecutionException);
+        assertFalse(projectGrant.isExists());
+        assertFalse(milestoneGrant.isExists());
+        assertFalse(accessGrant.isExists());
+    }
+
+    @Test
+    @DisplayName("Fail to create access grant with no concurrent data grant creation allowed")
+    void failToCreateAllNoConcurrency() throws SaiException {
+        URI accessUri = toMockUri(server, "/all-1-agents/all-1-projectron/all-1-grant");
+        AccessGrant.Builder accessBuilder = new AccessGrant.Builder(accessUri, saiSession);
+        AccessGrant accessGrant = accessBuilder.setGrantedBy(ALICE_ID).setGrantee(PROJECTRON_ID).setAccessNeedGroup(PROJECTRON_NEED_GROUP).build();
+        assertThrows(IllegalArgumentException.class, () -> accessGrant.createAll(null, 0));
+    }
+
     @Test
     @DisplayName("Get an access grant and linked data grants - scope: all")
     void getAccessGrant() throws SaiHttpNotFoundException, SaiException {
@@ -296,6 +391,30 @@ class AccessGrantTests {
         checkAccessGrant(reloaded);
     }
 
+    @Test
+    @DisplayName("Get an access grant and linked data grants concurrently - scope: all")
+    void getAccessGrantConcurrently() throws SaiHttpNotFoundException, SaiException {
+        URI uri = toMockUri(server, "/all-1-agents/all-1-projectron/all-1-grant");
+        SaiSession concurrentSession = new SaiSession(mock(AuthorizedSession.class), new HttpClientFactory(false, false, false));
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            concurrentSession.setChildLoading(executor, 4);
+            AccessGrant accessGrant = AccessGrant.get(uri, concurrentSession);
+            checkAccessGrant(accessGrant);
+            ReadableAccessGrant readableGrant = ReadableAccessGrant.get(uri, concurrentSession);
+            checkReadableAccessGrant(readableGrant);
+            // Data grants keep the order they were loaded in sequentially
+            List<URI> expected = new ArrayList<>();
+            for (DataGrant dataGrant : AccessGrant.get(uri, saiSession).getDataGrants()) { expected.add(dataGrant.getUri()); }
+            List<URI> actual = new ArrayList<>();
+            for (DataGrant dataGrant : accessGrant.getDataGrants()) { actual.add(dataGrant.getUri()); }
+            assertEquals(expected, actual);
+        } finally {
+            executor.shutdownNow();
+        }
+        assertThrows(IllegalArgumentException.class, () -> concurrentSession.setChildLoading(null, 0));
+    }
+
     @Test
     @DisplayName("Get a readable access grant and linked data grants - scope: all")
     void getReadableAccessGrant() throws SaiHttpNotFoundException, SaiException {
@@ -351,6 +470,12 @@ class AccessGrantTests {
         assertEquals(12, accessGrant.getDataGrants().size());
         assertEquals(2, accessGrant.getDataOwners().size());
         assertEquals(3, accessGrant.findDataGrants(PROJECT_TREE).size());
+        assertTrue(accessGrant.findDataGrants(MISSING_TREE).isEmpty());
+        assertTrue(accessGrant.findDataGrants(JARVIS_ID, PROJECT_TREE).isEmpty());
+        assertThrows(UnsupportedOperationException.class, () -> accessGrant.findDataGrants(PROJECT_TREE).clear());
+        assertThrows(UnsupportedOperationException.class, () -> accessGrant.getDataOwners().clear());
+        // 2 owners, 4 shape trees with 12 grants, and 2 owners with 4 shape trees each with 12 grants between them
+        assertEquals(2 + (4 + 12) + (2 + 8 + 12), accessGrant.getIndexSize());
         for (ReadableDataGrant readableDataGrant : accessGrant.getDataGrants()) {
             if (readableDataGrant instanceof AllFromRegistryDataGrant) {
                 AllFromRegistryDataGrant specificGrant = (AllFromRegistryDataGrant) readableDataGrant;
@@ -509,6 +634,54 @@ class AccessGrantTests {
         }
     }
 
+    @Test
+    @DisplayName("Decide access with a compiled engine - Scope: AllFromRegistry")
+    void decideAccessAllFromRegistry() throws SaiHttpNotFoundException, SaiException {
+        URI grantUri = toMockUri(server, "/registry-1-agents/registry-1-projectron/registry-1-grant");
+        ReadableAccessGrant accessGrant = ReadableAccessGrant.get(grantUri, saiSession);
+        AccessDecisionEngine engine = accessGrant.getDecisionEngine();
+        // Every data instance reached by walking the data grants is permitted the access modes of its grant
+        int checked = 0;
+        for (ReadableDataGrant dataGrant : accessGrant.getDataGrants()) {
+            if (!dataGrant.getRegisteredShapeTree().equals(PROJECT_TREE) && !dataGrant.getRegisteredShapeTree().equals(MILESTONE_TREE)) { continue; }
+            for (DataInstance dataInstance : dataGrant.getDataInstances()) {
+                URI parentUri = dataInstance.getParent() == null ? null : dataInstance.getParent().getUri();
+                Set<RDFNode> modes = engine.getAccessModes(dataGrant.getDataOwner(), dataGrant.getRegisteredShapeTree(), dataInstance.getUri(), parentUri);
+                assertTrue(modes.containsAll(dataGrant.getAccessModes()));
+                for (RDFNode mode : dataGrant.getAccessModes()) { assertTrue(engine.isPermitted(dataGrant.getDataOwner(), dataGrant.getRegisteredShapeTree(), dataInstance.getUri(), parentUri, mode)); }
+                assertFalse(engine.isPermitted(dataGrant.getDataOwner(), dataGrant.getRegisteredShapeTree(), dataInstance.getUri(), parentUri, ACL_CONTROL));
+                checked++;
+            }
+        }
+        assertEquals(6, checked);
+        // Nothing is permitted outside of the granted owners, shape trees, and data registrations
+        assertTrue(engine.getAccessModes(BOB_ID, PROJECT_TREE, PROJECT_1, null).isEmpty());
+        assertTrue(engine.getAccessModes(ALICE_ID, MISSING_TREE, PROJECT_1, null).isEmpty());
+        assertTrue(engine.getAccessModes(ALICE_ID, PROJECT_TREE, toMockUri(server, "/work/data/projects/p9"), null).isEmpty());
+        // A reloaded access grant compiles its own engine
+        assertNotSame(engine, accessGrant.reload().getDecisionEngine());
+    }
+
+    @Test
+    @DisplayName("Decide access with a compiled engine - Scope: SelectedFromRegistry")
+    void decideAccessSelectedFromRegistry() throws SaiHttpNotFoundException, SaiException {
+        URI grantUri = toMockUri(server, "/selected-1-agents/selected-1-projectron/selected-1-grant");
+        ReadableAccessGrant accessGrant = ReadableAccessGrant.get(grantUri, saiSession);
+        AccessDecisionEngine engine = accessGrant.getDecisionEngine();
+        URI selectedProject = toMockUri(server, "/personal/data/projects/project-1");
+        URI unselectedProject = toMockUri(server, "/personal/data/projects/project-9");
+        URI milestone = toMockUri(server, "/personal/data/milestones/milestone-1");
+        SelectedFromRegistryDataGrant projectGrant = (SelectedFromRegistryDataGrant) accessGrant.findDataGrants(ALICE_ID, PROJECT_TREE).get(0);
+        ReadableDataGrant milestoneGrant = accessGrant.findDataGrants(ALICE_ID, MILESTONE_TREE).get(0);
+        // Only selected instances are permitted, even within the same data registration
+        assertEquals(new HashSet<>(projectGrant.getAccessModes()), engine.getAccessModes(ALICE_ID, PROJECT_TREE, selectedProject, null));
+        assertTrue(engine.getAccessModes(ALICE_ID, PROJECT_TREE, unselectedProject, null).isEmpty());
+        // Child instances are permitted through a selected parent
+        assertEquals(new HashSet<>(milestoneGrant.getAccessModes()), engine.getAccessModes(ALICE_ID, MILESTONE_TREE, milestone, selectedProject));
+        assertTrue(engine.getAccessModes(ALICE_ID, MILESTONE_TREE, milestone, unselectedProject).isEmpty());
+        assertTrue(engine.getAccessModes(ALICE_ID, MILESTONE_TREE, milestone, null).isEmpty());
+    }
+
     @Test
     @DisplayName("Fail to get data instances from readable data grant scoped with AllFromRegistry - instance missing")
     void failToGetDataInstancesAllFromRegistryMissing() throws SaiHttpNotFoundException, SaiException {
@@ -670,6 +843,13 @@ class AccessGrantTests {
         milestone.getParent().getUri().equals(PROJECT_1);
     }
 
+    private DataGrant buildDataGrant(URI uri, URI dataRegistration, URI accessNeed) throws SaiException {
+        DataGrant.Builder builder = new DataGrant.Builder(uri, saiSession);
+        return builder.setDataOwner(ALICE_ID).setGrantee(PROJECTRON_ID).setRegisteredShapeTree(PROJECT_TREE)
+                      .setDataRegistration(dataRegistration).setAccessModes(ACCESS_MODES).setCreatorAccessModes(CREATOR_ACCESS_MODES)
+                      .setScopeOfGrant(SCOPE_ALL_FROM_REGISTRY).setAccessNeed(accessNeed).build();
+    }
+
     private void checkAccessGrant(AccessGrant accessGrant) {
         assertNotNull(accessGrant);
         assertEquals(ALICE_ID, accessGrant.getGrantedBy());
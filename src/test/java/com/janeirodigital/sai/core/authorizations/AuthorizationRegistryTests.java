@@ -44,6 +44,8 @@ class AuthorizationRegistryTests {
         // GET authorization registry in Turtle
         mockOnGet(dispatcher, "/authorization/", "authorization/authorization-registry-ttl");
         mockOnGet(dispatcher, "/empty/authorization/", "authorization/authorization-registry-empty-ttl");
+        // GET authorization registry in Turtle where one access authorization replaces another
+        mockOnGet(dispatcher, "/replaced/authorization/", "authorization/authorization-registry-replaced-ttl");
         
         mockOnGet(dispatcher, "/authorization/all-1", "authorization/all/all-1-ttl");
         mockOnGet(dispatcher, "/authorization/all-1-project", "authorization/all/all-1-project-ttl");
@@ -52,6 +54,7 @@ class AuthorizationRegistryTests {
         mockOnGet(dispatcher, "/authorization/all-1-task", "authorization/all/all-1-task-ttl");
 
         mockOnGet(dispatcher, "/authorization/all-2", "authorization/all/all-2-ttl");
+        mockOnGet(dispatcher, "/authorization/all-3", "authorization/all/all-3-ttl");
         mockOnGet(dispatcher, "/authorization/all-2-note", "authorization/all/all-2-note-ttl");
 
 
@@ -148,6 +151,76 @@ class AuthorizationRegistryTests {
         assertNull(fail);
     }
 
+    @Test
+    @DisplayName("Find the current access authorization for a grantee")
+    void findCurrentAccessAuthorization() throws SaiException, SaiHttpNotFoundException {
+        URI uri = toMockUri(server, "/replaced/authorization/");
+        URI grantee = URI.create("https://projectron.example/id");
+        URI currentUri = toMockUri(server, "/authorization/all-3");
+        AuthorizationRegistry authzRegistry = AuthorizationRegistry.get(uri, saiSession);
+        AccessAuthorization current = authzRegistry.getAccessAuthorizations().findCurrent(grantee);
+        assertEquals(currentUri, current.getUri());
+        assertEquals(toMockUri(server, "/authorization/all-1"), current.getReplaces());
+        assertEquals(currentUri, authzRegistry.getAccessAuthorizations().getIndex().get(grantee));
+        // Once indexed, only the current authorization and its data authorizations are loaded
+        int requests = server.getRequestCount();
+        assertEquals(currentUri, authzRegistry.getAccessAuthorizations().findCurrent(grantee).getUri());
+        assertEquals(requests + 1 + current.getDataAuthorizations().size(), server.getRequestCount());
+        assertNull(authzRegistry.getAccessAuthorizations().findCurrent(URI.create("https://ghost.example/id")));
+    }
+
+    @Test
+    @DisplayName("Index a replacing access authorization as current when added")
+    void indexReplacingAccessAuthorization() throws SaiException, SaiHttpNotFoundException, SaiAlreadyExistsException {
+        URI uri = toMockUri(server, "/authorization/");
+        URI grantee = URI.create("https://projectron.example/id");
+        URI originalUri = toMockUri(server, "/authorization/all-1");
+        URI replacingUri = toMockUri(server, "/authorization/all-replacing-1");
+        AuthorizationRegistry authzRegistry = AuthorizationRegistry.get(uri, saiSession);
+        assertEquals(originalUri, authzRegistry.getAccessAuthorizations().findCurrent(grantee).getUri());
+        AccessAuthorization replacing = mock(AccessAuthorization.class);
+        when(replacing.getUri()).thenReturn(replacingUri);
+        when(replacing.getGrantee()).thenReturn(grantee);
+        when(replacing.getReplaces()).thenReturn(originalUri);
+        authzRegistry.add(replacing);
+        assertEquals(replacingUri, authzRegistry.getAccessAuthorizations().getIndex().get(grantee));
+        authzRegistry.remove(replacing);
+        assertNull(authzRegistry.getAccessAuthorizations().getIndex().get(grantee));
+    }
+
+    @Test
+    @DisplayName("Index access authorizations added locally without fetching them")
+    void indexLocallyAddedAccessAuthorizations() throws SaiException, SaiHttpNotFoundException, SaiAlreadyExistsException {
+        URI uri = toMockUri(server, "/empty/authorization/");
+        URI firstGrantee = URI.create("https://nevernote.example/id");
+        URI secondGrantee = URI.create("https://performchart.example/id");
+        URI firstUri = toMockUri(server, "/authorization/local-1");
+        URI secondUri = toMockUri(server, "/authorization/local-2");
+        AuthorizationRegistry authzRegistry = AuthorizationRegistry.get(uri, saiSession);
+        AccessAuthorization first = mock(AccessAuthorization.class);
+        when(first.getUri()).thenReturn(firstUri);
+        when(first.getGrantee()).thenReturn(firstGrantee);
+        AccessAuthorization second = mock(AccessAuthorization.class);
+        when(second.getUri()).thenReturn(secondUri);
+        when(second.getGrantee()).thenReturn(secondGrantee);
+        // Neither authorization has been stored, so summarizing either of them from the server would fail
+        int requests = server.getRequestCount();
+        authzRegistry.add(first);
+        authzRegistry.add(second);
+        assertEquals(requests, server.getRequestCount());
+        assertEquals(Arrays.asList(firstUri, secondUri), authzRegistry.getAccessAuthorizations().getCurrentUris());
+        assertEquals(firstUri, authzRegistry.getAccessAuthorizations().getIndex().get(firstGrantee));
+    }
+
+    @Test
+    @DisplayName("Find no current access authorization among authorizations that don't exist")
+    void findCurrentAccessAuthorizationMissing() throws SaiException, SaiHttpNotFoundException {
+        URI uri = toMockUri(server, "/missing-authorizations/authorization/");
+        AuthorizationRegistry authzRegistry = AuthorizationRegistry.get(uri, saiSession);
+        assertNull(authzRegistry.getAccessAuthorizations().findCurrent(URI.create("https://projectron.example/id")));
+        assertTrue(authzRegistry.getAccessAuthorizations().getCurrentUris().isEmpty());
+    }
+
     @Test
     @DisplayName("Fail to iterate access authorizations - missing authorization")
     void failToFindAccessAuthorizationMissing() throws SaiException, SaiHttpNotFoundException {
@@ -0,0 +1,109 @@
+package com.janeirodigital.sai.core.authorizations;
+
+import com.janeirodigital.sai.core.exceptions.SaiException;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GrantGenerationContextTests {
+
+    @Test
+    @DisplayName("Start the fetch timeout of each agent once its fetches start")
+    void startTimeoutWhenFetching() throws ExecutionException, TimeoutException, InterruptedException {
+        ExecutorService fetchExecutor = Executors.newFixedThreadPool(4);
+        try {
+            // Only one fetch per host at a time, so the last agent waits for the other three before it starts
+            GrantGenerationContext context = new GrantGenerationContext(null).setRemoteFetching(fetchExecutor, 1, Duration.ofMillis(300));
+            List<GrantGenerationContext.RemoteFetch<URI>> fetches = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                URI uri = URI.create("https://bob.example/agents/agent-" + i);
+                fetches.add(context.submit(() -> context.fetch(uri, fetched -> {
+                    sleep(150);
+                    return fetched;
+                })));
+            }
+            for (int i = 0; i < 4; i++) { assertEquals(URI.create("https://bob.example/agents/agent-" + i), fetches.get(i).await()); }
+            assertEquals(4, context.getFetchCount());
+        } finally {
+            fetchExecutor.shutdownNow();
+        }
+    }
+
+    @Test
+    @DisplayName("Time out an agent whose fetches take longer than the fetch timeout")
+    void timeoutSlowFetch() {
+        ExecutorService fetchExecutor = Executors.newFixedThreadPool(1);
+        try {
+            GrantGenerationContext context = new GrantGenerationContext(null).setRemoteFetching(fetchExecutor, 1, Duration.ofMillis(50));
+            URI uri = URI.create("https://bob.example/agents/slow");
+            GrantGenerationContext.RemoteFetch<URI> fetch = context.submit(() -> context.fetch(uri, fetched -> {
+                sleep(1000);
+                return fetched;
+            }));
+            assertThrows(TimeoutException.class, fetch::await);
+            fetch.cancel();
+            assertThrows(IllegalStateException.class, () -> GrantGenerationContext.sequential().submit(() -> uri));
+        } finally {
+            fetchExecutor.shutdownNow();
+        }
+    }
+
+    @Test
+    @DisplayName("Time out an agent waiting on another agent's fetch of the same resource")
+    void timeoutWaitingOnSharedFetch() throws SaiException {
+        ExecutorService fetchExecutor = Executors.newFixedThreadPool(2);
+        CountDownLatch fetching = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        try {
+            GrantGenerationContext context = new GrantGenerationContext(null).setRemoteFetching(fetchExecutor, 2, Duration.ofMillis(100));
+            URI uri = URI.create("https://bob.example/agents/shared");
+            GrantGenerationContext.RemoteFetch<URI> first = context.submit(() -> context.fetch(uri, fetched -> {
+                fetching.countDown();
+                await(release);
+                return fetched;
+            }));
+            await(fetching);
+            // The second agent never fetches anything itself, but still times out waiting on the first
+            GrantGenerationContext.RemoteFetch<URI> second = context.submit(() -> context.fetch(uri, fetched -> fetched));
+            assertTimeoutPreemptively(Duration.ofSeconds(2), () -> {
+                Exception ex = assertThrows(Exception.class, second::await);
+                assertTrue(ex instanceof TimeoutException || ex.getCause() instanceof SaiException);
+            });
+            assertThrows(TimeoutException.class, first::await);
+            assertEquals(1, context.getFetchCount());
+        } finally {
+            release.countDown();
+            fetchExecutor.shutdownNow();
+        }
+    }
+
+    private static void await(CountDownLatch latch) throws SaiException {
+        try {
+            latch.await();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new SaiException("Interrupted", ex);
+        }
+    }
+
+    private static void sleep(long millis) throws SaiException {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new SaiException("Interrupted", ex);
+        }
+    }
+
+}
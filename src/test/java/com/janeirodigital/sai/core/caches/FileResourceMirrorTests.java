@@ -0,0 +1,136 @@
+package com.janeirodigital.sai.core.caches;
+
+import com.janeirodigital.sai.authentication.AuthorizedSession;
+import com.janeirodigital.sai.core.exceptions.SaiException;
+import com.janeirodigital.sai.core.http.HttpClientFactory;
+import com.janeirodigital.sai.core.resources.TestableReadableResource;
+import com.janeirodigital.sai.core.sessions.SaiSession;
+import com.janeirodigital.sai.httputils.SaiHttpNotFoundException;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+
+import static com.janeirodigital.mockwebserver.MockWebServerHelper.toMockUri;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+class FileResourceMirrorTests {
+
+    private static final String ETAG = "\"v1\"";
+
+    private SaiSession saiSession;
+    private MockWebServer server;
+    private FileResourceMirror mirror;
+
+    @TempDir
+    Path directory;
+
+    @BeforeEach
+    void beforeEach() throws SaiException, IOException {
+        AuthorizedSession mockSession = mock(AuthorizedSession.class);
+        saiSession = new SaiSession(mockSession, new HttpClientFactory(false, false, false));
+        mirror = new FileResourceMirror(directory);
+        saiSession.setResourceMirror(mirror);
+        String body = loadBody("fixtures/resources/crud-resource.ttl");
+        // Serve the resource with an entity tag, and confirm it is unchanged when it is presented
+        server = new MockWebServer();
+        server.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) {
+                if (!request.getPath().startsWith("/mirrored/")) { return new MockResponse().setResponseCode(404); }
+                if (ETAG.equals(request.getHeader("If-None-Match"))) { return new MockResponse().setResponseCode(304).setHeader("ETag", ETAG); }
+                return new MockResponse().setResponseCode(200).setHeader("Content-Type", "text/turtle").setHeader("ETag", ETAG).setBody(body);
+            }
+        });
+    }
+
+    @Test
+    @DisplayName("Store, get, and evict a mirrored resource")
+    void storeGetEvictMirroredResource() throws SaiException {
+        URI uri = URI.create("https://data.example/resource#thing");
+        assertNull(mirror.get(uri, null));
+        mirror.store(new MirroredResource(uri, ETAG, "text/turtle", "<#thing> a <#Thing> ."), null);
+        MirroredResource mirrored = mirror.get(URI.create("https://data.example/resource"), null);
+        assertNotNull(mirrored);
+        assertEquals(ETAG, mirrored.getEtag());
+        assertEquals("text/turtle", mirrored.getContentType());
+        assertEquals("<#thing> a <#Thing> .", mirrored.getBody());
+        assertEquals(1, mirror.size());
+        mirror.evict(uri);
+        assertNull(mirror.get(uri, null));
+        assertEquals(0, mirror.size());
+    }
+
+    @Test
+    @DisplayName("Mirror a resource separately for each agent")
+    void storeMirroredResourcePerAgent() throws SaiException {
+        URI uri = URI.create("https://data.example/resource");
+        URI alice = URI.create("https://alice.example/id#me");
+        URI bob = URI.create("https://bob.example/id#me");
+        mirror.store(new MirroredResource(uri, ETAG, "text/turtle", "<#thing> a <#Thing> ."), alice);
+        mirror.store(new MirroredResource(uri, "\"v2\"", "text/turtle", "<#other> a <#Thing> ."), bob);
+        assertNull(mirror.get(uri, null));
+        assertEquals(ETAG, mirror.get(uri, alice).getEtag());
+        assertEquals("<#thing> a <#Thing> .", mirror.get(uri, alice).getBody());
+        assertEquals("\"v2\"", mirror.get(uri, bob).getEtag());
+        assertEquals("<#other> a <#Thing> .", mirror.get(uri, bob).getBody());
+        assertEquals(2, mirror.size());
+        mirror.evict(uri);
+        assertNull(mirror.get(uri, alice));
+        assertNull(mirror.get(uri, bob));
+        assertEquals(0, mirror.size());
+    }
+
+    @Test
+    @DisplayName("Mirrored resources survive a new mirror on the same directory")
+    void reopenFileResourceMirror() throws SaiException {
+        URI uri = URI.create("https://data.example/resource");
+        mirror.store(new MirroredResource(uri, ETAG, "text/turtle", "<#thing> a <#Thing> ."), null);
+        FileResourceMirror reopened = new FileResourceMirror(directory);
+        assertEquals(ETAG, reopened.get(uri, null).getEtag());
+    }
+
+    @Test
+    @DisplayName("Revalidate a mirrored resource instead of downloading it again")
+    void revalidateMirroredResource() throws SaiException, SaiHttpNotFoundException, InterruptedException {
+        URI uri = toMockUri(server, "/mirrored/resource#project");
+        TestableReadableResource first = TestableReadableResource.get(uri, saiSession, true);
+        assertEquals("Great Validations", first.getName());
+        assertEquals(1, mirror.size());
+        assertNull(server.takeRequest().getHeader("If-None-Match"));
+        // Same answer from a fresh mirror on the same directory, as it would be after a restart
+        saiSession.setResourceMirror(new FileResourceMirror(directory));
+        TestableReadableResource second = TestableReadableResource.get(uri, saiSession, true);
+        assertEquals(ETAG, server.takeRequest().getHeader("If-None-Match"));
+        assertEquals(first.getName(), second.getName());
+        assertEquals(first.getTags(), second.getTags());
+    }
+
+    @Test
+    @DisplayName("Evict a mirrored resource that no longer exists")
+    void evictMissingMirroredResource() throws SaiException {
+        URI uri = toMockUri(server, "/missing/resource#project");
+        mirror.store(new MirroredResource(uri, ETAG, "text/turtle", "<#thing> a <#Thing> ."), null);
+        assertThrows(SaiHttpNotFoundException.class, () -> TestableReadableResource.get(uri, saiSession, true));
+        assertNull(mirror.get(uri, null));
+    }
+
+    private String loadBody(String path) throws IOException {
+        try (InputStream in = getClass().getClassLoader().getResourceAsStream(path)) {
+            assertNotNull(in);
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+}
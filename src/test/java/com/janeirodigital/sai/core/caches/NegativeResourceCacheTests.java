@@ -0,0 +1,138 @@
+package com.janeirodigital.sai.core.caches;
+
+import com.janeirodigital.mockwebserver.RequestMatchingFixtureDispatcher;
+import com.janeirodigital.sai.authentication.AuthorizedSession;
+import com.janeirodigital.sai.core.exceptions.SaiException;
+import com.janeirodigital.sai.core.http.HttpClientFactory;
+import com.janeirodigital.sai.core.resources.TestableReadableResource;
+import com.janeirodigital.sai.core.sessions.SaiSession;
+import com.janeirodigital.sai.httputils.SaiHttpNotFoundException;
+import okhttp3.mockwebserver.MockWebServer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.net.URI;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+
+import static com.janeirodigital.mockwebserver.DispatcherHelper.mockOnGet;
+import static com.janeirodigital.mockwebserver.MockWebServerHelper.toMockUri;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class NegativeResourceCacheTests {
+
+    private static final URI ALICE = URI.create("https://alice.example/id#me");
+    private static final URI BOB = URI.create("https://bob.example/id#me");
+    private static final URI MISSING = URI.create("https://alice.example/registries/agents/bob#registration");
+
+    private AdjustableClock clock;
+    private NegativeResourceCache cache;
+
+    @BeforeEach
+    void beforeEach() {
+        clock = new AdjustableClock(Instant.parse("2021-04-04T20:15:47.000Z"));
+        cache = new NegativeResourceCache(Duration.ofSeconds(30), 100, clock);
+    }
+
+    @Test
+    @DisplayName("Remember a missing resource per agent")
+    void rememberMissingResourcePerAgent() {
+        assertFalse(cache.isMissing(MISSING, ALICE));
+        cache.record(MISSING, ALICE);
+        assertTrue(cache.isMissing(MISSING, ALICE));
+        assertTrue(cache.isMissing(URI.create("https://alice.example/registries/agents/bob"), ALICE));
+        assertFalse(cache.isMissing(MISSING, BOB));
+        assertEquals(1, cache.getRecorded());
+        assertEquals(2, cache.getSuppressed());
+    }
+
+    @Test
+    @DisplayName("Forget a missing resource after its time to live")
+    void expireMissingResource() {
+        cache.record(MISSING, ALICE);
+        clock.advance(Duration.ofSeconds(29));
+        assertTrue(cache.isMissing(MISSING, ALICE));
+        clock.advance(Duration.ofSeconds(1));
+        assertFalse(cache.isMissing(MISSING, ALICE));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    @DisplayName("Forget a missing resource for all agents when invalidated")
+    void invalidateMissingResource() {
+        cache.record(MISSING, ALICE);
+        cache.record(MISSING, BOB);
+        cache.invalidate(MISSING);
+        assertFalse(cache.isMissing(MISSING, ALICE));
+        assertFalse(cache.isMissing(MISSING, BOB));
+    }
+
+    @Test
+    @DisplayName("Stay within the maximum number of entries")
+    void boundMissingResources() {
+        NegativeResourceCache bounded = new NegativeResourceCache(Duration.ofSeconds(30), 1, clock);
+        bounded.record(MISSING, ALICE);
+        bounded.record(MISSING, BOB);
+        assertEquals(1, bounded.size());
+        clock.advance(Duration.ofSeconds(30));
+        bounded.record(MISSING, BOB);
+        assertTrue(bounded.isMissing(MISSING, BOB));
+    }
+
+    @Test
+    @DisplayName("Fail to initialize negative cache - invalid configuration")
+    void failToInitializeNegativeCache() {
+        assertThrows(IllegalArgumentException.class, () -> new NegativeResourceCache(Duration.ZERO, 100));
+        assertThrows(IllegalArgumentException.class, () -> new NegativeResourceCache(Duration.ofSeconds(30), 0));
+    }
+
+    @Test
+    @DisplayName("Suppress repeated reads of a missing resource")
+    void suppressRepeatedReads() throws SaiException {
+        AuthorizedSession mockSession = mock(AuthorizedSession.class);
+        when(mockSession.getSocialAgentId()).thenReturn(ALICE);
+        SaiSession saiSession = new SaiSession(mockSession, new HttpClientFactory(false, false, false));
+        saiSession.setNegativeCache(cache);
+        RequestMatchingFixtureDispatcher dispatcher = new RequestMatchingFixtureDispatcher();
+        mockOnGet(dispatcher, "/found/resource", "resources/readable-resource-ttl");
+        MockWebServer server = new MockWebServer();
+        server.setDispatcher(dispatcher);
+        URI uri = toMockUri(server, "/missing/resource#project");
+        assertThrows(SaiHttpNotFoundException.class, () -> TestableReadableResource.get(uri, saiSession, false));
+        assertThrows(SaiHttpNotFoundException.class, () -> TestableReadableResource.get(uri, saiSession, false));
+        assertEquals(1, server.getRequestCount());
+        assertEquals(1, cache.getSuppressed());
+        saiSession.invalidate(uri);
+        assertThrows(SaiHttpNotFoundException.class, () -> TestableReadableResource.get(uri, saiSession, false));
+        assertEquals(2, server.getRequestCount());
+    }
+
+    /**
+     * Clock that only moves when told to
+     */
+    private static class AdjustableClock extends Clock {
+
+        private Instant instant;
+
+        AdjustableClock(Instant instant) { this.instant = instant; }
+
+        void advance(Duration duration) { this.instant = this.instant.plus(duration); }
+
+        @Override
+        public ZoneId getZone() { return ZoneOffset.UTC; }
+
+        @Override
+        public Clock withZone(ZoneId zone) { return this; }
+
+        @Override
+        public Instant instant() { return this.instant; }
+
+    }
+
+}
@@ -17,6 +17,7 @@ import java.net.URI;
 import java.util.Arrays;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 
 import static com.janeirodigital.mockwebserver.DispatcherHelper.*;
 import static com.janeirodigital.mockwebserver.MockWebServerHelper.toMockUri;
@@ -120,6 +121,29 @@ class DataRegistryTests {
         assertNull(fail);
     }
 
+    @Test
+    @DisplayName("Find data registrations across data registries by indexed shape tree")
+    void findDataRegistrationsAcrossRegistries() throws SaiException, SaiHttpNotFoundException {
+        URI toFind = toMockUri(server, "/shapetrees/pm#ProjectTree");
+        URI toFail = toMockUri(server,"/shapetrees/pm#MissingTree");
+        DataRegistry dataRegistry = DataRegistry.get(toMockUri(server, "/ttl/data/"), saiSession);
+        DataRegistry emptyRegistry = DataRegistry.get(toMockUri(server, "/ttl/empty/data/"), saiSession);
+        List<DataRegistry> dataRegistries = Arrays.asList(emptyRegistry, dataRegistry);
+        Map<DataRegistration, DataRegistry> found = DataRegistry.findDataRegistrations(dataRegistries, toFind);
+        assertEquals(1, found.size());
+        DataRegistration registration = found.keySet().iterator().next();
+        assertEquals(toFind, registration.getRegisteredShapeTree());
+        assertEquals(dataRegistry, found.get(registration));
+        // A miss indexes every registration, after which lookups don't need to fetch anything else
+        assertTrue(DataRegistry.findDataRegistrations(dataRegistries, toFail).isEmpty());
+        assertEquals(dataRegistrationUris.size(), dataRegistry.getDataRegistrations().getIndex().size());
+        int requests = server.getRequestCount();
+        assertTrue(DataRegistry.findDataRegistrations(dataRegistries, toFail).isEmpty());
+        assertEquals(requests, server.getRequestCount());
+        assertEquals(1, DataRegistry.findDataRegistrations(dataRegistries, toFind).size());
+        assertEquals(requests + 1, server.getRequestCount());
+    }
+
     @Test
     @DisplayName("Fail to iterate data registrations - missing registration")
     void failToFindDataRegistrationMissing() throws SaiException, SaiHttpNotFoundException {
@@ -0,0 +1,214 @@
+package com.janeirodigital.sai.core.notifications;
+
+import com.janeirodigital.sai.authentication.AuthorizedSession;
+import com.janeirodigital.sai.core.caches.FileResourceMirror;
+import com.janeirodigital.sai.core.caches.MirroredResource;
+import com.janeirodigital.sai.core.exceptions.SaiException;
+import com.janeirodigital.sai.core.http.HttpClientFactory;
+import com.janeirodigital.sai.core.sessions.SaiSession;
+import okhttp3.Response;
+import okhttp3.WebSocket;
+import okhttp3.WebSocketListener;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.janeirodigital.mockwebserver.MockWebServerHelper.toMockUri;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+class ChangeNotificationSubscriberTests {
+
+    private SaiSession saiSession;
+    private MockWebServer server;
+    private FileResourceMirror mirror;
+    private ChangeNotificationSubscriber subscriber;
+    private URI watched;
+    private AtomicInteger channelFailures;
+    private AtomicInteger webhookDeletes;
+
+    @TempDir
+    Path directory;
+
+    @BeforeEach
+    void beforeEach() throws SaiException {
+        AuthorizedSession mockSession = mock(AuthorizedSession.class);
+        saiSession = new SaiSession(mockSession, new HttpClientFactory(false, false, false));
+        mirror = new FileResourceMirror(directory);
+        saiSession.setResourceMirror(mirror);
+        channelFailures = new AtomicInteger();
+        webhookDeletes = new AtomicInteger();
+        // Local stand-in for a notification server, which sends a single notification when a channel is opened
+        server = new MockWebServer();
+        server.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) {
+                if (request.getPath().equals("/subscription") && request.getMethod().equals("POST") && request.getBody().readUtf8().contains("WebhookChannel2023")) {
+                    String channel = "{ \"@context\": \"" + ChangeNotificationSubscriber.NOTIFICATION_CONTEXT + "\", " +
+                                     "\"id\": \"" + toMockUri(server, "/webhook-channel") + "\", " +
+                                     "\"type\": \"WebhookChannel2023\", \"topic\": \"" + watched + "\", " +
+                                     "\"sendTo\": \"https://app.example/notifications\" }";
+                    return new MockResponse().setResponseCode(200).setHeader("Content-Type", "application/ld+json").setBody(channel);
+                }
+                if (request.getPath().equals("/webhook-channel") && request.getMethod().equals("DELETE")) {
+                    webhookDeletes.incrementAndGet();
+                    return new MockResponse().setResponseCode(204);
+                }
+                if (request.getPath().equals("/subscription") && request.getMethod().equals("POST")) {
+                    String channel = "{ \"@context\": \"" + ChangeNotificationSubscriber.NOTIFICATION_CONTEXT + "\", " +
+                                     "\"type\": \"WebSocketChannel2023\", \"topic\": \"" + watched + "\", " +
+                                     "\"receiveFrom\": \"ws://" + server.getHostName() + ":" + server.getPort() + "/channel\" }";
+                    return new MockResponse().setResponseCode(200).setHeader("Content-Type", "application/ld+json").setBody(channel);
+                }
+                if (request.getPath().equals("/channel")) {
+                    // Refuse to upgrade, so that the channel fails
+                    if (channelFailures.getAndDecrement() > 0) { return new MockResponse().setResponseCode(500); }
+                    return new MockResponse().withWebSocketUpgrade(new WebSocketListener() {
+                        @Override
+                        public void onOpen(WebSocket webSocket, Response response) { webSocket.send(getNotification(watched)); }
+                    });
+                }
+                return new MockResponse().setResponseCode(404);
+            }
+        });
+        watched = toMockUri(server, "/registries/agents/");
+        subscriber = new ChangeNotificationSubscriber(saiSession, toMockUri(server, "/subscription"), true);
+    }
+
+    @AfterEach
+    void afterEach() throws IOException {
+        subscriber.close();
+        server.shutdown();
+    }
+
+    @Test
+    @DisplayName("Invalidate a resource when a notification is received on a web socket channel")
+    void invalidateOnWebSocketNotification() throws SaiException, InterruptedException {
+        mirror.store(new MirroredResource(watched, "\"v1\"", "text/turtle", "<> a <#Registry> ."), null);
+        CountDownLatch received = new CountDownLatch(1);
+        subscriber.addListener(notification -> received.countDown());
+        subscriber.subscribe(watched);
+        assertTrue(received.await(5, TimeUnit.SECONDS));
+        assertNull(mirror.get(watched, null));
+        assertEquals(1, subscriber.getSubscriptions().size());
+        subscriber.unsubscribe(watched);
+        assertTrue(subscriber.getSubscriptions().isEmpty());
+    }
+
+    @Test
+    @DisplayName("Notify failure listeners and resubscribe when a web socket channel fails")
+    void resubscribeOnChannelFailure() throws SaiException, InterruptedException {
+        channelFailures.set(2);
+        subscriber.setResubscribeBackoff(Duration.ofMillis(10), Duration.ofMillis(50));
+        List<URI> failed = new CopyOnWriteArrayList<>();
+        subscriber.addFailureListener((topic, cause) -> failed.add(topic));
+        CountDownLatch received = new CountDownLatch(1);
+        subscriber.addListener(notification -> received.countDown());
+        subscriber.subscribe(watched);
+        assertTrue(received.await(5, TimeUnit.SECONDS));
+        assertEquals(List.of(watched, watched), failed);
+        assertEquals(1, subscriber.getSubscriptions().size());
+    }
+
+    @Test
+    @DisplayName("Stop resubscribing once unsubscribed")
+    void stopResubscribingOnUnsubscribe() throws SaiException, InterruptedException {
+        channelFailures.set(Integer.MAX_VALUE);
+        subscriber.setResubscribeBackoff(Duration.ofMillis(200), Duration.ofMillis(200));
+        CountDownLatch failed = new CountDownLatch(1);
+        subscriber.addFailureListener((topic, cause) -> failed.countDown());
+        subscriber.subscribe(watched);
+        assertTrue(failed.await(5, TimeUnit.SECONDS));
+        subscriber.unsubscribe(watched);
+        int requests = server.getRequestCount();
+        Thread.sleep(500);
+        assertEquals(requests, server.getRequestCount());
+        assertTrue(subscriber.getSubscriptions().isEmpty());
+    }
+
+    @Test
+    @DisplayName("Remove a webhook channel when unsubscribing")
+    void unsubscribeWebhook() throws SaiException {
+        subscriber.subscribe(watched, URI.create("https://app.example/notifications"));
+        assertEquals(toMockUri(server, "/webhook-channel"), subscriber.getWebhookChannels().get(watched));
+        subscriber.unsubscribe(watched);
+        assertTrue(subscriber.getWebhookChannels().isEmpty());
+        assertEquals(1, webhookDeletes.get());
+    }
+
+    @Test
+    @DisplayName("Invalidate a resource when a notification is delivered to a webhook")
+    void invalidateOnWebhookNotification() throws SaiException {
+        mirror.store(new MirroredResource(watched, "\"v1\"", "text/turtle", "<> a <#Registry> ."), null);
+        ChangeNotification notification = subscriber.handleNotification(getNotification(watched));
+        assertEquals(watched, notification.getObject());
+        assertEquals("Update", notification.getType());
+        assertNull(mirror.get(watched, null));
+    }
+
+    @Test
+    @DisplayName("Ignore a notification without an object")
+    void ignoreNotificationWithoutObject() throws SaiException {
+        assertNull(subscriber.handleNotification("{ \"type\": \"Update\" }"));
+    }
+
+    @Test
+    @DisplayName("Fail to handle a malformed notification")
+    void failToHandleMalformedNotification() {
+        assertThrows(SaiException.class, () -> subscriber.handleNotification("not a notification"));
+    }
+
+    @Test
+    @DisplayName("Fail to handle a notification about a malformed object")
+    void failToHandleMalformedObject() {
+        String body = "{ \"type\": \"Update\", \"object\": \"https://pod.example/not a uri\" }";
+        assertThrows(SaiException.class, () -> subscriber.handleNotification(body));
+    }
+
+    @Test
+    @DisplayName("Call every listener when one of them fails")
+    void isolateFailingListener() throws SaiException {
+        List<URI> notified = new CopyOnWriteArrayList<>();
+        subscriber.addListener(notification -> { throw new IllegalStateException("Listener failed"); });
+        subscriber.addListener(notification -> notified.add(notification.getObject()));
+        assertEquals(watched, subscriber.handleNotification(getNotification(watched)).getObject());
+        assertEquals(List.of(watched), notified);
+    }
+
+    @Test
+    @DisplayName("Fail to modify subscriptions other than by subscribing")
+    void failToModifySubscriptions() {
+        assertThrows(UnsupportedOperationException.class, () -> subscriber.getSubscriptions().clear());
+        assertThrows(UnsupportedOperationException.class, () -> subscriber.getWebhookChannels().put(watched, watched));
+    }
+
+    @Test
+    @DisplayName("Fail to subscribe - subscription service missing")
+    void failToSubscribeMissingService() {
+        ChangeNotificationSubscriber missing = new ChangeNotificationSubscriber(saiSession, toMockUri(server, "/missing"), true);
+        assertThrows(SaiException.class, () -> missing.subscribe(watched));
+    }
+
+    private static String getNotification(URI object) {
+        return "{ \"@context\": [ \"https://www.w3.org/ns/activitystreams\", \"" + ChangeNotificationSubscriber.NOTIFICATION_CONTEXT + "\" ], " +
+               "\"id\": \"urn:uuid:5c9d4a3e-1d7f-4f6b-9a5e-2f0e6c7b8a91\", \"type\": \"Update\", " +
+               "\"object\": \"" + object + "\", \"published\": \"2021-04-04T20:15:47.000Z\" }";
+    }
+
+}
@@ -8,20 +8,32 @@ import com.janeirodigital.sai.core.http.HttpClientFactory;
 import com.janeirodigital.sai.core.sessions.SaiSession;
 import com.janeirodigital.sai.httputils.HttpMethod;
 import com.janeirodigital.sai.httputils.SaiHttpNotFoundException;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
 import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
 import org.apache.commons.collections4.CollectionUtils;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.net.URI;
+import java.nio.charset.StandardCharsets;
 import java.time.OffsetDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
 import static com.janeirodigital.mockwebserver.DispatcherHelper.*;
 import static com.janeirodigital.mockwebserver.MockWebServerHelper.toMockUri;
+import static com.janeirodigital.sai.core.vocabularies.TestableVocabulary.TESTABLE_ACTIVE;
+import static com.janeirodigital.sai.core.vocabularies.TestableVocabulary.TESTABLE_HAS_COMMENT;
+import static com.janeirodigital.sai.core.vocabularies.TestableVocabulary.TESTABLE_HAS_TAG;
+import static com.janeirodigital.sai.core.vocabularies.TestableVocabulary.TESTABLE_NAME;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.mock;
@@ -107,6 +119,149 @@ class CRUDResourceTests {
         assertThrows(SaiException.class, () -> testable.update());
     }
 
+    @Test
+    @DisplayName("Update a CRUD resource conditionally and merge with a concurrent update")
+    void mergeConcurrentUpdate() throws SaiException, SaiHttpNotFoundException, IOException {
+        AtomicReference<String> body = new AtomicReference<>(loadBody("fixtures/resources/crud-resource.ttl"));
+        AtomicInteger version = new AtomicInteger(1);
+        AtomicInteger puts = new AtomicInteger();
+        MockWebServer versioned = new MockWebServer();
+        versioned.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) {
+                String etag = "\"v" + version.get() + "\"";
+                if (!"PUT".equals(request.getMethod())) {
+                    return new MockResponse().setResponseCode(200).setHeader("Content-Type", "text/turtle").setHeader("ETag", etag).setBody(body.get());
+                }
+                puts.incrementAndGet();
+                if (!etag.equals(request.getHeader("If-Match"))) { return new MockResponse().setResponseCode(412); }
+                body.set(request.getBody().readUtf8());
+                return new MockResponse().setResponseCode(204).setHeader("ETag", "\"v" + version.incrementAndGet() + "\"");
+            }
+        });
+        URI url = toMockUri(versioned, "/crud/crud-resource#project");
+        TestableCRUDResource first = TestableCRUDResource.get(url, saiSession, true);
+        TestableCRUDResource second = TestableCRUDResource.get(url, saiSession, true);
+        assertEquals("\"v1\"", first.getEtag());
+
+        first.getResource().removeAll(TESTABLE_ACTIVE).addLiteral(TESTABLE_ACTIVE, false);
+        first.update();
+        assertEquals("\"v2\"", first.getEtag());
+
+        second.getResource().addProperty(TESTABLE_HAS_COMMENT, "Concurrent comment");
+        second.update();
+        assertEquals(3, puts.get());
+        assertEquals("\"v3\"", second.getEtag());
+        assertFalse(second.isActive());
+
+        TestableCRUDResource merged = TestableCRUDResource.get(url, saiSession, true);
+        assertFalse(merged.isActive());
+        assertTrue(merged.getComments().contains("Concurrent comment"));
+        assertEquals(4, merged.getComments().size());
+    }
+
+    @Test
+    @DisplayName("Update a CRUD resource conditionally and keep the local value of a single-valued property")
+    void mergeSingleValuedConflict() throws SaiException, SaiHttpNotFoundException, IOException {
+        AtomicReference<String> body = new AtomicReference<>(loadBody("fixtures/resources/crud-resource.ttl"));
+        AtomicInteger version = new AtomicInteger(1);
+        MockWebServer versioned = new MockWebServer();
+        versioned.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) {
+                String etag = "\"v" + version.get() + "\"";
+                if (!"PUT".equals(request.getMethod())) {
+                    return new MockResponse().setResponseCode(200).setHeader("Content-Type", "text/turtle").setHeader("ETag", etag).setBody(body.get());
+                }
+                if (!etag.equals(request.getHeader("If-Match"))) { return new MockResponse().setResponseCode(412); }
+                body.set(request.getBody().readUtf8());
+                return new MockResponse().setResponseCode(204).setHeader("ETag", "\"v" + version.incrementAndGet() + "\"");
+            }
+        });
+        URI url = toMockUri(versioned, "/crud/crud-resource#project");
+        TestableCRUDResource first = TestableCRUDResource.get(url, saiSession, true);
+        TestableCRUDResource second = TestableCRUDResource.get(url, saiSession, true);
+
+        first.getResource().removeAll(TESTABLE_NAME).addProperty(TESTABLE_NAME, "First name");
+        first.getResource().addProperty(TESTABLE_HAS_COMMENT, "First comment");
+        first.update();
+
+        second.getResource().removeAll(TESTABLE_NAME).addProperty(TESTABLE_NAME, "Second name");
+        second.update();
+        assertEquals("\"v3\"", second.getEtag());
+
+        TestableCRUDResource merged = TestableCRUDResource.get(url, saiSession, true);
+        assertEquals(1, merged.getResource().listProperties(TESTABLE_NAME).toList().size());
+        assertEquals("Second name", merged.getName());
+        assertTrue(merged.getComments().contains("First comment"));
+    }
+
+    @Test
+    @DisplayName("Update a CRUD resource conditionally and keep a concurrent addition to a link with one value")
+    void mergeConcurrentLinkAddition() throws SaiException, SaiHttpNotFoundException, IOException {
+        AtomicReference<String> body = new AtomicReference<>(loadBody("fixtures/resources/crud-resource.ttl"));
+        AtomicInteger version = new AtomicInteger(1);
+        MockWebServer versioned = new MockWebServer();
+        versioned.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) {
+                String etag = "\"v" + version.get() + "\"";
+                if (!"PUT".equals(request.getMethod())) {
+                    return new MockResponse().setResponseCode(200).setHeader("Content-Type", "text/turtle").setHeader("ETag", etag).setBody(body.get());
+                }
+                if (!etag.equals(request.getHeader("If-Match"))) { return new MockResponse().setResponseCode(412); }
+                body.set(request.getBody().readUtf8());
+                return new MockResponse().setResponseCode(204).setHeader("ETag", "\"v" + version.incrementAndGet() + "\"");
+            }
+        });
+        URI url = toMockUri(versioned, "/crud/crud-resource#project");
+        URI original = toMockUri(versioned, "/tags/tag-1");
+        URI replacing = toMockUri(versioned, "/tags/tag-4");
+        URI concurrent = toMockUri(versioned, "/tags/tag-5");
+        // Start from a single link, as a registry with one registration would be
+        TestableCRUDResource setup = TestableCRUDResource.get(url, saiSession, true);
+        setup.getResource().removeAll(TESTABLE_HAS_TAG).addProperty(TESTABLE_HAS_TAG, setup.getDataset().createResource(original.toString()));
+        setup.update();
+
+        TestableCRUDResource replacer = TestableCRUDResource.get(url, saiSession, true);
+        TestableCRUDResource adder = TestableCRUDResource.get(url, saiSession, true);
+        adder.getResource().addProperty(TESTABLE_HAS_TAG, adder.getDataset().createResource(concurrent.toString()));
+        adder.update();
+
+        replacer.getResource().removeAll(TESTABLE_HAS_TAG).addProperty(TESTABLE_HAS_TAG, replacer.getDataset().createResource(replacing.toString()));
+        replacer.update();
+
+        TestableCRUDResource merged = TestableCRUDResource.get(url, saiSession, true);
+        assertEquals(2, merged.getTags().size());
+        assertTrue(merged.getTags().containsAll(Arrays.asList(replacing, concurrent)));
+    }
+
+    @Test
+    @DisplayName("Fail to update a CRUD resource that keeps changing")
+    void failToUpdateChangingResource() throws SaiException, SaiHttpNotFoundException, IOException {
+        String body = loadBody("fixtures/resources/crud-resource.ttl");
+        AtomicInteger version = new AtomicInteger(1);
+        AtomicInteger puts = new AtomicInteger();
+        MockWebServer changing = new MockWebServer();
+        changing.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) {
+                if ("PUT".equals(request.getMethod())) {
+                    puts.incrementAndGet();
+                    return new MockResponse().setResponseCode(412);
+                }
+                // Someone else changes the resource every time it is read
+                return new MockResponse().setResponseCode(200).setHeader("Content-Type", "text/turtle").setHeader("ETag", "\"v" + version.getAndIncrement() + "\"").setBody(body);
+            }
+        });
+        TestableCRUDResource testable = TestableCRUDResource.get(toMockUri(changing, "/crud/crud-resource#project"), saiSession, true);
+        testable.setUpdateAttempts(2);
+        testable.getResource().removeAll(TESTABLE_ACTIVE).addLiteral(TESTABLE_ACTIVE, false);
+        assertThrows(SaiException.class, () -> testable.update());
+        assertEquals(2, puts.get());
+        assertThrows(IllegalArgumentException.class, () -> testable.setUpdateAttempts(0));
+    }
+
     @Test
     @DisplayName("Delete a CRUD resource")
     void deleteCRUDResource() throws SaiException, SaiHttpNotFoundException {
@@ -152,4 +307,11 @@ class CRUDResourceTests {
         assertTrue(CollectionUtils.isEqualCollection(comments, testable.getComments()));
     }
 
+    private String loadBody(String path) throws IOException {
+        try (InputStream in = getClass().getClassLoader().getResourceAsStream(path)) {
+            assertNotNull(in);
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
 }
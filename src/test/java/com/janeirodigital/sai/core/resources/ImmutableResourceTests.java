@@ -26,6 +26,7 @@ import java.util.List;
 
 import static com.janeirodigital.mockwebserver.DispatcherHelper.*;
 import static com.janeirodigital.mockwebserver.MockWebServerHelper.toMockUri;
+import static com.janeirodigital.sai.httputils.ContentType.LD_JSON;
 import static com.janeirodigital.sai.httputils.ContentType.TEXT_TURTLE;
 import static com.janeirodigital.sai.rdfutils.RdfUtils.getModelFromFile;
 import static org.junit.jupiter.api.Assertions.*;
@@ -84,6 +85,23 @@ class ImmutableResourceTests {
         checkTestableResource(testable);
     }
 
+    @Test
+    @DisplayName("Serialize an Immutable resource once and reuse the payload")
+    void serializeImmutableResourceOnce() throws SaiException {
+        URI uri = toMockUri(server, "/immutable/immutable-resource#project");
+        Model model = loadModel(uri, "fixtures/resources/immutable-resource.ttl", TEXT_TURTLE);
+        TestableImmutableResource.Builder builder = new TestableImmutableResource.Builder(uri, saiSession);
+        TestableImmutableResource testable = builder.setDataset(model).setUnprotected().build();
+        String body = testable.getBody();
+        assertSame(body, testable.getBody());
+        assertSame(body, testable.getBody(TEXT_TURTLE, testable.getJsonLdContext()));
+        assertNotSame(body, testable.getBody(LD_JSON, testable.getJsonLdContext()));
+        assertTrue(testable.getPayloadSize() > 0);
+        testable.create();
+        testable.create();
+        assertSame(body, testable.getBody());
+    }
+
     @ParameterizedTest
     @ValueSource(booleans = {true, false})
     @DisplayName("Fail to create an immutable resource - endpoint missing")
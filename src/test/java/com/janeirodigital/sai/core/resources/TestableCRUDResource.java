@@ -10,12 +10,14 @@ import lombok.Getter;
 import lombok.Setter;
 import okhttp3.Response;
 import org.apache.jena.rdf.model.Model;
+import org.apache.jena.rdf.model.Property;
 
 import java.net.URI;
 import java.time.OffsetDateTime;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
+import java.util.Set;
 
 import static com.janeirodigital.sai.core.vocabularies.TestableVocabulary.*;
 import static com.janeirodigital.sai.httputils.ContentType.TEXT_TURTLE;
@@ -36,13 +38,7 @@ public class TestableCRUDResource extends CRUDResource {
 
     public TestableCRUDResource(Builder builder) throws SaiException {
         super(builder);
-        this.id = builder.id;
-        this.name = builder.name;
-        this.createdAt = builder.createdAt;
-        this.milestone = builder.milestone;
-        this.active = builder.active;
-        this.tags = builder.tags;
-        this.comments = builder.comments;
+        populateFromBuilder(builder);
     }
 
     public static TestableCRUDResource get(URI uri, SaiSession saiSession, boolean unprotected) throws SaiHttpNotFoundException, SaiException {
@@ -59,6 +55,26 @@ public class TestableCRUDResource extends CRUDResource {
         return get(this.uri, this.saiSession, this.unprotected);
     }
 
+    @Override
+    protected void refreshFromDataset() throws SaiException {
+        populateFromBuilder(new Builder(this.uri, this.saiSession).setDataset(this.dataset));
+    }
+
+    @Override
+    protected Set<Property> getFunctionalProperties() {
+        return Set.of(TESTABLE_ID, TESTABLE_NAME, TESTABLE_CREATED_AT, TESTABLE_HAS_MILESTONE, TESTABLE_ACTIVE);
+    }
+
+    private void populateFromBuilder(Builder builder) {
+        this.id = builder.id;
+        this.name = builder.name;
+        this.createdAt = builder.createdAt;
+        this.milestone = builder.milestone;
+        this.active = builder.active;
+        this.tags = builder.tags;
+        this.comments = builder.comments;
+    }
+
     public static class Builder extends CRUDResource.Builder<Builder>  {
 
         private int id;
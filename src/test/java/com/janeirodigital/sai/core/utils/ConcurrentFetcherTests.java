@@ -0,0 +1,138 @@
+package com.janeirodigital.sai.core.utils;
+
+import com.janeirodigital.sai.core.exceptions.SaiException;
+import com.janeirodigital.sai.httputils.SaiHttpNotFoundException;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConcurrentFetcherTests {
+
+    private static ExecutorService executor;
+    private static List<URI> uris;
+
+    @BeforeAll
+    static void beforeAll() {
+        executor = Executors.newFixedThreadPool(8);
+        uris = new ArrayList<>();
+        for (int i = 0; i < 20; i++) { uris.add(URI.create("https://alice.example/grants/grant-" + i)); }
+    }
+
+    @AfterAll
+    static void afterAll() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    @DisplayName("Fetch resources concurrently in order")
+    void fetchInOrder() throws SaiException, SaiHttpNotFoundException {
+        List<String> fetched = ConcurrentFetcher.fetchAll(uris, uri -> {
+            sleep(uri.toString().endsWith("-0") ? 50 : 1);
+            return uri.toString();
+        }, executor, 4);
+        List<String> expected = new ArrayList<>();
+        for (URI uri : uris) { expected.add(uri.toString()); }
+        assertEquals(expected, fetched);
+    }
+
+    @Test
+    @DisplayName("Fetch resources one at a time without an executor")
+    void fetchSequentially() throws SaiException, SaiHttpNotFoundException {
+        List<String> threads = ConcurrentFetcher.fetchAll(uris, uri -> Thread.currentThread().getName(), null, 4);
+        assertEquals(uris.size(), threads.size());
+        for (String thread : threads) { assertEquals(Thread.currentThread().getName(), thread); }
+    }
+
+    @Test
+    @DisplayName("Limit the number of concurrent fetches")
+    void limitConcurrentFetches() throws SaiException, SaiHttpNotFoundException {
+        AtomicInteger inProgress = new AtomicInteger();
+        AtomicInteger maxInProgress = new AtomicInteger();
+        ConcurrentFetcher.fetchAll(uris, uri -> {
+            maxInProgress.accumulateAndGet(inProgress.incrementAndGet(), Math::max);
+            sleep(5);
+            inProgress.decrementAndGet();
+            return uri;
+        }, executor, 3);
+        assertTrue(maxInProgress.get() <= 3);
+        assertTrue(maxInProgress.get() > 1);
+    }
+
+    @Test
+    @DisplayName("Fail fast and cancel remaining fetches")
+    void failFast() {
+        AtomicInteger started = new AtomicInteger();
+        URI failing = uris.get(1);
+        assertThrows(SaiHttpNotFoundException.class, () -> ConcurrentFetcher.fetchAll(uris, uri -> {
+            started.incrementAndGet();
+            if (uri.equals(failing)) { throw new SaiHttpNotFoundException("Not found: " + uri); }
+            sleep(50);
+            return uri;
+        }, executor, 2));
+        assertTrue(started.get() < uris.size());
+    }
+
+    @Test
+    @DisplayName("Fetch nested resources on the calling thread")
+    void fetchNested() throws SaiException, SaiHttpNotFoundException {
+        ExecutorService single = Executors.newFixedThreadPool(2);
+        try {
+            List<List<URI>> fetched = ConcurrentFetcher.fetchAll(uris.subList(0, 4), uri -> ConcurrentFetcher.fetchAll(uris.subList(0, 4), child -> child, single, 2), single, 2);
+            assertEquals(4, fetched.size());
+            for (List<URI> children : fetched) { assertEquals(uris.subList(0, 4), children); }
+        } finally {
+            single.shutdownNow();
+        }
+    }
+
+    @Test
+    @DisplayName("Fetch nested resources through another executor without deadlock")
+    void fetchNestedThroughAnotherExecutor() {
+        ExecutorService childLoads = Executors.newFixedThreadPool(1);
+        ExecutorService remoteFetches = Executors.newFixedThreadPool(1);
+        try {
+            List<List<URI>> fetched = assertTimeoutPreemptively(Duration.ofSeconds(10), () -> ConcurrentFetcher.fetchAll(uris.subList(0, 2), uri -> {
+                Future<List<URI>> remote = remoteFetches.submit(() -> ConcurrentFetcher.fetchAll(uris.subList(0, 4), child -> child, childLoads, 2));
+                try {
+                    return remote.get();
+                } catch (InterruptedException | ExecutionException ex) {
+                    throw new SaiException("Failed to fetch remote children", ex);
+                }
+            }, childLoads, 2));
+            assertEquals(2, fetched.size());
+            for (List<URI> children : fetched) { assertEquals(uris.subList(0, 4), children); }
+        } finally {
+            childLoads.shutdownNow();
+            remoteFetches.shutdownNow();
+        }
+    }
+
+    @Test
+    @DisplayName("Fail to fetch with no concurrent fetches allowed")
+    void failToFetchNoConcurrency() {
+        assertThrows(IllegalArgumentException.class, () -> ConcurrentFetcher.fetchAll(uris, uri -> uri, executor, 0));
+    }
+
+    private static void sleep(long millis) throws SaiException {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new SaiException("Interrupted", ex);
+        }
+    }
+
+}
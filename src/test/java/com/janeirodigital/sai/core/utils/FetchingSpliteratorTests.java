@@ -0,0 +1,91 @@
+package com.janeirodigital.sai.core.utils;
+
+import com.janeirodigital.sai.core.exceptions.SaiException;
+import com.janeirodigital.sai.core.exceptions.SaiRuntimeException;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Spliterator;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.StreamSupport;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FetchingSpliteratorTests {
+
+    private static ExecutorService executor;
+    private static List<URI> uris;
+
+    @BeforeAll
+    static void beforeAll() {
+        executor = Executors.newFixedThreadPool(4);
+        uris = new ArrayList<>();
+        for (int i = 0; i < 10; i++) { uris.add(URI.create("https://alice.example/registries/agents/sa-" + i + "/")); }
+    }
+
+    @AfterAll
+    static void afterAll() { executor.shutdownNow(); }
+
+    @Test
+    @DisplayName("Stream fetched resources in order")
+    void streamInOrder() {
+        List<URI> streamed = StreamSupport.stream(new FetchingSpliterator<>(uris, uri -> uri), false).collect(Collectors.toList());
+        assertEquals(uris, streamed);
+        List<URI> concurrent = StreamSupport.stream(new FetchingSpliterator<>(uris, uri -> uri, 3, executor), false).collect(Collectors.toList());
+        assertEquals(uris, concurrent);
+    }
+
+    @Test
+    @DisplayName("Stop fetching when a short-circuiting operation is satisfied")
+    void shortCircuit() {
+        AtomicInteger fetches = new AtomicInteger();
+        RegistrationFetcher<URI> fetcher = uri -> { fetches.incrementAndGet(); return uri; };
+        Optional<URI> found = StreamSupport.stream(new FetchingSpliterator<>(uris, fetcher), false).filter(uri -> uri.equals(uris.get(2))).findFirst();
+        assertEquals(uris.get(2), found.get());
+        assertEquals(3, fetches.get());
+        fetches.set(0);
+        found = StreamSupport.stream(new FetchingSpliterator<>(uris, fetcher, 4, executor), false).filter(uri -> uri.equals(uris.get(2))).findFirst();
+        assertEquals(uris.get(2), found.get());
+        assertEquals(4, fetches.get());
+    }
+
+    @Test
+    @DisplayName("Split on batch boundaries")
+    void splitOnBatches() {
+        FetchingSpliterator<URI> spliterator = new FetchingSpliterator<>(uris, uri -> uri, 3, executor);
+        Spliterator<URI> prefix = spliterator.trySplit();
+        assertNotNull(prefix);
+        assertEquals(3, prefix.estimateSize());
+        assertEquals(7, spliterator.estimateSize());
+        assertNull(prefix.trySplit());
+        List<URI> combined = new ArrayList<>();
+        prefix.forEachRemaining(combined::add);
+        spliterator.forEachRemaining(combined::add);
+        assertEquals(uris, combined);
+    }
+
+    @Test
+    @DisplayName("Fail at the element that couldn't be fetched")
+    void failAtElement() {
+        RegistrationFetcher<URI> fetcher = uri -> {
+            if (uri.equals(uris.get(5))) { throw new SaiException("Failed to get " + uri); }
+            return uri;
+        };
+        List<URI> streamed = new ArrayList<>();
+        assertThrows(SaiRuntimeException.class, () -> StreamSupport.stream(new FetchingSpliterator<>(uris, fetcher), false).forEach(streamed::add));
+        assertEquals(uris.subList(0, 5), streamed);
+        streamed.clear();
+        assertThrows(SaiRuntimeException.class, () -> StreamSupport.stream(new FetchingSpliterator<>(uris, fetcher, 3, executor), false).forEach(streamed::add));
+        assertEquals(uris.subList(0, 5), streamed);
+    }
+
+}
@@ -0,0 +1,210 @@
+package com.janeirodigital.sai.core.utils;
+
+import com.janeirodigital.mockwebserver.RequestMatchingFixtureDispatcher;
+import com.janeirodigital.sai.authentication.AuthorizedSession;
+import com.janeirodigital.sai.core.agents.AgentRegistry;
+import com.janeirodigital.sai.core.exceptions.SaiAlreadyExistsException;
+import com.janeirodigital.sai.core.exceptions.SaiException;
+import com.janeirodigital.sai.core.http.HttpClientFactory;
+import com.janeirodigital.sai.core.sessions.SaiSession;
+import com.janeirodigital.sai.httputils.SaiHttpNotFoundException;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static com.janeirodigital.mockwebserver.DispatcherHelper.*;
+import static com.janeirodigital.mockwebserver.MockWebServerHelper.toMockUri;
+import static com.janeirodigital.sai.core.vocabularies.InteropVocabulary.HAS_APPLICATION_REGISTRATION;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+class GroupCommitTests {
+
+    private static final String PAGED_REGISTRY = "PREFIX interop: <http://www.w3.org/ns/solid/interop#>\n" +
+                                                 "PREFIX as: <https://www.w3.org/ns/activitystreams#>\n" +
+                                                 "<> a interop:AgentRegistry ; as:first <page-1> .";
+    private static final String EMPTY_PAGE = "PREFIX as: <https://www.w3.org/ns/activitystreams#>\n" +
+                                             "<page-1> a as:CollectionPage .";
+
+    private SaiSession saiSession;
+    private MockWebServer server;
+    private RequestMatchingFixtureDispatcher dispatcher;
+    private ScheduledExecutorService scheduler;
+
+    @BeforeEach
+    void beforeEach() throws SaiException {
+        AuthorizedSession mockSession = mock(AuthorizedSession.class);
+        saiSession = new SaiSession(mockSession, new HttpClientFactory(false, false, false));
+        dispatcher = new RequestMatchingFixtureDispatcher();
+        mockOnGet(dispatcher, "/ttl/empty/agents/", "agents/agent-registry-empty-ttl");
+        mockOnPut(dispatcher, "/ttl/empty/agents/", "http/204");
+        mockOnGet(dispatcher, "/failing/ttl/empty/agents/", "agents/agent-registry-empty-ttl");
+        mockOnPut(dispatcher, "/failing/ttl/empty/agents/", "http/500");
+        server = new MockWebServer();
+        server.setDispatcher(dispatcher);
+        scheduler = Executors.newSingleThreadScheduledExecutor();
+    }
+
+    @AfterEach
+    void afterEach() {
+        scheduler.shutdownNow();
+    }
+
+    @Test
+    @DisplayName("Commit a full batch of changes with one update")
+    void commitFullBatch() throws SaiException, SaiHttpNotFoundException, InterruptedException, ExecutionException, TimeoutException {
+        AgentRegistry registry = AgentRegistry.get(toMockUri(server, "/ttl/empty/agents/"), saiSession);
+        GroupCommit<AgentRegistry> groupCommit = new GroupCommit<>(registry, Duration.ofMinutes(1), 5, scheduler);
+        int before = server.getRequestCount();
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            URI registrationUri = toMockUri(server, "/ttl/empty/agents/app-" + i + "/");
+            futures.add(groupCommit.submit(r -> r.getApplicationRegistrations().add(registrationUri)));
+        }
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).get(5, TimeUnit.SECONDS);
+        assertEquals(1, server.getRequestCount() - before);
+        assertEquals(1, groupCommit.getCommits());
+        assertEquals(5, registry.getApplicationRegistrations().getRegistrationUris().size());
+    }
+
+    @Test
+    @DisplayName("Commit changes once the window has passed")
+    void commitAfterWindow() throws SaiException, SaiHttpNotFoundException, InterruptedException, ExecutionException, TimeoutException {
+        AgentRegistry registry = AgentRegistry.get(toMockUri(server, "/ttl/empty/agents/"), saiSession);
+        GroupCommit<AgentRegistry> groupCommit = new GroupCommit<>(registry, Duration.ofMillis(50), 100, scheduler);
+        CompletableFuture<Void> first = groupCommit.submit(r -> r.getApplicationRegistrations().add(toMockUri(server, "/ttl/empty/agents/app-1/")));
+        CompletableFuture<Void> second = groupCommit.submit(r -> r.getApplicationRegistrations().add(toMockUri(server, "/ttl/empty/agents/app-2/")));
+        second.get(5, TimeUnit.SECONDS);
+        assertTrue(first.isDone());
+        assertEquals(1, groupCommit.getCommits());
+    }
+
+    @Test
+    @DisplayName("Fail only the change that couldn't be applied")
+    void failSingleChange() throws SaiException, SaiHttpNotFoundException, InterruptedException, ExecutionException, TimeoutException {
+        AgentRegistry registry = AgentRegistry.get(toMockUri(server, "/ttl/empty/agents/"), saiSession);
+        GroupCommit<AgentRegistry> groupCommit = new GroupCommit<>(registry, Duration.ofMinutes(1), 100, scheduler);
+        URI registrationUri = toMockUri(server, "/ttl/empty/agents/app-1/");
+        CompletableFuture<Void> added = groupCommit.submit(r -> r.getApplicationRegistrations().add(registrationUri));
+        CompletableFuture<Void> duplicate = groupCommit.submit(r -> r.getApplicationRegistrations().add(registrationUri));
+        groupCommit.close();
+        added.get(5, TimeUnit.SECONDS);
+        ExecutionException ex = assertThrows(ExecutionException.class, () -> duplicate.get(5, TimeUnit.SECONDS));
+        assertTrue(ex.getCause() instanceof SaiAlreadyExistsException);
+        assertEquals(1, groupCommit.getCommits());
+        assertThrows(IllegalStateException.class, () -> groupCommit.submit(r -> r.getApplicationRegistrations().remove(registrationUri)));
+    }
+
+    @Test
+    @DisplayName("Fail every change in a batch that couldn't be written")
+    void failBatch() throws SaiException, SaiHttpNotFoundException {
+        AgentRegistry registry = AgentRegistry.get(toMockUri(server, "/failing/ttl/empty/agents/"), saiSession);
+        GroupCommit<AgentRegistry> groupCommit = new GroupCommit<>(registry, Duration.ofMinutes(1), 100, scheduler);
+        CompletableFuture<Void> first = groupCommit.submit(r -> r.getApplicationRegistrations().add(toMockUri(server, "/failing/ttl/empty/agents/app-1/")));
+        CompletableFuture<Void> second = groupCommit.submit(r -> r.getApplicationRegistrations().add(toMockUri(server, "/failing/ttl/empty/agents/app-2/")));
+        groupCommit.flush();
+        ExecutionException ex = assertThrows(ExecutionException.class, () -> first.get(5, TimeUnit.SECONDS));
+        assertTrue(ex.getCause() instanceof SaiException);
+        assertThrows(ExecutionException.class, () -> second.get(5, TimeUnit.SECONDS));
+        assertEquals(0, groupCommit.getCommits());
+    }
+
+    @Test
+    @DisplayName("Restore the registry after a batch couldn't be written")
+    void restoreAfterFailedBatch() throws SaiException, SaiHttpNotFoundException, InterruptedException, ExecutionException, TimeoutException {
+        AtomicInteger puts = new AtomicInteger();
+        AtomicReference<String> written = new AtomicReference<>();
+        MockWebServer flaky = new MockWebServer();
+        flaky.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) throws InterruptedException {
+                if (!"PUT".equals(request.getMethod())) { return dispatcher.dispatch(request); }
+                if (puts.incrementAndGet() == 1) { return new MockResponse().setResponseCode(500); }
+                written.set(request.getBody().readUtf8());
+                return new MockResponse().setResponseCode(204);
+            }
+        });
+        AgentRegistry registry = AgentRegistry.get(toMockUri(flaky, "/ttl/empty/agents/"), saiSession);
+        GroupCommit<AgentRegistry> groupCommit = new GroupCommit<>(registry, Duration.ofMinutes(1), 100, scheduler);
+        CompletableFuture<Void> failed = groupCommit.submit(r -> r.getApplicationRegistrations().add(toMockUri(flaky, "/ttl/empty/agents/app-1/")));
+        groupCommit.flush();
+        assertThrows(ExecutionException.class, () -> failed.get(5, TimeUnit.SECONDS));
+        assertTrue(registry.getApplicationRegistrations().getRegistrationUris().isEmpty());
+
+        CompletableFuture<Void> committed = groupCommit.submit(r -> r.getApplicationRegistrations().add(toMockUri(flaky, "/ttl/empty/agents/app-2/")));
+        groupCommit.flush();
+        committed.get(5, TimeUnit.SECONDS);
+        assertEquals(1, groupCommit.getCommits());
+        assertEquals(1, registry.getApplicationRegistrations().getRegistrationUris().size());
+        assertTrue(written.get().contains("app-2"));
+        assertFalse(written.get().contains("app-1"));
+    }
+
+    @Test
+    @DisplayName("Restore a paged registry and its pages after a batch couldn't be written")
+    void restorePagedAfterFailedBatch() throws SaiException, SaiHttpNotFoundException, InterruptedException, ExecutionException, TimeoutException {
+        Map<String, String> resources = new ConcurrentHashMap<>();
+        resources.put("/paged/agents/", PAGED_REGISTRY);
+        resources.put("/paged/agents/page-1", EMPTY_PAGE);
+        AtomicInteger puts = new AtomicInteger();
+        MockWebServer paged = new MockWebServer();
+        // Keep whatever is PUT after the first write fails, and serve it back on GET
+        paged.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) {
+                String path = request.getPath();
+                if ("PUT".equals(request.getMethod())) {
+                    if (puts.incrementAndGet() == 1) { return new MockResponse().setResponseCode(500); }
+                    resources.put(path, request.getBody().readUtf8());
+                    return new MockResponse().setResponseCode(204);
+                }
+                String body = resources.get(path);
+                if (body == null) { return new MockResponse().setResponseCode(404); }
+                return new MockResponse().setResponseCode(200).setHeader("Content-Type", "text/turtle").setBody(body);
+            }
+        });
+        URI failedUri = toMockUri(paged, "/paged/agents/app-1/");
+        URI committedUri = toMockUri(paged, "/paged/agents/app-2/");
+        AgentRegistry registry = AgentRegistry.get(toMockUri(paged, "/paged/agents/"), saiSession);
+        assertTrue(registry.isPaged());
+        GroupCommit<AgentRegistry> groupCommit = new GroupCommit<>(registry, Duration.ofMinutes(1), 100, scheduler);
+        CompletableFuture<Void> failed = groupCommit.submit(r -> r.getApplicationRegistrations().add(failedUri));
+        groupCommit.flush();
+        assertThrows(ExecutionException.class, () -> failed.get(5, TimeUnit.SECONDS));
+        assertTrue(registry.getApplicationRegistrations().getRegistrationUris().isEmpty());
+        assertTrue(registry.getPages().getRegistrationUris(HAS_APPLICATION_REGISTRATION).isEmpty());
+        assertFalse(registry.getPages().isDirty());
+
+        // The change that was rolled back can be submitted again, and isn't written along with the next batch
+        CompletableFuture<Void> committed = groupCommit.submit(r -> r.getApplicationRegistrations().add(committedUri));
+        groupCommit.flush();
+        committed.get(5, TimeUnit.SECONDS);
+        assertEquals(1, groupCommit.getCommits());
+        assertTrue(resources.get("/paged/agents/page-1").contains("app-2"));
+        assertFalse(resources.get("/paged/agents/page-1").contains("app-1"));
+        assertEquals(List.of(committedUri), registry.reload().getApplicationRegistrations().getRegistrationUris());
+    }
+
+    @Test
+    @DisplayName("Fail to create a group commit with an empty batch")
+    void failToCreateWithEmptyBatch() throws SaiException, SaiHttpNotFoundException {
+        AgentRegistry registry = AgentRegistry.get(toMockUri(server, "/ttl/empty/agents/"), saiSession);
+        Duration window = Duration.ofMillis(10);
+        assertThrows(IllegalArgumentException.class, () -> new GroupCommit<>(registry, window, 0, scheduler));
+    }
+
+}
@@ -0,0 +1,89 @@
+package com.janeirodigital.sai.core.utils;
+
+import com.janeirodigital.sai.core.exceptions.SaiException;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InheritanceLinkerTests {
+
+    private static final URI PROJECT = URI.create("https://alice.example/grants/project");
+    private static final URI MILESTONE = URI.create("https://alice.example/grants/milestone");
+    private static final URI TASK = URI.create("https://alice.example/grants/task");
+    private static final URI ISSUE = URI.create("https://alice.example/grants/issue");
+    private static final URI MISSING = URI.create("https://alice.example/grants/missing");
+
+    @Test
+    @DisplayName("Link children to the parents they inherit from")
+    void linkChildren() throws SaiException {
+        Item project = new Item(PROJECT, null);
+        Item milestone = new Item(MILESTONE, PROJECT);
+        Item task = new Item(TASK, PROJECT);
+        Item issue = new Item(ISSUE, null);
+        InheritanceLinker.link(Arrays.asList(milestone, project, issue, task), Item::getUri, Item::getInheritsFrom, Item::addChild);
+        assertEquals(Arrays.asList(milestone, task), project.getChildren());
+        assertTrue(issue.getChildren().isEmpty());
+        assertTrue(milestone.getChildren().isEmpty());
+    }
+
+    @Test
+    @DisplayName("Link a large number of children")
+    void linkManyChildren() throws SaiException {
+        List<Item> items = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            URI parentUri = URI.create("https://alice.example/grants/parent-" + i);
+            items.add(new Item(parentUri, null));
+            for (int j = 0; j < 4; j++) { items.add(new Item(URI.create(parentUri + "-child-" + j), parentUri)); }
+        }
+        InheritanceLinker.link(items, Item::getUri, Item::getInheritsFrom, Item::addChild);
+        for (Item item : items) { assertEquals(item.getInheritsFrom() == null ? 4 : 0, item.getChildren().size()); }
+    }
+
+    @Test
+    @DisplayName("Fail to link an orphaned child")
+    void failToLinkOrphan() {
+        Item project = new Item(PROJECT, null);
+        Item milestone = new Item(MILESTONE, MISSING);
+        SaiException ex = assertThrows(SaiException.class, () -> InheritanceLinker.link(Arrays.asList(project, milestone), Item::getUri, Item::getInheritsFrom, Item::addChild));
+        assertTrue(ex.getMessage().contains("orphaned"));
+        assertTrue(project.getChildren().isEmpty());
+    }
+
+    @Test
+    @DisplayName("Fail to link cyclic children")
+    void failToLinkCycle() {
+        Item milestone = new Item(MILESTONE, TASK);
+        Item task = new Item(TASK, MILESTONE);
+        SaiException ex = assertThrows(SaiException.class, () -> InheritanceLinker.link(Arrays.asList(milestone, task), Item::getUri, Item::getInheritsFrom, Item::addChild));
+        assertTrue(ex.getMessage().startsWith("Cyclic inheritance"));
+        assertTrue(milestone.getChildren().isEmpty());
+    }
+
+    @Test
+    @DisplayName("Fail to link a child of a child")
+    void failToLinkNestedChild() {
+        Item project = new Item(PROJECT, null);
+        Item milestone = new Item(MILESTONE, PROJECT);
+        Item task = new Item(TASK, MILESTONE);
+        assertThrows(SaiException.class, () -> InheritanceLinker.link(Arrays.asList(project, milestone, task), Item::getUri, Item::getInheritsFrom, Item::addChild));
+        assertTrue(project.getChildren().isEmpty());
+    }
+
+    private static class Item {
+        private final URI uri;
+        private final URI inheritsFrom;
+        private final List<Item> children = new ArrayList<>();
+        Item(URI uri, URI inheritsFrom) { this.uri = uri; this.inheritsFrom = inheritsFrom; }
+        URI getUri() { return this.uri; }
+        URI getInheritsFrom() { return this.inheritsFrom; }
+        List<Item> getChildren() { return this.children; }
+        void addChild(Item child) { this.children.add(child); }
+    }
+
+}
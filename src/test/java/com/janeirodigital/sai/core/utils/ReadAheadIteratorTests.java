@@ -0,0 +1,107 @@
+package com.janeirodigital.sai.core.utils;
+
+import com.janeirodigital.sai.core.exceptions.SaiException;
+import com.janeirodigital.sai.core.exceptions.SaiRuntimeException;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReadAheadIteratorTests {
+
+    private static ExecutorService executor;
+    private static List<URI> uris;
+
+    @BeforeAll
+    static void beforeAll() {
+        executor = Executors.newFixedThreadPool(4);
+        uris = new ArrayList<>();
+        for (int i = 0; i < 20; i++) { uris.add(URI.create("https://alice.example/registries/agents/sa-" + i + "/")); }
+    }
+
+    @AfterAll
+    static void afterAll() { executor.shutdownNow(); }
+
+    @Test
+    @DisplayName("Read ahead and preserve order")
+    void readAheadInOrder() {
+        // Later fetches complete first, which must not change the order elements are returned in
+        RegistrationFetcher<URI> fetcher = uri -> {
+            sleep(20 - uris.indexOf(uri));
+            return uri;
+        };
+        ReadAheadIterator<URI> iterator = new ReadAheadIterator<>(uris.iterator(), fetcher, 5, executor);
+        List<URI> fetched = new ArrayList<>();
+        while (iterator.hasNext()) { fetched.add(iterator.next()); }
+        assertEquals(uris, fetched);
+        assertThrows(NoSuchElementException.class, () -> iterator.next());
+    }
+
+    @Test
+    @DisplayName("Fetch no more than the read-ahead window")
+    void readAheadWithinWindow() {
+        AtomicInteger fetches = new AtomicInteger();
+        ReadAheadIterator<URI> iterator = new ReadAheadIterator<>(uris.iterator(), uri -> { fetches.incrementAndGet(); return uri; }, 3, executor);
+        iterator.next();
+        assertTrue(iterator.getPending() <= 3);
+        iterator.close();
+        assertTrue(fetches.get() <= 4);
+    }
+
+    @Test
+    @DisplayName("Fail at the element that couldn't be fetched")
+    void failAtElement() {
+        URI failing = uris.get(3);
+        RegistrationFetcher<URI> fetcher = uri -> {
+            if (uri.equals(failing)) { throw new SaiException("Failed to get " + uri); }
+            return uri;
+        };
+        ReadAheadIterator<URI> iterator = new ReadAheadIterator<>(uris.iterator(), fetcher, 5, executor);
+        for (int i = 0; i < 3; i++) { assertEquals(uris.get(i), iterator.next()); }
+        SaiRuntimeException ex = assertThrows(SaiRuntimeException.class, () -> iterator.next());
+        assertTrue(ex.getCause() instanceof SaiException);
+        assertFalse(iterator.hasNext());
+        assertEquals(0, iterator.getPending());
+    }
+
+    @Test
+    @DisplayName("Cancel outstanding fetches when iteration stops early")
+    void cancelOnClose() throws InterruptedException {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch interrupted = new CountDownLatch(1);
+        RegistrationFetcher<URI> fetcher = uri -> {
+            if (uri.equals(uris.get(0))) { return uri; }
+            started.countDown();
+            try { Thread.sleep(10000); } catch (InterruptedException ex) { interrupted.countDown(); }
+            return uri;
+        };
+        try (ReadAheadIterator<URI> iterator = new ReadAheadIterator<>(uris.iterator(), fetcher, 2, executor)) {
+            assertEquals(uris.get(0), iterator.next());
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+        }
+        assertTrue(interrupted.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    @DisplayName("Fail to construct read-ahead iterator - invalid window")
+    void failToConstructInvalidWindow() {
+        assertThrows(IllegalArgumentException.class, () -> new ReadAheadIterator<>(uris.iterator(), uri -> uri, 0, executor));
+    }
+
+    private static void sleep(long millis) {
+        try { Thread.sleep(millis); } catch (InterruptedException ex) { Thread.currentThread().interrupt(); }
+    }
+
+}
@@ -0,0 +1,84 @@
+package com.janeirodigital.sai.core.utils;
+
+import com.janeirodigital.sai.core.exceptions.SaiException;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RegistrationIndexTests {
+
+    private static final URI BOB = URI.create("https://bob.example/id#me");
+    private static final URI CAROL = URI.create("https://carol.example/id#me");
+    private static final URI SA_1 = URI.create("https://alice.example/registries/agents/sa-1/");
+    private static final URI SA_2 = URI.create("https://alice.example/registries/agents/sa-2/");
+
+    @Test
+    @DisplayName("Index registrations by key")
+    void indexRegistrations() {
+        RegistrationIndex index = new RegistrationIndex();
+        index.put(BOB, SA_1);
+        index.put(CAROL, SA_2);
+        assertEquals(SA_1, index.get(BOB));
+        assertEquals(CAROL, index.getKey(SA_2));
+        assertTrue(index.isIndexed(SA_1));
+        assertEquals(2, index.size());
+    }
+
+    @Test
+    @DisplayName("Replace the key of an indexed registration")
+    void replaceIndexedKey() {
+        RegistrationIndex index = new RegistrationIndex();
+        index.put(BOB, SA_1);
+        index.put(CAROL, SA_1);
+        assertNull(index.get(BOB));
+        assertEquals(SA_1, index.get(CAROL));
+        index.put(CAROL, SA_2);
+        assertFalse(index.isIndexed(SA_1));
+        assertEquals(1, index.size());
+    }
+
+    @Test
+    @DisplayName("Remove and retain indexed registrations")
+    void removeIndexedRegistrations() {
+        RegistrationIndex index = new RegistrationIndex();
+        index.put(BOB, SA_1);
+        index.put(CAROL, SA_2);
+        index.removeRegistration(SA_1);
+        assertNull(index.get(BOB));
+        index.retainRegistrations(List.of(SA_1));
+        assertEquals(0, index.size());
+        index.put(BOB, SA_1);
+        index.clear();
+        assertFalse(index.isIndexed(SA_1));
+    }
+
+    @Test
+    @DisplayName("Store and load a registration index")
+    void storeAndLoadIndex() throws SaiException {
+        RegistrationIndex index = new RegistrationIndex();
+        index.put(BOB, SA_1);
+        index.put(CAROL, SA_2);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        index.store(out);
+        RegistrationIndex loaded = new RegistrationIndex();
+        loaded.load(new ByteArrayInputStream(out.toByteArray()));
+        assertEquals(SA_1, loaded.get(BOB));
+        assertEquals(SA_2, loaded.get(CAROL));
+    }
+
+    @Test
+    @DisplayName("Fail to load a registration index - invalid entries")
+    void failToLoadInvalidIndex() {
+        RegistrationIndex index = new RegistrationIndex();
+        ByteArrayInputStream in = new ByteArrayInputStream("not\\ a\\ uri=:::".getBytes(StandardCharsets.UTF_8));
+        assertThrows(SaiException.class, () -> index.load(in));
+    }
+
+}
@@ -8,19 +8,28 @@ import com.janeirodigital.sai.core.exceptions.SaiException;
 import com.janeirodigital.sai.core.http.HttpClientFactory;
 import com.janeirodigital.sai.core.sessions.SaiSession;
 import com.janeirodigital.sai.httputils.SaiHttpNotFoundException;
+import com.janeirodigital.sai.rdfutils.SaiRdfException;
 import okhttp3.mockwebserver.MockWebServer;
+import org.apache.jena.rdf.model.ModelFactory;
+import org.apache.jena.rdf.model.Resource;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 
 import java.net.URI;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
 import static com.janeirodigital.mockwebserver.DispatcherHelper.mockOnGet;
 import static com.janeirodigital.mockwebserver.MockWebServerHelper.toMockUri;
-import static org.junit.jupiter.api.Assertions.assertThrows;
-import static org.junit.jupiter.api.Assertions.assertTrue;
+import static com.janeirodigital.sai.core.vocabularies.InteropVocabulary.HAS_SOCIAL_AGENT_REGISTRATION;
+import static com.janeirodigital.sai.rdfutils.RdfUtils.getUriObjects;
+import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.mock;
 
 class RegistrationListTests {
@@ -51,6 +60,38 @@ class RegistrationListTests {
         for (URI added : newSaUris) { assertTrue(agentRegistry.getSocialAgentRegistrations().isPresent(added)); }
     }
 
+    @Test
+    @DisplayName("Keep registry graph in step with added and removed registrations")
+    void addRemoveRegistrationsInGraph() throws SaiException, SaiHttpNotFoundException, SaiAlreadyExistsException, SaiRdfException {
+        URI url = toMockUri(server, "/ttl/agents/");
+        URI saNewUri = toMockUri(server, "/ttl/agents/sa-66/");
+        URI saExistsUri = toMockUri(server, "/ttl/agents/sa-4/");
+        AgentRegistry agentRegistry = AgentRegistry.get(url, saiSession);
+        RegistrationList<?> registrations = agentRegistry.getSocialAgentRegistrations();
+        List<URI> original = new ArrayList<>(registrations.getRegistrationUris());
+        registrations.add(saNewUri);
+        registrations.remove(saExistsUri);
+        registrations.remove(toMockUri(server, "/ttl/agents/sa-99/"));
+        List<URI> linked = getUriObjects(agentRegistry.getResource(), HAS_SOCIAL_AGENT_REGISTRATION);
+        assertEquals(original.size(), linked.size());
+        assertTrue(linked.contains(saNewUri));
+        assertFalse(linked.contains(saExistsUri));
+        assertFalse(registrations.isPresent(saExistsUri));
+        // Insertion order is preserved, with new registrations at the end
+        List<URI> ordered = new ArrayList<>(registrations.getRegistrationUris());
+        assertEquals(saNewUri, ordered.get(ordered.size() - 1));
+    }
+
+    @Test
+    @DisplayName("Fail to add registrations - duplicated in the same batch")
+    void failToAddDuplicatedRegistrations() throws SaiException, SaiHttpNotFoundException {
+        URI url = toMockUri(server, "/ttl/agents/");
+        URI saNewUri = toMockUri(server, "/ttl/agents/sa-66/");
+        AgentRegistry agentRegistry = AgentRegistry.get(url, saiSession);
+        assertThrows(SaiAlreadyExistsException.class, () -> agentRegistry.getSocialAgentRegistrations().addAll(Arrays.asList(saNewUri, saNewUri)));
+        assertFalse(agentRegistry.getSocialAgentRegistrations().isPresent(saNewUri));
+    }
+
     @Test
     @DisplayName("Fail to add registrations - already exists")
     void failToAddExistingRegistrations() throws SaiException, SaiHttpNotFoundException {
@@ -62,4 +103,39 @@ class RegistrationListTests {
         assertThrows(SaiAlreadyExistsException.class, () -> agentRegistry.getSocialAgentRegistrations().addAll(existingSaUris));
     }
 
+    @Test
+    @DisplayName("Cancel registrations read ahead when iteration stops early")
+    void cancelReadAheadOnEarlyExit() throws SaiAlreadyExistsException, InterruptedException {
+        List<URI> uris = Arrays.asList(URI.create("https://data.example/registrations/1"), URI.create("https://data.example/registrations/2"),
+                                       URI.create("https://data.example/registrations/3"));
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch interrupted = new CountDownLatch(1);
+        Resource registry = ModelFactory.createDefaultModel().createResource("https://data.example/registry");
+        RegistrationList<URI> registrations = new RegistrationList<>(saiSession, registry, HAS_SOCIAL_AGENT_REGISTRATION) {
+            @Override
+            public URI find(URI targetUri) { return null; }
+            @Override
+            protected URI getRegistration(URI registrationUri) {
+                if (registrationUri.equals(uris.get(0))) { return registrationUri; }
+                started.countDown();
+                try { Thread.sleep(10000); } catch (InterruptedException ex) { interrupted.countDown(); }
+                return registrationUri;
+            }
+        };
+        registrations.addAll(uris);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            registrations.setReadAhead(2, executor);
+            try (CloseableIterator<URI> iterator = registrations.closeableIterator()) {
+                while (iterator.hasNext()) {
+                    if (iterator.next().equals(uris.get(0))) { break; }
+                }
+                assertTrue(started.await(5, TimeUnit.SECONDS));
+            }
+            assertTrue(interrupted.await(5, TimeUnit.SECONDS));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
 }
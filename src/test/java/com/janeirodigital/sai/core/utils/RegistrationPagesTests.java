@@ -0,0 +1,172 @@
+package com.janeirodigital.sai.core.utils;
+
+import com.janeirodigital.sai.authentication.AuthorizedSession;
+import com.janeirodigital.sai.core.agents.AgentRegistry;
+import com.janeirodigital.sai.core.exceptions.SaiAlreadyExistsException;
+import com.janeirodigital.sai.core.exceptions.SaiException;
+import com.janeirodigital.sai.core.exceptions.SaiRuntimeException;
+import com.janeirodigital.sai.core.http.HttpClientFactory;
+import com.janeirodigital.sai.core.sessions.SaiSession;
+import com.janeirodigital.sai.httputils.SaiHttpNotFoundException;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.net.URI;
+import java.util.*;
+
+import static com.janeirodigital.mockwebserver.MockWebServerHelper.toMockUri;
+import static com.janeirodigital.sai.core.vocabularies.InteropVocabulary.HAS_SOCIAL_AGENT_REGISTRATION;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+class RegistrationPagesTests {
+
+    private static final String INLINE_REGISTRY = "PREFIX interop: <http://www.w3.org/ns/solid/interop#>\n" +
+                                                  "<> a interop:AgentRegistry ;\n" +
+                                                  "  interop:hasSocialAgentRegistration <sa-1/>, <sa-2/>, <sa-3/> .";
+    private static final String LOOPING_REGISTRY = "PREFIX interop: <http://www.w3.org/ns/solid/interop#>\n" +
+                                                   "PREFIX as: <https://www.w3.org/ns/activitystreams#>\n" +
+                                                   "<> a interop:AgentRegistry ; as:first <page-1> .";
+    private static final String LOOPING_PAGE = "PREFIX as: <https://www.w3.org/ns/activitystreams#>\n" +
+                                               "<page-1> a as:CollectionPage ; as:next <page-1> .";
+
+    private SaiSession saiSession;
+    private MockWebServer server;
+    private Map<String, String> resources;
+    private List<String> puts;
+
+    @BeforeEach
+    void beforeEach() throws SaiException {
+        AuthorizedSession mockSession = mock(AuthorizedSession.class);
+        saiSession = new SaiSession(mockSession, new HttpClientFactory(false, false, false));
+        resources = Collections.synchronizedMap(new HashMap<>());
+        resources.put("/agents/", INLINE_REGISTRY);
+        resources.put("/looping/agents/", LOOPING_REGISTRY);
+        resources.put("/looping/agents/page-1", LOOPING_PAGE);
+        puts = Collections.synchronizedList(new ArrayList<>());
+        // Keep whatever is PUT, and serve it back on GET
+        server = new MockWebServer();
+        server.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) {
+                String path = request.getPath();
+                if ("PUT".equals(request.getMethod())) {
+                    puts.add(path);
+                    boolean created = resources.put(path, request.getBody().readUtf8()) == null;
+                    return new MockResponse().setResponseCode(created ? 201 : 204);
+                }
+                String body = resources.get(path);
+                if (body == null) { return new MockResponse().setResponseCode(404); }
+                return new MockResponse().setResponseCode(200).setHeader("Content-Type", "text/turtle").setBody(body);
+            }
+        });
+    }
+
+    @Test
+    @DisplayName("Move the registration links of a registry into pages")
+    void enablePaging() throws SaiException, SaiHttpNotFoundException {
+        AgentRegistry registry = AgentRegistry.get(toMockUri(server, "/agents/"), saiSession);
+        assertFalse(registry.isPaged());
+        registry.enablePaging(2);
+        registry.update();
+        // Two new pages and the registry itself, which now links to the first page instead of the registrations
+        assertEquals(3, puts.size());
+        assertEquals("/agents/", puts.get(2));
+        assertFalse(resources.get("/agents/").contains("sa-1"));
+
+        AgentRegistry reloaded = registry.reload();
+        assertTrue(reloaded.isPaged());
+        assertEquals(socialAgents("sa-1/", "sa-2/", "sa-3/"), new ArrayList<>(reloaded.getSocialAgentRegistrations().getRegistrationUris()));
+        assertEquals(2, reloaded.getPages().getPages().size());
+        assertTrue(reloaded.getApplicationRegistrations().isEmpty());
+    }
+
+    @Test
+    @DisplayName("Only load registration pages once they are needed")
+    void loadPagesLazily() throws SaiException, SaiHttpNotFoundException {
+        AgentRegistry registry = AgentRegistry.get(toMockUri(server, "/agents/"), saiSession);
+        registry.enablePaging(2);
+        registry.update();
+
+        int requests = server.getRequestCount();
+        AgentRegistry reloaded = registry.reload();
+        assertEquals(requests + 1, server.getRequestCount());
+        assertFalse(reloaded.getPages().isLoaded());
+        assertTrue(reloaded.getPages().getPages().isEmpty());
+        // Iterating the registration links only loads the pages it reaches
+        Iterator<URI> iterator = reloaded.getPages().iterator(HAS_SOCIAL_AGENT_REGISTRATION);
+        assertEquals(toMockUri(server, "/agents/sa-1/"), iterator.next());
+        assertEquals(1, reloaded.getPages().getPages().size());
+        assertEquals(requests + 2, server.getRequestCount());
+        assertEquals(socialAgents("sa-1/", "sa-2/", "sa-3/"), new ArrayList<>(reloaded.getSocialAgentRegistrations().getRegistrationUris()));
+        assertTrue(reloaded.getPages().isLoaded());
+        assertEquals(requests + 3, server.getRequestCount());
+    }
+
+    @Test
+    @DisplayName("Only write the last page when adding to a paged registry")
+    void addToPagedRegistry() throws SaiException, SaiHttpNotFoundException, SaiAlreadyExistsException {
+        AgentRegistry registry = AgentRegistry.get(toMockUri(server, "/agents/"), saiSession);
+        registry.enablePaging(2);
+        registry.update();
+        puts.clear();
+
+        AgentRegistry reloaded = registry.reload();
+        reloaded.enablePaging(2);
+        reloaded.getSocialAgentRegistrations().add(toMockUri(server, "/agents/sa-4/"));
+        reloaded.update();
+        assertEquals(1, puts.size());
+        assertEquals(reloaded.getPages().getPages().get(1).getUri().getPath(), puts.get(0));
+
+        // The last page is now full, so the next registration starts a new page linked from the previous one
+        puts.clear();
+        reloaded.getSocialAgentRegistrations().add(toMockUri(server, "/agents/sa-5/"));
+        reloaded.update();
+        assertEquals(2, puts.size());
+        assertFalse(puts.contains("/agents/"));
+        assertEquals(socialAgents("sa-1/", "sa-2/", "sa-3/", "sa-4/", "sa-5/"), new ArrayList<>(reloaded.reload().getSocialAgentRegistrations().getRegistrationUris()));
+    }
+
+    @Test
+    @DisplayName("Only write the page that changed when removing from a paged registry")
+    void removeFromPagedRegistry() throws SaiException, SaiHttpNotFoundException {
+        AgentRegistry registry = AgentRegistry.get(toMockUri(server, "/agents/"), saiSession);
+        registry.enablePaging(2);
+        registry.update();
+        puts.clear();
+
+        AgentRegistry reloaded = registry.reload();
+        reloaded.getSocialAgentRegistrations().remove(toMockUri(server, "/agents/sa-1/"));
+        assertTrue(reloaded.getPages().isDirty());
+        reloaded.update();
+        assertFalse(reloaded.getPages().isDirty());
+        assertEquals(List.of(reloaded.getPages().getPages().get(0).getUri().getPath()), puts);
+        assertEquals(socialAgents("sa-2/", "sa-3/"), new ArrayList<>(reloaded.reload().getSocialAgentRegistrations().getRegistrationUris()));
+    }
+
+    @Test
+    @DisplayName("Fail to load registration pages that link back to themselves")
+    void failToLoadLoopingPages() throws SaiException, SaiHttpNotFoundException {
+        AgentRegistry registry = AgentRegistry.get(toMockUri(server, "/looping/agents/"), saiSession);
+        assertThrows(SaiRuntimeException.class, () -> registry.getSocialAgentRegistrations().getRegistrationUris());
+    }
+
+    @Test
+    @DisplayName("Fail to use a page size of zero")
+    void failToUseEmptyPages() throws SaiException, SaiHttpNotFoundException {
+        AgentRegistry registry = AgentRegistry.get(toMockUri(server, "/agents/"), saiSession);
+        assertThrows(IllegalArgumentException.class, () -> registry.enablePaging(0));
+    }
+
+    private List<URI> socialAgents(String... paths) {
+        List<URI> uris = new ArrayList<>();
+        for (String path : paths) { uris.add(toMockUri(server, "/agents/" + path)); }
+        return uris;
+    }
+
+}